@@ -29,10 +29,12 @@
 import java.io.File;
 import java.io.IOException;
 import java.text.NumberFormat;
+import java.util.Locale;
 import java.util.zip.Deflater;
 
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.crawler.data.Cache;
+import net.yacy.kelondro.blob.Compressor;
 import net.yacy.search.Switchboard;
 import net.yacy.search.SwitchboardConstants;
 import net.yacy.server.serverObjects;
@@ -76,6 +78,17 @@ public class ConfigHTCache_p {
 					post.getLong("lockTimeout", SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT_DEFAULT)));
 			env.setConfig(SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT, newLockTimeout);
 			Cache.setLockTimeout(newLockTimeout);
+
+			/* Compression codec */
+			final Compressor.Codec newCodec = Compressor.Codec.parse(post.get("compressionCodec",
+					SwitchboardConstants.HTCACHE_COMPRESSION_CODEC_DEFAULT));
+			env.setConfig(SwitchboardConstants.HTCACHE_COMPRESSION_CODEC, newCodec.name().toLowerCase(Locale.ROOT));
+			Cache.setCompressionCodec(newCodec);
+
+			/* Size of the in-memory tier */
+			final long newHotTierSize = Math.max(0, post.getLong("hotTierSize", SwitchboardConstants.HTCACHE_HOT_TIER_SIZE_DEFAULT));
+			env.setConfig(SwitchboardConstants.HTCACHE_HOT_TIER_SIZE, newHotTierSize);
+			Cache.setHotTierSize(newHotTierSize * 1024L * 1024L);
         }
 
         if (post != null && post.containsKey("deletecomplete")) {
@@ -114,6 +127,10 @@ public class ConfigHTCache_p {
         
 		prop.put("lockTimeout", env.getConfigLong(SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT,
 				SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT_DEFAULT));
+		prop.put("lz4", Compressor.Codec.parse(env.getConfig(SwitchboardConstants.HTCACHE_COMPRESSION_CODEC,
+				SwitchboardConstants.HTCACHE_COMPRESSION_CODEC_DEFAULT)) == Compressor.Codec.LZ4 ? 1 : 0);
+		prop.put("hotTierSizeMax", env.getConfigLong(SwitchboardConstants.HTCACHE_HOT_TIER_SIZE,
+				SwitchboardConstants.HTCACHE_HOT_TIER_SIZE_DEFAULT));
         prop.put("actualCacheSize", Cache.getActualCacheSize() / 1024 / 1024);
         prop.put("actualCacheDocCount", Cache.getActualCacheDocCount());
         prop.put("docSizeAverage", Cache.getActualCacheDocCount() == 0 ? 0 : Cache.getActualCacheSize() / Cache.getActualCacheDocCount() / 1024);
@@ -124,6 +141,14 @@ public class ConfigHTCache_p {
         prop.put("hits", hits);
         prop.put("requests", totalRequests);
         prop.put("hitRate", NumberFormat.getPercentInstance().format(Cache.getHitRate()));
+        prop.put("hotTierHitRate", NumberFormat.getPercentInstance().format(Cache.getHotTierHitRate()));
+        prop.put("hotTierBytesServed", Cache.getHotTierBytesServed() / 1024);
+        prop.put("hotTierSize", Cache.getHotTierSize() / 1024);
+        prop.put("diskTierHitRate", NumberFormat.getPercentInstance().format(Cache.getDiskTierHitRate()));
+        prop.put("compressionBytesSaved", Cache.getCompressionBytesSaved() / 1024);
+        prop.put("admissionRejects", Cache.getAdmissionRejects());
+        prop.put("evicted", Cache.getEvictedCount());
+        prop.put("compacted", Cache.getCompactedCount());
         
         // return rewrite properties
         return prop;
@@ -33,12 +33,14 @@ import java.util.List;
 
 import net.yacy.cora.protocol.ConnectionInfo;
 import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.http.Jetty9HttpServerImpl;
+import net.yacy.http.TrafficClassHandler;
 import net.yacy.server.serverObjects;
 import net.yacy.server.serverSwitch;
 
 public final class Connections_p {
 
-    public static serverObjects respond(@SuppressWarnings("unused") final RequestHeader header, @SuppressWarnings("unused") final serverObjects post, @SuppressWarnings("unused") final serverSwitch env) {
+    public static serverObjects respond(@SuppressWarnings("unused") final RequestHeader header, @SuppressWarnings("unused") final serverObjects post, final serverSwitch env) {
         // return variable that accumulates replacements
         final serverObjects prop = new serverObjects();
 
@@ -62,6 +64,26 @@ public final class Connections_p {
         prop.putNum("numMax", ConnectionInfo.getServerMaxcount());
         prop.putNum("numActiveRunning", c);
 
+        // admission control per traffic class
+        c = 0;
+        if (env.getHttpServer() instanceof Jetty9HttpServerImpl) {
+            for (final TrafficClassHandler.Limit limit: ((Jetty9HttpServerImpl) env.getHttpServer()).getTrafficClassHandler().getLimits()) {
+                prop.put("trafficClass_" + c + "_name", limit.getTrafficClass().key());
+                prop.put("trafficClass_" + c + "_maxActive", limit.getMaxActive() == 0 ? "unlimited" : Integer.toString(limit.getMaxActive()));
+                prop.putNum("trafficClass_" + c + "_maxQueued", limit.getMaxQueued());
+                prop.putNum("trafficClass_" + c + "_active", limit.getActive());
+                prop.putNum("trafficClass_" + c + "_queued", limit.getQueued());
+                prop.putNum("trafficClass_" + c + "_completed", limit.getCompleted());
+                prop.putNum("trafficClass_" + c + "_rejected", limit.getRejected());
+                prop.putNum("trafficClass_" + c + "_timeouts", limit.getTimeouts());
+                prop.put("trafficClass_" + c + "_p50", limit.percentile(0.5));
+                prop.put("trafficClass_" + c + "_p95", limit.percentile(0.95));
+                prop.put("trafficClass_" + c + "_p99", limit.percentile(0.99));
+                c++;
+            }
+        }
+        prop.put("trafficClass", c);
+
         // client sessions
         // sorting: sort by initTime, decending
         allConnectionsSorted = new LinkedList<ConnectionInfo>(ConnectionInfo.getAllConnections());
@@ -32,6 +32,7 @@ import net.yacy.cora.federate.solr.connector.ShardSelection;
 import net.yacy.cora.federate.solr.connector.SolrConnector;
 import net.yacy.cora.federate.solr.instance.RemoteInstance;
 import net.yacy.cora.federate.solr.instance.ShardInstance;
+import net.yacy.cora.federate.solr.instance.ShardQueryExecutor;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.data.TransactionManager;
@@ -208,6 +209,32 @@ public class IndexFederated_p {
                 prop.put("table_list_" + i + "_size", size[i]);
             }
             prop.put("table_list", size.length);
+
+            // query latency of the shards
+            final ShardQueryExecutor.Latency[] latencies = ((ShardInstance) ((RemoteSolrConnector) solr).getInstance()).getLatencies();
+            dark = false;
+            for (int i = 0; i < latencies.length; i++) {
+                final ShardQueryExecutor.Latency latency = latencies[i];
+                prop.put("table_latency_" + i + "_dark", dark ? 1 : 0); dark = !dark;
+                prop.put("table_latency_" + i + "_url", urls.get(i));
+                prop.put("table_latency_" + i + "_count", latency.count());
+                prop.put("table_latency_" + i + "_p50", latency.percentile(0.5));
+                prop.put("table_latency_" + i + "_p95", latency.percentile(0.95));
+                prop.put("table_latency_" + i + "_p99", latency.percentile(0.99));
+                prop.put("table_latency_" + i + "_hedges", latency.hedges());
+                prop.put("table_latency_" + i + "_hedgeWins", latency.hedgeWins());
+                prop.put("table_latency_" + i + "_timeouts", latency.timeouts());
+                prop.put("table_latency_" + i + "_failures", latency.failures());
+                final long[] histogram = latency.histogram();
+                final StringBuilder h = new StringBuilder();
+                for (int b = 0; b < histogram.length; b++) {
+                    if (histogram[b] == 0) continue;
+                    if (h.length() > 0) h.append(", ");
+                    h.append(b == histogram.length - 1 ? "&gt;" + ShardQueryExecutor.BUCKETS[b - 1] : "&le;" + ShardQueryExecutor.BUCKETS[b]).append(':').append(histogram[b]);
+                }
+                prop.put("table_latency_" + i + "_histogram", h.toString());
+            }
+            prop.put("table_latency", latencies.length);
         }
 
 		prop.put(SwitchboardConstants.CORE_SERVICE_FULLTEXT + ".checked",
@@ -17,7 +17,6 @@
 // Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import net.yacy.cora.document.id.MultiProtocolURL;
@@ -35,19 +34,31 @@ public class IndexImportWarc_p {
         final serverObjects prop = new serverObjects();
         final Switchboard sb = (Switchboard) env;
 
-        if (WarcImporter.job != null && WarcImporter.job.isAlive()) {
-            // one import is running, no option to insert anything
+        if (!WarcImporter.jobs().isEmpty()) {
+            // imports are running, no option to insert anything
             prop.put("import", 1);
-            prop.put("import_thread", "running");
-            prop.put("import_warcfile", WarcImporter.job.source());
-            prop.put("import_count", WarcImporter.job.count());
-            prop.put("import_speed", WarcImporter.job.speed());
-            prop.put("import_runningHours", (WarcImporter.job.runningTime() / 60) / 60);
-            prop.put("import_runningMinutes", (WarcImporter.job.runningTime() / 60) % 60);
-            prop.put("import_remainingHours", (WarcImporter.job.remainingTime() / 60) / 60);
-            prop.put("import_remainingMinutes", (WarcImporter.job.remainingTime() / 60) % 60);
+            int i = 0;
+            for (final WarcImporter job: WarcImporter.jobs()) {
+                prop.put("import_jobs_" + i + "_thread", job.isAborted() ? "stopping" : "running");
+                prop.put("import_jobs_" + i + "_warcfile", job.source());
+                prop.put("import_jobs_" + i + "_startOffset", job.startOffset());
+                prop.put("import_jobs_" + i + "_count", job.count());
+                prop.put("import_jobs_" + i + "_speed", job.speed());
+                prop.put("import_jobs_" + i + "_readSpeed", job.readSpeed());
+                prop.put("import_jobs_" + i + "_byteSpeed", job.byteSpeed() / 1024);
+                prop.put("import_jobs_" + i + "_queueSize", job.queueSize());
+                prop.put("import_jobs_" + i + "_queueCapacity", job.queueCapacity());
+                prop.put("import_jobs_" + i + "_parsers", job.parsers());
+                prop.put("import_jobs_" + i + "_rejected", job.rejected());
+                prop.put("import_jobs_" + i + "_runningHours", (job.runningTime() / 60) / 60);
+                prop.put("import_jobs_" + i + "_runningMinutes", (job.runningTime() / 60) % 60);
+                prop.put("import_jobs_" + i + "_remainingHours", (job.remainingTime() / 60) / 60);
+                prop.put("import_jobs_" + i + "_remainingMinutes", (job.remainingTime() / 60) % 60);
+                i++;
+            }
+            prop.put("import_jobs", i);
             if (post != null && post.containsKey("abort")) {
-                WarcImporter.job.quit();
+                WarcImporter.quitAll();
             }
         } else {
             prop.put("import", 0);
@@ -61,8 +72,8 @@ public class IndexImportWarc_p {
                                 WarcImporter wi = new WarcImporter(sourcefile);
                                 wi.start();
                                 prop.put("import_thread", "started");
-                            } catch (FileNotFoundException ex) {
-                                prop.put("import_thread", "Error: file not found [" + filename + "]");
+                            } catch (IOException ex) {
+                                prop.put("import_thread", "Error: cannot read file [" + filename + "]");
                             }
                             prop.put("import", 1);
                             prop.put("import_warcfile", filename);
@@ -88,12 +99,22 @@ public class IndexImportWarc_p {
                         }
                     }
 
-                    prop.put("import_count", 0);
-                    prop.put("import_speed", 0);
-                    prop.put("import_runningHours", 0);
-                    prop.put("import_runningMinutes", 0);
-                    prop.put("import_remainingHours", 0);
-                    prop.put("import_remainingMinutes", 0);
+                    prop.put("import_jobs", 1);
+                    prop.put("import_jobs_0_thread", prop.get("import_thread", ""));
+                    prop.put("import_jobs_0_warcfile", prop.get("import_warcfile", ""));
+                    prop.put("import_jobs_0_startOffset", 0);
+                    prop.put("import_jobs_0_count", 0);
+                    prop.put("import_jobs_0_speed", 0);
+                    prop.put("import_jobs_0_readSpeed", 0);
+                    prop.put("import_jobs_0_byteSpeed", 0);
+                    prop.put("import_jobs_0_queueSize", 0);
+                    prop.put("import_jobs_0_queueCapacity", 0);
+                    prop.put("import_jobs_0_parsers", 0);
+                    prop.put("import_jobs_0_rejected", 0);
+                    prop.put("import_jobs_0_runningHours", 0);
+                    prop.put("import_jobs_0_runningMinutes", 0);
+                    prop.put("import_jobs_0_remainingHours", 0);
+                    prop.put("import_jobs_0_remainingMinutes", 0);
                 }
             }
         }
@@ -36,6 +36,9 @@ import org.apache.solr.search.SolrCache;
 import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.http.servlets.ResultPageCache;
+import net.yacy.http.servlets.StaticResourceCache;
+import net.yacy.http.servlets.YaCyDefaultServlet;
 import net.yacy.kelondro.index.RAMIndex;
 import net.yacy.kelondro.table.Table;
 import net.yacy.kelondro.table.Table.TableStatistics;
@@ -239,6 +242,30 @@ public class PerformanceMemory_p {
         prop.putNum("searchevent.miss", SearchEventCache.cacheMiss);
         prop.putNum("searchevent.insert", SearchEventCache.cacheInsert);
         prop.putNum("searchevent.delete", SearchEventCache.cacheDelete);
+
+        final StaticResourceCache staticCache = YaCyDefaultServlet.getStaticResourceCache();
+        prop.put("staticcache", staticCache == null ? 0 : 1);
+        if (staticCache != null) {
+            prop.putNum("staticcache_size", staticCache.size());
+            prop.put("staticcache_mem", Formatter.bytesToString(staticCache.bytes()));
+            prop.putNum("staticcache_hit", staticCache.hits());
+            prop.putNum("staticcache_miss", staticCache.misses());
+            prop.put("staticcache_sent", Formatter.bytesToString(staticCache.sentBytes()));
+            prop.put("staticcache_saved", Formatter.bytesToString(staticCache.savedBytes()));
+            prop.putNum("staticcache_cpu", staticCache.savedCompressionTime());
+        }
+
+        final ResultPageCache resultCache = YaCyDefaultServlet.getResultPageCache();
+        prop.put("resultcache", resultCache == null ? 0 : 1);
+        if (resultCache != null) {
+            prop.putNum("resultcache_size", resultCache.size());
+            prop.put("resultcache_mem", Formatter.bytesToString(resultCache.bytes()));
+            prop.putNum("resultcache_ttl", resultCache.ttl() / 1000);
+            prop.putNum("resultcache_hit", resultCache.hits());
+            prop.putNum("resultcache_joined", resultCache.joined());
+            prop.putNum("resultcache_miss", resultCache.misses());
+            prop.put("resultcache_sent", Formatter.bytesToString(resultCache.sentBytes()));
+        }
         // return rewrite values for templates
         return prop;
     }
@@ -31,6 +31,7 @@ import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.Memory;
 import net.yacy.crawler.CrawlSwitchboard;
 import net.yacy.crawler.data.CrawlProfile;
+import net.yacy.crawler.retrieval.AsyncHTTPLoader;
 import net.yacy.kelondro.index.RowHandleSet;
 import net.yacy.kelondro.io.ByteCount;
 import net.yacy.kelondro.util.MemoryControl;
@@ -95,6 +96,14 @@ public class status_p {
         // loader queue
         prop.putNum("loaderSize", sb.crawlQueues.activeWorkerEntries().size());
         prop.putNum("loaderMax", sb.getConfigLong(SwitchboardConstants.CRAWLER_THREADS_ACTIVE_MAX, 10));
+        final AsyncHTTPLoader asyncLoader = sb.crawlQueues.asyncLoader();
+        prop.putNum("loaderAsyncInflight", asyncLoader == null ? 0 : asyncLoader.inFlight());
+        prop.putNum("loaderAsyncQueued", asyncLoader == null ? 0 : asyncLoader.queued());
+        prop.putNum("loaderAsyncDelayed", asyncLoader == null ? 0 : asyncLoader.delayed());
+        prop.putNum("loaderAsyncHosts", asyncLoader == null ? 0 : asyncLoader.hosts());
+        prop.putNum("loaderCoalesced", sb.loader.coalescedLoads());
+        prop.putNum("loaderCoalescedTimeouts", sb.loader.coalescedTimeouts());
+        prop.putNum("loaderCoalescedSaved", sb.loader.coalescedTimeSaved());
 
         //local crawl queue
         prop.putNum("localCrawlSize", sb.getThread(SwitchboardConstants.CRAWLJOB_LOCAL_CRAWL).getJobCount());
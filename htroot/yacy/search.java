@@ -52,8 +52,8 @@ import net.yacy.cora.storage.HandleSet;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.gui.Audio;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
+import net.yacy.kelondro.data.word.IndexAbstract;
 import net.yacy.kelondro.data.word.WordReference;
-import net.yacy.kelondro.data.word.WordReferenceFactory;
 import net.yacy.kelondro.data.word.WordReferenceRow;
 import net.yacy.kelondro.index.RowHandleSet;
 import net.yacy.kelondro.rwi.ReferenceContainer;
@@ -111,6 +111,7 @@ public final class search {
         final String  exclude= post.get("exclude", "");// a string of word hashes that shall not be within the search result
         final String  urls   = post.get("urls", "");         // a string of url hashes that are preselected for the search: no other may be returned
         final String  abstracts = post.get("abstracts", "");  // a string of word hashes for abstracts that shall be generated, or 'auto' (for maxcount-word), or '' (for none)
+        final boolean binaryAbstracts = "binary".equals(post.get("abstractformat", "")); // the requesting peer reads the binary abstract format
         final int     count  = Math.min((int) sb.getConfigLong(SwitchboardConstants.REMOTESEARCH_MAXCOUNT_DEFAULT, 10), post.getInt("count", 10)); // maximum number of wanted results
         final long    maxtime = Math.min((int) sb.getConfigLong(SwitchboardConstants.REMOTESEARCH_MAXTIME_DEFAULT, 3000), post.getLong("time", 3000)); // maximum waiting time
         final int     maxdist= post.getInt("maxdist", Integer.MAX_VALUE);
@@ -273,11 +274,7 @@ public final class search {
                     wordhash = entry.getKey();
                     final ReferenceContainer<WordReference> container = entry.getValue();
                     indexabstractContainercount += container.size();
-                    indexabstract.append("indexabstract.");
-                    indexabstract.append(ASCII.String(wordhash));
-                    indexabstract.append("=");
-                    indexabstract.append(WordReferenceFactory.compressIndex(container, null, 1000).toString());
-                    indexabstract.append(serverCore.CRLF_STRING);
+                    appendAbstract(indexabstract, wordhash, IndexAbstract.compress(container, null, 1000), binaryAbstracts);
                 }
             }
 
@@ -354,7 +351,7 @@ public final class search {
                     while (j.hasNext()) {
                         wordhash = j.next();
                         indexabstractContainercount += theSearch.abstractsCount(wordhash);
-                        indexabstract.append("indexabstract.").append(ASCII.String(wordhash)).append("=").append(theSearch.abstractsString(wordhash)).append(serverCore.CRLF_STRING);
+                        appendAbstract(indexabstract, wordhash, theSearch.getAbstract(wordhash), binaryAbstracts);
                     }
                 }
                 prop.put("indexcount", indexcount.toString());
@@ -367,11 +364,11 @@ public final class search {
                 } else if (abstracts.equals("auto")) {
                     // automatically attach the index abstract for the index that has the most references. This should be our target dht position
                     indexabstractContainercount += theSearch.abstractsCount(theSearch.getAbstractsMaxCountHash());
-                    indexabstract.append("indexabstract.").append(ASCII.String(theSearch.getAbstractsMaxCountHash())).append("=").append(theSearch.abstractsString(theSearch.getAbstractsMaxCountHash())).append(serverCore.CRLF_STRING);
+                    appendAbstract(indexabstract, theSearch.getAbstractsMaxCountHash(), theSearch.getAbstract(theSearch.getAbstractsMaxCountHash()), binaryAbstracts);
                     if ((theSearch.getAbstractsNearDHTHash() != null) && (!(Arrays.equals(theSearch.getAbstractsNearDHTHash(), theSearch.getAbstractsMaxCountHash())))) {
                         // in case that the neardhthash is different from the maxcounthash attach also the neardhthash-container
                         indexabstractContainercount += theSearch.abstractsCount(theSearch.getAbstractsNearDHTHash());
-                        indexabstract.append("indexabstract.").append(ASCII.String(theSearch.getAbstractsNearDHTHash())).append("=").append(theSearch.abstractsString(theSearch.getAbstractsNearDHTHash())).append(serverCore.CRLF_STRING);
+                        appendAbstract(indexabstract, theSearch.getAbstractsNearDHTHash(), theSearch.getAbstract(theSearch.getAbstractsNearDHTHash()), binaryAbstracts);
                     }
                     //System.out.println("DEBUG-ABSTRACTGENERATION: maxcounthash = " + maxcounthash);
                     //System.out.println("DEBUG-ABSTRACTGENERATION: neardhthash  = "+ neardhthash);
@@ -458,4 +455,13 @@ public final class search {
         return prop;
     }
 
+    /**
+     * append an index abstract in the text format or, if the requesting peer reads it, in the binary format
+     */
+    private static void appendAbstract(final StringBuilder indexabstract, final byte[] wordhash, final IndexAbstract ia, final boolean binary) {
+        if (ia == null) return;
+        indexabstract.append("indexabstract.").append(ASCII.String(wordhash)).append('=');
+        indexabstract.append(binary ? ia.exportB64() : ia.toString()).append(serverCore.CRLF_STRING);
+    }
+
 }
@@ -316,6 +316,7 @@ public class yacysearch {
                 snippetFetchStrategy = null;
             }
             block = true;
+            prop.incomplete();
             ConcurrentLog.warn("LOCAL_SEARCH", "ACCESS CONTROL: BLACKLISTED CLIENT FROM "
                 + client
                 + " gets no permission to search");
@@ -332,6 +333,7 @@ public class yacysearch {
                 if ( global ) {
                     if ( accInTenMinutes >= 60 || accInOneMinute >= 6 || accInThreeSeconds >= 1 ) {
                         global = false;
+                        prop.incomplete(); // other clients must not get the local result of a global search
                         ConcurrentLog.warn("LOCAL_SEARCH", "ACCESS CONTROL: CLIENT FROM "
                             + client
                             + ": "
@@ -348,6 +350,7 @@ public class yacysearch {
                 if ( snippetFetchStrategy != null && snippetFetchStrategy.isAllowedToFetchOnline() ) {
                     if ( accInTenMinutes >= 20 || accInOneMinute >= 4 || accInThreeSeconds >= 1 ) {
                         snippetFetchStrategy = CacheStrategy.CACHEONLY;
+                        prop.incomplete();
                         ConcurrentLog.warn("LOCAL_SEARCH", "ACCESS CONTROL: CLIENT FROM "
                             + client
                             + ": "
@@ -363,6 +366,7 @@ public class yacysearch {
                 // general load protection
                 if ( accInTenMinutes >= 3000 || accInOneMinute >= 600 || accInThreeSeconds >= 60 ) {
                     block = true;
+                    prop.incomplete();
                     ConcurrentLog.warn("LOCAL_SEARCH", "ACCESS CONTROL: CLIENT FROM "
                         + client
                         + ": "
@@ -151,7 +151,9 @@ public class yacysearchitem {
 				QueryParams.navurlBase(RequestHeader.FileType.HTML, theSearch.query, null, false, authenticated)
 						.toString());
         prop.put("statistics_localQuery", theSearch.query.isLocal() ? "1" : "0");
-        prop.put("statistics_feedRunning", Boolean.toString(!theSearch.isFeedingFinished()));
+        final boolean feedRunning = !theSearch.isFeedingFinished();
+        prop.put("statistics_feedRunning", Boolean.toString(feedRunning));
+        if (feedRunning) prop.incomplete(); // more results may arrive, do not cache a page including this item
         final String target_special_pattern = sb.getConfig(SwitchboardConstants.SEARCH_TARGET_SPECIAL_PATTERN, "");
         final boolean noreferrer = sb.getConfigBool(SwitchboardConstants.SEARCH_RESULT_NOREFERRER, SwitchboardConstants.SEARCH_RESULT_NOREFERRER_DEFAULT);
 
@@ -98,6 +98,7 @@ public class yacysearchtrailer {
             return prop;
         }
         final RequestHeader.FileType fileType = header.fileType();
+        if (!theSearch.isFeedingFinished()) prop.incomplete(); // the navigators may still change
         
         /* Add information about the current navigators generation (number of updates since their initialization) */
         prop.put("nav-generation", theSearch.getNavGeneration());
@@ -0,0 +1,376 @@
+/**
+ *  TermDictionary
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.document;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * A dictionary of the indexed terms with their frequencies which finds the terms within an edit distance
+ * of one (changing, adding or deleting one letter and reversing two consecutive letters) of a given word.
+ * This is a symmetric delete index: for each term the hashes of the term and of all variants with one
+ * deleted letter are stored with the term number. A misspelled word has a variant in common with all terms
+ * within the edit distance, so a lookup needs only the hashes of the word and its deletions, which are
+ * looked up with a binary search in sorted arrays. The candidates are checked with the real edit distance.
+ * New terms are collected in a small buffer which is merged into a sorted array of recent postings when it
+ * is full; that array is merged into the large sorted array when it reaches an eighth of its size, so the
+ * large array is copied rarely.
+ */
+public class TermDictionary {
+
+    private final static ConcurrentLog log = new ConcurrentLog(TermDictionary.class.getName());
+
+    public static final int MIN_TERM_LENGTH = 3;
+    public static final int MAX_TERM_LENGTH = 32;
+    private static final int BUFFER_SIZE = 1 << 14;
+    private static final String COMPLETE_MARK = "#complete";
+
+    private final int maxTerms;
+    private String[] terms;
+    private int[] frequencies;
+    private int[] table; // open addressing table of term numbers + 1, 0 is a free slot
+    private int size;
+    private long[] postings; // sorted, variant hash << 32 | term number
+    private long[] recent;   // sorted, the postings which were added after the last merge into postings
+    private long[] buffer;   // unsorted postings of new terms
+    private int bufferSize;
+    private long changes;    // the number of counted terms since the creation of the dictionary
+    private volatile boolean complete; // true if the dictionary contains the terms of all indexed documents
+
+    /**
+     * @param maxTerms the maximum number of terms; when this is reached new terms are not added any more
+     */
+    public TermDictionary(final int maxTerms) {
+        this.maxTerms = maxTerms;
+        clear();
+    }
+
+    public synchronized void clear() {
+        this.complete = false;
+        this.changes++;
+        this.terms = new String[1024];
+        this.frequencies = new int[1024];
+        this.table = new int[2048];
+        this.size = 0;
+        this.postings = new long[0];
+        this.recent = new long[0];
+        this.buffer = new long[BUFFER_SIZE];
+        this.bufferSize = 0;
+    }
+
+    /**
+     * @return the number of terms
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return true if the dictionary contains the terms of all indexed documents, not only of the documents
+     *   which were indexed since the dictionary was created
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    public void setComplete(final boolean complete) {
+        synchronized (this) {
+            if (this.complete != complete) this.changes++;
+        }
+        this.complete = complete;
+    }
+
+    /**
+     * @return a number which changes with each change of the dictionary, to find out if it must be saved
+     */
+    public synchronized long changes() {
+        return this.changes;
+    }
+
+    /**
+     * count a term one more time, i.e. for each document where the term appears
+     * @param term a word in lower case
+     */
+    public void inc(final String term) {
+        inc(term, 1);
+    }
+
+    public void inc(final Collection<String> terms) {
+        synchronized (this) {
+            for (final String term: terms) incUnsynchronized(term, 1);
+        }
+    }
+
+    public synchronized void inc(final String term, final int count) {
+        incUnsynchronized(term, count);
+    }
+
+    /**
+     * set the frequency of a term to at least the given count
+     */
+    public synchronized void raise(final String term, final int count) {
+        if (term == null) return;
+        final int t = this.table[slot(term)];
+        final int frequency = t == 0 ? 0 : this.frequencies[t - 1];
+        if (frequency < count) incUnsynchronized(term, count - frequency);
+    }
+
+    private void incUnsynchronized(final String term, final int count) {
+        if (term == null || term.length() < MIN_TERM_LENGTH || term.length() > MAX_TERM_LENGTH) return;
+        this.changes++;
+        int slot = slot(term);
+        if (this.table[slot] != 0) {
+            final int t = this.table[slot] - 1;
+            this.frequencies[t] = (int) Math.min(Integer.MAX_VALUE, (long) this.frequencies[t] + count);
+            return;
+        }
+        if (this.size >= this.maxTerms) return;
+        if (this.size == this.terms.length) {
+            this.terms = Arrays.copyOf(this.terms, this.size * 2);
+            this.frequencies = Arrays.copyOf(this.frequencies, this.size * 2);
+        }
+        if (2 * (this.size + 1) > this.table.length) {
+            rehash();
+            slot = slot(term);
+        }
+        final int t = this.size++;
+        this.terms[t] = term;
+        this.frequencies[t] = count;
+        this.table[slot] = t + 1;
+        final int len = term.length();
+        for (int skip = -1; skip < len; skip++) {
+            if (this.bufferSize == this.buffer.length) merge();
+            this.buffer[this.bufferSize++] = ((long) hash(term, skip) << 32) | t;
+        }
+    }
+
+    /**
+     * @return the frequency of the term or zero if it is not known
+     */
+    public synchronized int get(final String term) {
+        if (term == null) return 0;
+        final int t = this.table[slot(term)];
+        return t == 0 ? 0 : this.frequencies[t - 1];
+    }
+
+    /**
+     * find the terms within an edit distance of one of the given word
+     * @param word the (misspelled) word, in lower case
+     * @param maxCount the maximum number of results
+     * @return the terms, most frequent first, without the word itself
+     */
+    public List<String> similar(final String word, final int maxCount) {
+        final List<String> result = new ArrayList<String>();
+        if (word == null || word.length() < MIN_TERM_LENGTH - 1 || word.length() > MAX_TERM_LENGTH + 1) return result;
+        final int len = word.length();
+        final int[] hashes = new int[len + 1];
+        for (int skip = -1; skip < len; skip++) hashes[skip + 1] = hash(word, skip);
+        final List<String> found = new ArrayList<String>();
+        final List<Integer> foundFrequency = new ArrayList<Integer>();
+        synchronized (this) {
+            final int[] candidates = new int[256];
+            int c = 0;
+            for (final int h: hashes) {
+                c = addCandidates(this.postings, h, candidates, c);
+                c = addCandidates(this.recent, h, candidates, c);
+                // buffered postings
+                for (int i = 0; i < this.bufferSize; i++) {
+                    if ((int) (this.buffer[i] >> 32) == h) c = addCandidate(candidates, c, (int) this.buffer[i]);
+                }
+            }
+            for (int i = 0; i < c; i++) {
+                final String term = this.terms[candidates[i]];
+                if (term.equals(word) || !withinOneEdit(word, term)) continue;
+                found.add(term);
+                foundFrequency.add(this.frequencies[candidates[i]]);
+            }
+        }
+        final Integer[] order = new Integer[found.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+                return foundFrequency.get(o2.intValue()).compareTo(foundFrequency.get(o1.intValue()));
+            }
+        });
+        for (int i = 0; i < order.length && result.size() < maxCount; i++) result.add(found.get(order[i].intValue()));
+        return result;
+    }
+
+    private static int addCandidates(final long[] sorted, final int h, final int[] candidates, int c) {
+        int p = Arrays.binarySearch(sorted, (long) h << 32);
+        if (p < 0) p = -p - 1;
+        while (p < sorted.length && (int) (sorted[p] >> 32) == h) c = addCandidate(candidates, c, (int) sorted[p++]);
+        return c;
+    }
+
+    private static int addCandidate(final int[] candidates, final int c, final int t) {
+        for (int i = 0; i < c; i++) if (candidates[i] == t) return c;
+        if (c == candidates.length) return c; // enough candidates
+        candidates[c] = t;
+        return c + 1;
+    }
+
+    /**
+     * check if two words differ by changing, adding or deleting one letter or by reversing two consecutive letters
+     */
+    public static boolean withinOneEdit(final String a, final String b) {
+        final int la = a.length(), lb = b.length();
+        if (Math.abs(la - lb) > 1) return false;
+        int i = 0;
+        while (i < la && i < lb && a.charAt(i) == b.charAt(i)) i++;
+        if (la == lb) {
+            if (i == la) return true;
+            // one changed letter
+            if (a.regionMatches(i + 1, b, i + 1, la - i - 1)) return true;
+            // two reversed letters
+            return i + 1 < la && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i) && a.regionMatches(i + 2, b, i + 2, la - i - 2);
+        }
+        // one added or deleted letter
+        if (la > lb) return a.regionMatches(i + 1, b, i, lb - i);
+        return b.regionMatches(i + 1, a, i, la - i);
+    }
+
+    /**
+     * @param skip the position of the letter which is left out or -1 for the whole word
+     */
+    private static int hash(final String s, final int skip) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < s.length(); i++) {
+            if (i == skip) continue;
+            h ^= s.charAt(i);
+            h *= 0x01000193;
+        }
+        return h;
+    }
+
+    private int slot(final String term) {
+        final int mask = this.table.length - 1;
+        int h = term.hashCode() * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & mask;
+        int t;
+        while ((t = this.table[i]) != 0) {
+            if (this.terms[t - 1].equals(term)) return i;
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rehash() {
+        this.table = new int[this.table.length * 2];
+        for (int t = 0; t < this.size; t++) this.table[slot(this.terms[t])] = t + 1;
+    }
+
+    private void merge() {
+        if (this.bufferSize == 0) return;
+        final long[] b = Arrays.copyOf(this.buffer, this.bufferSize);
+        Arrays.sort(b);
+        this.recent = merge(this.recent, b);
+        this.bufferSize = 0;
+        if (this.recent.length > Math.max(4 * BUFFER_SIZE, this.postings.length / 8)) {
+            this.postings = merge(this.postings, this.recent);
+            this.recent = new long[0];
+        }
+    }
+
+    private static long[] merge(final long[] a, final long[] b) {
+        final long[] merged = new long[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) merged[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+        while (i < a.length) merged[k++] = a[i++];
+        while (j < b.length) merged[k++] = b[j++];
+        return merged;
+    }
+
+    /**
+     * write all terms with their frequencies as gzipped text lines: term tab frequency; a complete dictionary
+     * starts with the line {@value #COMPLETE_MARK}
+     */
+    public void save(final File file) throws IOException {
+        final File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(tmp)), StandardCharsets.UTF_8));
+        try {
+            synchronized (this) {
+                if (this.complete) {
+                    writer.write(COMPLETE_MARK);
+                    writer.write('\n');
+                }
+                for (int t = 0; t < this.size; t++) {
+                    writer.write(this.terms[t]);
+                    writer.write('\t');
+                    writer.write(Integer.toString(this.frequencies[t]));
+                    writer.write('\n');
+                }
+            }
+        } finally {
+            writer.close();
+        }
+        if (file.exists() && !file.delete()) throw new IOException("cannot delete " + file);
+        if (!tmp.renameTo(file)) throw new IOException("cannot rename " + tmp + " to " + file);
+    }
+
+    /**
+     * add the terms of a file which was written with {@link #save(File)}
+     */
+    public void load(final File file) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8));
+        try {
+            String line;
+            synchronized (this) {
+                while ((line = reader.readLine()) != null) {
+                    if (COMPLETE_MARK.equals(line)) {
+                        this.complete = true;
+                        continue;
+                    }
+                    final int p = line.indexOf('\t');
+                    if (p <= 0) continue;
+                    try {
+                        incUnsynchronized(line.substring(0, p), Integer.parseInt(line.substring(p + 1)));
+                    } catch (final NumberFormatException e) {
+                        log.warn("bad line in " + file + ": " + line);
+                    }
+                }
+                merge();
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -222,6 +222,13 @@ public class WordCache {
         }
     }
 
+    public static void learn(final String word) {
+        if (word == null || word.length() < commonWordsMinLength) {
+            return;
+        }
+        learn(new StringBuilder(word));
+    }
+
     public static void learn(Collection<String> wordset) {
         for (String s: wordset) {
             learn(new StringBuilder(s));
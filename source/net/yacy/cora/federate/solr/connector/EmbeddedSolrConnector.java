@@ -188,6 +188,20 @@ public class EmbeddedSolrConnector extends SolrServerConnector implements SolrCo
         return numDocs;
     }
 
+    /**
+     * get the version of the index which is visible to searches; the version changes with each commit
+     * which opens a new searcher, including the automatic soft commits of solr
+     * @return the version of the index reader of the current searcher
+     */
+    public long getIndexVersion() {
+        RefCounted<SolrIndexSearcher> refCountedIndexSearcher = this.core.getSearcher();
+        try {
+            return refCountedIndexSearcher.get().getIndexReader().getVersion();
+        } finally {
+            refCountedIndexSearcher.decref();
+        }
+    }
+
     /**
      * get a new query request. MUST be closed after usage using close()
      * @param params
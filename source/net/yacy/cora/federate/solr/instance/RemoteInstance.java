@@ -274,6 +274,13 @@ public class RemoteInstance implements SolrInstance {
 		return result;
 	}
 
+    /**
+     * @return the connection timeout in milliseconds
+     */
+    public int getTimeout() {
+        return this.timeout;
+    }
+
     @Override
     public int hashCode() {
         return this.solrurl.hashCode();
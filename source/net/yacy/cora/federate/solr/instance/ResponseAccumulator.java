@@ -20,14 +20,34 @@
 
 package net.yacy.cora.federate.solr.instance;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
 
+/**
+ * Combination of the responses of several shards to the same query. Each shard delivers its documents
+ * in the requested sort order; the documents are merged with a priority queue over the shard lists and
+ * only the requested page is put into the combined response. Facet counts are summed up term by term
+ * as the responses are added.
+ */
 public class ResponseAccumulator {
 
     final SimpleOrderedMap<Object> fieldsAcc;
@@ -35,16 +55,40 @@ public class ResponseAccumulator {
     final SimpleOrderedMap<Object> facet_countsAcc;
     final SimpleOrderedMap<Object> highlightingAcc;
     final SimpleOrderedMap<Object> headerAcc;
-    final SolrDocumentList resultsAcc;
+    final List<SolrDocumentList> results;
+    final Map<String, Map<String, Long>> facet_fieldsAcc, facet_rangesAcc;
+    final Map<String, Long> facet_queriesAcc;
+    final Map<String, SimpleOrderedMap<Object>> facet_rangesOther;
+    final SolrParams params;
+    final Comparator<SolrDocument> order;
+    long numFound;
+    float maxScore;
+    boolean facetFields;
 
     public ResponseAccumulator() {
+        this(new ModifiableSolrParams());
+    }
+
+    /**
+     * @param params the query parameters which were sent to the shards; the sort, start and rows parameters
+     *   define the merged document list, the facet parameters the merged facets
+     */
+    public ResponseAccumulator(final SolrParams params) {
         this.fieldsAcc = new SimpleOrderedMap<Object>();
         this.index_countsAcc = new SimpleOrderedMap<Object>();
         this.facet_countsAcc = new SimpleOrderedMap<Object>();
         this.highlightingAcc = new SimpleOrderedMap<Object>();
         this.headerAcc = new SimpleOrderedMap<Object>();
-        this.resultsAcc = new SolrDocumentList();
-        
+        this.results = new ArrayList<SolrDocumentList>();
+        this.facet_fieldsAcc = new LinkedHashMap<String, Map<String, Long>>();
+        this.facet_rangesAcc = new LinkedHashMap<String, Map<String, Long>>();
+        this.facet_queriesAcc = new LinkedHashMap<String, Long>();
+        this.facet_rangesOther = new LinkedHashMap<String, SimpleOrderedMap<Object>>();
+        this.params = params;
+        this.order = sortOrder(params.get(CommonParams.SORT));
+        this.numFound = 0;
+        this.maxScore = 0f;
+        this.facetFields = false;
     }
     
     public void addResponse(NamedList<Object> response) {
@@ -62,13 +106,12 @@ public class ResponseAccumulator {
         	}
         }
         
-        // accumulate the results
+        // collect the results, they are merged when the accumulated response is requested
         SolrDocumentList results = (SolrDocumentList) response.get("response");
         if (results != null) {
-            long found = results.size();
-            for (int i = 0; i < found; i++) resultsAcc.add(results.get(i));
-            resultsAcc.setNumFound(resultsAcc.getNumFound() + results.getNumFound());
-            resultsAcc.setMaxScore(Math.max(resultsAcc.getMaxScore() == null ? 0f : resultsAcc.getMaxScore().floatValue(), results.getMaxScore() == null ? 0f : results.getMaxScore().floatValue()));
+            if (results.size() > 0) this.results.add(results);
+            this.numFound += results.getNumFound();
+            this.maxScore = Math.max(this.maxScore, results.getMaxScore() == null ? 0f : results.getMaxScore().floatValue());
         }
         
         // accumulate the highlighting
@@ -78,11 +121,34 @@ public class ResponseAccumulator {
             for (Map.Entry<String, Object> e: highlighting) highlightingAcc.add(e.getKey(), e.getValue());
         }
         
-        // accumulate the facets (well this is not correct at this time...)
+        // accumulate the facets: counts of the same term are added
         @SuppressWarnings("unchecked")
-        SimpleOrderedMap<Object> facet_counts = (SimpleOrderedMap<Object>) response.get("facet_counts");
+        NamedList<Object> facet_counts = (NamedList<Object>) response.get("facet_counts");
         if (facet_counts != null) {
-            for (Map.Entry<String, Object> e: facet_counts) facet_countsAcc.add(e.getKey(), e.getValue());
+            for (Map.Entry<String, Object> e: facet_counts) {
+                if ("facet_fields".equals(e.getKey()) && e.getValue() instanceof NamedList) {
+                    this.facetFields = true;
+                    for (Map.Entry<String, ?> f: (NamedList<?>) e.getValue()) addCounts(this.facet_fieldsAcc, f.getKey(), f.getValue());
+                } else if ("facet_queries".equals(e.getKey()) && e.getValue() instanceof NamedList) {
+                    this.facetFields = true;
+                    addCounts(this.facet_queriesAcc, e.getValue());
+                } else if ("facet_ranges".equals(e.getKey()) && e.getValue() instanceof NamedList) {
+                    for (Map.Entry<String, ?> f: (NamedList<?>) e.getValue()) {
+                        if (!(f.getValue() instanceof NamedList)) continue;
+                        SimpleOrderedMap<Object> other = this.facet_rangesOther.get(f.getKey());
+                        if (other == null) {
+                            other = new SimpleOrderedMap<Object>();
+                            this.facet_rangesOther.put(f.getKey(), other);
+                        }
+                        for (Map.Entry<String, ?> r: (NamedList<?>) f.getValue()) {
+                            if ("counts".equals(r.getKey())) addCounts(this.facet_rangesAcc, f.getKey(), r.getValue());
+                            else if (other.get(r.getKey()) == null) other.add(r.getKey(), r.getValue());
+                        }
+                    }
+                } else if (facet_countsAcc.get(e.getKey()) == null) {
+                    facet_countsAcc.add(e.getKey(), e.getValue());
+                }
+            }
         }
         
         // accumulate the index
@@ -110,19 +176,207 @@ public class ResponseAccumulator {
     }
     
     public NamedList<Object> getAccumulatedResponse() {
+        // merge the documents of the requested page
+        final int start = this.params.getInt(CommonParams.START, 0);
+        final int rows = this.params.getInt(CommonParams.ROWS, Integer.MAX_VALUE);
+        final SolrDocumentList resultsAcc = new SolrDocumentList();
+        final Iterator<SolrDocument> i = merge(this.results, this.order);
+        for (int skip = 0; skip < start && i.hasNext(); skip++) i.next();
+        while (resultsAcc.size() < rows && i.hasNext()) resultsAcc.add(i.next());
+        resultsAcc.setNumFound(this.numFound);
+        resultsAcc.setStart(start);
+        resultsAcc.setMaxScore(this.maxScore);
+
         // prepare combined response
         NamedList<Object> responsesAcc = new NamedList<Object>();
         responsesAcc.add("responseHeader", headerAcc);
         responsesAcc.add("response", resultsAcc);
         if (highlightingAcc != null && highlightingAcc.size() > 0) responsesAcc.add("highlighting", highlightingAcc);
-        if (facet_countsAcc != null && facet_countsAcc.size() > 0) responsesAcc.add("facet_counts", facet_countsAcc);
+        final SimpleOrderedMap<Object> facets = facets();
+        if (facets.size() > 0) responsesAcc.add("facet_counts", facets);
         if (index_countsAcc != null && index_countsAcc.size() > 0) responsesAcc.add("index", index_countsAcc);
         if (fieldsAcc != null && fieldsAcc.size() > 0) responsesAcc.add("fields", fieldsAcc);
         return responsesAcc;
     }
 
+    private SimpleOrderedMap<Object> facets() {
+        final SimpleOrderedMap<Object> facets = new SimpleOrderedMap<Object>();
+        if (this.facetFields) {
+            facets.add("facet_queries", counts(this.facet_queriesAcc));
+            final SimpleOrderedMap<Object> fields = new SimpleOrderedMap<Object>();
+            for (Map.Entry<String, Map<String, Long>> e: this.facet_fieldsAcc.entrySet()) {
+                final String field = e.getKey();
+                final boolean index = FacetParams.FACET_SORT_INDEX.equals(this.params.getFieldParam(field, FacetParams.FACET_SORT));
+                final int limit = this.params.getFieldInt(field, FacetParams.FACET_LIMIT, 100);
+                final int mincount = this.params.getFieldInt(field, FacetParams.FACET_MINCOUNT, 0);
+                fields.add(field, sortedCounts(e.getValue(), index, limit, mincount));
+            }
+            facets.add("facet_fields", fields);
+        }
+        if (this.facet_rangesOther.size() > 0) {
+            final SimpleOrderedMap<Object> ranges = new SimpleOrderedMap<Object>();
+            for (Map.Entry<String, SimpleOrderedMap<Object>> e: this.facet_rangesOther.entrySet()) {
+                final SimpleOrderedMap<Object> range = new SimpleOrderedMap<Object>();
+                final Map<String, Long> counts = this.facet_rangesAcc.get(e.getKey());
+                range.add("counts", counts == null ? new NamedList<Object>() : counts(counts));
+                range.addAll(e.getValue());
+                ranges.add(e.getKey(), range);
+            }
+            facets.add("facet_ranges", ranges);
+        }
+        for (Map.Entry<String, Object> e: this.facet_countsAcc) facets.add(e.getKey(), e.getValue());
+        return facets;
+    }
+
+    private static void addCounts(final Map<String, Map<String, Long>> acc, final String field, final Object counts) {
+        Map<String, Long> c = acc.get(field);
+        if (c == null) {
+            c = new LinkedHashMap<String, Long>();
+            acc.put(field, c);
+        }
+        addCounts(c, counts);
+    }
+
+    private static void addCounts(final Map<String, Long> acc, final Object counts) {
+        if (!(counts instanceof NamedList)) return;
+        for (Map.Entry<String, ?> e: (NamedList<?>) counts) {
+            if (!(e.getValue() instanceof Number)) continue;
+            final Long c = acc.get(e.getKey());
+            final long v = ((Number) e.getValue()).longValue();
+            acc.put(e.getKey(), c == null ? v : c.longValue() + v);
+        }
+    }
+
+    private static Number count(final long c) {
+        return c <= Integer.MAX_VALUE ? Integer.valueOf((int) c) : Long.valueOf(c);
+    }
+
+    private static NamedList<Object> counts(final Map<String, Long> counts) {
+        final NamedList<Object> list = new NamedList<Object>();
+        for (Map.Entry<String, Long> e: counts.entrySet()) list.add(e.getKey(), count(e.getValue().longValue()));
+        return list;
+    }
+
+    private static NamedList<Object> sortedCounts(final Map<String, Long> counts, final boolean index, final int limit, final int mincount) {
+        final List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(counts.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+            @Override
+            public int compare(final Map.Entry<String, Long> o1, final Map.Entry<String, Long> o2) {
+                if (!index) {
+                    final int c = Long.compare(o2.getValue().longValue(), o1.getValue().longValue());
+                    if (c != 0) return c;
+                }
+                return o1.getKey().compareTo(o2.getKey());
+            }
+        });
+        final NamedList<Object> list = new NamedList<Object>();
+        for (Map.Entry<String, Long> e: entries) {
+            if (limit >= 0 && list.size() >= limit) break;
+            if (e.getValue().longValue() < mincount) continue;
+            list.add(e.getKey(), count(e.getValue().longValue()));
+        }
+        return list;
+    }
+
+    /**
+     * merge document lists which are each sorted in the same order
+     * @param lists the sorted document lists
+     * @param order the sort order of the lists; documents which are equal in that order are taken alternately from the lists
+     * @return an iterator of all documents in the sort order; a document is taken from its list when it is requested
+     */
+    public static Iterator<SolrDocument> merge(final List<SolrDocumentList> lists, final Comparator<SolrDocument> order) {
+        final PriorityQueue<int[]> queue = new PriorityQueue<int[]>(Math.max(1, lists.size()), new Comparator<int[]>() {
+            // an entry is the pair {list, position}
+            @Override
+            public int compare(final int[] o1, final int[] o2) {
+                final int c = order.compare(lists.get(o1[0]).get(o1[1]), lists.get(o2[0]).get(o2[1]));
+                if (c != 0) return c;
+                if (o1[1] != o2[1]) return o1[1] < o2[1] ? -1 : 1;
+                return o1[0] < o2[0] ? -1 : o1[0] == o2[0] ? 0 : 1;
+            }
+        });
+        for (int l = 0; l < lists.size(); l++) if (lists.get(l).size() > 0) queue.add(new int[]{l, 0});
+        return new Iterator<SolrDocument>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+            @Override
+            public SolrDocument next() {
+                final int[] head = queue.poll();
+                if (head == null) throw new NoSuchElementException();
+                final SolrDocumentList list = lists.get(head[0]);
+                final SolrDocument doc = list.get(head[1]);
+                if (++head[1] < list.size()) queue.add(head);
+                return doc;
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @param sort a Solr sort parameter, i.e. "score desc,last_modified asc"; sort functions are ignored
+     * @return a comparator of documents in that order; documents without a value of a sort field come last
+     */
+    public static Comparator<SolrDocument> sortOrder(final String sort) {
+        final List<String> fields = new ArrayList<String>();
+        final List<Boolean> descending = new ArrayList<Boolean>();
+        if (sort == null || sort.trim().isEmpty()) {
+            fields.add("score");
+            descending.add(Boolean.TRUE);
+        } else {
+            for (String clause: sort.split(",")) {
+                final String[] c = clause.trim().split("\\s+");
+                if (c.length != 2 || c[0].indexOf('(') >= 0) continue;
+                fields.add(c[0]);
+                descending.add(Boolean.valueOf("desc".equalsIgnoreCase(c[1])));
+            }
+        }
+        return new Comparator<SolrDocument>() {
+            @Override
+            public int compare(final SolrDocument d1, final SolrDocument d2) {
+                for (int i = 0; i < fields.size(); i++) {
+                    final Object v1 = d1.getFirstValue(fields.get(i));
+                    final Object v2 = d2.getFirstValue(fields.get(i));
+                    if (v1 == null || v2 == null) {
+                        if (v1 == v2) continue;
+                        return v1 == null ? 1 : -1;
+                    }
+                    final int c = compareValues(v1, v2);
+                    if (c != 0) return descending.get(i).booleanValue() ? -c : c;
+                }
+                return 0;
+            }
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(final Object v1, final Object v2) {
+        if (v1 instanceof Number && v2 instanceof Number) {
+            if ((v1 instanceof Long || v1 instanceof Integer) && (v2 instanceof Long || v2 instanceof Integer)) {
+                return Long.compare(((Number) v1).longValue(), ((Number) v2).longValue());
+            }
+            return Double.compare(((Number) v1).doubleValue(), ((Number) v2).doubleValue());
+        }
+        if (v1 instanceof Date && v2 instanceof Date) return ((Date) v1).compareTo((Date) v2);
+        if (v1 instanceof Comparable && v1.getClass() == v2.getClass()) return ((Comparable) v1).compareTo(v2);
+        return v1.toString().compareTo(v2.toString());
+    }
+
     public static QueryResponse combineResponses(Collection<QueryResponse> qrl) {
-        ResponseAccumulator acc = new ResponseAccumulator();
+        return combineResponses(qrl, new ModifiableSolrParams());
+    }
+
+    /**
+     * @param qrl the responses of the shards
+     * @param params the parameters of the query as sent to the shards, see {@link #ResponseAccumulator(SolrParams)}
+     * @return the combined response
+     */
+    public static QueryResponse combineResponses(Collection<QueryResponse> qrl, final SolrParams params) {
+        ResponseAccumulator acc = new ResponseAccumulator(params);
         for (final QueryResponse rsp: qrl) {
             NamedList<Object> response = rsp.getResponse();
             acc.addResponse(response);
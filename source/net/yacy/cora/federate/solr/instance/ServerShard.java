@@ -25,7 +25,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrClient;
@@ -33,10 +32,13 @@ import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.StreamingResponseCallback;
 import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.beans.DocumentObjectBinder;
+import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.SolrPingResponse;
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
 
@@ -51,12 +53,33 @@ public class ServerShard extends SolrClient {
         _dummyOKResponse.setResponse(new NamedList<Object>());
     }
     
+    public static final long DEFAULT_TIMEOUT = 60000;
+    
     private final ShardSelection shards;
     private final boolean writeEnabled;
+    private final ShardQueryExecutor executor;
+    private final long timeout;
     
     public ServerShard(ArrayList<SolrClient> server, final ShardSelection.Method method, final boolean writeEnabled) {
+        this(server, method, writeEnabled, DEFAULT_TIMEOUT, null);
+    }
+    
+    /**
+     * @param server the shard servers
+     * @param method the sharding method
+     * @param writeEnabled if false, documents are not written to the shards
+     * @param timeout the maximum time in milliseconds to wait for the answers of the shards to a query
+     * @param latencies the latency statistics of the servers, one for each server in the same order; if null, new statistics are used
+     */
+    public ServerShard(ArrayList<SolrClient> server, final ShardSelection.Method method, final boolean writeEnabled, final long timeout, ShardQueryExecutor.Latency[] latencies) {
         this.shards = new ShardSelection(server, method);
         this.writeEnabled = writeEnabled;
+        this.timeout = timeout;
+        if (latencies == null) {
+            latencies = new ShardQueryExecutor.Latency[server.size()];
+            for (int i = 0; i < latencies.length; i++) latencies[i] = new ShardQueryExecutor.Latency();
+        }
+        this.executor = new ShardQueryExecutor(server, latencies, method == ShardSelection.Method.SOLRCLOUD);
     }
 
     /**
@@ -379,34 +402,7 @@ public class ServerShard extends SolrClient {
      */
     @Override
     public QueryResponse query(final SolrParams params) throws SolrServerException, IOException {
-        List<SolrClient> qs = this.shards.server4read();
-        if (qs.size() == 1) {
-            return qs.get(0).query(params);
-        }
-
-        // concurrently call all shards
-        final Collection<QueryResponse> qrl = new ConcurrentLinkedQueue<QueryResponse>();
-        List<Thread> t = new ArrayList<Thread>();
-        for (final SolrClient s: qs) {
-            Thread t0 = new Thread("ServerShard.query/1(" + params.toString() + ")") {
-                @Override
-                public void run() {
-                    QueryResponse rsp;
-                    try {
-                        rsp = s.query(params);
-                    } catch (final Throwable e) {return;}
-                    qrl.add(rsp);
-                }
-            };
-            t0.start();
-            t.add(t0);
-        }
-        for (Thread t0: t) {
-            try {t0.join();} catch (final InterruptedException e) {}
-        }
-        
-        // prepare combined response
-        return ResponseAccumulator.combineResponses(qrl);
+        return query(params, null);
     }
     
     /**
@@ -417,34 +413,59 @@ public class ServerShard extends SolrClient {
      */
     @Override
     public QueryResponse query(final SolrParams params, final METHOD method) throws SolrServerException, IOException {
-        List<SolrClient> qs = this.shards.server4read();
-        if (qs.size() == 1) {
-            return qs.get(0).query(params, method);
+        final List<SolrClient> qs = this.shards.server4read();
+        if (qs.size() == 1 && this.executor.getLatencies().length == 1) {
+            // nothing to hedge to
+            return method == null ? qs.get(0).query(params) : qs.get(0).query(params, method);
         }
+        
+        final SolrParams shardParams = qs.size() > 1 ? shardParams(params) : params;
+        final ShardQueryExecutor.Query query = new ShardQueryExecutor.Query() {
+            @Override
+            public QueryResponse query(final SolrClient client) throws SolrServerException, IOException {
+                return method == null ? client.query(shardParams) : client.query(shardParams, method);
+            }
+        };
+        
+        // concurrently call all shards and combine the answers which arrive until the deadline; if a shard
+        // did not answer, the response header of the combined response has the flag partialResults=true.
+        final ShardQueryExecutor.Result result = this.executor.query(qs, query, timeout(params));
+        checkError(result);
+        
+        // prepare combined response; the answer of a single shard is already the requested page
+        final QueryResponse rsp = qs.size() == 1 && result.responses.size() == 1 ? result.responses.iterator().next() : ResponseAccumulator.combineResponses(result.responses, params);
+        if (result.partial) markPartial(rsp.getResponse());
+        return rsp;
+    }
 
-        final Collection<QueryResponse> qrl = new ConcurrentLinkedQueue<QueryResponse>();
-        // concurrently call all shards
-        List<Thread> t = new ArrayList<Thread>();
-        for (final SolrClient s: qs) {
-            Thread t0 = new Thread("ServerShard.query/2(" + params.toString() + ")") {
-                @Override
-                public void run() {
-                    QueryResponse rsp;
-                    try {
-                        rsp = s.query(params, method);
-                    } catch (final Throwable e) {return;}
-                    qrl.add(rsp);
-                }
-            };
-            t0.start();
-            t.add(t0);
+    /**
+     * @return the maximum waiting time for the answers of the shards in milliseconds; the shards stop searching
+     *   after timeAllowed, give them some time to send the result
+     */
+    private long timeout(final SolrParams params) {
+        final int timeAllowed = params == null ? -1 : params.getInt(CommonParams.TIME_ALLOWED, -1);
+        return timeAllowed > 0 ? Math.min(this.timeout, timeAllowed + 1000) : this.timeout;
+    }
+
+    /**
+     * throw the failure of the shards if there is no answer at all
+     */
+    private static void checkError(final ShardQueryExecutor.Result result) throws SolrServerException, IOException {
+        if (result.responses.isEmpty() && result.error != null) {
+            if (result.error instanceof SolrServerException) throw (SolrServerException) result.error;
+            if (result.error instanceof IOException) throw (IOException) result.error;
+            throw new SolrServerException(result.error);
         }
-        for (Thread t0: t) {
-            try {t0.join();} catch (final InterruptedException e) {}
+    }
+
+    private static void markPartial(final NamedList<Object> response) {
+        @SuppressWarnings("unchecked")
+        NamedList<Object> header = (NamedList<Object>) response.get("responseHeader");
+        if (header == null) {
+            header = new NamedList<Object>();
+            response.add("responseHeader", header);
         }
-        
-        // prepare combined response
-        return ResponseAccumulator.combineResponses(qrl);
+        header.add("partialResults", Boolean.TRUE);
     }
     
 
@@ -468,10 +489,55 @@ public class ServerShard extends SolrClient {
      * SolrServer implementations need to implement how a request is actually processed
      */ 
     @Override
-    public NamedList<Object> request(@SuppressWarnings("rawtypes") SolrRequest request, String collection) throws SolrServerException, IOException {
-        ResponseAccumulator acc = new ResponseAccumulator();
-        for (SolrClient s: this.shards.server4read()) acc.addResponse(s.request(request, collection));
-        return acc.getAccumulatedResponse();  
+    public NamedList<Object> request(@SuppressWarnings("rawtypes") final SolrRequest request, final String collection) throws SolrServerException, IOException {
+        final List<SolrClient> qs = this.shards.server4read();
+        if (qs.size() == 1 && this.executor.getLatencies().length == 1) return qs.get(0).request(request, collection);
+        final SolrParams params = request.getParams();
+        final SolrRequest<?> shardRequest;
+        final ResponseAccumulator acc;
+        if (qs.size() > 1 && request instanceof QueryRequest && params != null) {
+            // the page is cut out of the merged documents, see query(SolrParams, METHOD)
+            final QueryRequest pageRequest = new QueryRequest(shardParams(params), request.getMethod());
+            pageRequest.setPath(request.getPath());
+            pageRequest.setResponseParser(request.getResponseParser());
+            shardRequest = pageRequest;
+            acc = new ResponseAccumulator(params);
+        } else {
+            shardRequest = request;
+            acc = new ResponseAccumulator();
+        }
+        final ShardQueryExecutor.Query query = new ShardQueryExecutor.Query() {
+            @Override
+            public QueryResponse query(final SolrClient client) throws SolrServerException, IOException {
+                return new QueryResponse(client.request(shardRequest, collection), client);
+            }
+        };
+        
+        // the same fan-out as in query(SolrParams, METHOD)
+        final ShardQueryExecutor.Result result = this.executor.query(qs, query, timeout(params));
+        checkError(result);
+        final NamedList<Object> rsp;
+        if (qs.size() == 1 && result.responses.size() == 1) {
+            rsp = result.responses.iterator().next().getResponse();
+        } else {
+            for (final QueryResponse r: result.responses) acc.addResponse(r.getResponse());
+            rsp = acc.getAccumulatedResponse();
+        }
+        if (result.partial) markPartial(rsp);
+        return rsp;
+    }
+
+    /**
+     * every shard must deliver the documents up to the end of the requested page, the page is cut out of the merged documents
+     * @return the parameters for the shards
+     */
+    private static SolrParams shardParams(final SolrParams params) {
+        final ModifiableSolrParams mp = new ModifiableSolrParams(params);
+        final int start = params.getInt(CommonParams.START, 0);
+        final int rows = params.getInt(CommonParams.ROWS, 10);
+        mp.set(CommonParams.START, 0);
+        mp.set(CommonParams.ROWS, (int) Math.min(Integer.MAX_VALUE, (long) start + rows));
+        return mp;
     }
 
     @Override
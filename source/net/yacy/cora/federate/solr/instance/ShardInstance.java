@@ -37,6 +37,7 @@ public class ShardInstance implements SolrInstance {
     private SolrClient defaultServer;
     private Map<String, SolrClient> serverCache;
     private final boolean writeEnabled;
+    private final ShardQueryExecutor.Latency[] latencies; // shared by the servers of all cores
 
     public ShardInstance(final ArrayList<RemoteInstance> instances, final ShardSelection.Method method, final boolean writeEnabled) {
         this.instances = instances;
@@ -44,6 +45,8 @@ public class ShardInstance implements SolrInstance {
         this.writeEnabled = writeEnabled;
         this.defaultServer = null;
         this.serverCache = new ConcurrentHashMap<String, SolrClient>();
+        this.latencies = new ShardQueryExecutor.Latency[instances.size()];
+        for (int i = 0; i < this.latencies.length; i++) this.latencies[i] = new ShardQueryExecutor.Latency();
     }
 
     @Override
@@ -60,8 +63,8 @@ public class ShardInstance implements SolrInstance {
     public SolrClient getDefaultServer() {
         if (this.defaultServer != null) return this.defaultServer;
         ArrayList<SolrClient> server = new ArrayList<SolrClient>(instances.size());
-        for (int i = 0; i < instances.size(); i++) server.set(i, instances.get(i).getDefaultServer());
-        this.defaultServer = new ServerShard(server, method, this.writeEnabled);
+        for (int i = 0; i < instances.size(); i++) server.add(i, instances.get(i).getDefaultServer());
+        this.defaultServer = new ServerShard(server, method, this.writeEnabled, instances.get(0).getTimeout(), this.latencies);
         return this.defaultServer;
     }
 
@@ -71,7 +74,7 @@ public class ShardInstance implements SolrInstance {
         if (s != null) return s;
         ArrayList<SolrClient> server = new ArrayList<SolrClient>(instances.size());
         for (int i = 0; i < instances.size(); i++) server.add(i, instances.get(i).getServer(name));
-        s = new ServerShard(server, method, this.writeEnabled);
+        s = new ServerShard(server, method, this.writeEnabled, instances.get(0).getTimeout(), this.latencies);
         this.serverCache.put(name, s);
         return s;
     }
@@ -95,4 +98,11 @@ public class ShardInstance implements SolrInstance {
         for (RemoteInstance i: this.instances) a.add(i.getAdminInterface(toExternalAddress, externalHost));
         return a;
     }
+
+    /**
+     * @return the query latency statistics of the Solr instances, in the same order as {@link #getAdminInterfaces(boolean, String)}
+     */
+    public ShardQueryExecutor.Latency[] getLatencies() {
+        return this.latencies;
+    }
 }
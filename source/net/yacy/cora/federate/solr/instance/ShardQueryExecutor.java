@@ -0,0 +1,351 @@
+/**
+ *  ShardQueryExecutor
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.federate.solr.instance;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+
+/**
+ * Fan-out of a query to several Solr shards. The shard requests run in a thread pool which is
+ * shared by all shard connections, the caller waits for the answers until a deadline and
+ * takes what is there: a shard which did not answer in time is left out and the result is
+ * marked as partial. A shard request which takes longer than the 95th latency percentile
+ * of that shard is hedged: the same request is sent again to a replica and the first answer
+ * is used; a shard without replica is not hedged. A failed request is retried at once, on a
+ * replica if there is one, otherwise on the same shard.
+ */
+public class ShardQueryExecutor {
+
+    /**
+     * the upper bounds of the latency histogram buckets in milliseconds
+     */
+    public static final long[] BUCKETS = {1, 2, 3, 5, 7, 10, 15, 20, 30, 50, 70, 100, 150, 200, 300, 500, 700, 1000, 1500, 2000, 3000, 5000, 10000, 30000, Long.MAX_VALUE};
+    public static final int  MIN_HEDGE_SAMPLES = 20;  // below that number of answers of a shard the percentile is not used for hedging
+    public static final long MIN_HEDGE_DELAY = 10;    // milliseconds
+    public static final double HEDGE_PERCENTILE = 0.95;
+
+    private static final int POOL_SIZE = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+    private static final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(16 * POOL_SIZE),
+            new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger(0);
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread t = new Thread(r, "ServerShard.query-" + this.count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+    static {
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * a request to one shard
+     */
+    public interface Query {
+        public QueryResponse query(SolrClient client) throws SolrServerException, IOException;
+    }
+
+    /**
+     * the answers of a fan-out
+     */
+    public static class Result {
+        public final Collection<QueryResponse> responses;
+        public final boolean partial;
+        public final Throwable error; // the last failure, if any
+        private Result(final Collection<QueryResponse> responses, final boolean partial, final Throwable error) {
+            this.responses = responses;
+            this.partial = partial;
+            this.error = error;
+        }
+    }
+
+    /**
+     * latency histogram and counters of one shard
+     */
+    public static class Latency {
+        private final AtomicLongArray buckets;
+        private final AtomicLong failures, timeouts, hedges, hedgeWins;
+
+        public Latency() {
+            this.buckets = new AtomicLongArray(BUCKETS.length);
+            this.failures = new AtomicLong(0);
+            this.timeouts = new AtomicLong(0);
+            this.hedges = new AtomicLong(0);
+            this.hedgeWins = new AtomicLong(0);
+        }
+
+        public void add(final long time) {
+            int b = 0;
+            while (time > BUCKETS[b]) b++;
+            this.buckets.incrementAndGet(b);
+        }
+
+        /**
+         * @param p the percentile in the range 0..1
+         * @return the upper bound of the bucket which contains the percentile in milliseconds or -1 if there is no answer yet
+         */
+        public long percentile(final double p) {
+            final long count = count();
+            if (count == 0) return -1;
+            final long rank = Math.max(1, (long) Math.ceil(p * count));
+            long sum = 0;
+            for (int b = 0; b < BUCKETS.length; b++) {
+                sum += this.buckets.get(b);
+                if (sum >= rank) return b == BUCKETS.length - 1 ? BUCKETS[b - 1] : BUCKETS[b];
+            }
+            return BUCKETS[BUCKETS.length - 2];
+        }
+
+        /**
+         * @return the number of answers
+         */
+        public long count() {
+            long count = 0;
+            for (int b = 0; b < BUCKETS.length; b++) count += this.buckets.get(b);
+            return count;
+        }
+
+        /**
+         * @return the number of answers in each bucket of {@link ShardQueryExecutor#BUCKETS}
+         */
+        public long[] histogram() {
+            final long[] h = new long[BUCKETS.length];
+            for (int b = 0; b < BUCKETS.length; b++) h[b] = this.buckets.get(b);
+            return h;
+        }
+
+        public long failures() {
+            return this.failures.get();
+        }
+
+        public long timeouts() {
+            return this.timeouts.get();
+        }
+
+        public long hedges() {
+            return this.hedges.get();
+        }
+
+        public long hedgeWins() {
+            return this.hedgeWins.get();
+        }
+
+        /**
+         * @return the waiting time in milliseconds before a request is hedged or -1 if there are not enough answers yet
+         */
+        private long hedgeDelay() {
+            if (count() < MIN_HEDGE_SAMPLES) return -1;
+            return Math.max(MIN_HEDGE_DELAY, percentile(HEDGE_PERCENTILE));
+        }
+    }
+
+    private static class Answer {
+        private final int shard;
+        private final int server;
+        private final boolean hedge;
+        private final long time;
+        private final QueryResponse response;
+        private final Throwable error;
+        private Answer(final int shard, final int server, final boolean hedge, final long time, final QueryResponse response, final Throwable error) {
+            this.shard = shard;
+            this.server = server;
+            this.hedge = hedge;
+            this.time = time;
+            this.response = response;
+            this.error = error;
+        }
+    }
+
+    private final List<SolrClient> servers;
+    private final Latency[] latencies;
+    private final boolean replicated;
+
+    /**
+     * @param servers all shard servers
+     * @param latencies the statistics of the servers, one for each server in the same order
+     * @param replicated true if all servers hold the same documents (SolrCloud), then a request is hedged to another server;
+     *   otherwise requests are not hedged and a failed request is retried on the same server
+     */
+    public ShardQueryExecutor(final List<SolrClient> servers, final Latency[] latencies, final boolean replicated) {
+        assert servers.size() == latencies.length;
+        this.servers = servers;
+        this.latencies = latencies;
+        this.replicated = replicated;
+    }
+
+    public Latency[] getLatencies() {
+        return this.latencies;
+    }
+
+    /**
+     * send a query to the given shards and wait for the answers
+     * @param targets the servers which shall be asked, a subset of the servers of this executor
+     * @param query the request
+     * @param timeout the maximum waiting time in milliseconds
+     * @return the answers which arrived in time
+     */
+    public Result query(final List<SolrClient> targets, final Query query, final long timeout) {
+        final long start = System.currentTimeMillis();
+        final long deadline = start + timeout;
+        final int n = targets.size();
+        final BlockingQueue<Answer> answers = new LinkedBlockingQueue<Answer>();
+        final int[] server = new int[n];
+        final QueryResponse[] responses = new QueryResponse[n];
+        final int[] running = new int[n];
+        final boolean[] hedged = new boolean[n];
+        final long[] hedgeTime = new long[n];
+        final List<Future<?>> futures = new ArrayList<Future<?>>(2 * n);
+        for (int i = 0; i < n; i++) {
+            server[i] = indexOf(targets.get(i));
+            final long delay = this.latencies[server[i]].hedgeDelay();
+            hedgeTime[i] = delay < 0 ? Long.MAX_VALUE : start + delay;
+            if (submit(i, server[i], false, query, answers, futures)) running[i]++;
+        }
+
+        Throwable error = null;
+        int open = n;
+        for (int i = 0; i < n; i++) if (running[i] == 0) {
+            this.latencies[server[i]].failures.incrementAndGet();
+            error = new IOException("shard query rejected, pool is exhausted");
+            open--;
+        }
+        try {
+            while (open > 0) {
+                long now = System.currentTimeMillis();
+                if (now >= deadline) break;
+
+                // hedge requests which are slower than usual
+                long wake = deadline;
+                for (int i = 0; i < n; i++) {
+                    if (responses[i] != null || running[i] == 0 || hedged[i]) continue;
+                    if (hedgeTime[i] <= now) {
+                        hedged[i] = true;
+                        if (hedge(i, server[i], false, query, answers, futures)) running[i]++;
+                    } else {
+                        wake = Math.min(wake, hedgeTime[i]);
+                    }
+                }
+
+                final Answer answer = answers.poll(wake - now, TimeUnit.MILLISECONDS);
+                if (answer == null) continue;
+                final int i = answer.shard;
+                running[i]--;
+                if (responses[i] != null) continue; // the other request was faster
+                if (answer.response != null) {
+                    responses[i] = answer.response;
+                    this.latencies[answer.server].add(answer.time);
+                    if (answer.hedge) this.latencies[server[i]].hedgeWins.incrementAndGet();
+                    open--;
+                    continue;
+                }
+                error = answer.error;
+                this.latencies[answer.server].failures.incrementAndGet();
+                if (!hedged[i]) {
+                    // retry at once
+                    hedged[i] = true;
+                    if (hedge(i, server[i], true, query, answers, futures)) running[i]++;
+                }
+                if (running[i] == 0) open--;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        final List<QueryResponse> result = new ArrayList<QueryResponse>(n);
+        boolean partial = false;
+        for (int i = 0; i < n; i++) {
+            if (responses[i] != null) {
+                result.add(responses[i]);
+            } else {
+                partial = true;
+                if (running[i] > 0) this.latencies[server[i]].timeouts.incrementAndGet();
+            }
+        }
+        // cancel the requests which lost against their hedge and those which did not answer in time: queued requests
+        // are not started and waiting requests are interrupted, but a blocking socket read of a http client is not
+        // interruptible, such a request keeps its pool thread until it is answered or the socket times out
+        for (final Future<?> f: futures) f.cancel(true);
+        return new Result(result, partial, error);
+    }
+
+    private int indexOf(final SolrClient client) {
+        for (int i = 0; i < this.servers.size(); i++) if (this.servers.get(i) == client) return i;
+        throw new IllegalArgumentException("unknown shard server");
+    }
+
+    /**
+     * send a request again
+     * @param retry true if the first request failed, false if it is slow
+     * @return true if the request was sent
+     */
+    private boolean hedge(final int shard, final int server, final boolean retry, final Query query, final BlockingQueue<Answer> answers, final List<Future<?>> futures) {
+        // do not add load when the pool is busy, hedging would then make the latency worse
+        if (pool.getActiveCount() >= POOL_SIZE / 2) return false;
+        final boolean hasReplica = this.replicated && this.servers.size() > 1;
+        if (!hasReplica && !retry) return false; // the same request to the same slow shard would only add load
+        final int replica = hasReplica ? (server + 1) % this.servers.size() : server;
+        if (!submit(shard, replica, true, query, answers, futures)) return false;
+        this.latencies[server].hedges.incrementAndGet();
+        return true;
+    }
+
+    private boolean submit(final int shard, final int server, final boolean hedge, final Query query, final BlockingQueue<Answer> answers, final List<Future<?>> futures) {
+        final SolrClient client = this.servers.get(server);
+        try {
+            futures.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    final long start = System.currentTimeMillis();
+                    QueryResponse response = null;
+                    Throwable error = null;
+                    try {
+                        response = query.query(client);
+                        if (response == null) error = new IOException("no response");
+                    } catch (final Throwable e) {
+                        error = e;
+                    }
+                    answers.add(new Answer(shard, server, hedge, System.currentTimeMillis() - start, response, error));
+                }
+            }));
+            return true;
+        } catch (final RejectedExecutionException e) {
+            return false;
+        }
+    }
+}
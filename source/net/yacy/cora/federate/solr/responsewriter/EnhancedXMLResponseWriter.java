@@ -39,7 +39,6 @@ import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
 import org.apache.solr.common.util.NamedList;
-import org.apache.solr.common.util.XML;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.QueryResponseWriter;
 import org.apache.solr.response.ResultContext;
@@ -74,7 +73,8 @@ public class EnhancedXMLResponseWriter implements QueryResponseWriter, SolrjResp
     }
 
     @Override
-    public void write(final Writer writer, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
+    public void write(final Writer out, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
+        final StreamingWriter writer = StreamingWriter.wrap(out);
         writer.write(XML_START);
         final NamedList<?> values = rsp.getValues();
         
@@ -102,13 +102,16 @@ public class EnhancedXMLResponseWriter implements QueryResponseWriter, SolrjResp
         	writeProps(writer, "highlighting", (NamedList<?>)highlightingObj);
         }
         writer.write(XML_STOP);
+        writer.flush();
     }
 
     @Override
-    public void write(final Writer writer, final SolrQueryRequest request, final String coreName, final QueryResponse response) throws IOException {
+    public void write(final Writer out, final SolrQueryRequest request, final String coreName, final QueryResponse response) throws IOException {
+        final StreamingWriter writer = StreamingWriter.wrap(out);
         writer.write(XML_START);
         writeDocs(writer, response.getResults(), request != null ? new SolrReturnFields(request) : new SolrReturnFields());
         writer.write(XML_STOP);
+        writer.flush();
     }
 
     private static void writeProps(final Writer writer, final String name, final NamedList<?> val) throws IOException {
@@ -151,8 +154,9 @@ public class EnhancedXMLResponseWriter implements QueryResponseWriter, SolrjResp
         IndexSchema schema = request.getSchema();
         for (int i = 0; i < sz; i++) {
             int id = iterator.nextDoc();
-            Document doc = searcher.doc(id);
+            Document doc = StreamingWriter.document(searcher, id, returnFields); // only the requested stored fields
             writeDoc(writer, schema, null, doc.getFields(), (includeScore ? iterator.score() : 0.0f), includeScore, returnFields);
+            StreamingWriter.endDocument(writer);
         }
         writer.write("</result>");
         writer.write(lb);
@@ -177,6 +181,7 @@ public class EnhancedXMLResponseWriter implements QueryResponseWriter, SolrjResp
         for (int i = 0; i < sz; i++) {
             SolrDocument doc = iterator.next();
             writeDoc(writer, doc, returnFields);
+            StreamingWriter.endDocument(writer);
         }
         writer.write("</result>");
         writer.write(lb);
@@ -371,7 +376,7 @@ public class EnhancedXMLResponseWriter implements QueryResponseWriter, SolrjResp
         }
         startTagOpen(writer, tag, nameAttr);
         if (escape) {
-            XML.escapeCharData(val, writer);
+            StreamingWriter.xml(val, writer);
         } else {
             writer.write(val, 0, contentLen);
         }
@@ -399,7 +404,7 @@ public class EnhancedXMLResponseWriter implements QueryResponseWriter, SolrjResp
     }
 
     private static void writeAttr(final Writer writer, final String nameAttr, final String val) throws IOException {
-        writer.write(' '); writer.write(nameAttr); writer.write("=\""); XML.escapeAttributeValue(val, writer); writer.write('"');
+        writer.write(' '); writer.write(nameAttr); writer.write("=\""); StreamingWriter.xmlAttribute(val, writer); writer.write('"');
     }
     
     
@@ -35,12 +35,12 @@ import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.QueryResponseWriter;
 import org.apache.solr.response.ResultContext;
 import org.apache.solr.response.SolrQueryResponse;
-import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.schema.TextField;
 import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocList;
+import org.apache.solr.search.ReturnFields;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.json.simple.JSONArray;
 
@@ -67,29 +67,33 @@ public class FlatJSONResponseWriter implements QueryResponseWriter, EmbeddedSolr
     }
 
     @Override
-    public void write(final Writer writer, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
+    public void write(final Writer out, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
         NamedList<?> values = rsp.getValues();
         DocList response = ((ResultContext) values.get("response")).getDocList();
-        writeDocs(writer, request, response);
+        final StreamingWriter writer = StreamingWriter.wrap(out);
+        writeDocs(writer, request, response, rsp.getReturnFields());
+        writer.flush();
     }
 
-    private static final void writeDocs(final Writer writer, final SolrQueryRequest request, final DocList response) throws IOException {
-        boolean includeScore = false;
+    private static final void writeDocs(final StreamingWriter writer, final SolrQueryRequest request, final DocList response, final ReturnFields returnFields) throws IOException {
         final int sz = response.size();
         SolrIndexSearcher searcher = request.getSearcher();
         DocIterator iterator = response.iterator();
-        includeScore = includeScore && response.hasScores();
         IndexSchema schema = request.getSchema();
         for (int i = 0; i < sz; i++) {
             int id = iterator.nextDoc();
-            Document doc = searcher.doc(id);
-            writeDoc(writer, schema, null, doc.getFields(), (includeScore ? iterator.score() : 0.0f), includeScore);
+            Document doc = StreamingWriter.document(searcher, id, returnFields);
+            writeDoc(writer, schema, doc.getFields());
+            writer.endDocument();
         }
     }
 
-    private static final void writeDoc(final Writer writer, final IndexSchema schema, final String name, final List<IndexableField> fields, final float score, final boolean includeScore) throws IOException {
-        JSONObject json = new JSONObject(true);
-        
+    /**
+     * write the document as one line of json, the values are escaped directly into the output buffer
+     */
+    private static final void writeDoc(final StreamingWriter writer, final IndexSchema schema, final List<IndexableField> fields) throws IOException {
+        writer.write('{');
+        boolean first = true;
         int sz = fields.size();
         int fidx1 = 0, fidx2 = 0;
         while (fidx1 < sz) {
@@ -103,54 +107,62 @@ public class FlatJSONResponseWriter implements QueryResponseWriter, EmbeddedSolr
             if (sf == null) {
                 sf = new SchemaField(fieldName, new TextField());
             }
-            FieldType type = sf.getType();
-            if (fidx1 + 1 == fidx2) {
-                if (sf.multiValued()) {
-                    JSONArray a = new JSONArray();
-                    json.put(fieldName, a);
-                    JSONObject j = new JSONObject();
-                    String sv = value.stringValue();
-                    setValue(j, type.getTypeName(), "x", sv); //sf.write(this, null, f1);
-                    a.add(j.get("x"));
-                } else {
-                    setValue(json, type.getTypeName(), value.name(), value.stringValue());
+            final String typeName = sf.getType().getTypeName();
+            if (fidx1 + 1 == fidx2 && !sf.multiValued()) {
+                if (knownType(typeName)) {
+                    if (!first) writer.write(',');
+                    first = false;
+                    writer.json(fieldName);
+                    writer.write(':');
+                    writeValue(writer, typeName, value.stringValue());
                 }
             } else {
-                JSONArray a = new JSONArray();
-                json.put(fieldName, a);
+                if (!first) writer.write(',');
+                first = false;
+                writer.json(fieldName);
+                writer.write(":[");
                 for (int i = fidx1; i < fidx2; i++) {
-                    String sv = fields.get(i).stringValue();
-                    JSONObject j = new JSONObject();
-                    setValue(j, type.getTypeName(), "x", sv); //sf.write(this, null, f1);
-                    a.add(j.get("x"));
+                    if (i > fidx1) writer.write(',');
+                    writeValue(writer, typeName, fields.get(i).stringValue());
                 }
+                writer.write(']');
             }
             fidx1 = fidx2;
         }
-        writer.write(json.toString());
+        writer.write('}');
         writer.write(lb);
     }
 
-    private static void setValue(final JSONObject json, final String typeName, final String name, final String value) {
+    private static boolean knownType(final String typeName) {
+        return typeName.equals(SolrType.text_general.printName()) ||
+               typeName.equals(SolrType.string.printName()) ||
+               typeName.equals(SolrType.text_en_splitting_tight.printName()) ||
+               typeName.equals(SolrType.bool.printName()) ||
+               typeName.equals(SolrType.num_integer.printName()) ||
+               typeName.equals(SolrType.num_long.printName()) ||
+               typeName.equals(SolrType.date.printName()) ||
+               typeName.equals(SolrType.num_float.printName()) ||
+               typeName.equals(SolrType.num_double.printName());
+    }
+
+    private static void writeValue(final StreamingWriter writer, final String typeName, final String value) throws IOException {
         if (typeName.equals(SolrType.text_general.printName()) ||
             typeName.equals(SolrType.string.printName()) ||
             typeName.equals(SolrType.text_en_splitting_tight.printName())) {
-            json.put(name, value);
+            writer.json(value);
         } else if (typeName.equals(SolrType.bool.printName())) {
-            json.put(name, "F".equals(value) ? false : true);
-        } else if (typeName.equals(SolrType.num_integer.printName())) {
-            json.put(name, Long.parseLong(value));
-        } else if (typeName.equals(SolrType.num_long.printName())) {
-            json.put(name, Long.parseLong(value));
+            writer.write("F".equals(value) ? "false" : "true");
+        } else if (typeName.equals(SolrType.num_integer.printName()) || typeName.equals(SolrType.num_long.printName())) {
+            writer.write(Long.toString(Long.parseLong(value)));
         } else if (typeName.equals(SolrType.date.printName())) {
-            json.put(name, new Date(Long.parseLong(value)).toInstant().toString());
-        } else if (typeName.equals(SolrType.num_float.printName())) {
-            json.put(name, Double.parseDouble(value));
-        } else if (typeName.equals(SolrType.num_double.printName())) {
-            json.put(name, Double.parseDouble(value));
+            writer.json(new Date(Long.parseLong(value)).toInstant().toString());
+        } else if (typeName.equals(SolrType.num_float.printName()) || typeName.equals(SolrType.num_double.printName())) {
+            writer.write(JSONObject.numberToString(Double.parseDouble(value)));
+        } else {
+            writer.write("null");
         }
     }
-    
+
     public static final void writeDoc(final Writer writer, final SolrDocument doc) throws IOException {
         JSONObject json = new JSONObject(true);
         final Map<String, Object> fields = doc.getFieldValueMap();
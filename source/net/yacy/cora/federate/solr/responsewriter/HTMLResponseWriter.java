@@ -41,7 +41,6 @@ import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
-import org.apache.solr.common.util.XML;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.QueryResponseWriter;
 import org.apache.solr.response.ResultContext;
@@ -129,7 +128,8 @@ public class HTMLResponseWriter implements QueryResponseWriter, SolrjResponseWri
 	}
 
     @Override
-    public void write(final Writer writer, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
+    public void write(final Writer out, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
+        final StreamingWriter writer = StreamingWriter.wrap(out);
         NamedList<?> values = rsp.getValues();
         assert values.get("responseHeader") != null;
         assert values.get("response") != null;
@@ -172,6 +172,7 @@ public class HTMLResponseWriter implements QueryResponseWriter, SolrjResponseWri
                 writeApiLink(writer, paramsList, coreName);
 
                 writeDoc(writer, tdoc, coreName, rsp.getReturnFields());
+                writer.endDocument();
 
                 while (iterator.hasNext()) {
                     id = iterator.nextDoc();
@@ -179,6 +180,7 @@ public class HTMLResponseWriter implements QueryResponseWriter, SolrjResponseWri
                     tdoc = translateDoc(schema, doc, rsp.getReturnFields());
 
                     writeDoc(writer, tdoc, coreName, rsp.getReturnFields());
+                    writer.endDocument();
                 }
             } else {
                 writer.write("<title>No Document Found</title>\n</head><body>\n");
@@ -192,6 +194,7 @@ public class HTMLResponseWriter implements QueryResponseWriter, SolrjResponseWri
 
         
         writer.write("</body></html>\n");
+        writer.flush();
     }
     
 	@Override
@@ -370,7 +373,7 @@ public class HTMLResponseWriter implements QueryResponseWriter, SolrjResponseWri
             if (entry.getKey().equals("sku")) {
                 writer.write("<a href=\"" + entry.getValue() + "\">" + entry.getValue() + "</a>");
             } else {
-                XML.escapeAttributeValue(entry.getValue(), writer);
+                StreamingWriter.xmlAttribute(entry.getValue(), writer);
             }
             writer.write("</dd>\n");
         }
@@ -49,7 +49,6 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexableField;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
-import org.apache.solr.common.util.XML;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.QueryResponseWriter;
 import org.apache.solr.response.ResultContext;
@@ -105,7 +104,8 @@ public class OpensearchResponseWriter implements QueryResponseWriter, EmbeddedSo
     }
 
     @Override
-    public void write(final Writer writer, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
+    public void write(final Writer out, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
+        final StreamingWriter writer = StreamingWriter.wrap(out);
         
         NamedList<?> values = rsp.getValues();
         
@@ -136,7 +136,7 @@ public class OpensearchResponseWriter implements QueryResponseWriter, EmbeddedSo
         //resHead.maxScore = response.maxScore();
 
         // write header
-        writer.write((
+        writer.write(
                         "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
                         "<?xml-stylesheet type='text/xsl' href='/yacysearch.xsl' version='1.0'?>\n" +
                         "<rss version=\"2.0\"\n" +
@@ -146,7 +146,7 @@ public class OpensearchResponseWriter implements QueryResponseWriter, EmbeddedSo
                         "    xmlns:atom=\"http://www.w3.org/2005/Atom\"\n" +
                         "    xmlns:dc=\"" + DublinCore.NAMESPACE + "\"\n" +
                         "    xmlns:geo=\"" + Geo.NAMESPACE + "\"\n" +
-                        ">\n").toCharArray());
+                        ">\n");
         openTag(writer, "channel");
         solitaireTag(writer, "opensearch:totalResults", Integer.toString(resHead.numFound));
         solitaireTag(writer, "opensearch:startIndex", Integer.toString(resHead.offset));
@@ -252,11 +252,11 @@ public class OpensearchResponseWriter implements QueryResponseWriter, EmbeddedSo
             	List<String> images_protocol = CollectionConfiguration.indexedList2protocolList(images_protocol_obj, images_stub.size());
             	String imageurl = images_protocol.get(0) + "://" + images_stub.get(0);
                  writer.write("<media:content medium=\"image\" url=\"");
-                 XML.escapeCharData(imageurl, writer); writer.write("\"/>\n");
+                 StreamingWriter.xml(imageurl, writer); writer.write("\"/>\n");
             } else {
             	if (url != null && Response.docTypeExt(MultiProtocolURL.getFileExtension(url.getFile()).toLowerCase(Locale.ROOT)) == Response.DT_IMAGE) {
             		writer.write("<media:content medium=\"image\" url=\"");
-                    XML.escapeCharData(url.toNormalform(true), writer); writer.write("\"/>\n");
+                    StreamingWriter.xml(url.toNormalform(true), writer); writer.write("\"/>\n");
             	}
             }
             
@@ -267,7 +267,7 @@ public class OpensearchResponseWriter implements QueryResponseWriter, EmbeddedSo
             if (snippet == null || snippet.size() == 0) {
                 writer.write("<"); writer.write(tagname); writer.write('>');
                 for (String d: descriptions) {
-                    XML.escapeCharData(d, writer);
+                    StreamingWriter.xml(d, writer);
                 }
                 writer.write("</"); writer.write(tagname); writer.write(">\n");
             } else {
@@ -278,6 +278,7 @@ public class OpensearchResponseWriter implements QueryResponseWriter, EmbeddedSo
             solitaireTag(writer, DublinCore.Subject.getURIref(), doc.get(CollectionSchema.keywords.getSolrFieldName()));
             
             closeTag(writer, "item");
+            writer.endDocument();
         }
 
         openTag(writer, "yacy:navigation");
@@ -322,7 +323,8 @@ public class OpensearchResponseWriter implements QueryResponseWriter, EmbeddedSo
         closeTag(writer, "yacy:navigation");
         
         closeTag(writer, "channel");
-        writer.write("</rss>\n".toCharArray());
+        writer.write("</rss>\n");
+        writer.flush();
     }
     
     /**
@@ -400,7 +402,7 @@ public class OpensearchResponseWriter implements QueryResponseWriter, EmbeddedSo
     public static void solitaireTag(final Writer writer, final String tagname, String value) throws IOException {
         if (value == null || value.length() == 0) return;
         writer.write("<"); writer.write(tagname); writer.write('>');
-        XML.escapeCharData(value, writer);
+        StreamingWriter.xml(value, writer);
         writer.write("</"); writer.write(tagname); writer.write(">\n");
     }
 
@@ -415,9 +417,9 @@ public class OpensearchResponseWriter implements QueryResponseWriter, EmbeddedSo
     }
 
     private static void facetEntry(final Writer writer, final String modifier, final String propname, String value) throws IOException {
-        writer.write("<yacy:element name=\""); XML.escapeCharData(propname, writer);
-        writer.write("\" count=\""); XML.escapeCharData(value, writer);
-        writer.write("\" modifier=\""); writer.write(modifier); writer.write("%3A"); XML.escapeCharData(propname, writer);
+        writer.write("<yacy:element name=\""); StreamingWriter.xml(propname, writer);
+        writer.write("\" count=\""); StreamingWriter.xml(value, writer);
+        writer.write("\" modifier=\""); writer.write(modifier); writer.write("%3A"); StreamingWriter.xml(propname, writer);
         writer.write("\" />\n");
     }
 
@@ -0,0 +1,245 @@
+/**
+ *  StreamingWriter
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.federate.solr.responsewriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.solr.common.util.XML;
+import org.apache.solr.search.ReturnFields;
+import org.apache.solr.search.SolrIndexSearcher;
+
+import net.yacy.cora.util.JSONObject;
+
+/**
+ * An unsynchronized buffered writer for the response writers which escapes xml and json values directly into
+ * its buffer, without creating a string for each escaped value. The buffer is written to the underlying writer
+ * when it is full and, together with the underlying writer, flushed after a number of result documents, so a
+ * large result page is sent to the client while the following documents are read from the index.
+ * The static methods escape into any writer and use the buffer if the writer is a StreamingWriter.
+ */
+public class StreamingWriter extends Writer {
+
+    /**
+     * the number of documents after which the output is flushed to the client
+     */
+    public static final int FLUSH_DOCUMENTS = 64;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final char[] buffer;
+    private int pos, documents;
+
+    public StreamingWriter(final Writer out) {
+        this(out, 8192);
+    }
+
+    public StreamingWriter(final Writer out, final int bufferSize) {
+        this.out = out;
+        this.buffer = new char[bufferSize];
+        this.pos = 0;
+        this.documents = 0;
+    }
+
+    /**
+     * @return the writer itself if it is a StreamingWriter, otherwise a StreamingWriter which writes to it
+     */
+    public static StreamingWriter wrap(final Writer writer) {
+        return writer instanceof StreamingWriter ? (StreamingWriter) writer : new StreamingWriter(writer);
+    }
+
+    /**
+     * load the stored fields of a document which are requested by the return fields
+     * @param returnFields the requested fields or null for all fields
+     */
+    public static Document document(final SolrIndexSearcher searcher, final int id, final ReturnFields returnFields) throws IOException {
+        if (returnFields == null || returnFields.wantsAllFields() || returnFields.hasPatternMatching()) return searcher.doc(id);
+        final Set<String> fields = returnFields.getLuceneFieldNames();
+        return fields == null ? searcher.doc(id) : searcher.doc(id, fields);
+    }
+
+    /**
+     * mark the end of a result document; the output is sent to the client after {@link #FLUSH_DOCUMENTS} documents
+     */
+    public void endDocument() throws IOException {
+        if (++this.documents % FLUSH_DOCUMENTS == 0) flush();
+    }
+
+    /**
+     * @see #endDocument()
+     */
+    public static void endDocument(final Writer writer) throws IOException {
+        if (writer instanceof StreamingWriter) ((StreamingWriter) writer).endDocument();
+    }
+
+    private void drain() throws IOException {
+        if (this.pos > 0) {
+            this.out.write(this.buffer, 0, this.pos);
+            this.pos = 0;
+        }
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        if (this.pos == this.buffer.length) drain();
+        this.buffer[this.pos++] = (char) c;
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        if (len > this.buffer.length - this.pos) {
+            drain();
+            if (len > this.buffer.length) {
+                this.out.write(cbuf, off, len);
+                return;
+            }
+        }
+        System.arraycopy(cbuf, off, this.buffer, this.pos, len);
+        this.pos += len;
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        if (len > this.buffer.length - this.pos) {
+            drain();
+            if (len > this.buffer.length) {
+                this.out.write(str, off, len);
+                return;
+            }
+        }
+        str.getChars(off, off + len, this.buffer, this.pos);
+        this.pos += len;
+    }
+
+    @Override
+    public void write(final String str) throws IOException {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+        this.out.close();
+    }
+
+    /**
+     * escape xml character data like {@link XML#escapeCharData(String, Writer)}
+     */
+    public void xml(final String s) throws IOException {
+        escapeXML(s, false);
+    }
+
+    /**
+     * escape an xml attribute value like {@link XML#escapeAttributeValue(String, Writer)}
+     */
+    public void xmlAttribute(final String s) throws IOException {
+        escapeXML(s, true);
+    }
+
+    private void escapeXML(final String s, final boolean attribute) throws IOException {
+        final int len = s.length();
+        int start = 0;
+        for (int i = 0; i < len; i++) {
+            final char c = s.charAt(i);
+            final String r;
+            if (c == '<') r = "&lt;";
+            else if (c == '&') r = "&amp;";
+            else if (c == '>' && !attribute) r = "&gt;";
+            else if (c == '"' && attribute) r = "&quot;";
+            else if (c < ' ' && c != '\t' && c != '\n' && c != '\r') r = "#" + (int) c + ";";
+            else continue;
+            if (i > start) write(s, start, i - start);
+            write(r);
+            start = i + 1;
+        }
+        if (len > start) write(s, start, len - start);
+    }
+
+    /**
+     * write a quoted json string like {@link JSONObject#quote(String, Writer)}
+     */
+    public void json(final String s) throws IOException {
+        write('"');
+        if (s == null) {
+            write('"');
+            return;
+        }
+        final int len = s.length();
+        int start = 0;
+        char c = 0;
+        for (int i = 0; i < len; i++) {
+            final char b = c;
+            c = s.charAt(i);
+            final boolean escape;
+            if (c == '\\' || c == '"') escape = true;
+            else if (c == '/') escape = b == '<'; // do not write </script
+            else escape = c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100');
+            if (!escape) continue;
+            if (i > start) write(s, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '\\':
+                case '"':
+                case '/':
+                    write('\\'); write(c); break;
+                case '\b': write("\\b"); break;
+                case '\t': write("\\t"); break;
+                case '\n': write("\\n"); break;
+                case '\f': write("\\f"); break;
+                case '\r': write("\\r"); break;
+                default:
+                    write("\\u");
+                    write(HEX[(c >> 12) & 0xf]); write(HEX[(c >> 8) & 0xf]); write(HEX[(c >> 4) & 0xf]); write(HEX[c & 0xf]);
+            }
+        }
+        if (len > start) write(s, start, len - start);
+        write('"');
+    }
+
+    /**
+     * escape xml character data into any writer
+     */
+    public static void xml(final String s, final Writer writer) throws IOException {
+        if (writer instanceof StreamingWriter) ((StreamingWriter) writer).xml(s); else XML.escapeCharData(s, writer);
+    }
+
+    /**
+     * escape an xml attribute value into any writer
+     */
+    public static void xmlAttribute(final String s, final Writer writer) throws IOException {
+        if (writer instanceof StreamingWriter) ((StreamingWriter) writer).xmlAttribute(s); else XML.escapeAttributeValue(s, writer);
+    }
+
+    /**
+     * write a quoted json string into any writer
+     */
+    public static void json(final String s, final Writer writer) throws IOException {
+        if (writer instanceof StreamingWriter) ((StreamingWriter) writer).json(s); else JSONObject.quote(s, writer);
+    }
+}
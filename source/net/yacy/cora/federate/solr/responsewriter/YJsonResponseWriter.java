@@ -35,7 +35,6 @@ import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.federate.solr.responsewriter.OpensearchResponseWriter.ResHead;
 import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.util.ConcurrentLog;
-import net.yacy.cora.util.JSONObject;
 import net.yacy.crawler.retrieval.Response;
 import net.yacy.search.schema.CollectionConfiguration;
 import net.yacy.search.schema.CollectionSchema;
@@ -89,7 +88,8 @@ public class YJsonResponseWriter implements QueryResponseWriter, EmbeddedSolrRes
     }
 
     @Override
-    public void write(final Writer writer, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
+    public void write(final Writer out, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
+        final StreamingWriter writer = StreamingWriter.wrap(out);
 
         NamedList<?> values = rsp.getValues();
         
@@ -115,18 +115,18 @@ public class YJsonResponseWriter implements QueryResponseWriter, EmbeddedSolrRes
 
         String jsonp = request.getParams().get("callback"); // check for JSONP
         if (jsonp != null) {
-            writer.write(jsonp.toCharArray());
-            writer.write("([".toCharArray());
+            writer.write(jsonp);
+            writer.write("([");
         }
         
         // write header
-        writer.write(("{\"channels\": [{\n").toCharArray());
+        writer.write("{\"channels\": [{\n");
         solitaireTag(writer, "totalResults", Integer.toString(resHead.numFound));
         solitaireTag(writer, "startIndex", Integer.toString(resHead.offset));
         solitaireTag(writer, "itemsPerPage", Integer.toString(resHead.rows));
         solitaireTag(writer, "title", this.title);
         solitaireTag(writer, "description", "Search Result");
-        writer.write("\"items\": [\n".toCharArray());
+        writer.write("\"items\": [\n");
 
         // parse body
         final int responseCount = response.size();
@@ -134,7 +134,7 @@ public class YJsonResponseWriter implements QueryResponseWriter, EmbeddedSolrRes
         DocIterator iterator = response.iterator();
         for (int i = 0; i < responseCount; i++) {
             try {
-            writer.write("{\n".toCharArray());
+            writer.write("{\n");
             int id = iterator.nextDoc();
             Document doc = searcher.doc(id, OpensearchResponseWriter.SOLR_FIELDS);
             List<IndexableField> fields = doc.getFields();
@@ -238,19 +238,20 @@ public class YJsonResponseWriter implements QueryResponseWriter, EmbeddedSolrRes
                 int sp = snippetstring.lastIndexOf(' ');
                 if (sp >= 0) snippetstring = snippetstring.substring(0, sp) + " ..."; else snippetstring = snippetstring + "...";
             }
-            writer.write("\"description\":"); writer.write(JSONObject.quote(snippetstring)); writer.write("\n}\n");
+            writer.write("\"description\":"); StreamingWriter.json(snippetstring, writer); writer.write("\n}\n");
             if (i < responseCount - 1) {
-                writer.write(",\n".toCharArray());
+                writer.write(",\n");
             }
             } catch (final Throwable ee) {
                 ConcurrentLog.logException(ee);
                 writer.write("\"description\":\"\"\n}\n");
                 if (i < responseCount - 1) {
-                    writer.write(",\n".toCharArray());
+                    writer.write(",\n");
                 }
             }
+            writer.endDocument();
         }
-        writer.write("],\n".toCharArray());
+        writer.write("],\n");
         
         
         writer.write("\"navigation\":[\n");
@@ -270,18 +271,18 @@ public class YJsonResponseWriter implements QueryResponseWriter, EmbeddedSolrRes
         int facetcount = 0;
         if (domains != null) {
             writer.write(facetcount > 0 ? ",\n" : "\n");
-            writer.write("{\"facetname\":\"domains\",\"displayname\":\"Provider\",\"type\":\"String\",\"min\":\"0\",\"max\":\"0\",\"mean\":\"0\",\"elements\":[\n".toCharArray());
+            writer.write("{\"facetname\":\"domains\",\"displayname\":\"Provider\",\"type\":\"String\",\"min\":\"0\",\"max\":\"0\",\"mean\":\"0\",\"elements\":[\n");
             for (int i = 0; i < domains.size(); i++) {
                 facetEntry(writer, "site", domains.getName(i), Integer.toString(domains.getVal(i)));
                 if (i < domains.size() - 1) writer.write(',');
                 writer.write("\n");
             }
-            writer.write("]}".toCharArray());
+            writer.write("]}");
             facetcount++;
         }
         if (filetypes != null) {
             writer.write(facetcount > 0 ? ",\n" : "\n");
-            writer.write("{\"facetname\":\"filetypes\",\"displayname\":\"Filetypes\",\"type\":\"String\",\"min\":\"0\",\"max\":\"0\",\"mean\":\"0\",\"elements\":[\n".toCharArray());
+            writer.write("{\"facetname\":\"filetypes\",\"displayname\":\"Filetypes\",\"type\":\"String\",\"min\":\"0\",\"max\":\"0\",\"mean\":\"0\",\"elements\":[\n");
             List<Map.Entry<String, Integer>> l = new ArrayList<Map.Entry<String,Integer>>();
             for (Map.Entry<String, Integer> e: filetypes) {
                 if (e.getKey().length() <= 6) l.add(e);
@@ -293,60 +294,61 @@ public class YJsonResponseWriter implements QueryResponseWriter, EmbeddedSolrRes
                 if (i < l.size() - 1) writer.write(',');
                 writer.write("\n");
             }
-            writer.write("]}".toCharArray());
+            writer.write("]}");
             facetcount++;
         }
         if (protocols != null) {
             writer.write(facetcount > 0 ? ",\n" : "\n");
-            writer.write("{\"facetname\":\"protocols\",\"displayname\":\"Protocol\",\"type\":\"String\",\"min\":\"0\",\"max\":\"0\",\"mean\":\"0\",\"elements\":[\n".toCharArray());
+            writer.write("{\"facetname\":\"protocols\",\"displayname\":\"Protocol\",\"type\":\"String\",\"min\":\"0\",\"max\":\"0\",\"mean\":\"0\",\"elements\":[\n");
             for (int i = 0; i < protocols.size(); i++) {
                 facetEntry(writer, "protocol", protocols.getName(i), Integer.toString(protocols.getVal(i)));
                 if (i < protocols.size() - 1) writer.write(',');
                 writer.write("\n");
             }
-            writer.write("]}".toCharArray());
+            writer.write("]}");
             facetcount++;
         }
         if (authors != null) {
             writer.write(facetcount > 0 ? ",\n" : "\n");
-            writer.write("{\"facetname\":\"authors\",\"displayname\":\"Authors\",\"type\":\"String\",\"min\":\"0\",\"max\":\"0\",\"mean\":\"0\",\"elements\":[\n".toCharArray());
+            writer.write("{\"facetname\":\"authors\",\"displayname\":\"Authors\",\"type\":\"String\",\"min\":\"0\",\"max\":\"0\",\"mean\":\"0\",\"elements\":[\n");
             for (int i = 0; i < authors.size(); i++) {
                 facetEntry(writer, "author", authors.getName(i), Integer.toString(authors.getVal(i)));
                 if (i < authors.size() - 1) writer.write(',');
                 writer.write("\n");
             }
-            writer.write("]}".toCharArray());
+            writer.write("]}");
             facetcount++;
         }
         if (collections != null) {
             writer.write(facetcount > 0 ? ",\n" : "\n");
-            writer.write("{\"facetname\":\"collections\",\"displayname\":\"Collections\",\"type\":\"String\",\"min\":\"0\",\"max\":\"0\",\"mean\":\"0\",\"elements\":[\n".toCharArray());
+            writer.write("{\"facetname\":\"collections\",\"displayname\":\"Collections\",\"type\":\"String\",\"min\":\"0\",\"max\":\"0\",\"mean\":\"0\",\"elements\":[\n");
             for (int i = 0; i < collections.size(); i++) {
                 facetEntry(writer, "collection", collections.getName(i), Integer.toString(collections.getVal(i)));
                 if (i < collections.size() - 1) writer.write(',');
                 writer.write("\n");
             }
-            writer.write("]}".toCharArray());
+            writer.write("]}");
             facetcount++;
         }
-        writer.write("\n]}]}\n".toCharArray());
+        writer.write("\n]}]}\n");
         
         if (jsonp != null) {
-            writer.write("])".toCharArray());
+            writer.write("])");
         }
+        writer.flush();
     }
 
     public static void solitaireTag(final Writer writer, final String tagname, String value) throws IOException {
         if (value == null) return;
-        writer.write('"'); writer.write(tagname); writer.write("\":"); writer.write(JSONObject.quote(value)); writer.write(','); writer.write('\n');
+        writer.write('"'); writer.write(tagname); writer.write("\":"); StreamingWriter.json(value, writer); writer.write(','); writer.write('\n');
     }
 
     private static void facetEntry(final Writer writer, String modifier, String propname, final String value) throws IOException {
         modifier = modifier.replaceAll("\"", "'").trim();
         propname = propname.replaceAll("\"", "'").trim();
-        writer.write("{\"name\":"); writer.write(JSONObject.quote(propname));
-        writer.write(",\"count\":"); writer.write(JSONObject.quote(value.replaceAll("\"", "'").trim())); 
-        writer.write(",\"modifier\":"); writer.write(JSONObject.quote(modifier+"%3A"+propname));
+        writer.write("{\"name\":"); StreamingWriter.json(propname, writer);
+        writer.write(",\"count\":"); StreamingWriter.json(value.replaceAll("\"", "'").trim(), writer); 
+        writer.write(",\"modifier\":"); StreamingWriter.json(modifier+"%3A"+propname, writer);
         writer.write("}");
     }
 }
@@ -30,6 +30,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -48,6 +49,9 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
     
 	/** Eventual registered object listening on map updates */
 	private ScoreMapUpdatesListener updatesListener;
+	
+	/** the keys with the highest scores, maintained on each update if not null */
+	private final TopK<E> top;
 
     public ConcurrentScoreMap()  {
         this(null);
@@ -57,9 +61,28 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
      * @param updatesListener an eventual object listening on score map updates
      */
     public ConcurrentScoreMap(final ScoreMapUpdatesListener updatesListener)  {
+        this(updatesListener, 0);
+    }
+    
+    /**
+     * @param updatesListener an eventual object listening on score map updates
+     * @param topK if greater than zero, the keys with the topK highest scores are maintained on each update,
+     *   so that {@link #keys(boolean)} in descending order delivers them without sorting the whole map
+     */
+    public ConcurrentScoreMap(final ScoreMapUpdatesListener updatesListener, final int topK)  {
         this.map = new ConcurrentHashMap<E, AtomicInteger>();
         this.gcount = 0;
         this.updatesListener = updatesListener;
+        this.top = topK > 0 ? new TopK<E>(topK, this.map) : null;
+    }
+    
+    /**
+     * Report the changed score of a key to the top keys
+     */
+    private void updateTop(final E obj) {
+        if (this.top != null) synchronized (this.top) {
+            this.top.update(obj);
+        }
     }
     
     /**
@@ -80,6 +103,9 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
     public synchronized void clear() {
         this.map.clear();
         this.gcount = 0;
+        if (this.top != null) synchronized (this.top) {
+            this.top.clear();
+        }
         dispatchUpdateToListener();
     }
 
@@ -111,6 +137,9 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
             }
         }
         if(deletedNb > 0) {
+            if (this.top != null) synchronized (this.top) {
+                this.top.invalidate();
+            }
         	dispatchUpdateToListener();
         }
         return deletedNb;
@@ -142,6 +171,7 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
         // use atomic operations
         this.map.putIfAbsent(obj, new AtomicInteger(0));
         this.map.get(obj).incrementAndGet();
+        updateTop(obj);
 
         // increase overall counter
         this.gcount++;
@@ -156,6 +186,7 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
         // use atomic operations
         this.map.putIfAbsent(obj, new AtomicInteger(0));
         this.map.get(obj).decrementAndGet();
+        updateTop(obj);
 
         // increase overall counter
         this.gcount--;
@@ -174,6 +205,7 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
             this.gcount -= old.intValue(); // must use old before setting a new value (it's a object reference)
             this.map.get(obj).set(newScore);
         }
+        updateTop(obj);
         // increase overall counter
         this.gcount += newScore;
         
@@ -187,6 +219,7 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
         // use atomic operations
         this.map.putIfAbsent(obj, new AtomicInteger(0));
         this.map.get(obj).addAndGet(incrementScore);
+        updateTop(obj);
 
         // increase overall counter
         this.gcount += incrementScore;
@@ -205,6 +238,7 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
         if (obj == null) return 0;
         final AtomicInteger score = this.map.remove(obj);
         if (score == null) return 0;
+        updateTop(obj);
 
         // decrease overall counter
         this.gcount -= score.intValue();
@@ -260,6 +294,53 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
      */
     @Override
     public Iterator<E> keys(final boolean up) {
+        if (!up && this.top != null) return topKeys();
+        return sortedKeys(up);
+    }
+    
+    /**
+     * @return the maintained top keys and, if the iteration goes further, the keys of the remaining entries in
+     *   descending order of their score values
+     */
+    private Iterator<E> topKeys() {
+        final List<E> topList;
+        final boolean complete;
+        synchronized (this.top) {
+            topList = this.top.top();
+            complete = this.top.complete();
+        }
+        return new Iterator<E>() {
+            private Iterator<E> i = topList.iterator();
+            private boolean rest = complete;
+            @Override
+            public boolean hasNext() {
+                if (this.i.hasNext()) return true;
+                if (this.rest) return false;
+                // only rarely needed: sort the whole map and skip the keys which were already delivered
+                this.rest = true;
+                final Set<E> delivered = new HashSet<E>(topList);
+                final List<E> remaining = new ArrayList<E>();
+                final Iterator<E> all = sortedKeys(false);
+                while (all.hasNext()) {
+                    final E e = all.next();
+                    if (!delivered.contains(e)) remaining.add(e);
+                }
+                this.i = remaining.iterator();
+                return this.i.hasNext();
+            }
+            @Override
+            public E next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return this.i.next();
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+    
+    private Iterator<E> sortedKeys(final boolean up) {
         // re-organize entries
         final TreeMap<Integer, Set<E>> m = new TreeMap<Integer, Set<E>>();
         Set<E> s;
@@ -0,0 +1,351 @@
+/**
+ *  HashScoreMap
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.sorting;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A score map for keys of a fixed length, like the 12-byte url hashes or the 6-byte host hashes. The keys
+ * are copied into one byte array and the scores are primitive int values in an open addressing hash table
+ * with linear probing, so a map entry needs no objects at all. Keys can be given as a part of a longer
+ * array, i.e. the host hash can be counted with the url hash and an offset of 6. The map is synchronized.
+ */
+public class HashScoreMap extends AbstractScoreMap<byte[]> implements ReversibleScoreMap<byte[]> {
+
+    private static final int INITIAL_CAPACITY = 16; // must be a power of two
+
+    private final int keylength;
+    private byte[] keys;
+    private boolean[] used;
+    private int[] values;
+    private int size;
+    private long total;
+
+    /**
+     * @param keylength the length of all keys
+     */
+    public HashScoreMap(final int keylength) {
+        this.keylength = keylength;
+        init(INITIAL_CAPACITY);
+    }
+
+    private void init(final int capacity) {
+        this.keys = new byte[capacity * this.keylength];
+        this.used = new boolean[capacity];
+        this.values = new int[capacity];
+        this.size = 0;
+    }
+
+    private int hash(final byte[] a, final int offset) {
+        int h = 1;
+        for (int i = 0; i < this.keylength; i++) h = 31 * h + a[offset + i];
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private boolean equal(final int slot, final byte[] a, final int offset) {
+        final int p = slot * this.keylength;
+        for (int i = 0; i < this.keylength; i++) if (this.keys[p + i] != a[offset + i]) return false;
+        return true;
+    }
+
+    private int slot(final byte[] a, final int offset) {
+        final int mask = this.used.length - 1;
+        int i = hash(a, offset) & mask;
+        while (this.used[i]) {
+            if (equal(i, a, offset)) return i;
+            i = (i + 1) & mask;
+        }
+        return -1 - i;
+    }
+
+    private int insert(final byte[] a, final int offset, final int value) {
+        if (this.size + 1 > (this.used.length >> 1) + (this.used.length >> 2)) grow();
+        final int i = -1 - slot(a, offset);
+        System.arraycopy(a, offset, this.keys, i * this.keylength, this.keylength);
+        this.used[i] = true;
+        this.values[i] = value;
+        this.size++;
+        return i;
+    }
+
+    private void grow() {
+        final byte[] oldKeys = this.keys;
+        final boolean[] oldUsed = this.used;
+        final int[] oldValues = this.values;
+        init(oldUsed.length << 1);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (!oldUsed[i]) continue;
+            final int j = -1 - slot(oldKeys, i * this.keylength);
+            System.arraycopy(oldKeys, i * this.keylength, this.keys, j * this.keylength, this.keylength);
+            this.used[j] = true;
+            this.values[j] = oldValues[i];
+            this.size++;
+        }
+    }
+
+    private void removeAt(int i) {
+        // backward shift deletion keeps the probe sequences intact without tombstones
+        final int mask = this.used.length - 1;
+        this.used[i] = false;
+        this.size--;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (!this.used[j]) return;
+            final int home = hash(this.keys, j * this.keylength) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                System.arraycopy(this.keys, j * this.keylength, this.keys, i * this.keylength, this.keylength);
+                this.used[i] = true;
+                this.values[i] = this.values[j];
+                this.used[j] = false;
+                i = j;
+            }
+        }
+    }
+
+    private byte[] key(final int slot) {
+        final byte[] key = new byte[this.keylength];
+        System.arraycopy(this.keys, slot * this.keylength, key, 0, this.keylength);
+        return key;
+    }
+
+    /**
+     * increase the score of the key which is stored in a[offset .. offset + keylength - 1]
+     */
+    public synchronized void inc(final byte[] a, final int offset, final int incrementScore) {
+        final int i = slot(a, offset);
+        if (i >= 0) this.values[i] += incrementScore; else insert(a, offset, incrementScore);
+        this.total += incrementScore;
+    }
+
+    /**
+     * @return the score of the key which is stored in a[offset .. offset + keylength - 1] or zero
+     */
+    public synchronized int get(final byte[] a, final int offset) {
+        final int i = slot(a, offset);
+        return i >= 0 ? this.values[i] : 0;
+    }
+
+    @Override
+    public void inc(final byte[] obj) {
+        if (obj == null) return;
+        inc(obj, 0, 1);
+    }
+
+    @Override
+    public void inc(final byte[] obj, final int incrementScore) {
+        if (obj == null) return;
+        inc(obj, 0, incrementScore);
+    }
+
+    @Override
+    public void dec(final byte[] obj) {
+        if (obj == null) return;
+        inc(obj, 0, -1);
+    }
+
+    @Override
+    public void dec(final byte[] obj, final int decrementScore) {
+        if (obj == null) return;
+        inc(obj, 0, -decrementScore);
+    }
+
+    @Override
+    public synchronized void set(final byte[] obj, final int newScore) {
+        if (obj == null) return;
+        final int i = slot(obj, 0);
+        if (i >= 0) {
+            this.total += newScore - this.values[i];
+            this.values[i] = newScore;
+        } else {
+            insert(obj, 0, newScore);
+            this.total += newScore;
+        }
+    }
+
+    @Override
+    public synchronized int delete(final byte[] obj) {
+        if (obj == null) return 0;
+        final int i = slot(obj, 0);
+        if (i < 0) return 0;
+        final int old = this.values[i];
+        removeAt(i);
+        this.total -= old;
+        return old;
+    }
+
+    @Override
+    public boolean containsKey(final byte[] obj) {
+        if (obj == null) return false;
+        synchronized (this) {
+            return slot(obj, 0) >= 0;
+        }
+    }
+
+    @Override
+    public int get(final byte[] obj) {
+        if (obj == null) return 0;
+        return get(obj, 0);
+    }
+
+    /**
+     * @return the sum of all scores
+     */
+    public synchronized long totalCount() {
+        return this.total;
+    }
+
+    @Override
+    public synchronized void clear() {
+        init(INITIAL_CAPACITY);
+        this.total = 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean sizeSmaller(final int size) {
+        return size() < size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public synchronized int shrinkToMinScore(final int minScore) {
+        int removed = 0;
+        for (int i = 0; i < this.used.length; i++) {
+            while (this.used[i] && this.values[i] < minScore) {
+                this.total -= this.values[i];
+                removeAt(i);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized int shrinkToMaxSize(final int maxsize) {
+        if (this.size <= maxsize) return 0;
+        if (maxsize <= 0) {
+            final int removed = this.size;
+            clear();
+            return removed;
+        }
+        final int[] scores = new int[this.size];
+        int n = 0;
+        for (int i = 0; i < this.used.length; i++) if (this.used[i]) scores[n++] = this.values[i];
+        Arrays.sort(scores);
+        return shrinkToMinScore(scores[scores.length - maxsize - 1] + 1);
+    }
+
+    /**
+     * Creates and returns a sorted view to the keys. Sortorder is the score value.
+     * @param up true = asc order, false = reverse order
+     * @return iterator accessing copies of the keys in order of score values
+     */
+    @Override
+    public Iterator<byte[]> keys(final boolean up) {
+        final long[] sorted;
+        final byte[][] k;
+        synchronized (this) {
+            sorted = new long[this.size];
+            k = new byte[this.size][];
+            int n = 0;
+            for (int i = 0; i < this.used.length; i++) {
+                if (!this.used[i]) continue;
+                k[n] = key(i);
+                sorted[n] = ((long) this.values[i] << 32) | n;
+                n++;
+            }
+        }
+        Arrays.sort(sorted);
+        return new Iterator<byte[]>() {
+            private int p = 0;
+            @Override
+            public boolean hasNext() {
+                return this.p < sorted.length;
+            }
+            @Override
+            public byte[] next() {
+                if (this.p >= sorted.length) throw new NoSuchElementException();
+                final int i = (int) sorted[up ? this.p : sorted.length - 1 - this.p];
+                this.p++;
+                return k[i];
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @return an iterator of copies of the keys of a snapshot of the map
+     */
+    @Override
+    public Iterator<byte[]> iterator() {
+        final byte[][] k;
+        synchronized (this) {
+            k = new byte[this.size][];
+            int n = 0;
+            for (int i = 0; i < this.used.length; i++) if (this.used[i]) k[n++] = key(i);
+        }
+        return Arrays.asList(k).iterator();
+    }
+
+    @Override
+    public synchronized int getMaxScore() {
+        if (this.size == 0) return -1;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < this.used.length; i++) if (this.used[i] && this.values[i] > max) max = this.values[i];
+        return max;
+    }
+
+    @Override
+    public synchronized int getMinScore() {
+        if (this.size == 0) return -1;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < this.used.length; i++) if (this.used[i] && this.values[i] < min) min = this.values[i];
+        return min;
+    }
+
+    @Override
+    public synchronized byte[] getMaxKey() {
+        int best = -1;
+        for (int i = 0; i < this.used.length; i++) if (this.used[i] && (best < 0 || this.values[i] > this.values[best])) best = i;
+        return best < 0 ? null : key(best);
+    }
+
+    @Override
+    public synchronized byte[] getMinKey() {
+        int best = -1;
+        for (int i = 0; i < this.used.length; i++) if (this.used[i] && (best < 0 || this.values[i] < this.values[best])) best = i;
+        return best < 0 ? null : key(best);
+    }
+}
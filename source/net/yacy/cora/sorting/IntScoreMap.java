@@ -0,0 +1,447 @@
+/**
+ *  IntScoreMap
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.sorting;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent score map which stores the scores as primitive int values. The map is split into
+ * stripes which are selected by the hash of the key; each stripe is an open addressing hash table
+ * with linear probing and is locked on its own, so updates of different keys rarely wait for each
+ * other. Increasing the score of an existing key does not allocate any object, unlike a map of
+ * AtomicInteger boxes.
+ *
+ * @param <E> the key type
+ */
+public class IntScoreMap<E> extends AbstractScoreMap<E> implements ReversibleScoreMap<E> {
+
+    private static final int STRIPES = 16; // must be a power of two
+    private static final int INITIAL_CAPACITY = 8; // per stripe, must be a power of two
+
+    private static final class Stripe {
+        private Object[] keys;
+        private int[] values;
+        private volatile int size; // written with the lock, read without
+
+        private Stripe() {
+            this.keys = new Object[INITIAL_CAPACITY];
+            this.values = new int[INITIAL_CAPACITY];
+            this.size = 0;
+        }
+
+        private int slot(final Object key, final int hash) {
+            final int mask = this.keys.length - 1;
+            int i = hash & mask;
+            Object k;
+            while ((k = this.keys[i]) != null) {
+                if (k == key || k.equals(key)) return i;
+                i = (i + 1) & mask;
+            }
+            return -1 - i; // the free slot where the key can be inserted
+        }
+
+        private synchronized int add(final Object key, final int hash, final int delta) {
+            int i = slot(key, hash);
+            if (i >= 0) return this.values[i] += delta;
+            if (this.size + 1 > (this.keys.length >> 1) + (this.keys.length >> 2)) {
+                grow();
+                i = slot(key, hash);
+            }
+            i = -1 - i;
+            this.keys[i] = key;
+            this.values[i] = delta;
+            this.size++;
+            return delta;
+        }
+
+        /**
+         * @return the previous score or zero
+         */
+        private synchronized int set(final Object key, final int hash, final int value) {
+            final int i = slot(key, hash);
+            if (i >= 0) {
+                final int old = this.values[i];
+                this.values[i] = value;
+                return old;
+            }
+            add(key, hash, value);
+            return 0;
+        }
+
+        private synchronized int get(final Object key, final int hash) {
+            final int i = slot(key, hash);
+            return i >= 0 ? this.values[i] : 0;
+        }
+
+        private synchronized boolean contains(final Object key, final int hash) {
+            return slot(key, hash) >= 0;
+        }
+
+        /**
+         * @return the previous score or null if the key was not in the stripe
+         */
+        private synchronized Integer remove(final Object key, final int hash) {
+            final int i = slot(key, hash);
+            if (i < 0) return null;
+            final int old = this.values[i];
+            removeAt(i);
+            return old;
+        }
+
+        private void removeAt(int i) {
+            // backward shift deletion keeps the probe sequences intact without tombstones
+            final int mask = this.keys.length - 1;
+            this.keys[i] = null;
+            this.size--;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                final Object k = this.keys[j];
+                if (k == null) return;
+                final int home = spread(k.hashCode()) & mask;
+                // move k to i if its probe sequence from home passes i before j
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    this.keys[i] = k;
+                    this.values[i] = this.values[j];
+                    this.keys[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+        /**
+         * @param total the sum of all scores, the removed scores are subtracted
+         * @return the number of removed entries
+         */
+        private synchronized int removeSmaller(final int minScore, final LongAdder total) {
+            int removed = 0;
+            for (int i = 0; i < this.keys.length; i++) {
+                while (this.keys[i] != null && this.values[i] < minScore) {
+                    total.add(-this.values[i]);
+                    removeAt(i); // may shift another entry into slot i
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        private void grow() {
+            final Object[] oldKeys = this.keys;
+            final int[] oldValues = this.values;
+            this.keys = new Object[oldKeys.length << 1];
+            this.values = new int[oldKeys.length << 1];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null) continue;
+                final int j = -1 - slot(oldKeys[i], spread(oldKeys[i].hashCode()));
+                this.keys[j] = oldKeys[i];
+                this.values[j] = oldValues[i];
+            }
+        }
+
+        private synchronized void clear() {
+            this.keys = new Object[INITIAL_CAPACITY];
+            this.values = new int[INITIAL_CAPACITY];
+            this.size = 0;
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final LongAdder total;
+    private ScoreMapUpdatesListener updatesListener;
+
+    public IntScoreMap() {
+        this(null);
+    }
+
+    /**
+     * @param updatesListener an eventual object listening on score map updates
+     */
+    public IntScoreMap(final ScoreMapUpdatesListener updatesListener) {
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) this.stripes[i] = new Stripe();
+        this.total = new LongAdder();
+        this.updatesListener = updatesListener;
+    }
+
+    private static int spread(final int h) {
+        final int x = h * 0x9E3779B9;
+        return x ^ (x >>> 16);
+    }
+
+    private Stripe stripe(final int hash) {
+        return this.stripes[hash >>> 28 & (STRIPES - 1)];
+    }
+
+    private void dispatchUpdateToListener() {
+        if (this.updatesListener != null) this.updatesListener.updatedScoreMap();
+    }
+
+    /**
+     * @param updatesListener an eventual object which wants to listen to successful updates on this score map
+     */
+    public void setUpdatesListener(final ScoreMapUpdatesListener updatesListener) {
+        this.updatesListener = updatesListener;
+    }
+
+    /**
+     * @return the sum of all scores
+     */
+    public long totalCount() {
+        return this.total.sum();
+    }
+
+    @Override
+    public void clear() {
+        for (final Stripe s: this.stripes) s.clear();
+        this.total.reset();
+        dispatchUpdateToListener();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (final Stripe s: this.stripes) size += s.size;
+        return size;
+    }
+
+    @Override
+    public boolean sizeSmaller(final int size) {
+        return size() < size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (final Stripe s: this.stripes) if (s.size > 0) return false;
+        return true;
+    }
+
+    @Override
+    public void inc(final E obj) {
+        inc(obj, 1);
+    }
+
+    @Override
+    public void inc(final E obj, final int incrementScore) {
+        if (obj == null) return;
+        final int hash = spread(obj.hashCode());
+        stripe(hash).add(obj, hash, incrementScore);
+        this.total.add(incrementScore);
+        dispatchUpdateToListener();
+    }
+
+    @Override
+    public void dec(final E obj) {
+        inc(obj, -1);
+    }
+
+    @Override
+    public void dec(final E obj, final int decrementScore) {
+        inc(obj, -decrementScore);
+    }
+
+    @Override
+    public void set(final E obj, final int newScore) {
+        if (obj == null) return;
+        final int hash = spread(obj.hashCode());
+        final int old = stripe(hash).set(obj, hash, newScore);
+        this.total.add(newScore - old);
+        dispatchUpdateToListener();
+    }
+
+    @Override
+    public int delete(final E obj) {
+        if (obj == null) return 0;
+        final int hash = spread(obj.hashCode());
+        final Integer old = stripe(hash).remove(obj, hash);
+        if (old == null) return 0;
+        this.total.add(-old.intValue());
+        dispatchUpdateToListener();
+        return old.intValue();
+    }
+
+    @Override
+    public boolean containsKey(final E obj) {
+        if (obj == null) return false;
+        final int hash = spread(obj.hashCode());
+        return stripe(hash).contains(obj, hash);
+    }
+
+    @Override
+    public int get(final E obj) {
+        if (obj == null) return 0;
+        final int hash = spread(obj.hashCode());
+        return stripe(hash).get(obj, hash);
+    }
+
+    @Override
+    public int shrinkToMinScore(final int minScore) {
+        int removed = 0;
+        for (final Stripe s: this.stripes) removed += s.removeSmaller(minScore, this.total);
+        if (removed > 0) dispatchUpdateToListener();
+        return removed;
+    }
+
+    @Override
+    public int shrinkToMaxSize(final int maxsize) {
+        final int size = size();
+        if (size <= maxsize) return 0;
+        if (maxsize <= 0) {
+            clear();
+            return size;
+        }
+        // remove all entries with a score up to the score at rank size - maxsize, like shrinking step by step to higher minimum scores
+        final long[] sorted = sorted();
+        final int border = (int) (sorted[sorted.length - maxsize - 1] >> 32);
+        return shrinkToMinScore(border + 1);
+    }
+
+    /**
+     * @return the scores of a snapshot of the map in ascending order, as score << 32 | index
+     */
+    private long[] sorted() {
+        return sort(snapshotScores(null));
+    }
+
+    /**
+     * @param keysOut if not null, the keys of the snapshot are stored in keysOut[0] in the same order as the scores
+     * @return the scores of a snapshot of the map
+     */
+    private int[] snapshotScores(final Object[][] keysOut) {
+        int n = 0;
+        int[] scores = new int[size() + 16];
+        Object[] keys = keysOut == null ? null : new Object[scores.length];
+        for (final Stripe s: this.stripes) {
+            synchronized (s) {
+                for (int i = 0; i < s.keys.length; i++) {
+                    if (s.keys[i] == null) continue;
+                    if (n == scores.length) {
+                        scores = Arrays.copyOf(scores, n * 2);
+                        if (keys != null) keys = Arrays.copyOf(keys, n * 2);
+                    }
+                    if (keys != null) keys[n] = s.keys[i];
+                    scores[n++] = s.values[i];
+                }
+            }
+        }
+        if (keysOut != null) keysOut[0] = Arrays.copyOf(keys, n);
+        return Arrays.copyOf(scores, n);
+    }
+
+    private static long[] sort(final int[] scores) {
+        final long[] sorted = new long[scores.length];
+        for (int i = 0; i < scores.length; i++) sorted[i] = ((long) scores[i] << 32) | i;
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Creates and returns a sorted view to the keys. Sortorder is the score value.
+     * @param up true = asc order, false = reverse order
+     * @return iterator accessing the keys in order of score values
+     */
+    @Override
+    public Iterator<E> keys(final boolean up) {
+        final Object[][] keys = new Object[1][];
+        final long[] sorted = sort(snapshotScores(keys));
+        return new Iterator<E>() {
+            private int p = 0;
+            @Override
+            public boolean hasNext() {
+                return this.p < sorted.length;
+            }
+            @SuppressWarnings("unchecked")
+            @Override
+            public E next() {
+                if (this.p >= sorted.length) throw new NoSuchElementException();
+                final int i = (int) sorted[up ? this.p : sorted.length - 1 - this.p];
+                this.p++;
+                return (E) keys[0][i];
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final Object[][] keys = new Object[1][];
+        snapshotScores(keys);
+        return new Iterator<E>() {
+            private int p = 0;
+            @Override
+            public boolean hasNext() {
+                return this.p < keys[0].length;
+            }
+            @SuppressWarnings("unchecked")
+            @Override
+            public E next() {
+                if (this.p >= keys[0].length) throw new NoSuchElementException();
+                return (E) keys[0][this.p++];
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public int getMaxScore() {
+        if (isEmpty()) return -1;
+        int max = Integer.MIN_VALUE;
+        for (final int score: snapshotScores(null)) if (score > max) max = score;
+        return max;
+    }
+
+    @Override
+    public int getMinScore() {
+        if (isEmpty()) return -1;
+        int min = Integer.MAX_VALUE;
+        for (final int score: snapshotScores(null)) if (score < min) min = score;
+        return min;
+    }
+
+    @Override
+    public E getMaxKey() {
+        return extremeKey(true);
+    }
+
+    @Override
+    public E getMinKey() {
+        return extremeKey(false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E extremeKey(final boolean max) {
+        final Object[][] keys = new Object[1][];
+        final int[] scores = snapshotScores(keys);
+        if (scores.length == 0) return null;
+        int best = 0;
+        for (int i = 1; i < scores.length; i++) {
+            if (max ? scores[i] > scores[best] : scores[i] < scores[best]) best = i;
+        }
+        return (E) keys[0][best];
+    }
+}
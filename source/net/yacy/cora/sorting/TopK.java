@@ -0,0 +1,252 @@
+/**
+ *  TopK
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.sorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The keys with the highest scores of a score map, maintained while the scores change. The keys are
+ * held in a min-heap of at most 2k entries. A key which is not in the heap enters it when its score
+ * exceeds the smallest score in the heap. For the keys outside the heap only an upper bound of their
+ * scores is known, all keys in the heap have at least that score. A key in the heap whose score falls
+ * below the bound leaves the heap; only if less than k keys remain, the heap is rebuilt from the score
+ * map with the next call of {@link #top()}. This is not synchronized, the owner must lock it.
+ *
+ * @param <E> the key type
+ */
+public class TopK<E> {
+
+    private final int k, capacity;
+    private final Map<E, AtomicInteger> scores;
+    private final E[] keys;
+    private final int[] heap; // the scores of the keys
+    private final Map<E, Integer> position;
+    private int size;
+    private int outsideMax; // an upper bound of the scores of all keys in the score map which are not in the heap
+    private boolean dirty;
+
+    /**
+     * @param k the number of keys with the highest scores which shall be known
+     * @param scores the score map which is tracked; {@link #update(Object)} must be called after each change of a score
+     */
+    @SuppressWarnings("unchecked")
+    public TopK(final int k, final Map<E, AtomicInteger> scores) {
+        this.k = k;
+        this.capacity = 2 * k; // the slack avoids rebuilds when scores of keys at the border are decreased
+        this.scores = scores;
+        this.keys = (E[]) new Object[this.capacity];
+        this.heap = new int[this.capacity];
+        this.position = new HashMap<E, Integer>();
+        clear();
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, null);
+        this.position.clear();
+        this.size = 0;
+        this.outsideMax = Integer.MIN_VALUE;
+        this.dirty = false;
+    }
+
+    /**
+     * scores have changed in a way which is not reported with {@link #update(Object)}, the heap is rebuilt when it is requested
+     */
+    public void invalidate() {
+        this.dirty = true;
+    }
+
+    /**
+     * the score of the key has changed or the key was removed
+     * @param key the key
+     */
+    public void update(final E key) {
+        if (this.dirty) return; // rebuilt anyway
+        final AtomicInteger s = this.scores.get(key);
+        final Integer p = this.position.get(key);
+        if (s == null) {
+            // the key was deleted
+            if (p == null) return;
+            removeAt(p.intValue());
+            checkSize();
+            return;
+        }
+        final int score = s.intValue();
+        if (p != null) {
+            final int i = p.intValue();
+            final int old = this.heap[i];
+            this.heap[i] = score;
+            if (score > old) {
+                down(i);
+            } else if (score < old) {
+                if (score < this.outsideMax) {
+                    // a key outside may be better now
+                    removeAt(i);
+                    checkSize();
+                } else {
+                    up(i);
+                }
+            }
+            return;
+        }
+        if (this.size < this.capacity) {
+            if (score >= this.outsideMax) add(key, score);
+            return;
+        }
+        if (score > this.heap[0]) {
+            // replace the smallest entry
+            this.outsideMax = Math.max(this.outsideMax, this.heap[0]);
+            this.position.remove(this.keys[0]);
+            this.keys[0] = key;
+            this.heap[0] = score;
+            this.position.put(key, 0);
+            down(0);
+        } else {
+            this.outsideMax = Math.max(this.outsideMax, score);
+        }
+    }
+
+    private void checkSize() {
+        if (this.size < this.k && this.scores.size() > this.size) this.dirty = true; // other keys must move up
+    }
+
+    /**
+     * @return the keys with the highest scores in descending order of their scores, at most k
+     */
+    public List<E> top() {
+        if (this.dirty) rebuild();
+        final Object[] k = new Object[this.size];
+        final int[] s = new int[this.size];
+        System.arraycopy(this.keys, 0, k, 0, this.size);
+        System.arraycopy(this.heap, 0, s, 0, this.size);
+        final Integer[] order = new Integer[this.size];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+                return Integer.compare(s[o2.intValue()], s[o1.intValue()]);
+            }
+        });
+        final List<E> top = new ArrayList<E>(Math.min(this.k, this.size));
+        for (int i = 0; i < Math.min(this.k, this.size); i++) {
+            @SuppressWarnings("unchecked")
+            final E e = (E) k[order[i].intValue()];
+            top.add(e);
+        }
+        return top;
+    }
+
+    /**
+     * @return true if {@link #top()} delivers all keys of the score map
+     */
+    public boolean complete() {
+        return !this.dirty && this.size <= this.k && this.size == this.scores.size();
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * select the 2k best keys with one pass over the score map
+     */
+    private void rebuild() {
+        Arrays.fill(this.keys, null);
+        this.position.clear();
+        this.size = 0;
+        this.outsideMax = Integer.MIN_VALUE;
+        this.dirty = false;
+        for (final Map.Entry<E, AtomicInteger> entry: this.scores.entrySet()) {
+            final int score = entry.getValue().intValue();
+            if (this.size < this.capacity) {
+                add(entry.getKey(), score);
+            } else if (score > this.heap[0]) {
+                this.outsideMax = Math.max(this.outsideMax, this.heap[0]);
+                this.position.remove(this.keys[0]);
+                this.keys[0] = entry.getKey();
+                this.heap[0] = score;
+                this.position.put(entry.getKey(), 0);
+                down(0);
+            } else {
+                this.outsideMax = Math.max(this.outsideMax, score);
+            }
+        }
+    }
+
+    private void add(final E key, final int score) {
+        final int i = this.size++;
+        this.keys[i] = key;
+        this.heap[i] = score;
+        this.position.put(key, i);
+        up(i);
+    }
+
+    private void removeAt(final int i) {
+        this.position.remove(this.keys[i]);
+        final int last = --this.size;
+        if (i != last) {
+            this.keys[i] = this.keys[last];
+            this.heap[i] = this.heap[last];
+            this.position.put(this.keys[i], i);
+        }
+        this.keys[last] = null;
+        if (i != last) {
+            up(i);
+            down(i);
+        }
+    }
+
+    private void up(int i) {
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (this.heap[parent] <= this.heap[i]) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void down(int i) {
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= this.size) break;
+            int smallest = left;
+            if (left + 1 < this.size && this.heap[left + 1] < this.heap[left]) smallest = left + 1;
+            if (this.heap[i] <= this.heap[smallest]) break;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(final int i, final int j) {
+        final E ki = this.keys[i];
+        final int si = this.heap[i];
+        this.keys[i] = this.keys[j];
+        this.heap[i] = this.heap[j];
+        this.keys[j] = ki;
+        this.heap[j] = si;
+        this.position.put(this.keys[i], i);
+        this.position.put(this.keys[j], j);
+    }
+}
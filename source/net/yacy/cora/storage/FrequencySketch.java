@@ -0,0 +1,105 @@
+/**
+ *  FrequencySketch
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.storage;
+
+import java.util.Arrays;
+
+/**
+ * An approximate access frequency counter for keys as used by TinyLFU cache admission:
+ * a count-min sketch with four rows of 4-bit counters. The counters are halved after a number
+ * of increments which is ten times the number of counters per row, so that the frequency
+ * reflects recent accesses. The memory need is fixed and independent of the number of keys.
+ */
+public class FrequencySketch {
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    public  static final int MAX_FREQUENCY = 15;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int increments;
+
+    /**
+     * @param expectedKeys the number of keys which shall be distinguished; the sketch uses about one byte per key
+     */
+    public FrequencySketch(final int expectedKeys) {
+        int size = 16;
+        while (size < expectedKeys / 8 && size < (1 << 26)) size <<= 1;
+        this.table = new long[size];
+        this.mask = size - 1;
+        this.sampleSize = 10 * size * 16 / 4;
+        this.increments = 0;
+    }
+
+    private static long hash(final byte[] key, final int row) {
+        long h = Arrays.hashCode(key) * SEEDS[row];
+        h ^= h >>> 32;
+        h *= SEEDS[(row + 1) & 3];
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * count an access of a key
+     * @param key the key
+     */
+    public synchronized void increment(final byte[] key) {
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            final long h = hash(key, row);
+            final int index = (int) h & this.mask;
+            final int offset = (int) ((h >>> 40) & 15) << 2;
+            if (((this.table[index] >>> offset) & 15) < MAX_FREQUENCY) {
+                this.table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++this.increments >= this.sampleSize) reset();
+    }
+
+    /**
+     * @param key the key
+     * @return the approximate number of recent accesses of the key, at most {@link #MAX_FREQUENCY}
+     */
+    public synchronized int frequency(final byte[] key) {
+        int frequency = MAX_FREQUENCY;
+        for (int row = 0; row < 4; row++) {
+            final long h = hash(key, row);
+            final int index = (int) h & this.mask;
+            final int offset = (int) ((h >>> 40) & 15) << 2;
+            frequency = Math.min(frequency, (int) ((this.table[index] >>> offset) & 15));
+        }
+        return frequency;
+    }
+
+    /**
+     * halve all counters
+     */
+    private void reset() {
+        for (int i = 0; i < this.table.length; i++) this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        this.increments = this.increments / 2;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(this.table, 0L);
+        this.increments = 0;
+    }
+}
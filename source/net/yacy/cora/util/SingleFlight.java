@@ -0,0 +1,144 @@
+/**
+ *  SingleFlight
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalescing of concurrent computations of the same key: the first caller starts a flight and
+ * computes the value, all callers which come while the flight is running may join it and
+ * receive the same value instead of computing it again. Joining is bounded by a timeout, a
+ * caller which times out or finds a failed flight computes the value itself.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * a running computation; it is finished with {@link SingleFlight#finish(Object, Flight, Object)}
+     */
+    public static final class Flight<V> {
+        private final CompletableFuture<V> result;
+        private final long start;
+        private volatile long duration;
+
+        private Flight() {
+            this.result = new CompletableFuture<V>();
+            this.start = System.currentTimeMillis();
+            this.duration = 0;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Flight<V>> flights;
+    private final AtomicLong coalesced, timeouts, saved;
+
+    public SingleFlight() {
+        this.flights = new ConcurrentHashMap<K, Flight<V>>();
+        this.coalesced = new AtomicLong(0);
+        this.timeouts = new AtomicLong(0);
+        this.saved = new AtomicLong(0);
+    }
+
+    /**
+     * start a flight for a key
+     * @param key the key
+     * @return the new flight or null if a flight for the key is already running
+     */
+    public Flight<V> start(final K key) {
+        final Flight<V> flight = new Flight<V>();
+        return this.flights.putIfAbsent(key, flight) == null ? flight : null;
+    }
+
+    /**
+     * finish a flight and hand the value to all callers which joined it
+     * @param key the key of the flight
+     * @param flight the flight returned by {@link #start(Object)}; if null nothing is done
+     * @param value the value or null if the computation failed or the value cannot be shared
+     */
+    public void finish(final K key, final Flight<V> flight, final V value) {
+        if (flight == null) return;
+        flight.duration = System.currentTimeMillis() - flight.start;
+        this.flights.remove(key, flight);
+        flight.result.complete(value);
+    }
+
+    /**
+     * wait for the result of a running flight
+     * @param key the key
+     * @param timeout the maximum waiting time in milliseconds
+     * @return the value of the flight or null if there is no flight, the flight did not deliver a value or the time is over
+     */
+    public V join(final K key, final long timeout) {
+        final Flight<V> flight = this.flights.get(key);
+        if (flight == null) return null;
+        final long start = System.currentTimeMillis();
+        final V value;
+        try {
+            value = flight.result.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            this.timeouts.incrementAndGet();
+            return null;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (final ExecutionException e) {
+            return null;
+        }
+        if (value == null) return null;
+        // the caller would have needed the whole flight time to compute the value itself
+        this.coalesced.incrementAndGet();
+        this.saved.addAndGet(Math.max(0, flight.duration - (System.currentTimeMillis() - start)));
+        return value;
+    }
+
+    /**
+     * @return the number of running flights
+     */
+    public int size() {
+        return this.flights.size();
+    }
+
+    /**
+     * @return the number of callers which received the value of another flight
+     */
+    public long coalesced() {
+        return this.coalesced.get();
+    }
+
+    /**
+     * @return the number of callers which gave up waiting for another flight
+     */
+    public long timeouts() {
+        return this.timeouts.get();
+    }
+
+    /**
+     * @return the time in milliseconds which the coalesced callers did not spend computing the value
+     */
+    public long saved() {
+        return this.saved.get();
+    }
+}
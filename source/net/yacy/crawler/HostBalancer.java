@@ -369,9 +369,15 @@ public class HostBalancer implements Balancer {
                     // if the entry with the smallest sleep time contains at least two entries,
                     // then the larger one from these queues are selected.
                     TreeMap<Integer, List<String>> fastTree = new TreeMap<>();
+                    String pendingHost = null;
                     mixedstrategy: for (String h: this.roundRobinHostHashes) {
                         HostQueue hq = this.queues.get(h);
                         if (hq != null) {
+                            if (robots != null && robots.isPending(hq.getHost(), hq.getPort())) {
+                                // the robots.txt of this host is still loading; prefer other hosts instead of blocking on it
+                                if (pendingHost == null) pendingHost = h;
+                                continue mixedstrategy;
+                            }
                             int delta = Latency.waitingRemainingGuessed(hq.getHost(), hq.getPort(), h, robots, ClientIdentification.yacyInternetCrawlerAgent) / 200;
                             if (delta < 0) delta = 0;
                             List<String> queueHashes = fastTree.get(delta);
@@ -408,6 +414,11 @@ public class HostBalancer implements Balancer {
                         rhh = firstEntries.get(0);
                         rhq = this.queues.get(rhh);
                     }
+                    if (rhq == null && pendingHost != null) {
+                        // only hosts with a loading robots.txt are left; the pop waits for the running fetch
+                        rhh = pendingHost;
+                        rhq = this.queues.get(rhh);
+                    }
                     // to prevent that the complete roundrobinhosthashes are taken for each round, we remove the entries from the top of the fast queue
                     List<String> lastEntries = fastTree.size() > 0 ? fastTree.lastEntry().getValue() : null;
                     if (lastEntries != null) {
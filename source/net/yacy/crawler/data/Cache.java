@@ -38,6 +38,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
@@ -46,6 +48,7 @@ import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.ResponseHeader;
+import net.yacy.cora.storage.FrequencySketch;
 import net.yacy.cora.storage.HandleSet;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
@@ -66,6 +69,15 @@ public final class Cache {
 	
 	/** Default size in bytes of the response header data base buffer (buffered bytes before writing to the file system) */
 	protected static final int DEFAULT_RESPONSE_HEADER_BUFFER_SIZE = 2048;
+
+	/** Default size in bytes of the in-memory tier for recently stored or read content */
+	protected static final long DEFAULT_HOT_TIER_SIZE = 16 * 1024 * 1024;
+
+	/** Assumed average size in bytes of a cached document, used to size the access frequency sketch */
+	private static final long AVERAGE_DOCUMENT_SIZE = 16 * 1024;
+
+	/** Size step in bytes for which an entry needs one more access to be kept when its cache file is evicted */
+	private static final long KEEP_SIZE_STEP = 1024 * 1024;
 	
 	
     private static final String RESPONSE_HEADER_DB_NAME = "responseHeader.heap";
@@ -83,6 +95,40 @@ public final class Cache {
     /** Total number of cache hits since last start/initialization or cache clear */
     private static AtomicLong hits = new AtomicLong(0);
     
+    /** Number of requests and hits of the in-memory tier and of the disk tier for content */
+    private static AtomicLong hotRequests = new AtomicLong(0), hotHits = new AtomicLong(0), hotBytes = new AtomicLong(0);
+    private static AtomicLong diskRequests = new AtomicLong(0), diskHits = new AtomicLong(0);
+
+    /** recently stored or read content, served without reading and decompressing it from the disk */
+    private static HotTier hotTier = new HotTier(0);
+
+    /** approximate recent access frequencies of urls, used for the admission and the eviction of content */
+    private static FrequencySketch frequencies = new FrequencySketch(0);
+
+    /** Number of store operations which were not admitted because the content was less frequently requested than the eviction victim */
+    private static AtomicLong admissionRejects = new AtomicLong(0);
+
+    /**
+     * Keeps frequently requested content when the oldest cache file is evicted and removes
+     * the response headers of evicted content, so that both databases stay consistent.
+     */
+    private static final ArrayStack.Evictor evictor = new ArrayStack.Evictor() {
+        @Override
+        public boolean keep(final byte[] key, final long size) {
+            // large entries need more accesses to be kept
+            return frequencies.frequency(key) >= 2 + (int) (size / KEEP_SIZE_STEP);
+        }
+        @Override
+        public void evicted(final byte[] key) {
+            hotTier.remove(key);
+            try {
+                responseHeaderDB.delete(key);
+            } catch (final IOException e) {
+                ConcurrentLog.logException(e);
+            }
+        }
+    };
+
     private static File cachePath = null;
     private static String prefix;
     public static final ConcurrentLog log = new ConcurrentLog("HTCACHE");
@@ -95,12 +141,30 @@ public final class Cache {
      * @param compressionLevel the compression level : supported values ranging from 0 - no compression, to 9 - best compression
      */
     public static void init(final File htCachePath, final String peerSalt, final long cacheSizeMax, final long lockTimeout, final int compressionLevel) {
+        init(htCachePath, peerSalt, cacheSizeMax, lockTimeout, compressionLevel, Compressor.Codec.GZIP, 0, DEFAULT_HOT_TIER_SIZE);
+    }
+
+    /**
+     * @param htCachePath folder path for the cache
+     * @param peerSalt peer identifier
+     * @param cacheSizeMax maximum cache size in bytes
+     * @param lockTimeout maximum time (in milliseconds) to acquire a synchronization lock on store() and getContent()
+     * @param compressionLevel the compression level : supported values ranging from 0 - no compression, to 9 - best compression
+     * @param codec the compression codec for new content
+     * @param compressorThreads the number of threads which compress content in the background; 0 to compress within store()
+     * @param hotTierSize maximum size in bytes of the in-memory tier for recently stored or read content; 0 to switch it off
+     */
+    public static void init(final File htCachePath, final String peerSalt, final long cacheSizeMax, final long lockTimeout, final int compressionLevel,
+            final Compressor.Codec codec, final int compressorThreads, final long hotTierSize) {
 
         cachePath = htCachePath;
         maxCacheSize = cacheSizeMax;
         prefix = peerSalt;
         totalRequests.set(0);
         hits.set(0);
+        resetTierStatistics();
+        hotTier = new HotTier(hotTierSize);
+        frequencies = new FrequencySketch((int) Math.min(1 << 22, cacheSizeMax / AVERAGE_DOCUMENT_SIZE));
 
         // set/make cache path
         if (!htCachePath.exists()) {
@@ -126,8 +190,9 @@ public final class Cache {
         // open the cache file
         try {
             fileDBunbuffered = new ArrayStack(new File(cachePath, FILE_DB_NAME), prefix, Base64Order.enhancedCoder, 12, DEFAULT_BACKEND_BUFFER_SIZE, false, true);
+            fileDBunbuffered.setEvictor(evictor);
             fileDBunbuffered.setMaxSize(maxCacheSize);
-            fileDB = new Compressor(fileDBunbuffered, DEFAULT_COMPRESSOR_BUFFER_SIZE, lockTimeout, compressionLevel);
+            fileDB = new Compressor(fileDBunbuffered, DEFAULT_COMPRESSOR_BUFFER_SIZE, lockTimeout, compressionLevel, codec, compressorThreads);
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
             // try a healing
@@ -135,8 +200,9 @@ public final class Cache {
                 cachePath.delete();
                 try {
                     fileDBunbuffered = new ArrayStack(new File(cachePath, FILE_DB_NAME), prefix, Base64Order.enhancedCoder, 12, DEFAULT_BACKEND_BUFFER_SIZE, false, true);
+                    fileDBunbuffered.setEvictor(evictor);
                     fileDBunbuffered.setMaxSize(maxCacheSize);
-                    fileDB = new Compressor(fileDBunbuffered, DEFAULT_COMPRESSOR_BUFFER_SIZE, lockTimeout, compressionLevel);
+                    fileDB = new Compressor(fileDBunbuffered, DEFAULT_COMPRESSOR_BUFFER_SIZE, lockTimeout, compressionLevel, codec, compressorThreads);
                 } catch (final IOException ee) {
                     ConcurrentLog.logException(e);
                 }
@@ -145,7 +211,8 @@ public final class Cache {
         ConcurrentLog.info("Cache", "initialized cache database responseHeaderDB.size() = " + (responseHeaderDB == null ? "NULL" : responseHeaderDB.size()) + ", fileDB.size() = " + (fileDB == null ? "NULL" : fileDB.size()));
 
         // clean up the responseHeaderDB which cannot be cleaned the same way as the cache files.
-        // We do this as a concurrent job only once after start-up silently
+        // Evicted content is removed from the responseHeaderDB by the evictor, differences remain only
+        // from a crash or from older versions. We do this as a concurrent job only once after start-up silently
         if (responseHeaderDB.size() != fileDB.size()) {
             ConcurrentLog.warn("Cache", "file and metadata size is not equal, starting a cleanup thread...");
             Thread startupCleanup = new Thread("Cache startupCleanup") {
@@ -199,6 +266,8 @@ public final class Cache {
      * clear the cache
      */
     public static void clear() {
+        hotTier.clear();
+        frequencies.clear();
         responseHeaderDB.clear();
         try {
             fileDB.clear();
@@ -213,6 +282,16 @@ public final class Cache {
         /* Clear statistics */
         totalRequests.set(0);
         hits.set(0);
+        resetTierStatistics();
+    }
+
+    private static void resetTierStatistics() {
+        hotRequests.set(0);
+        hotHits.set(0);
+        hotBytes.set(0);
+        diskRequests.set(0);
+        diskHits.set(0);
+        admissionRejects.set(0);
     }
 
     /**
@@ -247,6 +326,22 @@ public final class Cache {
     public static void setCompressionLevel(final int newCompressionLevel) {
     	fileDB.setCompressionLevel(newCompressionLevel);
     }
+
+    /**
+     * Set the codec for new content; cached content keeps its codec
+     * @param codec the new compression codec
+     */
+    public static void setCompressionCodec(final Compressor.Codec codec) {
+        fileDB.setCodec(codec);
+    }
+
+    /**
+     * Set the new size of the in-memory tier
+     * @param hotTierSize the maximum size in bytes of the in-memory tier; 0 to switch it off
+     */
+    public static void setHotTierSize(final long hotTierSize) {
+        hotTier.setMaxSize(hotTierSize);
+    }
     
     /**
      * Set the new synchronization lock timeout.
@@ -260,6 +355,7 @@ public final class Cache {
      * close the databases
      */
     public static void close() {
+        hotTier.clear();
         responseHeaderDB.close();
         fileDB.close(true);
     }
@@ -269,6 +365,12 @@ public final class Cache {
         if (responseHeader == null) throw new IOException("Cache.store of url " + url.toNormalform(false) + " not possible: responseHeader == null");
         if (responseHeader.getXRobotsTag().contains("noarchive")) return; // don't cache, see http://noarchive.net/
         if (file == null) throw new IOException("Cache.store of url " + url.toNormalform(false) + " not possible: file == null");
+        frequencies.increment(url.hash());
+        if (!admit(url.hash())) {
+            admissionRejects.incrementAndGet();
+            if (log.isFine()) log.fine("not admitted to the full cache: " + url.toNormalform(true));
+            return;
+        }
         log.info("storing content of url " + url.toNormalform(false) + ", " + file.length + " bytes");
 
         // store the file
@@ -290,9 +392,22 @@ public final class Cache {
             fileDB.delete(url.hash());
             throw new IOException("Cache.store: cannot write to headerDB: " + e.getMessage());
         }
+        hotTier.put(url.hash(), file);
         if (log.isFine()) log.fine("stored in cache: " + url.toNormalform(true));
     }
 
+    /**
+     * TinyLFU admission: when the cache is full, new content is only stored if its url was
+     * requested more frequently than a sample of the content which would be evicted for it.
+     * @param hash the url hash of the new content
+     * @return true if the content shall be stored
+     */
+    private static boolean admit(final byte[] hash) {
+        if (fileDBunbuffered.length() < maxCacheSize - maxCacheSize / 50 || fileDB.containsKey(hash)) return true;
+        final byte[] victim = fileDBunbuffered.evictionCandidate();
+        return victim == null || frequencies.frequency(hash) > frequencies.frequency(victim);
+    }
+
     /**
      * check if the responseHeaderDB and the fileDB has an entry for the given url
      * @param url the url of the resource
@@ -318,6 +433,7 @@ public final class Cache {
         } catch (final IOException e) {}
         if (fileExists) try {
             //log.logWarning("content but not header of url " + url.toString() + " in cache; cleaned up");
+            hotTier.remove(urlhash);
             fileDB.delete(urlhash);
         } catch (final IOException e) {}
         return false;
@@ -361,13 +477,26 @@ public final class Cache {
      */
     public static byte[] getContent(final byte[] hash) {
     	totalRequests.incrementAndGet();
+    	frequencies.increment(hash);
+    	// first try the in-memory tier
+    	hotRequests.incrementAndGet();
+    	byte[] b = hotTier.get(hash);
+    	if (b != null) {
+    	    hotHits.incrementAndGet();
+    	    hotBytes.addAndGet(b.length);
+    	    hits.incrementAndGet();
+    	    return b;
+    	}
         // load the url as resource from the cache
+        diskRequests.incrementAndGet();
         try {
-            final byte[] b = fileDB.get(hash);
+            b = fileDB.get(hash);
             if (b == null) {
             	return null;
             }
+            diskHits.incrementAndGet();
             hits.incrementAndGet();
+            hotTier.put(hash, b);
             return b;
         } catch (final UnsupportedEncodingException e) {
             ConcurrentLog.logException(e);
@@ -405,6 +534,7 @@ public final class Cache {
      * @throws IOException
      */
     public static void delete(final byte[] hash) throws IOException {
+        hotTier.remove(hash);
         responseHeaderDB.delete(hash);
         fileDB.delete(hash);
     }
@@ -430,4 +560,120 @@ public final class Cache {
     	final long total = totalRequests.get();
     	return total > 0 ? ((Cache.getHits() / ((double) total))) : 0.0 ;
     }
+
+    /**
+     * @return the hit rate of the in-memory tier for content requests
+     */
+    public static double getHotTierHitRate() {
+        final long total = hotRequests.get();
+        return total > 0 ? hotHits.get() / ((double) total) : 0.0;
+    }
+
+    /**
+     * @return the hit rate of the disk tier for the content requests which were not served by the in-memory tier
+     */
+    public static double getDiskTierHitRate() {
+        final long total = diskRequests.get();
+        return total > 0 ? diskHits.get() / ((double) total) : 0.0;
+    }
+
+    /**
+     * @return the number of content bytes served from the in-memory tier without reading and decompressing them
+     */
+    public static long getHotTierBytesServed() {
+        return hotBytes.get();
+    }
+
+    /**
+     * @return the current size in bytes of the content in the in-memory tier
+     */
+    public static long getHotTierSize() {
+        return hotTier.size();
+    }
+
+    /**
+     * @return the number of bytes which the compression saved on disk since the start
+     */
+    public static long getCompressionBytesSaved() {
+        return fileDB == null ? 0 : fileDB.rawBytes() - fileDB.storedBytes();
+    }
+
+    /**
+     * @return the number of store operations which were not admitted to the full cache
+     */
+    public static long getAdmissionRejects() {
+        return admissionRejects.get();
+    }
+
+    /**
+     * @return the number of entries which were removed from the cache because of the size limit
+     */
+    public static long getEvictedCount() {
+        return fileDBunbuffered == null ? 0 : fileDBunbuffered.evicted();
+    }
+
+    /**
+     * @return the number of frequently requested entries which were kept when their cache file was evicted
+     */
+    public static long getCompactedCount() {
+        return fileDBunbuffered == null ? 0 : fileDBunbuffered.compacted();
+    }
+
+    /**
+     * a byte-bounded LRU map of content
+     */
+    private static final class HotTier {
+
+        private final LinkedHashMap<String, byte[]> map;
+        private long size, maxSize;
+
+        private HotTier(final long maxSize) {
+            this.map = new LinkedHashMap<String, byte[]>(64, 0.75f, true);
+            this.size = 0;
+            this.maxSize = maxSize;
+        }
+
+        private synchronized byte[] get(final byte[] hash) {
+            return this.map.get(ASCII.String(hash));
+        }
+
+        private synchronized void put(final byte[] hash, final byte[] content) {
+            // large documents would displace many small ones
+            if (content.length > this.maxSize / 8) {
+                remove(hash);
+                return;
+            }
+            final byte[] old = this.map.put(ASCII.String(hash), content);
+            if (old != null) this.size -= old.length;
+            this.size += content.length;
+            shrink();
+        }
+
+        private synchronized void remove(final byte[] hash) {
+            final byte[] old = this.map.remove(ASCII.String(hash));
+            if (old != null) this.size -= old.length;
+        }
+
+        private synchronized void clear() {
+            this.map.clear();
+            this.size = 0;
+        }
+
+        private synchronized long size() {
+            return this.size;
+        }
+
+        private synchronized void setMaxSize(final long maxSize) {
+            this.maxSize = maxSize;
+            shrink();
+        }
+
+        private void shrink() {
+            final Iterator<byte[]> i = this.map.values().iterator();
+            while (this.size > this.maxSize && i.hasNext()) {
+                this.size -= i.next().length;
+                i.remove();
+            }
+        }
+    }
 }
@@ -35,6 +35,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.Locale;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -52,12 +53,18 @@ import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.federate.solr.FailCategory;
 import net.yacy.cora.federate.yacy.CacheStrategy;
 import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.protocol.ClientIdentification;
 import net.yacy.cora.protocol.ConnectionInfo;
+import net.yacy.cora.protocol.HeaderFramework;
+import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.crawler.CrawlSwitchboard;
 import net.yacy.crawler.HarvestProcess;
 import net.yacy.crawler.data.NoticedURL.StackType;
+import net.yacy.crawler.retrieval.AsyncHTTPLoader;
 import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.retrieval.Response;
+import net.yacy.crawler.robots.RobotsTxt;
 import net.yacy.crawler.robots.RobotsTxtEntry;
 import net.yacy.kelondro.workflow.WorkflowJob;
 import net.yacy.peers.DHTSelection;
@@ -78,6 +85,10 @@ public class CrawlQueues {
     private final Switchboard sb;
     private final Loader[] worker;
     private final ArrayBlockingQueue<Request> workerQueue;
+    private final ConcurrentHashMap<DigestURL, Request> asyncEntries; // requests which are loaded by the asyncLoader
+    private volatile Map<String, Integer> hostcounts = null; // number of loading urls for each host, refreshed by hostcount()
+    private volatile long hostcountsTime = 0;
+    private AsyncHTTPLoader asyncLoader; // created on first use if crawler.http.async is switched on
     private ArrayList<String> remoteCrawlProviderHashes;
 
     public  NoticedURL noticeURL;
@@ -91,6 +102,8 @@ public class CrawlQueues {
         /* We initialize workerQueue with the same capacity as worker array, because this same queue 
          * will be used to send POISON_REQUEST items consumed by all eventually running workers in the close() function*/
         this.workerQueue = new ArrayBlockingQueue<Request>(maxWorkers);
+        this.asyncEntries = new ConcurrentHashMap<DigestURL, Request>();
+        this.asyncLoader = null;
         this.remoteCrawlProviderHashes = null;
 
         // start crawling management
@@ -154,6 +167,11 @@ public class CrawlQueues {
                 }
             }
         }
+        if (this.asyncLoader != null) {
+            this.asyncLoader.close();
+            this.asyncLoader = null;
+        }
+        this.asyncEntries.clear();
         if (this.delegatedURL != null) this.delegatedURL.clear();
     }
 
@@ -191,15 +209,29 @@ public class CrawlQueues {
      * @param host
      * @return
      */
+    /**
+     * count the urls of a host which are loading right now. The counts of all hosts are computed
+     * together and reused for 200 milliseconds because the balancer asks for many hosts in a row.
+     * @param host the host name
+     * @return the number of loading urls of the host
+     */
     public int hostcount(final String host) {
         if (host == null || host.length() == 0) return 0;
-        int c = 0;
-        for (final DigestURL url: activeWorkerEntries().keySet()) {
-            if (host.equals(url.getHost())) {
-                c++;
+        Map<String, Integer> counts = this.hostcounts;
+        final long now = System.currentTimeMillis();
+        if (counts == null || now - this.hostcountsTime > 200) {
+            counts = new HashMap<String, Integer>();
+            for (final DigestURL url: activeWorkerEntries().keySet()) {
+                final String h = url.getHost();
+                if (h == null) continue;
+                final Integer c = counts.get(h);
+                counts.put(h, c == null ? 1 : c.intValue() + 1);
             }
+            this.hostcounts = counts;
+            this.hostcountsTime = now;
         }
-        return c;
+        final Integer c = counts.get(host);
+        return c == null ? 0 : c.intValue();
     }
 
     public void removeURL(final byte[] hash) {
@@ -254,6 +286,7 @@ public class CrawlQueues {
                     if (r != null) map.put(r.url(), r);
                 }
             }
+            map.putAll(this.asyncEntries);
             return map;
         }
     }
@@ -376,7 +409,7 @@ public class CrawlQueues {
                 if (urlEntry == null || urlEntry.url() == null) {
                     CrawlQueues.log.info(stats + ": urlEntry = null");
                 } else {
-                    if (!activeWorkerEntries().containsKey(urlEntry.url())) {
+                    if (!activeWorkerEntries().containsKey(urlEntry.url()) && !loadAsync(urlEntry, profile)) {
                         try {
                             ensureLoaderRunning();
                             this.workerQueue.put(urlEntry);
@@ -393,6 +426,152 @@ public class CrawlQueues {
         }
     }
 
+    /**
+     * @return the non-blocking http loader of the crawler or null if crawler.http.async is switched off
+     */
+    public synchronized AsyncHTTPLoader asyncLoader() {
+        if (this.asyncLoader == null && this.sb.getConfigBool(SwitchboardConstants.CRAWLER_HTTP_ASYNC, false)) {
+            final RobotsTxt robots = this.sb.robots;
+            try {
+                this.asyncLoader = new AsyncHTTPLoader(
+                        this.sb.getConfigInt(SwitchboardConstants.CRAWLER_HTTP_ASYNC_CONNECTIONS, 2000),
+                        this.sb.getConfigInt(SwitchboardConstants.CRAWLER_HTTP_ASYNC_PER_HOST, 2),
+                        this.sb.getConfigInt("crawler.clientTimeout", 30000),
+                        new AsyncHTTPLoader.Delay() {
+                            @Override
+                            public long remaining(final DigestURL url) {
+                                int port = url.getPort();
+                                if (port < 0) port = url.isHTTPS() ? 443 : 80;
+                                return Latency.waitingRemainingGuessed(url.getHost(), port, url.hosthash(), robots, ClientIdentification.yacyInternetCrawlerAgent);
+                            }
+                        });
+            } catch (final IOException e) {
+                CrawlQueues.log.warn("cannot start the asynchronous http loader: " + e.getMessage(), e);
+            }
+        }
+        return this.asyncLoader;
+    }
+
+    /**
+     * hand a request over to the non-blocking http loader. This is only done if the load does not
+     * need to block: the robots.txt of the host must be known and the content must not be taken from the cache.
+     * All other requests are loaded by the Loader threads.
+     * @param request the request
+     * @param profile the crawl profile of the request
+     * @return true if the request was handled, false if it must be loaded by a Loader thread
+     */
+    private boolean loadAsync(final Request request, final CrawlProfile profile) {
+        final DigestURL url = request.url();
+        if (!url.isHTTP() && !url.isHTTPS()) return false;
+        // default profiles are used for snippets and the proxy; they may retry redirects on the same thread
+        if (CrawlSwitchboard.DEFAULT_PROFILES.contains(profile.name())) return false;
+        final CacheStrategy cacheStrategy = profile.cacheStrategy();
+        if (cacheStrategy == CacheStrategy.CACHEONLY) return false;
+        if (cacheStrategy != null && cacheStrategy != CacheStrategy.NOCACHE && Cache.has(url.hash())) return false;
+        final AsyncHTTPLoader loader = asyncLoader();
+        if (loader == null) return false;
+
+        // the robots.txt must be available without loading it
+        final ClientIdentification.Agent agent = profile.getAgent();
+        final RobotsTxtEntry robotsEntry = this.sb.robots.getFreshEntry(url, agent);
+        if (robotsEntry == null) return false;
+        if (robotsEntry.isDisallowed(url)) {
+            this.errorURL.push(url, request.depth(), profile, FailCategory.FINAL_ROBOTS_RULE, "denied by robots.txt", -1);
+            request.setStatus("worker-disallowed", WorkflowJob.STATUS_FINISHED);
+            return true;
+        }
+        final String host = url.getHost();
+        if (host == null || host.length() < 2) return false;
+        if (Switchboard.urlBlacklist.isListed(BlacklistType.CRAWLER, host.toLowerCase(Locale.ROOT), url.getFile())) {
+            this.errorURL.push(url, request.depth(), profile, FailCategory.FINAL_LOAD_CONTEXT, "url in blacklist", -1);
+            request.setStatus("worker-error", WorkflowJob.STATUS_FINISHED);
+            return true;
+        }
+
+        try {
+            final RequestHeader requestHeader = this.sb.loader.httpRequestHeader(request, agent);
+            this.asyncEntries.put(url, request);
+            request.setStatus("loading", WorkflowJob.STATUS_RUNNING);
+            loader.fetch(request, requestHeader, profile, this.sb.loader.protocolMaxFileSize(url), new AsyncHTTPLoader.Listener() {
+                @Override
+                public void loaded(final Response response) {
+                    try {
+                        loadedAsync(request, profile, response);
+                    } finally {
+                        CrawlQueues.this.asyncEntries.remove(url);
+                    }
+                }
+                @Override
+                public void failed(final Request request, final String reason) {
+                    CrawlQueues.this.asyncEntries.remove(url);
+                    if (CrawlQueues.log.isFine()) CrawlQueues.log.fine("problem loading " + url.toString() + ": " + reason);
+                    CrawlQueues.this.errorURL.push(url, request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "cannot load: load error - " + reason, -1);
+                    request.setStatus("worker-error", WorkflowJob.STATUS_FINISHED);
+                }
+            });
+        } catch (final IOException e) {
+            this.asyncEntries.remove(url);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * process the response of the non-blocking http loader like the Loader threads and the HTTPLoader do
+     */
+    private void loadedAsync(final Request request, final CrawlProfile profile, final Response response) {
+        final DigestURL url = request.url();
+        final int statusCode = response.getResponseHeader().getStatusCode();
+        if (statusCode == 200 || statusCode == 203) {
+            request.setStatus("loaded", WorkflowJob.STATUS_RUNNING);
+            this.sb.loader.storeToCache(response, profile);
+            final String storedFailMessage = this.sb.toIndexer(response);
+            request.setStatus("enqueued-" + ((storedFailMessage == null) ? "ok" : "fail"), WorkflowJob.STATUS_FINISHED);
+            if (storedFailMessage != null) {
+                this.errorURL.push(url, request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "cannot load: not enqueued to indexer: " + storedFailMessage, -1);
+            }
+            return;
+        }
+        request.setStatus("worker-error", WorkflowJob.STATUS_FINISHED);
+        if (statusCode > 299 && statusCode < 310) {
+            final String location = response.getResponseHeader().get(HeaderFramework.LOCATION);
+            if (location == null || location.trim().isEmpty()) {
+                this.errorURL.push(url, request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "no redirection url provided, field '" + HeaderFramework.LOCATION + "' is empty", statusCode);
+                return;
+            }
+            final DigestURL redirectionUrl;
+            try {
+                redirectionUrl = DigestURL.newURL(url, location.trim());
+            } catch (final MalformedURLException e) {
+                this.errorURL.push(url, request.depth(), profile, FailCategory.FINAL_PROCESS_CONTEXT, "malformed redirection url", statusCode);
+                return;
+            }
+            this.sb.webStructure.generateCitationReference(url, redirectionUrl);
+            if (this.sb.getConfigBool(SwitchboardConstants.CRAWLER_RECORD_REDIRECTS, true)) {
+                this.errorURL.push(url, request.depth(), profile, FailCategory.FINAL_REDIRECT_RULE, "redirect to " + location.trim(), statusCode);
+            }
+            if (this.sb.getConfigBool(SwitchboardConstants.CRAWLER_FOLLOW_REDIRECTS, true)) {
+                // put redirect url on the crawler queue to repeat a double-check
+                final Request redirectedRequest = new Request(request.initiator(),
+                        redirectionUrl,
+                        request.referrerhash(),
+                        request.name(),
+                        request.appdate(),
+                        request.profileHandle(),
+                        request.depth(),
+                        request.timezoneOffset());
+                final String rejectReason = this.sb.crawlStacker.stackCrawl(redirectedRequest);
+                if (rejectReason != null && CrawlQueues.log.isFine()) {
+                    CrawlQueues.log.fine("CRAWLER Redirect of URL=" + url.toNormalform(true) + " aborted. Reason : " + rejectReason);
+                }
+            } else {
+                this.errorURL.push(url, request.depth(), profile, FailCategory.FINAL_PROCESS_CONTEXT, "redirection not wanted", statusCode);
+            }
+            return;
+        }
+        this.errorURL.push(url, request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "wrong http status code", statusCode);
+    }
+
     /**
      * if crawling was paused we have to wait until we were notified to continue
      * blocks until pause is ended
@@ -429,6 +608,9 @@ public class CrawlQueues {
         if (this.workerQueue.remainingCapacity() == 0) {
             return "too many workers active: " + this.workerQueue.size();
         }
+        if (this.asyncLoader != null && this.asyncEntries.size() >= this.sb.getConfigInt(SwitchboardConstants.CRAWLER_HTTP_ASYNC_CONNECTIONS, 2000)) {
+            return "too many asynchronous loads: " + this.asyncEntries.size();
+        }
 
         final String cautionCause = this.sb.onlineCaution();
         if (cautionCause != null) {
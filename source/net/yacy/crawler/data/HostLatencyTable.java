@@ -0,0 +1,354 @@
+// HostLatencyTable.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.crawler.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The access timing of crawled hosts, indexed by the host hash. The table is split into stripes,
+ * each stripe is an open addressing hash table of primitive atomic arrays. Lookups and updates of
+ * known hosts do not lock and do not allocate objects, only the insertion of a new host locks its
+ * stripe. A full stripe is cleared, the timing data of the hosts is learned again.
+ * Additionally to the access times, the crawl delay of the robots.txt of each host is cached.
+ */
+public final class HostLatencyTable {
+
+    /** the value for unknown hosts and for missing or outdated robots delays */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    /** the time in milliseconds for which a cached robots delay is used */
+    private static final long ROBOTS_TTL = 10L * 60L * 1000L;
+
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes;
+
+    /**
+     * @param capacity the maximum number of hosts; the table uses about 60 bytes for each host
+     */
+    public HostLatencyTable(final int capacity) {
+        int stripeSize = 16;
+        while (stripeSize * STRIPES * 3 / 4 < capacity && stripeSize < (1 << 24)) stripeSize <<= 1;
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) this.stripes[i] = new Stripe(stripeSize);
+    }
+
+    private static final class Stripe {
+        private final int mask, maxSize;
+        private final AtomicLongArray keys, lastacc, timeacc, robotsDelay, robotsTime;
+        private final AtomicIntegerArray count;
+        private final AtomicReferenceArray<String> hosts;
+        private int size; // guarded by this
+
+        private Stripe(final int slots) {
+            this.mask = slots - 1;
+            this.maxSize = slots * 3 / 4;
+            this.keys = new AtomicLongArray(slots);
+            this.lastacc = new AtomicLongArray(slots);
+            this.timeacc = new AtomicLongArray(slots);
+            this.robotsDelay = new AtomicLongArray(slots);
+            this.robotsTime = new AtomicLongArray(slots);
+            this.count = new AtomicIntegerArray(slots);
+            this.hosts = new AtomicReferenceArray<String>(slots);
+            this.size = 0;
+        }
+
+        private int find(final long key, final int hash) {
+            int i = hash & this.mask;
+            for (int probe = 0; probe <= this.mask; probe++) {
+                final long k = this.keys.get(i);
+                if (k == key) return i;
+                if (k == 0) return -1;
+                i = (i + 1) & this.mask;
+            }
+            return -1;
+        }
+
+        private synchronized int insert(final long key, final int hash, final String host, final long time, final long now) {
+            int i = find(key, hash);
+            if (i >= 0) return i;
+            if (this.size >= this.maxSize) clear();
+            i = hash & this.mask;
+            while (this.keys.get(i) != 0) i = (i + 1) & this.mask;
+            this.hosts.set(i, host);
+            this.timeacc.set(i, time);
+            this.count.set(i, 1);
+            this.lastacc.set(i, now);
+            this.robotsDelay.set(i, UNKNOWN);
+            this.robotsTime.set(i, 0);
+            this.keys.set(i, key); // publish the slot after all fields are set
+            this.size++;
+            return i;
+        }
+
+        private synchronized void clear() {
+            for (int i = 0; i <= this.mask; i++) {
+                this.keys.set(i, 0);
+                this.hosts.set(i, null);
+            }
+            this.size = 0;
+        }
+
+        private synchronized int size() {
+            return this.size;
+        }
+    }
+
+    /**
+     * compute the table key of a host hash without allocation
+     * @param hosthash a host hash as computed by DigestURL.hosthash()
+     * @return a non-zero key which is unique for host hashes of up to eight ASCII characters
+     */
+    private static long key(final String hosthash) {
+        long k = 0;
+        final int n = Math.min(8, hosthash.length());
+        for (int i = 0; i < n; i++) k = (k << 8) | (hosthash.charAt(i) & 0xff);
+        return k == 0 ? 1 : k;
+    }
+
+    private static String hosthash(long key) {
+        final StringBuilder sb = new StringBuilder(8);
+        while (key != 0) {
+            sb.append((char) (key & 0xff));
+            key >>>= 8;
+        }
+        return sb.reverse().toString();
+    }
+
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32);
+    }
+
+    private Stripe stripe(final int hash) {
+        return this.stripes[(hash >>> 26) & (STRIPES - 1)];
+    }
+
+    /**
+     * @param hosthash the host hash
+     * @return true if the host is in the table
+     */
+    public boolean contains(final String hosthash) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        return stripe(hash).find(key, hash) >= 0;
+    }
+
+    /**
+     * add a host if it is not in the table
+     * @param hosthash the host hash
+     * @param host the host name
+     * @param time the initial average access latency in milliseconds
+     */
+    public void add(final String hosthash, final String host, final long time) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        final Stripe stripe = stripe(hash);
+        if (stripe.find(key, hash) < 0) stripe.insert(key, hash, host, time, System.currentTimeMillis());
+    }
+
+    /**
+     * set the last access time of a host to now; unknown hosts are added
+     * @param hosthash the host hash
+     * @param host the host name
+     * @param time the initial average access latency in milliseconds for unknown hosts
+     */
+    public void access(final String hosthash, final String host, final long time) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        final Stripe stripe = stripe(hash);
+        final long now = System.currentTimeMillis();
+        final int i = stripe.find(key, hash);
+        if (i < 0) {
+            stripe.insert(key, hash, host, time, now);
+        } else {
+            stripe.lastacc.set(i, now);
+        }
+    }
+
+    /**
+     * count a load of a host; unknown hosts are added
+     * @param hosthash the host hash
+     * @param host the host name
+     * @param time the time to load a file in milliseconds
+     */
+    public void loaded(final String hosthash, final String host, final long time) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        final Stripe stripe = stripe(hash);
+        final long now = System.currentTimeMillis();
+        final int i = stripe.find(key, hash);
+        if (i < 0) {
+            stripe.insert(key, hash, host, time, now);
+            return;
+        }
+        if (stripe.count.get(i) > 100) {
+            synchronized (stripe) {
+                // faster adoption to new values
+                final int c = stripe.count.get(i);
+                if (c > 100) {
+                    stripe.timeacc.set(i, stripe.timeacc.get(i) / c);
+                    stripe.count.set(i, 1);
+                }
+            }
+        }
+        stripe.lastacc.set(i, now);
+        stripe.timeacc.addAndGet(i, Math.min(30000, time));
+        stripe.count.incrementAndGet(i);
+    }
+
+    /**
+     * @param hosthash the host hash
+     * @return the cached robots delay of the host or UNKNOWN if the host is unknown or the delay is not cached or outdated
+     */
+    public long robotsDelay(final String hosthash) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        final Stripe stripe = stripe(hash);
+        final int i = stripe.find(key, hash);
+        if (i < 0 || System.currentTimeMillis() - stripe.robotsTime.get(i) > ROBOTS_TTL) return UNKNOWN;
+        return stripe.robotsDelay.get(i);
+    }
+
+    /**
+     * cache the robots delay of a known host
+     * @param hosthash the host hash
+     * @param delay the crawl delay in milliseconds; -1 if the robots.txt grants exclusive rights to this crawler
+     */
+    public void setRobotsDelay(final String hosthash, final long delay) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        final Stripe stripe = stripe(hash);
+        final int i = stripe.find(key, hash);
+        if (i < 0) return;
+        stripe.robotsDelay.set(i, delay);
+        stripe.robotsTime.set(i, System.currentTimeMillis());
+    }
+
+    /**
+     * compute the earliest time at which a host shall be accessed again. This does not allocate objects.
+     * @param hosthash the host hash
+     * @param minimumDelta the minimum time between two accesses of the host in milliseconds
+     * @param latencyFactor the factor applied to the average access latency of the host
+     * @param penalty an additional waiting time in milliseconds
+     * @return the time in milliseconds since the epoch or UNKNOWN if the host was never accessed
+     */
+    public long nextReady(final String hosthash, final int minimumDelta, final float latencyFactor, final int penalty) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        final Stripe stripe = stripe(hash);
+        final int i = stripe.find(key, hash);
+        if (i < 0) return UNKNOWN;
+        final long lastacc = stripe.lastacc.get(i);
+        final long robotsDelay = System.currentTimeMillis() - stripe.robotsTime.get(i) > ROBOTS_TTL ? 0 : stripe.robotsDelay.get(i);
+        if (robotsDelay == -1) return lastacc; // no limits if granted exclusively for this peer
+        final int count = Math.max(1, stripe.count.get(i));
+        long waiting = minimumDelta + flux(minimumDelta, count);
+        waiting = Math.max(waiting, (long) (stripe.timeacc.get(i) / count * latencyFactor));
+        waiting += penalty;
+        waiting = Math.max(waiting, robotsDelay);
+        return lastacc + Math.min(60000, waiting);
+    }
+
+    /**
+     * @return the last access time of the host or UNKNOWN
+     */
+    public long lastAccess(final String hosthash) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        final Stripe stripe = stripe(hash);
+        final int i = stripe.find(key, hash);
+        return i < 0 ? UNKNOWN : stripe.lastacc.get(i);
+    }
+
+    /**
+     * @return the number of recorded accesses of the host or 0 if the host is unknown
+     */
+    public int count(final String hosthash) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        final Stripe stripe = stripe(hash);
+        final int i = stripe.find(key, hash);
+        return i < 0 ? 0 : stripe.count.get(i);
+    }
+
+    /**
+     * @return the average access latency of the host in milliseconds or 0 if the host is unknown
+     */
+    public int average(final String hosthash) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        final Stripe stripe = stripe(hash);
+        final int i = stripe.find(key, hash);
+        return i < 0 ? 0 : (int) (stripe.timeacc.get(i) / Math.max(1, stripe.count.get(i)));
+    }
+
+    /**
+     * @return the host name or null if the host is unknown
+     */
+    public String host(final String hosthash) {
+        final long key = key(hosthash);
+        final int hash = hash(key);
+        final Stripe stripe = stripe(hash);
+        final int i = stripe.find(key, hash);
+        return i < 0 ? null : stripe.hosts.get(i);
+    }
+
+    /**
+     * @return the host hashes of all hosts in the table
+     */
+    public List<String> hosthashes() {
+        final List<String> list = new ArrayList<String>(size());
+        for (final Stripe stripe: this.stripes) {
+            for (int i = 0; i <= stripe.mask; i++) {
+                final long k = stripe.keys.get(i);
+                if (k != 0) list.add(hosthash(k));
+            }
+        }
+        return list;
+    }
+
+    public int size() {
+        int s = 0;
+        for (final Stripe stripe: this.stripes) s += stripe.size();
+        return s;
+    }
+
+    public void clear() {
+        for (final Stripe stripe: this.stripes) stripe.clear();
+    }
+
+    /**
+     * Used by crawler to calculate additional access delay time for often accessed hosts
+     * (access count > 10000 returns half of the range parameter) linear incrementet from 0 up to (range div 2)
+     * @param range the current delay time
+     * @param count the number of accesses of the host
+     * @return the additional delay in ms (max: range div 2)
+     */
+    public static int flux(final int range, final int count) {
+        return count >= 10000 ? range >> 1 : (range * count / 10000) >> 1;
+    }
+}
@@ -23,11 +23,11 @@
 
 package net.yacy.crawler.data;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
@@ -42,9 +42,28 @@ import net.yacy.search.SwitchboardConstants;
 
 public class Latency {
 
-    // the map is a mapping from host names to host configurations
-    private static final int mapMaxSize = 1000;
-    private static final ConcurrentHashMap<String, Host> map = new ConcurrentHashMap<String, Host>();
+    // the table is a mapping from host hashes to host timing
+    private static final int tableMaxSize = 20000;
+    private static final HostLatencyTable table = new HostLatencyTable(tableMaxSize);
+
+    // configuration values which are read in the balancer selection loop, refreshed once a second
+    private static volatile long configTime = 0;
+    private static volatile float latencyFactor = 0.5f;
+    private static volatile int maxSameHostInQueue = 20;
+
+    private static void refreshConfig() {
+        final long now = System.currentTimeMillis();
+        if (now - configTime < 1000) return;
+        final Switchboard sb = Switchboard.getSwitchboard();
+        if (sb == null) return;
+        latencyFactor = sb.getConfigFloat(SwitchboardConstants.CRAWLER_LATENCY_FACTOR, 0.5f);
+        maxSameHostInQueue = sb.getConfigInt(SwitchboardConstants.CRAWLER_MAX_SAME_HOST_IN_QUEUE, 20);
+        configTime = now;
+    }
+
+    private static void checkMemory() {
+        if (MemoryControl.shortStatus()) table.clear();
+    }
 
     /**
      * update the latency entry after a host was selected for queueing into the loader
@@ -55,12 +74,11 @@ public class Latency {
         final String host = url.getHost();
         if (host == null) return;
         String hosthash = url.hosthash();
-        Host h = map.get(hosthash);
-        if (h == null) {
-            h = new Host(host, Switchboard.getSwitchboard().getConfigInt("crawler.defaultAverageLatency", 500), robotsCrawlDelay);
-            if (map.size() > mapMaxSize || MemoryControl.shortStatus()) map.clear();
-            map.put(hosthash, h);
+        if (!table.contains(hosthash)) {
+            checkMemory();
+            table.add(hosthash, host, Switchboard.getSwitchboard().getConfigInt("crawler.defaultAverageLatency", 500));
         }
+        if (robotsCrawlDelay > 0) table.setRobotsDelay(hosthash, robotsCrawlDelay);
     }
 
     /**
@@ -71,15 +89,8 @@ public class Latency {
     public static void updateBeforeLoad(final DigestURL url) {
         final String host = url.getHost();
         if (host == null) return;
-        String hosthash = url.hosthash();
-        Host h = map.get(hosthash);
-        if (h == null) {
-            h = new Host(host, 500, 0);
-            if (map.size() > mapMaxSize || MemoryControl.shortStatus()) map.clear();
-            map.put(hosthash, h);
-        } else {
-            h.update();
-        }
+        checkMemory();
+        table.access(url.hosthash(), host, 500);
     }
 
     /**
@@ -90,25 +101,45 @@ public class Latency {
     public static void updateAfterLoad(final DigestURL url, final long time) {
         final String host = url.getHost();
         if (host == null) return;
-        String hosthash = url.hosthash();
-        Host h = map.get(hosthash);
-        if (h == null) {
-            h = new Host(host, time, 0);
-            if (map.size() > mapMaxSize || MemoryControl.shortStatus()) map.clear();
-            map.put(hosthash, h);
-        } else {
-            h.update(time);
-        }
+        checkMemory();
+        table.loaded(url.hosthash(), host, time);
+    }
+
+    private static Host host(final String hosthash) {
+        final long lastacc = table.lastAccess(hosthash);
+        if (lastacc == HostLatencyTable.UNKNOWN) return null;
+        final long robotsDelay = table.robotsDelay(hosthash);
+        return new Host(table.host(hosthash), table.count(hosthash), table.average(hosthash), lastacc, robotsDelay == HostLatencyTable.UNKNOWN ? 0 : robotsDelay);
     }
 
     private static Host host(final DigestURL url) {
         final String host = url.getHost();
         if (host == null) return null;
-        return map.get(url.hosthash());
+        return host(url.hosthash());
     }
 
+    /**
+     * @return the timing of all known hosts as a snapshot
+     */
     public static Iterator<Map.Entry<String, Host>> iterator() {
-        return map.entrySet().iterator();
+        final List<Map.Entry<String, Host>> hosts = new ArrayList<Map.Entry<String, Host>>();
+        for (final String hosthash: table.hosthashes()) {
+            final Host host = host(hosthash);
+            if (host != null) hosts.add(new AbstractMap.SimpleImmutableEntry<String, Host>(hosthash, host));
+        }
+        return hosts.iterator();
+    }
+
+    /**
+     * get the earliest time at which a host shall be accessed again, without allocation and
+     * without a robots.txt lookup; the robots delay is taken from the cache, if available
+     * @param hosthash the host hash
+     * @param agent the crawler agent
+     * @return the time in milliseconds since the epoch or Long.MIN_VALUE if the host was never accessed
+     */
+    public static long nextReady(final String hosthash, final ClientIdentification.Agent agent) {
+        refreshConfig();
+        return table.nextReady(hosthash, agent.minimumDelta, latencyFactor, 0);
     }
 
     /**
@@ -149,34 +180,22 @@ public class Latency {
     public static int waitingRemainingGuessed(final String hostname, final int port, final String hosthash, final RobotsTxt robots, final ClientIdentification.Agent agent) {
 
         // first check if the domain was _ever_ accessed before
-        final Host host = map.get(hosthash);
-        if (host == null) return Integer.MIN_VALUE; // no delay if host is new; use Integer because there is a cast to int somewhere
-
-        // find the minimum waiting time based on the network domain (local or global)
-        int waiting = agent.minimumDelta;
+        if (!table.contains(hosthash)) return Integer.MIN_VALUE; // no delay if host is new; use Integer because there is a cast to int somewhere
 
-        // if we have accessed the domain many times, get slower (the flux factor)
-        waiting += host.flux(waiting);
-
-        // use the access latency as rule how fast we can access the server
-        // this applies also to localhost, but differently, because it is not necessary to
-        // consider so many external accesses
-        waiting = Math.max(waiting, (int) (host.average() * Switchboard.getSwitchboard().getConfigFloat(SwitchboardConstants.CRAWLER_LATENCY_FACTOR, 0.5f)));
-
-        // if the number of same hosts as in the url in the loading queue is greater than MaxSameHostInQueue, then increase waiting
-        if (Switchboard.getSwitchboard().crawlQueues.hostcount(hostname) > Switchboard.getSwitchboard().getConfigInt(SwitchboardConstants.CRAWLER_MAX_SAME_HOST_IN_QUEUE, 20)) waiting += 3000;
-        
-        // the time since last access to the domain is the basis of the remaining calculation
-        final int timeSinceLastAccess = (int) (System.currentTimeMillis() - host.lastacc());
-        
-        // find the delay as given by robots.txt on target site
-        if (robots != null) {
-            int robotsDelay = waitingRobots(hostname + ":" + port, robots, agent, false);
-            if (robotsDelay < 0) return -timeSinceLastAccess; // no limits if granted exclusively for this peer
-            waiting = Math.max(waiting, robotsDelay);
+        // find the delay as given by robots.txt on target site; it is cached in the table
+        if (robots != null && table.robotsDelay(hosthash) == HostLatencyTable.UNKNOWN) {
+            table.setRobotsDelay(hosthash, waitingRobots(hostname + ":" + port, robots, agent, false));
         }
 
-        return Math.min(60000, waiting) - timeSinceLastAccess;
+        // if the number of same hosts as in the url in the loading queue is greater than MaxSameHostInQueue, then increase waiting
+        refreshConfig();
+        final Switchboard sb = Switchboard.getSwitchboard();
+        final int penalty = sb != null && sb.crawlQueues != null && sb.crawlQueues.hostcount(hostname) > maxSameHostInQueue ? 3000 : 0;
+
+        // the minimum waiting time, the flux factor, the access latency and the robots delay are combined in the table
+        final long nextReady = table.nextReady(hosthash, agent.minimumDelta, latencyFactor, penalty);
+        if (nextReady == HostLatencyTable.UNKNOWN) return Integer.MIN_VALUE;
+        return (int) Math.max(Integer.MIN_VALUE + 1, nextReady - System.currentTimeMillis());
     }
     
     /**
@@ -204,10 +223,11 @@ public class Latency {
         if (!local) waiting += host.flux(waiting);
 
         // use the access latency as rule how fast we can access the server
-        waiting = Math.max(waiting, (int) (host.average() * Switchboard.getSwitchboard().getConfigFloat(SwitchboardConstants.CRAWLER_LATENCY_FACTOR, 0.5f)));
+        refreshConfig();
+        waiting = Math.max(waiting, (int) (host.average() * latencyFactor));
         
         // if the number of same hosts as in the url in the loading queue is greater than MaxSameHostInQueue, then increase waiting
-        if (Switchboard.getSwitchboard().crawlQueues.hostcount(url.getHost()) > Switchboard.getSwitchboard().getConfigInt(SwitchboardConstants.CRAWLER_MAX_SAME_HOST_IN_QUEUE, 20)) waiting += 3000;
+        if (Switchboard.getSwitchboard().crawlQueues.hostcount(url.getHost()) > maxSameHostInQueue) waiting += 3000;
 
         // the time since last access to the domain is the basis of the remaining calculation
         final int timeSinceLastAccess = (int) (System.currentTimeMillis() - host.lastacc());
@@ -300,42 +320,28 @@ public class Latency {
         return sleeptime < 0 ? 0 : sleeptime;
     }
     
+    /**
+     * a snapshot of the timing of a host
+     */
     public static final class Host {
-        private AtomicLong timeacc;
-        private AtomicLong lastacc;
-        private AtomicInteger count;
         private final String host;
-        private long robotsMinDelay;
-        private Host(final String host, final long time, long robotsMinDelay) {
+        private final int count, average;
+        private final long lastacc, robotsMinDelay;
+        private Host(final String host, final int count, final int average, final long lastacc, final long robotsMinDelay) {
             this.host = host;
-            this.timeacc = new AtomicLong(time);
-            this.count = new AtomicInteger(1);
-            this.lastacc = new AtomicLong(System.currentTimeMillis());
+            this.count = count;
+            this.average = average;
+            this.lastacc = lastacc;
             this.robotsMinDelay = robotsMinDelay;
         }
-        private void update(final long time) {
-            if (this.count.get() > 100) {
-                synchronized(this) {
-                    // faster adoption to new values
-                    this.timeacc.set(this.timeacc.get() / this.count.get());
-                    this.count.set(1);
-                }
-            }
-            this.lastacc.set(System.currentTimeMillis());
-            this.timeacc.addAndGet(Math.min(30000, time));
-            this.count.incrementAndGet();
-        }
-        private void update() {
-            this.lastacc.set(System.currentTimeMillis());
-        }
         public int count() {
-            return this.count.get();
+            return this.count;
         }
         public int average() {
-            return (int) (this.timeacc.get() / this.count.get());
+            return this.average;
         }
         public long lastacc() {
-            return this.lastacc.get();
+            return this.lastacc;
         }
         public String host() {
             return this.host;
@@ -350,7 +356,7 @@ public class Latency {
          * @return the additional delay in ms (max: range div 2)
          */
         public int flux(final int range) {
-            return this.count.get() >= 10000 ? range >> 1 : (range * this.count.get() / 10000) >> 1;
+            return HostLatencyTable.flux(range, this.count);
         }
     }
     
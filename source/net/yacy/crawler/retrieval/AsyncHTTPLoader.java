@@ -0,0 +1,437 @@
+// AsyncHTTPLoader.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.crawler.retrieval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.protocol.HeaderFramework;
+import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.cora.protocol.ResponseHeader;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.crawler.data.CrawlProfile;
+import net.yacy.crawler.data.Latency;
+import net.yacy.kelondro.io.ByteCount;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+
+/**
+ * A non-blocking http loader for the crawler. All requests are multiplexed over the NIO connections
+ * of a single http client, so the number of requests in flight does not depend on the number of threads.
+ * Requests are queued per host; a host queue is dispatched by a single scheduler thread which
+ * starts a request when the host has a free connection in its budget and the access delay of the host
+ * is over. The content is buffered while it arrives and the request is aborted when the size limit is exceeded.
+ */
+public final class AsyncHTTPLoader {
+
+    private final static ConcurrentLog log = new ConcurrentLog("AsyncHTTPLoader");
+
+    /**
+     * the access delay of a host
+     */
+    public interface Delay {
+        /**
+         * @param url the url which shall be loaded next
+         * @return the time in milliseconds until the host of the url may be accessed; zero or negative if now
+         */
+        public long remaining(DigestURL url);
+    }
+
+    /**
+     * receives the result of a request; the methods are called from the threads of the http client
+     */
+    public interface Listener {
+        /**
+         * the request was answered; the response may have any status code
+         * @param response the response including the content
+         */
+        public void loaded(Response response);
+
+        /**
+         * the request failed
+         * @param request the request
+         * @param reason the cause
+         */
+        public void failed(Request request, String reason);
+    }
+
+    private final class Fetch {
+        private final Request request;
+        private final RequestHeader requestHeader;
+        private final CrawlProfile profile;
+        private final int maxFileSize;
+        private final Listener listener;
+
+        private Fetch(final Request request, final RequestHeader requestHeader, final CrawlProfile profile, final int maxFileSize, final Listener listener) {
+            this.request = request;
+            this.requestHeader = requestHeader;
+            this.profile = profile;
+            this.maxFileSize = maxFileSize;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * the requests of one host; all fields are guarded by the object monitor
+     */
+    private final class HostQueue implements Runnable {
+        private final String hosthash;
+        private final ArrayDeque<Fetch> waiting;
+        private int active;         // number of requests in flight
+        private boolean scheduled;  // a dispatch of this queue is scheduled
+        private boolean delaying;   // the scheduled dispatch waits for the access delay of the host
+        private boolean removed;    // the queue was removed from the host map and must not be used any more
+
+        private HostQueue(final String hosthash) {
+            this.hosthash = hosthash;
+            this.waiting = new ArrayDeque<Fetch>();
+            this.active = 0;
+            this.scheduled = false;
+            this.delaying = false;
+            this.removed = false;
+        }
+
+        /**
+         * schedule a dispatch if the host has waiting requests and a free connection; must be called with the monitor held
+         * @return true if a dispatch is scheduled
+         */
+        private boolean schedule(final long delay) {
+            if (this.scheduled) return true;
+            if (this.waiting.isEmpty() || this.active >= AsyncHTTPLoader.this.maxConnectionsPerHost) return false;
+            this.scheduled = true;
+            if (delay > 0) {
+                this.delaying = true;
+                AsyncHTTPLoader.this.delayed.incrementAndGet();
+                AsyncHTTPLoader.this.scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+            } else {
+                AsyncHTTPLoader.this.scheduler.execute(this);
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            final Fetch fetch;
+            synchronized (this) {
+                if (this.delaying) {
+                    this.delaying = false;
+                    AsyncHTTPLoader.this.delayed.decrementAndGet();
+                }
+                this.scheduled = false;
+                if (this.waiting.isEmpty() || this.active >= AsyncHTTPLoader.this.maxConnectionsPerHost) return;
+                fetch = this.waiting.peekFirst();
+            }
+            if (AsyncHTTPLoader.this.closed) return;
+            if (AsyncHTTPLoader.this.inFlight.get() >= AsyncHTTPLoader.this.maxConnections) {
+                // all connections are busy; the queue is dispatched again when a request is finished
+                AsyncHTTPLoader.this.stalled.add(this);
+                // a request may have finished before this queue was added and found no stalled queue to dispatch
+                dispatchStalled();
+                return;
+            }
+            final long wait = AsyncHTTPLoader.this.delay.remaining(fetch.request.url());
+            synchronized (this) {
+                if (wait > 0) {
+                    schedule(wait);
+                    return;
+                }
+                this.waiting.pollFirst();
+                this.active++;
+                AsyncHTTPLoader.this.queued.decrementAndGet();
+                AsyncHTTPLoader.this.inFlight.incrementAndGet();
+            }
+            send(fetch, this);
+        }
+    }
+
+    private final HttpClient client;
+    private final ScheduledExecutorService scheduler;
+    private final Delay delay;
+    private final int maxConnections, maxConnectionsPerHost, timeout;
+    private final ConcurrentHashMap<String, HostQueue> hosts;
+    private final ConcurrentLinkedQueue<HostQueue> stalled;
+    private final AtomicInteger queued, inFlight, delayed;
+    private final AtomicLong completed, failed, bytes;
+    private volatile boolean closed;
+
+    /**
+     * @param maxConnections the maximum number of requests in flight
+     * @param maxConnectionsPerHost the maximum number of requests in flight to the same host
+     * @param timeout the timeout for connecting and for the whole request in milliseconds
+     * @param delay the access delay of hosts
+     * @throws IOException if the http client cannot be started
+     */
+    public AsyncHTTPLoader(final int maxConnections, final int maxConnectionsPerHost, final int timeout, final Delay delay) throws IOException {
+        this.maxConnections = Math.max(1, maxConnections);
+        this.maxConnectionsPerHost = Math.max(1, maxConnectionsPerHost);
+        this.timeout = timeout;
+        this.delay = delay;
+        this.hosts = new ConcurrentHashMap<String, HostQueue>();
+        this.stalled = new ConcurrentLinkedQueue<HostQueue>();
+        this.queued = new AtomicInteger(0);
+        this.inFlight = new AtomicInteger(0);
+        this.delayed = new AtomicInteger(0);
+        this.completed = new AtomicLong(0);
+        this.failed = new AtomicLong(0);
+        this.bytes = new AtomicLong(0);
+        this.closed = false;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamePrefixThreadFactory("AsyncHTTPLoader.scheduler"));
+
+        final QueuedThreadPool executor = new QueuedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors() * 2), 2);
+        executor.setName("AsyncHTTPLoader.client");
+        executor.setDaemon(true);
+        this.client = new HttpClient(new SslContextFactory(true)); // like the blocking client, the crawler accepts all certificates
+        this.client.setExecutor(executor);
+        this.client.setFollowRedirects(false); // redirects are handled by the crawler
+        this.client.setUserAgentField(null); // the agent is given in the request header
+        this.client.setConnectTimeout(timeout);
+        this.client.setIdleTimeout(timeout);
+        this.client.setMaxConnectionsPerDestination(this.maxConnectionsPerHost);
+        this.client.setMaxRequestsQueuedPerDestination(this.maxConnectionsPerHost * 2);
+        this.client.setRemoveIdleDestinations(true);
+        try {
+            this.client.start();
+        } catch (final Exception e) {
+            throw new IOException("cannot start http client: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * queue a request; the listener is called when the request is finished
+     * @param request the request
+     * @param requestHeader the header for the request
+     * @param profile the crawl profile which is assigned to the response
+     * @param maxFileSize the maximum content size; -1 for no limit
+     * @param listener the listener for the result
+     */
+    public void fetch(final Request request, final RequestHeader requestHeader, final CrawlProfile profile, final int maxFileSize, final Listener listener) {
+        final Fetch fetch = new Fetch(request, requestHeader, profile, maxFileSize, listener);
+        final String hosthash = request.url().hosthash();
+        while (true) {
+            HostQueue hq = this.hosts.get(hosthash);
+            if (hq == null) {
+                final HostQueue nhq = new HostQueue(hosthash);
+                hq = this.hosts.putIfAbsent(hosthash, nhq);
+                if (hq == null) hq = nhq;
+            }
+            synchronized (hq) {
+                if (hq.removed) continue;
+                hq.waiting.addLast(fetch);
+                this.queued.incrementAndGet();
+                hq.schedule(0);
+                return;
+            }
+        }
+    }
+
+    private void send(final Fetch fetch, final HostQueue hq) {
+        final DigestURL url = fetch.request.url();
+        final org.eclipse.jetty.client.api.Request request;
+        try {
+            request = this.client.newRequest(url.toNormalform(true))
+                    .method(HttpMethod.GET)
+                    .followRedirects(false)
+                    .timeout(this.timeout, TimeUnit.MILLISECONDS);
+        } catch (final IllegalArgumentException e) {
+            finish(hq, 0);
+            this.failed.incrementAndGet();
+            fetch.listener.failed(fetch.request, "bad url: " + e.getMessage());
+            return;
+        }
+        if (fetch.requestHeader != null) {
+            for (final Map.Entry<String, String> entry: fetch.requestHeader.entrySet()) {
+                // the client decodes the content encodings it can decode and announces them itself
+                if (HeaderFramework.ACCEPT_ENCODING.equalsIgnoreCase(entry.getKey())) continue;
+                request.header(entry.getKey(), entry.getValue());
+            }
+        }
+        Latency.updateBeforeLoad(url);
+        final long start = System.currentTimeMillis();
+        request.send(new org.eclipse.jetty.client.api.Response.Listener.Adapter() {
+
+            private byte[] content = new byte[4096];
+            private int size = 0;
+
+            @Override
+            public void onHeaders(final org.eclipse.jetty.client.api.Response response) {
+                final long length = response.getHeaders().getLongField(HeaderFramework.CONTENT_LENGTH);
+                if (fetch.maxFileSize >= 0 && length > fetch.maxFileSize) {
+                    response.abort(new IOException("file size " + length + " exceeds max filesize limit of " + fetch.maxFileSize + " bytes"));
+                }
+            }
+
+            @Override
+            public void onContent(final org.eclipse.jetty.client.api.Response response, final ByteBuffer buffer) {
+                final int length = buffer.remaining();
+                if (fetch.maxFileSize >= 0 && this.size + length > fetch.maxFileSize) {
+                    response.abort(new IOException("content exceeds max filesize limit of " + fetch.maxFileSize + " bytes"));
+                    return;
+                }
+                if (this.size + length > this.content.length) {
+                    this.content = Arrays.copyOf(this.content, Math.max(this.size + length, this.content.length * 2));
+                }
+                buffer.get(this.content, this.size, length);
+                this.size += length;
+            }
+
+            @Override
+            public void onComplete(final Result result) {
+                final long time = System.currentTimeMillis() - start;
+                Latency.updateAfterLoad(url, time);
+                finish(hq, this.size);
+                if (result.isFailed()) {
+                    AsyncHTTPLoader.this.failed.incrementAndGet();
+                    final Throwable cause = result.getFailure();
+                    fetch.listener.failed(fetch.request, cause == null ? "unknown failure" : cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage());
+                    return;
+                }
+                AsyncHTTPLoader.this.completed.incrementAndGet();
+                final org.eclipse.jetty.client.api.Response r = result.getResponse();
+                final ResponseHeader responseHeader = new ResponseHeader(r.getStatus());
+                final boolean decoded = r.getHeaders().containsKey(HeaderFramework.CONTENT_ENCODING);
+                for (final HttpField field: r.getHeaders()) {
+                    // the content is already decoded, the length of the encoded content is not valid any more
+                    if (decoded && (HeaderFramework.CONTENT_ENCODING.equalsIgnoreCase(field.getName()) || HeaderFramework.CONTENT_LENGTH.equalsIgnoreCase(field.getName()))) continue;
+                    responseHeader.put(field.getName(), field.getValue());
+                }
+                final byte[] body = this.size == this.content.length ? this.content : Arrays.copyOf(this.content, this.size);
+                this.content = null;
+                try {
+                    fetch.listener.loaded(new Response(fetch.request, fetch.requestHeader, responseHeader, fetch.profile, false, body));
+                } catch (final Throwable e) {
+                    log.warn("listener failed for " + url.toNormalform(true) + ": " + e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    /**
+     * release the connection of a finished request and dispatch the next requests
+     */
+    private void finish(final HostQueue hq, final int size) {
+        this.inFlight.decrementAndGet();
+        if (size > 0) {
+            this.bytes.addAndGet(size);
+            ByteCount.addAccountCount(ByteCount.CRAWLER, size);
+        }
+        synchronized (hq) {
+            hq.active--;
+            if (hq.waiting.isEmpty() && hq.active == 0) {
+                hq.removed = true;
+                this.hosts.remove(hq.hosthash);
+            } else {
+                hq.schedule(0);
+            }
+        }
+        dispatchStalled();
+    }
+
+    /**
+     * if a connection is free, dispatch a host which had to wait for it
+     */
+    private void dispatchStalled() {
+        HostQueue next;
+        while (this.inFlight.get() < this.maxConnections && (next = this.stalled.poll()) != null) {
+            synchronized (next) {
+                if (next.schedule(0)) return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of requests which wait for a connection or for the access delay of their host
+     */
+    public int queued() {
+        return this.queued.get();
+    }
+
+    /**
+     * @return the number of requests in flight
+     */
+    public int inFlight() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * @return the number of hosts with waiting or running requests
+     */
+    public int hosts() {
+        return this.hosts.size();
+    }
+
+    /**
+     * @return the number of hosts which wait for their access delay
+     */
+    public int delayed() {
+        return this.delayed.get();
+    }
+
+    /**
+     * @return the number of answered requests
+     */
+    public long completed() {
+        return this.completed.get();
+    }
+
+    /**
+     * @return the number of failed requests
+     */
+    public long failed() {
+        return this.failed.get();
+    }
+
+    /**
+     * @return the number of content bytes loaded
+     */
+    public long bytes() {
+        return this.bytes.get();
+    }
+
+    public void close() {
+        this.closed = true;
+        this.scheduler.shutdownNow();
+        try {
+            this.client.stop();
+        } catch (final Exception e) {
+            log.warn("cannot stop http client: " + e.getMessage());
+        }
+        this.hosts.clear();
+        this.stalled.clear();
+    }
+}
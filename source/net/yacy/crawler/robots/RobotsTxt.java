@@ -31,14 +31,19 @@ import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
@@ -66,12 +71,24 @@ public class RobotsTxt {
     protected static final String ROBOTS_DB_PATH_SEPARATOR = ";";
     protected static final Pattern ROBOTS_DB_PATH_SEPARATOR_MATCHER = Pattern.compile(ROBOTS_DB_PATH_SEPARATOR);
 
+    /** maximum number of parsed entries in the memory tier */
+    private static final int MEMORY_TIER_SIZE = 10000;
+
+    /** number of entries for hosts without robots.txt which are collected before they are written to the robots table */
+    private static final int NEGATIVE_BATCH_SIZE = 100;
+
     private final ConcurrentMap<String, DomSync> syncObjects;
     //private static final HashSet<String> loadedRobots = new HashSet<String>(); // only for debugging
     private final WorkTables tables;
     private final LoaderDispatcher loader;
     /** Thread pool used to launch concurrent tasks */
 	private ThreadPoolExecutor threadPool; 
+    /** parsed entries of recently used hosts in front of the robots table */
+    private final Map<String, RobotsTxtEntry> memoryTier;
+    /** entries for hosts without robots.txt which are not yet written to the robots table */
+    private final Map<String, RobotsTxtEntry> negativeBatch;
+    /** hosts for which a robots.txt fetch is scheduled or running */
+    private final Set<String> pending;
 
     private static class DomSync {
     	private DomSync() {}
@@ -89,6 +106,15 @@ public class RobotsTxt {
                 new LinkedBlockingQueue<Runnable>(),
                 new NamePrefixThreadFactory(RobotsTxt.class.getSimpleName()));
         this.syncObjects = new ConcurrentHashMap<String, DomSync>();
+        this.memoryTier = new LinkedHashMap<String, RobotsTxtEntry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, RobotsTxtEntry> eldest) {
+                return this.size() > MEMORY_TIER_SIZE;
+            }
+        };
+        this.negativeBatch = new LinkedHashMap<String, RobotsTxtEntry>();
+        this.pending = ConcurrentHashMap.newKeySet();
         this.tables = worktables;
         this.loader = loader;
         try {
@@ -106,6 +132,12 @@ public class RobotsTxt {
         log.info("clearing robots table");
         this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME).clear();
         this.syncObjects.clear();
+        synchronized (this.memoryTier) {
+            this.memoryTier.clear();
+        }
+        synchronized (this.negativeBatch) {
+            this.negativeBatch.clear();
+        }
     }
     
     public void close() {
@@ -113,10 +145,69 @@ public class RobotsTxt {
     	if(this.threadPool != null) {
     		this.threadPool.shutdownNow();
     	}
+    	flushNegativeBatch();
     }
 
     public int size() throws IOException {
-        return this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME).size();
+        final int batched;
+        synchronized (this.negativeBatch) {
+            batched = this.negativeBatch.size();
+        }
+        return this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME).size() + batched;
+    }
+
+    /**
+     * @param host a host name
+     * @param port the port of the host
+     * @return true if the robots.txt of the host is scheduled to be loaded or is loading right now
+     */
+    public boolean isPending(final String host, final int port) {
+        if (this.pending.isEmpty()) return false;
+        final String urlHostPort = getHostPort(host, port);
+        return urlHostPort != null && this.pending.contains(urlHostPort.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the number of hosts for which a robots.txt fetch is scheduled or running
+     */
+    public int pendingCount() {
+        return this.pending.size();
+    }
+
+    /**
+     * get an entry from the memory tier, the batch of unwritten entries or the robots table
+     * @param urlHostPort the host and port
+     * @param robotsTable the robots table
+     * @return the stored entry or null if there is no entry
+     */
+    private RobotsTxtEntry storedEntry(final String urlHostPort, final BEncodedHeap robotsTable) {
+        final String key = urlHostPort.toLowerCase(Locale.ROOT);
+        RobotsTxtEntry entry;
+        synchronized (this.memoryTier) {
+            entry = this.memoryTier.get(key);
+        }
+        if (entry != null) return entry;
+        synchronized (this.negativeBatch) {
+            entry = this.negativeBatch.get(key);
+        }
+        if (entry != null) return entry;
+        if (robotsTable == null) return null;
+        Map<String, byte[]> record;
+        try {
+            record = robotsTable.get(robotsTable.encodedKey(urlHostPort));
+        } catch (final SpaceExceededException e) {
+            log.warn("memory exhausted", e);
+            record = null;
+        } catch (final IOException e) {
+            log.warn("cannot get robotstxt from table", e);
+            record = null;
+        }
+        if (record == null) return null;
+        entry = new RobotsTxtEntry(urlHostPort, record);
+        synchronized (this.memoryTier) {
+            this.memoryTier.put(key, entry);
+        }
+        return entry;
     }
 
     public RobotsTxtEntry getEntry(final MultiProtocolURL theURL, final ClientIdentification.Agent agent) {
@@ -125,26 +216,30 @@ public class RobotsTxt {
         return getEntry(getHostPort(theURL), agent, true);
     }
 
+    /**
+     * get the robots.txt entry of the host of an url without loading it
+     * @param theURL the url
+     * @param agent agent identification information
+     * @return the stored entry if it is not older than seven days, else null
+     */
+    public RobotsTxtEntry getFreshEntry(final MultiProtocolURL theURL, final ClientIdentification.Agent agent) {
+        final RobotsTxtEntry entry = getEntry(getHostPort(theURL), agent, false);
+        if (entry == null ||
+            entry.getLoadedDate() == null ||
+            System.currentTimeMillis() - entry.getLoadedDate().getTime() > 7*24*60*60*1000) return null;
+        return entry;
+    }
+
     public RobotsTxtEntry getEntry(final String urlHostPort, final ClientIdentification.Agent agent, final boolean fetchOnlineIfNotAvailableOrNotFresh) {
             // this method will always return a non-null value
         RobotsTxtEntry robotsTxt4Host = null;
-        Map<String, byte[]> record;
         BEncodedHeap robotsTable = null;
         try {
             robotsTable = this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME);
         } catch (final IOException e1) {
             log.severe("tables not available", e1);
         }
-        try {
-            record = robotsTable.get(robotsTable.encodedKey(urlHostPort));
-        } catch (final SpaceExceededException e) {
-            log.warn("memory exhausted", e);
-            record = null;
-        } catch (final IOException e) {
-            log.warn("cannot get robotstxt from table", e);
-            record = null;
-        }
-        if (record != null) robotsTxt4Host = new RobotsTxtEntry(urlHostPort, record);
+        robotsTxt4Host = storedEntry(urlHostPort, robotsTable);
 
         if (fetchOnlineIfNotAvailableOrNotFresh && (
              robotsTxt4Host == null ||
@@ -164,16 +259,8 @@ public class RobotsTxt {
                 // if we have not found any data or the data is older than 7 days, we need to load it from the remote server
                 // check the robots table again for all threads that come here because they waited for another one
                 // to complete a download
-                try {
-                    record = robotsTable.get(robotsTable.encodedKey(urlHostPort));
-                } catch (final SpaceExceededException e) {
-                    log.warn("memory exhausted", e);
-                    record = null;
-                } catch (final IOException e) {
-                    log.warn("cannot get robotstxt from table", e);
-                    record = null;
-                }
-                if (record != null) robotsTxt4Host = new RobotsTxtEntry(urlHostPort, record);
+                final RobotsTxtEntry stored = storedEntry(urlHostPort, robotsTable);
+                if (stored != null) robotsTxt4Host = stored;
                 if (robotsTxt4Host != null &&
                     robotsTxt4Host.getLoadedDate() != null &&
                     System.currentTimeMillis() - robotsTxt4Host.getLoadedDate().getTime() <= 1*24*60*60*1000) {
@@ -209,6 +296,12 @@ public class RobotsTxt {
     public void delete(final MultiProtocolURL theURL) {
         final String urlHostPort = getHostPort(theURL);
         if (urlHostPort == null) return;
+        synchronized (this.memoryTier) {
+            this.memoryTier.remove(urlHostPort.toLowerCase(Locale.ROOT));
+        }
+        synchronized (this.negativeBatch) {
+            this.negativeBatch.remove(urlHostPort.toLowerCase(Locale.ROOT));
+        }
         final BEncodedHeap robotsTable;
         try {
             robotsTable = this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME);
@@ -234,10 +327,19 @@ public class RobotsTxt {
             log.severe("tables not available", e1);
             return;
         }
-        if (robotsTable != null && robotsTable.containsKey(robotsTable.encodedKey(urlHostPort))) return;
+        if (storedEntry(urlHostPort, robotsTable) != null) return;
+        final String pendingKey = urlHostPort.toLowerCase(Locale.ROOT);
+        if (!this.pending.add(pendingKey)) return; // a fetch for this host is already scheduled
         Thread t = new Thread("Robots.txt:ensureExist(" + theURL.toNormalform(true) + ")") {
             @Override
             public void run(){
+                try {
+                    load();
+                } finally {
+                    RobotsTxt.this.pending.remove(pendingKey);
+                }
+            }
+            private void load() {
                 // make or get a synchronization object
                 DomSync syncObj = RobotsTxt.this.syncObjects.get(urlHostPort);
                 if (syncObj == null) {
@@ -246,7 +348,7 @@ public class RobotsTxt {
                 }
                 // we can now synchronize for each host separately
                 synchronized (syncObj) {
-                    if (robotsTable.containsKey(robotsTable.encodedKey(urlHostPort))) return;
+                    if (storedEntry(urlHostPort, robotsTable) != null) return;
 
                     // generating the proper url to download the robots txt
                     DigestURL robotsURL = robotsURL(urlHostPort);
@@ -257,7 +359,7 @@ public class RobotsTxt {
                         Request request = new Request(robotsURL, null);
                         try {
                             response = RobotsTxt.this.loader.load(request, CacheStrategy.NOCACHE, null, agent);
-                        } catch (final IOException e) {
+                        } catch (final Throwable e) {
                             response = null;
                         }
                     }
@@ -271,7 +373,12 @@ public class RobotsTxt {
             }
         };
         if (concurrent) {
-        	this.threadPool.execute(t);
+            try {
+                this.threadPool.execute(t);
+            } catch (final RejectedExecutionException e) {
+                // the pool is shut down
+                this.pending.remove(pendingKey);
+            }
         } else {
         	t.run();
         }
@@ -288,6 +395,7 @@ public class RobotsTxt {
     private void processOldEntry(RobotsTxtEntry robotsTxt4Host, DigestURL robotsURL, BEncodedHeap robotsTable) {
         // no robots.txt available, make an entry to prevent that the robots loading is done twice
         if (robotsTxt4Host == null) {
+            if (robotsURL == null) return;
             // generate artificial entry
             robotsTxt4Host = new RobotsTxtEntry(
                     robotsURL,
@@ -299,9 +407,16 @@ public class RobotsTxt {
                     null,
                     Integer.valueOf(0),
                     null);
-        } else {
-            robotsTxt4Host.setLoadedDate(new Date());
+            // hosts without robots.txt are frequent in wide crawls; their entries are written in batches
+            final int batched;
+            synchronized (this.negativeBatch) {
+                this.negativeBatch.put(robotsTxt4Host.getHostName(), robotsTxt4Host);
+                batched = this.negativeBatch.size();
+            }
+            if (batched >= NEGATIVE_BATCH_SIZE) flushNegativeBatch();
+            return;
         }
+        robotsTxt4Host.setLoadedDate(new Date());
 
         // store the data into the robots DB
         final int sz = robotsTable.size();
@@ -358,8 +473,27 @@ public class RobotsTxt {
         return robotsTxt4Host;
     }
     
+    /**
+     * write the collected entries for hosts without robots.txt to the robots table
+     */
+    public void flushNegativeBatch() {
+        final List<RobotsTxtEntry> entries;
+        synchronized (this.negativeBatch) {
+            if (this.negativeBatch.isEmpty()) return;
+            entries = new ArrayList<RobotsTxtEntry>(this.negativeBatch.values());
+        }
+        for (final RobotsTxtEntry entry: entries) addEntry(entry);
+        synchronized (this.negativeBatch) {
+            final Iterator<RobotsTxtEntry> i = this.negativeBatch.values().iterator();
+            while (i.hasNext()) if (entries.contains(i.next())) i.remove();
+        }
+    }
+
     private String addEntry(final RobotsTxtEntry entry) {
         // writes a new page and returns key
+        synchronized (this.memoryTier) {
+            this.memoryTier.put(entry.getHostName(), entry);
+        }
         try {
             final BEncodedHeap robotsTable = this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME);
             robotsTable.insert(robotsTable.encodedKey(entry.getHostName()), entry.getMem());
@@ -381,8 +515,17 @@ public class RobotsTxt {
                 port = 80;
             }
         }
-        String host = theURL.getHost();
+        return getHostPort(theURL.getHost(), port);
+    }
+
+    /**
+     * @param host a host name
+     * @param port the port; -1 for the default http port
+     * @return the host and port in the form used as key of the robots table or null if the host is null
+     */
+    public static final String getHostPort(final String host, int port) {
         if (host == null) return null;
+        if (port == -1) port = 80;
         StringBuilder sb = new StringBuilder(host.length() + 6);
         if (host.indexOf(':') >= 0) {sb.append('[').append(host).append(']');} else sb.append(host);
         sb.append(':').append(Integer.toString(port));
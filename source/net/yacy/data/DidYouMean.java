@@ -8,6 +8,7 @@ import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
@@ -17,6 +18,7 @@ import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrException;
 
+import net.yacy.cora.document.TermDictionary;
 import net.yacy.cora.sorting.ClusteredScoreMap;
 import net.yacy.cora.sorting.OrderedScoreMap;
 import net.yacy.cora.sorting.ReversibleScoreMap;
@@ -37,7 +39,9 @@ import net.yacy.search.schema.CollectionSchema;
  * <li>Deleting one letter: frog / fog; or</li>
  * <li>Reversing two consecutive letters: two / tow.</li>
  * </ol>
- * DidYouMean provides producer threads, that feed a blocking queue with word variations according to
+ * When the term dictionary of the segment contains the words of the index, the words with these differences are looked up
+ * there and ranked with the document frequency from the dictionary, without threads or index requests.
+ * Otherwise DidYouMean provides producer threads, that feed a blocking queue with word variations according to
  * the above mentioned four categories. Consumer threads check then the generated word variations against a term index.
  * Only words contained in the term index are return by the getSuggestion method.<p/>
  * @author apfelmaennchen
@@ -50,6 +54,7 @@ public class DidYouMean {
 
     private static final int MinimumInputWordLength = 2;
     private static final int MinimumOutputWordLength = 4;
+    private static final int MaximumDictionarySuggestions = 20;
 
     private static final char[] ALPHABET_LATIN = {
         'a','b','c','d','e','f','g','h','i','j','k','l','m','n','o','p',
@@ -85,6 +90,8 @@ public class DidYouMean {
     private static final wordLengthComparator WORD_LENGTH_COMPARATOR = new wordLengthComparator();
 
     private final Segment segment;
+    private final TermDictionary dictionary;
+    private final boolean useDictionary;
     private final StringBuilder word;
     private final boolean endsWithSpace;
     private final int wordLen;
@@ -103,7 +110,9 @@ public class DidYouMean {
         this.resultSet = Collections.synchronizedSortedSet(new TreeSet<StringBuilder>(new headMatchingComparator(this.word, WORD_LENGTH_COMPARATOR)));
         this.wordLen = this.word.length();
         this.segment = segment;
-        this.more = segment.connectedRWI() && segment.RWICount() > 0; // with RWIs connected the guessing is super-fast
+        this.dictionary = segment.termDictionary();
+        this.useDictionary = this.dictionary.isComplete() && !this.dictionary.isEmpty(); // a dictionary with only the latest documents would make worse suggestions than the index
+        this.more = this.useDictionary || (segment.connectedRWI() && segment.RWICount() > 0); // with RWIs connected the guessing is super-fast
 
         // identify language
         if (this.word.length() > 0) {
@@ -181,7 +190,7 @@ public class DidYouMean {
         final ReversibleScoreMap<StringBuilder> scored = new ClusteredScoreMap<StringBuilder>(StringBuilderComparator.CASE_INSENSITIVE_ORDER);
         final LinkedHashSet<StringBuilder> countSorted = new LinkedHashSet<StringBuilder>();
         if (this.more) {
-            final int wc = this.segment.getWordCountGuess(this.word.toString()); // all counts must be greater than this
+            final int wc = wordCount(this.word.toString()); // all counts must be greater than this
             try {
     	        for (final StringBuilder s: preSorted) {
     	            if (System.currentTimeMillis() > totalTimeLimit) {
@@ -190,7 +199,7 @@ public class DidYouMean {
     	            }
     	            if (!(scored.sizeSmaller(2 * preSortSelection))) break;
     	            String s0 = s.toString();
-    	            int wcg = s0.indexOf(' ') > 0 ? s0.length() * 100 : this.segment.getWordCountGuess(s0);
+    	            int wcg = s0.indexOf(' ') > 0 ? s0.length() * 100 : wordCount(s0);
     	            if (wcg > wc) scored.inc(s, wcg);
     	        }
             } catch (final ConcurrentModificationException e) {
@@ -219,6 +228,14 @@ public class DidYouMean {
         return countSorted;
     }
 
+    /**
+     * @return the number of documents which contain the word, from the term dictionary if possible
+     */
+    private int wordCount(final String s) {
+        if (this.useDictionary) return this.dictionary.get(s.toLowerCase(Locale.ROOT));
+        return this.segment.getWordCountGuess(s);
+    }
+
     /**
      * return a string that is a suggestion list for the list of given words
      * @param head - the sequence of words before the last space in the sequence, fixed (not to be corrected); possibly empty
@@ -392,7 +409,12 @@ public class DidYouMean {
         this.timeLimit = timeout >= 0 ? startTime + timeout : Long.MAX_VALUE;
         
         Thread[] producers = null;
-        if (this.more) {
+        if (this.useDictionary) {
+            // the dictionary knows all indexed words within the edit distance, no need to guess
+            for (final String s: this.dictionary.similar(this.word.toString().toLowerCase(Locale.ROOT), MaximumDictionarySuggestions)) {
+                if (s.length() >= MinimumOutputWordLength) this.resultSet.add(new StringBuilder(s));
+            }
+        } else if (this.more) {
             // create and start producers
             // the CPU load to create the guessed words is very low, but the testing
             // against the library may be CPU intensive. Since it is possible to test
@@ -410,7 +432,7 @@ public class DidYouMean {
         test(this.word);
         if (askIndex) this.resultSet.addAll(getSuggestions("", this.word.toString(), timeout, 10, this.segment));
         
-        if (this.more) {
+        if (producers != null) {
             // finish the producer
             for (final Thread t: producers) {
                 long wait = this.timeLimit - System.currentTimeMillis();
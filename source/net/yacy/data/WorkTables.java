@@ -58,6 +58,8 @@ import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.data.ymark.YMarkTables;
 import net.yacy.kelondro.blob.Tables;
+import net.yacy.kelondro.blob.TablesColumnIndex;
+import net.yacy.kelondro.blob.TablesSchema;
 import net.yacy.kelondro.data.word.WordReference;
 import net.yacy.kelondro.rwi.IndexCell;
 import net.yacy.search.Switchboard;
@@ -95,6 +97,17 @@ public class WorkTables extends Tables {
 
     public WorkTables(final File workPath) {
         super(workPath, 12);
+        try {
+            // the api table is filtered by type and url and ordered by dates on the admin pages and by the scheduler
+            this.setSchema(TABLE_API_NAME, new TablesSchema(TablesColumnIndex.INDEXTYPE.RAM)
+                    .column(TABLE_API_COL_TYPE, TablesSchema.ColumnType.STRING, true)
+                    .column(TABLE_API_COL_URL, TablesSchema.ColumnType.STRING, true)
+                    .column(TABLE_API_COL_DATE_RECORDING, TablesSchema.ColumnType.LONG, false)
+                    .column(TABLE_API_COL_DATE_LAST_EXEC, TablesSchema.ColumnType.LONG, false)
+                    .column(TABLE_API_COL_DATE_NEXT_EXEC, TablesSchema.ColumnType.LONG, false));
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
         this.bookmarks = new YMarkTables(this);
     }
     
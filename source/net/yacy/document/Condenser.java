@@ -24,16 +24,25 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.solr.common.params.MapSolrParams;
 
@@ -54,7 +63,7 @@ import net.yacy.document.language.Identificator;
 import net.yacy.document.parser.html.ImageEntry;
 import net.yacy.kelondro.data.word.Word;
 import net.yacy.kelondro.data.word.WordReferenceRow;
-import net.yacy.kelondro.util.Bitfield;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
 import net.yacy.kelondro.util.SetTools;
 
 public final class Condenser extends Tokenizer {
@@ -94,8 +103,11 @@ public final class Condenser extends Tokenizer {
 
         this.languageIdentificator = new Identificator();
 
-        // add the URL components to the word list
-        insertTextToWords(new SentenceReader(document.dc_source().toTokens()), 0, WordReferenceRow.flag_app_dc_identifier, this.RESULT_FLAGS, false, meaningLib);
+        // the metadata fields are collected first and then tokenized in a single sweep
+        final List<Field> fields = new ArrayList<Field>();
+
+        // add the URL components to the word list; they are counted only together with the text
+        fields.add(new Field(document.dc_source().toTokens(), 0, WordReferenceRow.flag_app_dc_identifier, false, indexText));
 
         Map.Entry<AnchorURL, String> entry;
         if (indexText) {
@@ -113,17 +125,17 @@ public final class Condenser extends Tokenizer {
             // phrase  98 is taken from the embedded anchor/hyperlinks description (REMOVED!)
             // phrase  99 is taken from the media Link url and anchor description
             // phrase 100 and above are lines from the text
-            insertTextToWords(new SentenceReader(document.dc_title()),       1, WordReferenceRow.flag_app_dc_title, this.RESULT_FLAGS, true, meaningLib);
+            fields.add(new Field(document.dc_title(),       1, WordReferenceRow.flag_app_dc_title, true, true));
             for (String description: document.dc_description()) {
-                insertTextToWords(new SentenceReader(description), 3, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
+                fields.add(new Field(description, 3, WordReferenceRow.flag_app_dc_description, true, true));
             }
-            insertTextToWords(new SentenceReader(document.dc_creator()),     4, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
-            insertTextToWords(new SentenceReader(document.dc_publisher()),   5, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
-            insertTextToWords(new SentenceReader(document.dc_subject(' ')),  6, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
+            fields.add(new Field(document.dc_creator(),     4, WordReferenceRow.flag_app_dc_creator, true, true));
+            fields.add(new Field(document.dc_publisher(),   5, WordReferenceRow.flag_app_dc_creator, true, true));
+            fields.add(new Field(document.dc_subject(' '),  6, WordReferenceRow.flag_app_dc_description, true, true));
             // missing: tags!
             final String[] titles = document.getSectionTitles();
             for (int i = 0; i < titles.length; i++) {
-                insertTextToWords(new SentenceReader(titles[i]), i + 10, WordReferenceRow.flag_app_emphasized, this.RESULT_FLAGS, true, meaningLib);
+                fields.add(new Field(titles[i], i + 10, WordReferenceRow.flag_app_emphasized, true, true));
             }
 
             // anchors: for text indexing we add only the anchor description
@@ -151,24 +163,24 @@ public final class Condenser extends Tokenizer {
             Iterator<Map.Entry<AnchorURL, String>> i = document.getAudiolinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasaudio, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasaudio, this.RESULT_FLAGS, true, meaningLib);
+                fields.add(new Field(entry.getKey().toNormalform(true), 99, flag_cat_hasaudio, false, true));
+                fields.add(new Field(entry.getValue(), 99, flag_cat_hasaudio, true, true));
             }
 
             // video
             i = document.getVideolinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasvideo, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasvideo, this.RESULT_FLAGS, true, meaningLib);
+                fields.add(new Field(entry.getKey().toNormalform(true), 99, flag_cat_hasvideo, false, true));
+                fields.add(new Field(entry.getValue(), 99, flag_cat_hasvideo, true, true));
             }
 
             // applications
             i = document.getApplinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasapp, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasapp, this.RESULT_FLAGS, true, meaningLib);
+                fields.add(new Field(entry.getKey().toNormalform(true), 99, flag_cat_hasapp, false, true));
+                fields.add(new Field(entry.getValue(), 99, flag_cat_hasapp, true, true));
             }
 
             // images
@@ -179,10 +191,14 @@ public final class Condenser extends Tokenizer {
                 ientry = j.next();
                 url = ientry.url();
                 if (url == null) continue;
-                insertTextToWords(new SentenceReader(url.toNormalform(true)), 99, flag_cat_hasimage, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(ientry.alt()), 99, flag_cat_hasimage, this.RESULT_FLAGS, true, meaningLib);
+                fields.add(new Field(url.toNormalform(true), 99, flag_cat_hasimage, false, true));
+                fields.add(new Field(ientry.alt(), 99, flag_cat_hasimage, true, true));
             }
+        }
+
+        insertFieldsToWords(fields, meaningLib);
 
+        if (indexMedia) {
             // finally check all words for missing flag entry
             final Iterator<Map.Entry<String, Word>> k = this.words.entrySet().iterator();
             Word wprop;
@@ -225,6 +241,75 @@ public final class Condenser extends Tokenizer {
         Thread.currentThread().setName(initialThreadName);
     }
     
+    /**
+     * a shared pool for the condensing of documents from containers (i.e. archives or feeds),
+     * threads are removed when there is no work for them
+     */
+    private static final ThreadPoolExecutor condenserPool;
+    static {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        condenserPool = new ThreadPoolExecutor(threads, threads, 10L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new NamePrefixThreadFactory("condenser"));
+        condenserPool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Condense a batch of documents, i.e. all documents which a parser produced from one resource.
+     * More than one document is condensed concurrently in a shared pool; the calling thread takes part
+     * in the work, so the batch is finished even when all pool threads are busy with other batches.
+     * The parameters are the same as for the constructor of a single Condenser.
+     * @return the condensers in the order of the documents
+     */
+    public static Condenser[] condense(
+            final Document[] documents,
+            final VocabularyScraper scraper,
+            final boolean indexText,
+            final boolean indexMedia,
+            final WordCache meaningLib,
+            final boolean doAutotagging,
+            final boolean findDatesInContent,
+            final int timezoneOffset) {
+        final Condenser[] condensers = new Condenser[documents.length];
+        if (documents.length == 1) {
+            condensers[0] = new Condenser(documents[0], scraper, indexText, indexMedia, meaningLib, doAutotagging, findDatesInContent, timezoneOffset);
+            return condensers;
+        }
+        final AtomicInteger next = new AtomicInteger(0);
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int i;
+                while ((i = next.getAndIncrement()) < documents.length) {
+                    condensers[i] = new Condenser(documents[i], scraper, indexText, indexMedia, meaningLib, doAutotagging, findDatesInContent, timezoneOffset);
+                }
+            }
+        };
+        final List<Future<?>> helpers = new ArrayList<Future<?>>();
+        final int helpercount = Math.min(documents.length, condenserPool.getMaximumPoolSize()) - 1;
+        for (int h = 0; h < helpercount; h++) {
+            try {
+                helpers.add(condenserPool.submit(worker));
+            } catch (final RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+        for (final Future<?> helper: helpers) {
+            try {
+                helper.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new RuntimeException(cause);
+            }
+        }
+        return condensers;
+    }
+
 	/**
 	 * Search for tags matching the given linked data types identifiers (absolute
 	 * URLs) in the given autotagging library. Then fill this instance "tags" map
@@ -255,36 +340,57 @@ public final class Condenser extends Tokenizer {
 		}
 	}
 
-    private void insertTextToWords(
-            final SentenceReader text,
-            final int phrase,
-            final int flagpos,
-            final Bitfield flagstemplate,
-            final boolean useForLanguageIdentification,
-            final WordCache meaningLib) {
-        if (text == null) return;
+    /**
+     * a metadata field of a document with the phrase number and the flag which its words get in the word list
+     */
+    private static final class Field {
+        private final String text;
+        private final int phrase;
+        private final int flagpos;
+        private final boolean useForLanguageIdentification;
+        private final boolean count;
+
+        private Field(final String text, final int phrase, final int flagpos, final boolean useForLanguageIdentification, final boolean count) {
+            this.text = text;
+            this.phrase = phrase;
+            this.flagpos = flagpos;
+            this.useForLanguageIdentification = useForLanguageIdentification;
+            this.count = count;
+        }
+    }
+
+    /**
+     * tokenize all metadata fields in one sweep with the scanner of the current thread;
+     * the word positions start again at zero in every field
+     * @param fields the fields in the order in which their words are added
+     * @param meaningLib the word cache which learns the words or null
+     */
+    private void insertFieldsToWords(final List<Field> fields, final WordCache meaningLib) {
+        if (fields.isEmpty()) return;
         String word;
         Word wprop;
-        WordTokenizer wordenum = new WordTokenizer(text, meaningLib);
+        final WordScanner wordenum = WordScanner.get();
         try {
-	        int pip = 0;
-	        while (wordenum.hasMoreElements()) {
-	            word = wordenum.nextElement().toString();
-	            if (useForLanguageIdentification) this.languageIdentificator.add(word); // langdetect is case sensitive
+            for (final Field field: fields) {
+                if (field.text == null) continue;
+                wordenum.reset(field.text, false);
+                int pip = 0;
+                while ((word = wordenum.next()) != null) {
+                    if (meaningLib != null) WordCache.learn(word);
+                    if (field.useForLanguageIdentification) this.languageIdentificator.add(word); // langdetect is case sensitive
                     if (word.length() < 2) continue;
                     word = word.toLowerCase(Locale.ENGLISH);
-	            wprop = this.words.get(word);
-	            if (wprop == null) wprop = new Word(0, pip, phrase);
-	            if (wprop.flags == null) wprop.flags = flagstemplate.clone();
-	            wprop.flags.set(flagpos, true);
-	            this.words.put(word, wprop);
-	            pip++;
-	            this.RESULT_NUMB_WORDS++;
-	            //this.RESULT_DIFF_WORDS++;
+                    wprop = this.words.get(word);
+                    if (wprop == null) wprop = new Word(0, pip, field.phrase);
+                    if (wprop.flags == null) wprop.flags = this.RESULT_FLAGS.clone();
+                    wprop.flags.set(field.flagpos, true);
+                    this.words.put(word, wprop);
+                    pip++;
+                    if (field.count) this.RESULT_NUMB_WORDS++;
                 }
+            }
         } finally {
-        	wordenum.close();
-        	wordenum = null;
+            wordenum.release();
         }
     }
 
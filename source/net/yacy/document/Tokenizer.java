@@ -81,11 +81,13 @@ public class Tokenizer {
         //final Map<StringBuilder, Phrase> sentences = new HashMap<StringBuilder, Phrase>(100);
         if (LibraryProvider.autotagging.isEmpty()) doAutotagging = false;
 
-        // read source
-        WordTokenizer wordenum = new WordTokenizer(new SentenceReader(text), meaningLib);
+        // read source; the scanner of this thread is re-used for all texts
+        final WordScanner wordenum = WordScanner.get().reset(text, false);
         try {
-            while (wordenum.hasMoreElements()) {
-                String word = wordenum.nextElement().toString().toLowerCase(Locale.ENGLISH);
+            String word;
+            while ((word = wordenum.next()) != null) {
+                if (meaningLib != null) WordCache.learn(word);
+                word = word.toLowerCase(Locale.ENGLISH);
                 // handle punktuation (start new sentence)
                 if (word.length() == 1 && SentenceReader.punctuation(word.charAt(0))) {
                     // store sentence
@@ -132,8 +134,7 @@ public class Tokenizer {
                 wordInSentenceCounter++;
             }
         } finally {
-            wordenum.close();
-            wordenum = null;
+            wordenum.release();
         }
 
         if (pseudostemming) {
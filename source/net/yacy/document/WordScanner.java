@@ -0,0 +1,154 @@
+/**
+ *  WordScanner
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+/**
+ * A single pass word scanner which produces the same word sequence as a {@link WordTokenizer}
+ * reading from a {@link SentenceReader}, including the single punctuation characters, but without
+ * creating sentence and word buffer objects: only the resulting word strings are allocated.
+ * A scanner is not thread-safe; use {@link #get()} to obtain the scanner of the current thread
+ * which can be re-used for any number of texts with {@link #reset(String, boolean)}.
+ */
+public final class WordScanner {
+
+    private static final ThreadLocal<WordScanner> scanners = new ThreadLocal<WordScanner>() {
+        @Override
+        protected WordScanner initialValue() {
+            return new WordScanner();
+        }
+    };
+
+    private static final int maxRetainedCapacity = 1024;
+
+    private StringBuilder word;
+    private String text;
+    private int pos;
+    private boolean pre;
+    private char lc; // last character of the current sentence
+    private boolean sentenceEmpty;
+    private String pending; // a punctuation token which follows the last returned word
+
+    public WordScanner() {
+        this.word = new StringBuilder(20);
+        this.text = null;
+    }
+
+    /**
+     * @return the scanner of the current thread
+     */
+    public static WordScanner get() {
+        return scanners.get();
+    }
+
+    /**
+     * start scanning a new text
+     * @param text the text to scan; null is handled as empty text
+     * @param pre when true, line breaks end sentences as with {@link SentenceReader#pre(boolean)}
+     * @return this scanner
+     */
+    public WordScanner reset(final String text, final boolean pre) {
+        this.text = text == null ? "" : text;
+        this.pos = 0;
+        this.pre = pre;
+        this.lc = ' '; // starting with ' ' as last character prevents that a sentence starts with a ' '
+        this.sentenceEmpty = true;
+        this.pending = null;
+        this.word.setLength(0);
+        return this;
+    }
+
+    public void pre(final boolean x) {
+        this.pre = x;
+    }
+
+    /**
+     * @return the next word or punctuation character, or null if the end of the text is reached
+     */
+    public String next() {
+        if (this.pending != null) {
+            final String p = this.pending;
+            this.pending = null;
+            return p;
+        }
+        if (this.text == null) return null;
+        final int length = this.text.length();
+        char c;
+        while (this.pos < length) {
+            c = this.text.charAt(this.pos++);
+            if (c == 0 || (this.pre && (c == 10 || c == 13))) {
+                // end of sentence; an empty sentence terminated by a zero character ends the text, like in SentenceReader
+                if (c == 0 && this.sentenceEmpty) {
+                    this.pos = length;
+                    break;
+                }
+                this.lc = ' ';
+                this.sentenceEmpty = true;
+                if (this.word.length() > 0) return flush();
+                continue;
+            }
+            if (c < ' ') c = ' ';
+            if (this.lc == ' ' && c == ' ') continue; // ignore double spaces
+            this.sentenceEmpty = false;
+            if (SentenceReader.punctuation(this.lc) && SentenceReader.invisible(c)) {
+                // end of sentence
+                this.lc = ' ';
+                this.sentenceEmpty = true;
+            } else {
+                this.lc = c;
+            }
+            if (SentenceReader.punctuation(c)) {
+                final String p = punctuation(c);
+                if (this.word.length() > 0) {
+                    this.pending = p;
+                    return flush();
+                }
+                return p;
+            } else if (SentenceReader.invisible(c)) {
+                if (this.word.length() > 0) return flush();
+            } else {
+                this.word.append(c);
+            }
+        }
+        if (this.word.length() > 0) return flush();
+        release();
+        return null;
+    }
+
+    /**
+     * forget the current text; this is done automatically when the end of the text is reached
+     */
+    public void release() {
+        this.text = null;
+        this.pending = null;
+        if (this.word.capacity() > maxRetainedCapacity) this.word = new StringBuilder(20); else this.word.setLength(0);
+    }
+
+    private String flush() {
+        final String w = this.word.toString();
+        this.word.setLength(0);
+        return w;
+    }
+
+    private static String punctuation(final char c) {
+        if (c == '.') return ".";
+        if (c == '!') return "!";
+        return "?";
+    }
+}
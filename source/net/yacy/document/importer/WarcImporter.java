@@ -22,21 +22,38 @@
  */
 package net.yacy.document.importer;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.protocol.ResponseHeader;
-import net.yacy.cora.util.ByteBuffer;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.retrieval.Response;
 import net.yacy.document.TextParser;
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
 import net.yacy.search.Switchboard;
 import net.yacy.server.http.ChunkedInputStream;
 import org.jwat.common.HeaderLine;
@@ -49,6 +66,15 @@ import org.jwat.warc.WarcRecord;
 /**
  * Web Archive file format reader to process the warc archive content (responses)
  *
+ * The importer thread only reads and de-chunks the archive records; the responses are parsed
+ * by a pool of parser threads which take the records from a bounded queue and hand the parsed
+ * documents over to the condenser of the Switchboard. When the archive is read from a file,
+ * the byte offset of the oldest record which is not yet completely processed is stored
+ * periodically in a file next to the archive, so an interrupted import resumes at that offset.
+ * A record which cannot be read is skipped. If the archive cannot be read beyond a record, the
+ * import resumes at that record once more; when it fails there again, the archive is moved to the
+ * target like a completely imported archive.
+ *
  * Warc format specification ISO 28500
  * https://archive.org/details/WARCISO28500Version1Latestdraft
  * http://bibnum.bnf.fr/WARC/WARC_ISO_28500_version1_latestdraft.pdf
@@ -58,22 +84,50 @@ import org.jwat.warc.WarcRecord;
  */
 public class WarcImporter extends Thread implements Importer {
 
-    static public WarcImporter job; // static object to assure only one importer is running (if started from a servlet, this object is used to store the thread)
+    static public WarcImporter job; // static object to store the last started importer (if started from a servlet, this object is used to store the thread)
+    private static final Map<String, WarcImporter> jobs = new ConcurrentHashMap<String, WarcImporter>(); // all running importers by source
+
+    /** suffix of the file which stores the resume offset of a warc file */
+    public static final String OFFSET_SUFFIX = ".offset";
+    /** suffix of the file which stores the resume offset at which the import of a warc file failed */
+    public static final String FAILED_SUFFIX = ".failed";
+    private static final long offsetInterval = 10000; // time in milliseconds between two writes of the resume offset
+    private static final int bufferSize = 8192;
+    private static final Record poison = new Record(-1, -1, null, null, null);
 
     private final InputStream source; // current input warc archive
     private String name; // file name of input source
-    
-    private int recordCnt; // number of responses indexed (for statistic)
+    private final File file; // the input file or null if the archive is read from a stream
+    private final File target; // the file to which the input file is moved after a complete import, or null
+    private final long startOffset; // byte offset of the input source at which the import started
+    private final int threads; // number of parser threads
+    private final BlockingQueue<Record> queue; // records read but not yet parsed
+    private final ConcurrentSkipListMap<Long, Long> pending; // sequence number -> offset of records which are not completely processed
+
+    private final AtomicInteger readCnt; // number of responses read from the archive (for statistic)
+    private final AtomicInteger recordCnt; // number of responses indexed (for statistic)
+    private final AtomicInteger rejectCnt; // number of responses which could not be parsed or were rejected (for statistic)
     private long startTime; // (for statistic)
     private final long sourceSize; // length of the input source (for statistic)
-    private long consumed; // bytes consumed from input source (for statistic)
-    private boolean abort = false; // flag to signal stop of import
+    private volatile long consumed; // bytes consumed from input source (for statistic)
+    private volatile long lastOffset; // offset of the last record read from the input source
+    private volatile boolean abort = false; // flag to signal stop of import
+    private boolean complete = false; // true when the whole input source was read and processed
+    private boolean failed = false; // true when the input source could not be read to the end
 
     public WarcImporter(InputStream f) {
-    	super("WarcImporter - from InputStream");
-        source = f;
-        recordCnt = 0;
-        sourceSize = -1;
+        super("WarcImporter - from InputStream");
+        this.source = f;
+        this.file = null;
+        this.target = null;
+        this.startOffset = 0;
+        this.sourceSize = -1;
+        this.threads = defaultThreads();
+        this.queue = new ArrayBlockingQueue<Record>(this.threads * 4);
+        this.pending = new ConcurrentSkipListMap<Long, Long>();
+        this.readCnt = new AtomicInteger(0);
+        this.recordCnt = new AtomicInteger(0);
+        this.rejectCnt = new AtomicInteger(0);
     }
 
     /**
@@ -88,11 +142,83 @@ public class WarcImporter extends Thread implements Importer {
         name = urlinfo;
     }
 
-    public WarcImporter(File f) throws FileNotFoundException{
-       super("WarcImporter - from file " + f.getName());
-       name = f.getName();
-       sourceSize = f.length();
-       source = new FileInputStream(f);
+    public WarcImporter(File f) throws IOException {
+        this(f, null, defaultThreads());
+    }
+
+    /**
+     * Init the WarcImporter for a file. If an offset file of a previously interrupted
+     * import of the same file exists, the import resumes at the stored offset.
+     * @param f the warc archive, plain or gzip'd
+     * @param target the file to which the archive is moved after it was imported completely, may be null
+     * @param threads the number of parser threads
+     * @throws IOException
+     */
+    public WarcImporter(File f, File target, int threads) throws IOException {
+        super("WarcImporter - from file " + f.getName());
+        this.name = f.getName();
+        this.file = f;
+        this.target = target;
+        this.sourceSize = f.length();
+        this.threads = Math.max(1, threads);
+        this.queue = new ArrayBlockingQueue<Record>(this.threads * 4);
+        this.pending = new ConcurrentSkipListMap<Long, Long>();
+        this.readCnt = new AtomicInteger(0);
+        this.recordCnt = new AtomicInteger(0);
+        this.rejectCnt = new AtomicInteger(0);
+        long offset = readOffset(offsetFile(f));
+        if (offset >= this.sourceSize) offset = 0;
+        final InputStream is = new FileInputStream(f);
+        if (offset > 0) {
+            // a gzip'd archive is a sequence of gzip members, the offset is always the start of a member
+            offset = skip(is, offset);
+            ConcurrentLog.info("WarcImporter", "resuming import of " + this.name + " at offset " + offset);
+        }
+        this.startOffset = offset;
+        this.consumed = offset;
+        this.lastOffset = offset;
+        this.source = is;
+    }
+
+    private String key() {
+        return this.file == null ? this.getName() + "@" + System.identityHashCode(this) : this.file.getAbsolutePath();
+    }
+
+    /**
+     * start the import thread; the importer is registered as running immediately
+     */
+    @Override
+    public synchronized void start() {
+        job = this;
+        jobs.put(key(), this);
+        super.start();
+    }
+
+    private static int defaultThreads() {
+        return Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * @return all running importers
+     */
+    public static Collection<WarcImporter> jobs() {
+        return jobs.values();
+    }
+
+    /**
+     * @param f a warc file
+     * @return true if an importer for this file is running
+     */
+    public static boolean isRunning(final File f) {
+        return jobs.containsKey(f.getAbsolutePath());
+    }
+
+    /**
+     * Set the flag to stop import for all running importers. The importers store
+     * the offset at which they stopped to resume the import at the next start.
+     */
+    public static void quitAll() {
+        for (final WarcImporter importer: jobs.values()) importer.quit();
     }
 
     /**
@@ -104,80 +230,298 @@ public class WarcImporter extends Thread implements Importer {
      */
     public void indexWarcRecords(InputStream f) throws IOException {
 
-        byte[] content;
         job = this;
+        jobs.put(key(), this);
         startTime = System.currentTimeMillis();
 
-        WarcReader localwarcReader = WarcReaderFactory.getReader(f);
-        WarcRecord wrec = localwarcReader.getNextRecord();
-        while (wrec != null && !abort) {
+        final ExecutorService service = Executors.newFixedThreadPool(this.threads,
+                new NamePrefixThreadFactory(WarcImporter.class.getSimpleName() + ".parser"));
+        for (int i = 0; i < this.threads; i++) service.submit(new Parser());
+
+        WarcReader localwarcReader = null;
+        long seq = 0;
+        boolean interrupted = false;
+        long offsetTime = System.currentTimeMillis();
+        try {
+            localwarcReader = WarcReaderFactory.getReader(f.markSupported() ? f : new BufferedInputStream(f, bufferSize));
+            WarcRecord wrec = localwarcReader.getNextRecord();
+            while (wrec != null && !abort) {
+                final long offset = this.startOffset + localwarcReader.getStartOffset();
+                this.lastOffset = offset;
+                try {
+                    final Record record = record(wrec, seq, offset);
+                    if (record != null) {
+                        seq++;
+                        this.pending.put(record.seq, record.offset);
+                        try {
+                            this.queue.put(record);
+                        } catch (final InterruptedException e) {
+                            // stop like quit(), the record and all queued records are read again at the next start
+                            this.pending.remove(record.seq);
+                            this.abort = true;
+                            interrupted = true;
+                            break;
+                        }
+                        this.readCnt.incrementAndGet();
+                    }
+                } catch (final IOException | RuntimeException e) {
+                    // a malformed or truncated record is skipped
+                    this.rejectCnt.incrementAndGet();
+                    ConcurrentLog.warn("WarcImporter", "skipping record at offset " + offset + " of " + this.name + ": " + e.getMessage());
+                }
+                this.consumed = this.startOffset + localwarcReader.getConsumed();
+                if (this.file != null && System.currentTimeMillis() - offsetTime > offsetInterval) {
+                    writeOffset(offsetFile(this.file), resumeOffset());
+                    offsetTime = System.currentTimeMillis();
+                }
+                wrec = localwarcReader.getNextRecord();
+            }
+            this.complete = !abort;
+        } catch (final IOException | RuntimeException e) {
+            // the archive cannot be read beyond the last record
+            this.failed = true;
+            ConcurrentLog.warn("WarcImporter", "cannot read " + this.name + " after offset " + this.lastOffset + ": " + e.getMessage());
+        } finally {
+            // records which are still queued stay pending, so the resume offset points to them
+            if (abort) this.queue.clear();
+            for (int i = 0; i < this.threads; i++) {
+                try {this.queue.put(poison);} catch (final InterruptedException e) {}
+            }
+            service.shutdown();
+            try {service.awaitTermination(1, TimeUnit.HOURS);} catch (final InterruptedException e) {}
+            if (localwarcReader != null) localwarcReader.close();
+            f.close();
+            finish();
+            jobs.remove(key());
+            if (job == this) job = null;
+        }
+        ConcurrentLog.info("WarcImporter", "Indexed " + recordCnt + " documents" + (this.complete ? "" : ", stopped at offset " + resumeOffset()));
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * read a response record
+     * @param wrec a record of the archive
+     * @param seq the sequence number of the record
+     * @param offset the offset of the record in the archive
+     * @return the record or null if it is not a http response with status 200 or its content cannot be parsed
+     * @throws IOException if the target uri is malformed or the payload cannot be read
+     */
+    static Record record(final WarcRecord wrec, final long seq, final long offset) throws IOException {
+        HeaderLine hl = wrec.getHeader(WarcConstants.FN_WARC_TYPE);
+        if (hl == null || !hl.value.equals(WarcConstants.RT_RESPONSE)) return null; // filter responses
 
-            HeaderLine hl = wrec.getHeader(WarcConstants.FN_WARC_TYPE);
-            if (hl != null && hl.value.equals(WarcConstants.RT_RESPONSE)) { // filter responses
+        hl = wrec.getHeader(WarcConstants.FN_WARC_TARGET_URI);
+        if (hl == null) throw new IOException("missing " + WarcConstants.FN_WARC_TARGET_URI);
+        final DigestURL location = new DigestURL(hl.value);
 
-                hl = wrec.getHeader(WarcConstants.FN_WARC_TARGET_URI);
-                DigestURL location = new DigestURL(hl.value);
+        final HttpHeader http = wrec.getHttpHeader();
+        if (http == null || http.statusCode != 200) return null; // process http response header OK (status 200)
+        if (TextParser.supportsMime(http.contentType) != null) return null; // check availability of parser
 
-                HttpHeader http = wrec.getHttpHeader();
+        hl = http.getHeader(HeaderFramework.TRANSFER_ENCODING);
+        final byte[] content = readPayload(wrec.getPayloadContent(), hl != null && hl.value.contains("chunked"), http.getPayloadLength());
+        return new Record(seq, offset, location, http, content);
+    }
 
-                if (http != null && http.statusCode == 200) { // process http response header OK (status 200)
+    /**
+     * store the resume offset or, if the import is complete, remove it and move the file to the target;
+     * a failed import is retried once at the same offset
+     */
+    private void finish() {
+        if (this.file == null) return;
+        final File offsetFile = offsetFile(this.file);
+        final File failedFile = failedFile(this.file);
+        if (!this.complete) {
+            final long offset = resumeOffset();
+            if (!this.failed || !failedFile.exists() || readOffset(failedFile) != offset) {
+                if (this.failed) writeOffset(failedFile, offset);
+                writeOffset(offsetFile, offset);
+                return;
+            }
+            ConcurrentLog.warn("WarcImporter", "import of " + this.name + " failed twice at offset " + offset + ", giving up");
+        }
+        FileUtils.deletedelete(offsetFile);
+        FileUtils.deletedelete(failedFile);
+        if (this.target != null && !this.file.renameTo(this.target)) {
+            ConcurrentLog.warn("WarcImporter", "could not move " + this.file + " to " + this.target);
+        }
+    }
 
-                    if (TextParser.supportsMime(http.contentType) == null) { // check availability of parser
+    /**
+     * @return the offset of the oldest record which is not completely processed, or the offset of the last
+     * record read if all records are processed. Because records are indexed with their url as id,
+     * a record which is processed twice after a resume only overwrites its index entry.
+     */
+    private long resumeOffset() {
+        final Map.Entry<Long, Long> oldest = this.pending.firstEntry();
+        return oldest == null ? this.lastOffset : oldest.getValue().longValue();
+    }
 
-                        InputStream istream = wrec.getPayloadContent();
-                        hl = http.getHeader(HeaderFramework.TRANSFER_ENCODING);
-                        if (hl != null && hl.value.contains("chunked")) {
-                            // because chunked stream.read doesn't read source fully, make sure all chunks are read
-                            istream = new ChunkedInputStream(istream);
-                            final ByteBuffer bbuffer = new ByteBuffer();
-                            int c;
-                            while ((c = istream.read()) >= 0) {
-                                bbuffer.append(c);
-                            }
-                            content = bbuffer.getBytes();
-                        } else {
-                            content = new byte[(int) http.getPayloadLength()];
-                            istream.read(content, 0, content.length);
-                        }
-                        istream.close();
+    /**
+     * read a record payload completely
+     * @param istream the payload stream, closed after reading
+     * @param chunked true if the payload has chunked transfer encoding
+     * @param length the payload length as given in the record header
+     * @return the (de-chunked) payload
+     * @throws IOException
+     */
+    static byte[] readPayload(InputStream istream, final boolean chunked, final long length) throws IOException {
+        try {
+            if (chunked) {
+                // because chunked stream.read doesn't read source fully, make sure all chunks are read
+                istream = new ChunkedInputStream(istream);
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream((int) Math.min(Math.max(length, 0), Integer.MAX_VALUE - 8));
+                final byte[] buffer = new byte[bufferSize];
+                int c;
+                while ((c = istream.read(buffer, 0, buffer.length)) >= 0) {
+                    baos.write(buffer, 0, c);
+                }
+                return baos.toByteArray();
+            }
+            final byte[] content = new byte[(int) length];
+            int p = 0, c;
+            while (p < content.length && (c = istream.read(content, p, content.length - p)) >= 0) p += c;
+            return p == content.length ? content : Arrays.copyOf(content, p);
+        } finally {
+            istream.close();
+        }
+    }
 
-                        RequestHeader requestHeader = new RequestHeader();
+    /**
+     * @param f a warc file
+     * @return the file which stores the resume offset of the warc file
+     */
+    public static File offsetFile(final File f) {
+        return new File(f.getParentFile(), f.getName() + OFFSET_SUFFIX);
+    }
 
-                        ResponseHeader responseHeader = new ResponseHeader(http.statusCode);
-                        for (HeaderLine hx : http.getHeaderList()) { // include all original response headers for parser
-                            responseHeader.put(hx.name, hx.value);
-                        }
+    /**
+     * @param f a warc file
+     * @return the file which stores the resume offset at which the import of the warc file failed
+     */
+    public static File failedFile(final File f) {
+        return new File(f.getParentFile(), f.getName() + FAILED_SUFFIX);
+    }
 
-                        final Request request = new Request(
-                                ASCII.getBytes(Switchboard.getSwitchboard().peers.mySeed().hash),
-                                location,
-                                requestHeader.referer() == null ? null : requestHeader.referer().hash(),
-                                "warc",
-                                responseHeader.lastModified(),
-                                Switchboard.getSwitchboard().crawler.defaultSurrogateProfile.handle(),
-                                0,
-                                Switchboard.getSwitchboard().crawler.defaultSurrogateProfile.timezoneOffset());
-
-                        final Response response = new Response(
-                                request,
-                                requestHeader,
-                                responseHeader,
-                                Switchboard.getSwitchboard().crawler.defaultSurrogateProfile,
-                                false,
-                                content
-                        );
-
-                        Switchboard.getSwitchboard().toIndexer(response);
-                        recordCnt++;
+    /**
+     * @param offsetFile a file written with writeOffset
+     * @return the stored offset or 0 if the file does not exist or cannot be read
+     */
+    static long readOffset(final File offsetFile) {
+        if (!offsetFile.exists()) return 0;
+        try {
+            return Long.parseLong(UTF8.String(FileUtils.read(offsetFile)).trim());
+        } catch (final IOException | NumberFormatException e) {
+            ConcurrentLog.warn("WarcImporter", "cannot read offset file " + offsetFile + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * store an offset; the offset file is replaced atomically to survive a crash during the write
+     */
+    static void writeOffset(final File offsetFile, final long offset) {
+        final File tmp = new File(offsetFile.getParentFile(), offsetFile.getName() + ".tmp");
+        OutputStream os = null;
+        try {
+            os = new FileOutputStream(tmp);
+            os.write(UTF8.getBytes(Long.toString(offset)));
+            os.close();
+            os = null;
+            if (!tmp.renameTo(offsetFile)) {
+                FileUtils.deletedelete(offsetFile);
+                if (!tmp.renameTo(offsetFile)) ConcurrentLog.warn("WarcImporter", "cannot write offset file " + offsetFile);
+            }
+        } catch (final IOException e) {
+            ConcurrentLog.warn("WarcImporter", "cannot write offset file " + offsetFile + ": " + e.getMessage());
+        } finally {
+            if (os != null) try {os.close();} catch (final IOException e) {}
+        }
+    }
+
+    private static long skip(final InputStream is, final long offset) throws IOException {
+        long p = 0, s;
+        while (p < offset && (s = is.skip(offset - p)) > 0) p += s;
+        return p;
+    }
+
+    /**
+     * @param record a record read from the archive
+     * @return the response for the record
+     */
+    private static Response response(final Record record) {
+        final Switchboard sb = Switchboard.getSwitchboard();
+        RequestHeader requestHeader = new RequestHeader();
+
+        ResponseHeader responseHeader = new ResponseHeader(record.http.statusCode);
+        for (HeaderLine hx : record.http.getHeaderList()) { // include all original response headers for parser
+            responseHeader.put(hx.name, hx.value);
+        }
+
+        final Request request = new Request(
+                ASCII.getBytes(sb.peers.mySeed().hash),
+                record.location,
+                requestHeader.referer() == null ? null : requestHeader.referer().hash(),
+                "warc",
+                responseHeader.lastModified(),
+                sb.crawler.defaultSurrogateProfile.handle(),
+                0,
+                sb.crawler.defaultSurrogateProfile.timezoneOffset());
+
+        return new Response(
+                request,
+                requestHeader,
+                responseHeader,
+                sb.crawler.defaultSurrogateProfile,
+                false,
+                record.content
+        );
+    }
+
+    /**
+     * a parser thread: takes records from the queue, parses them and hands the documents over to the condenser
+     */
+    private class Parser implements Runnable {
+        @Override
+        public void run() {
+            Record record;
+            try {
+                while ((record = queue.take()) != poison) {
+                    try {
+                        if (Switchboard.getSwitchboard().toCondenser(response(record)) == null) {
+                            recordCnt.incrementAndGet();
+                        } else {
+                            rejectCnt.incrementAndGet();
+                        }
+                    } catch (final Throwable e) {
+                        rejectCnt.incrementAndGet();
+                        ConcurrentLog.warn("WarcImporter", "cannot process " + record.location + ": " + e.getMessage());
+                    } finally {
+                        pending.remove(record.seq);
                     }
                 }
+            } catch (final InterruptedException e) {
             }
-            this.consumed = localwarcReader.getConsumed();
-            wrec = localwarcReader.getNextRecord();
         }
-        localwarcReader.close();
-        ConcurrentLog.info("WarcImporter", "Indexed " + recordCnt + " documents");
-        job = null;
+    }
+
+    /**
+     * a response record read from the archive
+     */
+    static class Record {
+        final long seq, offset;
+        final DigestURL location;
+        final HttpHeader http;
+        final byte[] content;
+
+        Record(final long seq, final long offset, final DigestURL location, final HttpHeader http, final byte[] content) {
+            this.seq = seq;
+            this.offset = offset;
+            this.location = location;
+            this.http = http;
+            this.content = content;
+        }
     }
 
     @Override
@@ -188,7 +532,7 @@ public class WarcImporter extends Thread implements Importer {
             ConcurrentLog.info("WarcImporter", ex.getMessage());
         }
     }
-    
+
     /**
      * Set the flag to stop import
      */
@@ -196,6 +540,13 @@ public class WarcImporter extends Thread implements Importer {
         this.abort = true;
     }
 
+    /**
+     * @return true if the import was stopped with quit()
+     */
+    public boolean isAborted() {
+        return this.abort;
+    }
+
     /**
      * Filename of the input source
      * @return
@@ -211,7 +562,7 @@ public class WarcImporter extends Thread implements Importer {
      */
     @Override
     public int count() {
-        return this.recordCnt;
+        return this.recordCnt.get();
     }
 
     /**
@@ -220,8 +571,59 @@ public class WarcImporter extends Thread implements Importer {
      */
     @Override
     public int speed() {
-        if (this.recordCnt == 0) return 0;
-        return (int) (this.recordCnt / Math.max(0L, runningTime() ));
+        if (this.recordCnt.get() == 0) return 0;
+        return (int) (this.recordCnt.get() / Math.max(1L, runningTime() ));
+    }
+
+    /**
+     * Responses read from the archive per second
+     * @return
+     */
+    public int readSpeed() {
+        return (int) (this.readCnt.get() / Math.max(1L, runningTime()));
+    }
+
+    /**
+     * Bytes read from the archive per second
+     * @return
+     */
+    public long byteSpeed() {
+        return (this.consumed - this.startOffset) / Math.max(1L, runningTime());
+    }
+
+    /**
+     * @return the number of responses read and waiting for a parser thread
+     */
+    public int queueSize() {
+        return this.queue.size();
+    }
+
+    /**
+     * @return the maximum number of responses waiting for a parser thread
+     */
+    public int queueCapacity() {
+        return this.queue.size() + this.queue.remainingCapacity();
+    }
+
+    /**
+     * @return the number of parser threads
+     */
+    public int parsers() {
+        return this.threads;
+    }
+
+    /**
+     * @return the number of responses which were not indexed because parsing failed or indexing was not allowed
+     */
+    public int rejected() {
+        return this.rejectCnt.get();
+    }
+
+    /**
+     * @return the offset at which this import started; greater than 0 for a resumed import
+     */
+    public long startOffset() {
+        return this.startOffset;
     }
 
     /**
@@ -240,17 +642,21 @@ public class WarcImporter extends Thread implements Importer {
      */
     @Override
     public long remainingTime() {
-        if (this.consumed == 0) {
+        final long speed = byteSpeed();
+        if (speed == 0 || this.sourceSize < 0) {
             return 0;
         } else {
-            long speed = this.consumed / runningTime();
-            return (this.sourceSize - this.consumed) / speed;
+            return Math.max(0, this.sourceSize - this.consumed) / speed;
         }
     }
 
+    /**
+     * @return the throughput of the read, parse and index stages
+     */
     @Override
     public String status() {
-        return "";
+        return "read " + (byteSpeed() / 1024) + " KB/s, " + readSpeed() + " responses/s; queue " + queueSize() + "/" + queueCapacity()
+                + "; " + this.threads + " parsers, " + speed() + " documents/s, " + rejected() + " rejected";
     }
 
 }
@@ -38,8 +38,13 @@ import net.yacy.cora.util.ConcurrentLog;
  */
 public final class Identificator {
 
+    /** the detector handles at most this number of characters from one appended text, see Detector.setMaxTextLength */
+    private static final int maxChunkLength = 10000;
+
     private Detector detector;
     private Language language;
+    private final StringBuilder chunk; // words which are not yet handed over to the detector
+    private boolean detected;
 
     /**
      * Default constructor. Requires the DetectorFactory language profiles to be loaded before.
@@ -50,37 +55,62 @@ public final class Identificator {
         } catch (LangDetectException e) {
             ConcurrentLog.logException(e);
         }
+        this.chunk = new StringBuilder(256);
+        this.detected = false;
     }
 
     /**
      * Append a word to the text to be analyzed.
      * Analysis takes letter case into account (this means word should not be upper- or lower cased)
+     * Words are collected and handed over to the detector in chunks, because the detector
+     * runs its url and mail filters over every appended text.
      * @param word
      */
     public void add(final String word) {
         if (word == null || this.detector == null) {
         	return;
         }
-        this.detector.append(" " + word); // detector internally caches text up to maxtextlen = default = 10000 chars
+        this.detected = false;
+        if (this.chunk.length() + word.length() + 1 > maxChunkLength) {
+            flush();
+            if (word.length() + 1 > maxChunkLength) {
+                this.detector.append(" " + word); // detector internally caches text up to maxtextlen = default = 10000 chars
+                return;
+            }
+        }
+        this.chunk.append(' ').append(word);
+    }
+
+    private void flush() {
+        if (this.chunk.length() == 0) return;
+        this.detector.append(this.chunk.toString());
+        this.chunk.setLength(0);
     }
 
     /**
      * Get the detected language with highest probability
      * if detection probability is above 0.3 (30%)
      * Underlying detector differentiates zh-cn and zh-tw, these are returned as zh here.
+     * The detection is done only once as long as no more text is added.
      * @return 2 char language code (ISO 639-1)
      */
     public String getLanguage() {
     	if(this.detector != null) {
-    		try {
-    			ArrayList<Language> probabilities = this.detector.getProbabilities();
-    			if(probabilities.isEmpty()) return null;
-    			this.language = this.detector.getProbabilities().get(0);
-    		} catch (LangDetectException e) {
-    			// this contains mostly the message "no features in text"
-    			//ConcurrentLog.logException(e);
-    			return null;
-    		}
+    	    if (!this.detected) {
+    	        this.detected = true;
+    	        this.language = null;
+    	        flush();
+    	        try {
+    	            ArrayList<Language> probabilities = this.detector.getProbabilities();
+    	            if(probabilities.isEmpty()) return null;
+    	            this.language = probabilities.get(0);
+    	        } catch (LangDetectException e) {
+    	            // this contains mostly the message "no features in text"
+    	            //ConcurrentLog.logException(e);
+    	            return null;
+    	        }
+    	    }
+    	    if (this.language == null) return null;
     		// Return language only if probability is higher than 30% to account for missing language profiles
     		if (this.language.prob > 0.3) {
     			if (this.language.lang.length() == 2) {
@@ -51,6 +51,7 @@ import org.eclipse.jetty.server.handler.InetAccessHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.webapp.WebAppContext;
 
 import net.yacy.cora.util.ConcurrentLog;
@@ -65,6 +66,7 @@ import net.yacy.utils.PKCS12Tool;
 public class Jetty9HttpServerImpl implements YaCyHttpServer {
 
     private final Server server;
+    private final TrafficClassHandler trafficClassHandler;
 
     /**
      * @param port TCP Port to listen for http requests
@@ -72,7 +74,22 @@ public class Jetty9HttpServerImpl implements YaCyHttpServer {
     public Jetty9HttpServerImpl(int port) {
         Switchboard sb = Switchboard.getSwitchboard();
         
-        server = new Server();
+        // the thread pool must be large enough for the requests which are admitted or waiting in all traffic classes
+        final TrafficClassHandler.Limit[] limits = new TrafficClassHandler.Limit[TrafficClassHandler.TrafficClass.values().length];
+        final long maxWait = sb.getConfigLong(SwitchboardConstants.SERVER_TRAFFICCLASS_MAXWAIT, 5000);
+        int admitted = 0;
+        for (final TrafficClassHandler.TrafficClass tc: TrafficClassHandler.TrafficClass.values()) {
+            final int maxActive = sb.getConfigInt(SwitchboardConstants.SERVER_TRAFFICCLASS_PREFIX + tc.key() + ".maxActive", 0);
+            final int maxQueued = sb.getConfigInt(SwitchboardConstants.SERVER_TRAFFICCLASS_PREFIX + tc.key() + ".maxQueued", 0);
+            limits[tc.ordinal()] = new TrafficClassHandler.Limit(tc, maxActive, maxQueued, maxWait);
+            admitted += maxActive == 0 ? 0 : maxActive + maxQueued;
+        }
+        final int maxThreads = Math.max(sb.getConfigInt(SwitchboardConstants.SERVER_MAXBUSYSESSIONS, 200), admitted + 16); // some threads are used by acceptors and selectors
+        final QueuedThreadPool threadPool = new QueuedThreadPool(maxThreads, Math.min(8, maxThreads));
+        threadPool.setName("httpd");
+        this.trafficClassHandler = new TrafficClassHandler(limits);
+
+        server = new Server(threadPool);
         ServerConnector connector = new ServerConnector(server);
         connector.setPort(port);
         connector.setName("httpd:"+Integer.toString(port));
@@ -200,6 +217,8 @@ public class Jetty9HttpServerImpl implements YaCyHttpServer {
 
         // wrap all handlers
         Handler crashHandler = new CrashProtectionHandler(server, allrequesthandlers);
+        this.trafficClassHandler.setHandler(crashHandler);
+        crashHandler = this.trafficClassHandler;
         // check server access restriction and add InetAccessHandler if restrictions are needed
         // otherwise don't (to save performance)
         final String white = sb.getConfig("serverClient", "*");
@@ -372,6 +391,13 @@ public class Jetty9HttpServerImpl implements YaCyHttpServer {
         }
     }
 
+    /**
+     * @return the admission control of the traffic classes with their statistics
+     */
+    public TrafficClassHandler getTrafficClassHandler() {
+        return this.trafficClassHandler;
+    }
+
     /**
      * get Jetty version
      * @return version_string
@@ -0,0 +1,240 @@
+/**
+ *  TrafficClassHandler
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.yacy.http;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * Admission control for the web server per traffic class. The requests of the peer-to-peer protocol,
+ * the public search portal, the api and the admin pages are counted separately: each class may process
+ * only a limited number of requests at once, so a spike in one class does not take all server threads
+ * from the others. A request which finds its class busy waits for a limited time if the waiting line
+ * of the class is not full, otherwise it is rejected with 503 Service Unavailable.
+ */
+public class TrafficClassHandler extends HandlerWrapper {
+
+    public enum TrafficClass {
+        P2P, SEARCH, API, ADMIN;
+
+        /**
+         * @return the name which is used in the configuration
+         */
+        public String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * the upper bounds of the latency histogram buckets in milliseconds
+     */
+    public static final long[] BUCKETS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, Long.MAX_VALUE};
+
+    /**
+     * the limits and statistics of one traffic class
+     */
+    public static class Limit {
+        private final TrafficClass trafficClass;
+        private final int maxActive, maxQueued;
+        private final long maxWait;
+        private final Semaphore permits;
+        private final AtomicInteger active, queued;
+        private final AtomicLong completed, rejected, timeouts;
+        private final AtomicLongArray latency;
+
+        /**
+         * @param maxActive the number of requests which are processed at once, 0 means no limit
+         * @param maxQueued the number of requests which may wait for processing
+         * @param maxWait the maximum waiting time of a request in milliseconds
+         */
+        public Limit(final TrafficClass trafficClass, final int maxActive, final int maxQueued, final long maxWait) {
+            this.trafficClass = trafficClass;
+            this.maxActive = Math.max(0, maxActive);
+            this.maxQueued = Math.max(0, maxQueued);
+            this.maxWait = maxWait;
+            this.permits = this.maxActive == 0 ? null : new Semaphore(this.maxActive, true);
+            this.active = new AtomicInteger(0);
+            this.queued = new AtomicInteger(0);
+            this.completed = new AtomicLong(0);
+            this.rejected = new AtomicLong(0);
+            this.timeouts = new AtomicLong(0);
+            this.latency = new AtomicLongArray(BUCKETS.length);
+        }
+
+        /**
+         * wait for the admission of a request
+         * @return true if the request can be processed, then {@link #release(long)} must be called
+         */
+        public boolean acquire() {
+            if (this.permits == null || this.permits.tryAcquire()) {
+                this.active.incrementAndGet();
+                return true;
+            }
+            if (this.queued.incrementAndGet() > this.maxQueued) {
+                this.queued.decrementAndGet();
+                this.rejected.incrementAndGet();
+                return false;
+            }
+            try {
+                if (this.permits.tryAcquire(this.maxWait, TimeUnit.MILLISECONDS)) {
+                    this.active.incrementAndGet();
+                    return true;
+                }
+                this.timeouts.incrementAndGet();
+                return false;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.timeouts.incrementAndGet();
+                return false;
+            } finally {
+                this.queued.decrementAndGet();
+            }
+        }
+
+        /**
+         * @param time the processing time of the request in milliseconds
+         */
+        public void release(final long time) {
+            this.active.decrementAndGet();
+            if (this.permits != null) this.permits.release();
+            this.completed.incrementAndGet();
+            int b = 0;
+            while (time > BUCKETS[b]) b++;
+            this.latency.incrementAndGet(b);
+        }
+
+        public TrafficClass getTrafficClass() {
+            return this.trafficClass;
+        }
+
+        public int getMaxActive() {
+            return this.maxActive;
+        }
+
+        public int getMaxQueued() {
+            return this.maxQueued;
+        }
+
+        public int getActive() {
+            return this.active.get();
+        }
+
+        public int getQueued() {
+            return this.queued.get();
+        }
+
+        public long getCompleted() {
+            return this.completed.get();
+        }
+
+        /**
+         * @return the number of requests which were rejected because the waiting line was full
+         */
+        public long getRejected() {
+            return this.rejected.get();
+        }
+
+        /**
+         * @return the number of requests which were rejected after waiting too long
+         */
+        public long getTimeouts() {
+            return this.timeouts.get();
+        }
+
+        /**
+         * @param p the percentile in the range 0..1
+         * @return the upper bound of the bucket which contains the percentile in milliseconds or -1 if there is no request yet
+         */
+        public long percentile(final double p) {
+            long count = 0;
+            for (int b = 0; b < BUCKETS.length; b++) count += this.latency.get(b);
+            if (count == 0) return -1;
+            final long rank = Math.max(1, (long) Math.ceil(p * count));
+            long sum = 0;
+            for (int b = 0; b < BUCKETS.length - 1; b++) {
+                sum += this.latency.get(b);
+                if (sum >= rank) return BUCKETS[b];
+            }
+            return BUCKETS[BUCKETS.length - 2];
+        }
+    }
+
+    private final Limit[] limits;
+
+    /**
+     * @param limits the limits of all traffic classes in the order of {@link TrafficClass#values()}
+     */
+    public TrafficClassHandler(final Limit[] limits) {
+        assert limits.length == TrafficClass.values().length;
+        this.limits = limits;
+    }
+
+    public Limit[] getLimits() {
+        return this.limits;
+    }
+
+    /**
+     * @param path the path of the request
+     * @return the traffic class of the request
+     */
+    public static TrafficClass classify(final String path) {
+        if (path == null) return TrafficClass.SEARCH;
+        if (path.startsWith("/yacy/")) return TrafficClass.P2P;
+        if (path.indexOf("_p.") >= 0) return TrafficClass.ADMIN;
+        if (path.startsWith("/api/") || path.startsWith("/solr/") || path.startsWith("/gsa/")) return TrafficClass.API;
+        return TrafficClass.SEARCH;
+    }
+
+    @Override
+    public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response) throws IOException, ServletException {
+        if (baseRequest.getDispatcherType() != DispatcherType.REQUEST) {
+            // async dispatches and forwards were admitted with the original request
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+        final Limit limit = this.limits[classify(target).ordinal()];
+        if (!limit.acquire()) {
+            if (ConcurrentLog.isFine("SERVER")) ConcurrentLog.fine("SERVER", "rejected " + limit.getTrafficClass().key() + " request " + target);
+            response.setHeader("Retry-After", "5");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            baseRequest.setHandled(true);
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        try {
+            super.handle(target, baseRequest, request, response);
+        } finally {
+            limit.release(System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -41,6 +41,7 @@ import net.yacy.cora.date.ISO8601Formatter;
 import net.yacy.cora.federate.solr.Ranking;
 import net.yacy.cora.federate.solr.connector.EmbeddedSolrConnector;
 import net.yacy.cora.federate.solr.responsewriter.GSAResponseWriter;
+import net.yacy.cora.federate.solr.responsewriter.StreamingWriter;
 import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.ConcurrentLog;
@@ -62,7 +63,7 @@ import org.apache.solr.request.SolrRequestInfo;
 import org.apache.solr.response.QueryResponseWriter;
 import org.apache.solr.response.ResultContext;
 import org.apache.solr.response.SolrQueryResponse;
-import org.apache.solr.util.FastWriter;
+import org.eclipse.jetty.http.HttpMethod;
 
 
 /**
@@ -87,11 +88,33 @@ public class GSAsearchServlet extends HttpServlet {
     }
 
     @Override
-    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response)
             throws ServletException, IOException {
         response.setContentType(QueryResponseWriter.CONTENT_TYPE_XML_UTF8);
         response.setStatus(HttpServletResponse.SC_OK);
-        respond(request, Switchboard.getSwitchboard(), response.getOutputStream());
+        final Switchboard sb = Switchboard.getSwitchboard();
+        final ResultPageCache cache = !HttpMethod.GET.is(request.getMethod()) || request.isUserInRole(UserDB.AccessRight.ADMIN_RIGHT.toString()) ? null : YaCyDefaultServlet.getResultPageCache();
+        if (cache == null) {
+            respond(request, sb, response.getOutputStream());
+            return;
+        }
+
+        // answer identical anonymous queries from the result page cache
+        final long generation = sb.index.fulltext().commitGeneration();
+        final String key = ResultPageCache.key(request.getRequestURI(), "xml", GSAResponseWriter.class.getName(), request.getParameterMap());
+        final ResultPageCache.Page page = cache.get(key, generation, new ResultPageCache.Renderer() {
+            @Override
+            public ResultPageCache.Page render() throws IOException {
+                final ResultPageCache.CopyingResponse copying = new ResultPageCache.CopyingResponse(response, cache.maxPageSize());
+                if (!respond(request, sb, copying.getOutputStream())) return null;
+                return copying.page(generation);
+            }
+        });
+        if (page == null) return; // rendered for this request
+        page.setHeaders(response);
+        response.setContentLength(page.content.length);
+        response.getOutputStream().write(page.content);
+        cache.sent(page);
     }
     
     // ------------------------------------------
@@ -100,7 +123,10 @@ public class GSAsearchServlet extends HttpServlet {
      * with modification to use HttpServletRequest instead of (yacy) RequestHeader
      */
     
-    private void respond(final HttpServletRequest header, final Switchboard sb, final OutputStream out) {
+    /**
+     * @return true if a complete search result was written, false if the search failed or returned partial results only
+     */
+    private boolean respond(final HttpServletRequest header, final Switchboard sb, final OutputStream out) {
 
         // remember the peer contact for peer statistics
         String clientip = RequestHeader.client(header);
@@ -216,7 +242,7 @@ public class GSAsearchServlet extends HttpServlet {
         
         // get the embedded connector
         EmbeddedSolrConnector connector = sb.index.fulltext().getDefaultEmbeddedConnector();
-        if (connector == null) return;
+        if (connector == null) return false;
 
         // do the solr request
         SolrQueryRequest req = connector.request(post.toSolrParams(null));
@@ -228,7 +254,7 @@ public class GSAsearchServlet extends HttpServlet {
             ConcurrentLog.logException(e);
             if (req != null) req.close();
             SolrRequestInfo.clearRequestInfo();
-            return;
+            return false;
         }
 
         // set some context for the writer
@@ -243,11 +269,13 @@ public class GSAsearchServlet extends HttpServlet {
         */
         
         // write the result directly to the output stream
-        Writer ow = new FastWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Writer ow = new StreamingWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        boolean complete = !SolrSelectServlet.isPartial(response.getResponseHeader());
         try {
             responseWriter.write(ow, req, response);
             ow.flush();
         } catch (final IOException e1) {
+            complete = false;
         } finally {
             req.close();
             SolrRequestInfo.clearRequestInfo();
@@ -264,6 +292,7 @@ public class GSAsearchServlet extends HttpServlet {
         }
         AccessTracker.addToDump(originalQuery, matches);
         ConcurrentLog.info("GSA Query", "results: " + matches + ", for query:" + post.toString());
+        return complete;
     }
 
     /**
@@ -0,0 +1,500 @@
+/**
+ *  ResultPageCache
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.yacy.http.servlets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.eclipse.jetty.http.DateGenerator;
+
+import net.yacy.cora.protocol.HeaderFramework;
+
+/**
+ * A memory cache for rendered search result pages of anonymous requests. Identical queries which arrive
+ * within a short time are answered with the same bytes, without parsing the query, searching and rendering
+ * again. Pages are identified by a key of the normalized request parameters, the output format and the
+ * response writer. Each page carries the commit generation of the index it was rendered from, a page of an
+ * older generation is not used any more. If a page is requested while it is rendered for another client,
+ * the request waits for that rendering instead of starting a second one. The cache is bounded by the number
+ * of bytes of all pages; the oldest pages are removed first.
+ */
+public class ResultPageCache {
+
+    /**
+     * a rendered page
+     */
+    public static class Page {
+        public final byte[] content;
+        public final String contentType;
+        private final List<String[]> headers; // name and value of the headers which the servlet set, in the order of setting
+        private final long created, generation;
+
+        public Page(final byte[] content, final String contentType, final long generation) {
+            this(content, contentType, Collections.<String[]>emptyList(), generation);
+        }
+
+        public Page(final byte[] content, final String contentType, final List<String[]> headers, final long generation) {
+            this.content = content;
+            this.contentType = contentType;
+            this.headers = headers;
+            this.created = System.currentTimeMillis();
+            this.generation = generation;
+        }
+
+        /**
+         * set the headers of the rendered page, i.e. CORS headers, to a response
+         */
+        public void setHeaders(final HttpServletResponse response) {
+            final Set<String> set = new HashSet<String>();
+            for (final String[] header: this.headers) {
+                if (set.add(header[0].toLowerCase(Locale.ROOT))) response.setHeader(header[0], header[1]); else response.addHeader(header[0], header[1]);
+            }
+        }
+
+        private long size() {
+            long size = this.content.length + 64; // the content and a guess of the object overhead
+            for (final String[] header: this.headers) size += 2 * (header[0].length() + header[1].length()) + 48;
+            return size;
+        }
+    }
+
+    /**
+     * renders a page if it is not in the cache
+     */
+    public interface Renderer {
+        /**
+         * render the page and send it to the own client
+         * @return the page to be cached or null if the page must not be cached
+         */
+        public Page render() throws IOException, ServletException;
+    }
+
+    /**
+     * a rendering which other requests of the same page can wait for
+     */
+    private static class Flight {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Page page = null;
+    }
+
+    private final long maxBytes, maxPageSize, ttl, maxWait;
+    private final LinkedHashMap<String, Page> cache; // in insertion order, which is also the order of age
+    private final ConcurrentHashMap<String, Flight> flights;
+    private long bytes, generation;
+    private final AtomicLong hits, joined, misses, sentBytes;
+
+    /**
+     * @param maxBytes the maximum number of bytes of all pages
+     * @param maxPageSize pages larger than this are not cached
+     * @param ttl the time in milliseconds how long a page is used
+     * @param maxWait the maximum time in milliseconds a request waits for the rendering of another request
+     */
+    public ResultPageCache(final long maxBytes, final long maxPageSize, final long ttl, final long maxWait) {
+        this.maxBytes = maxBytes;
+        this.maxPageSize = maxPageSize;
+        this.ttl = ttl;
+        this.maxWait = maxWait;
+        this.cache = new LinkedHashMap<String, Page>();
+        this.flights = new ConcurrentHashMap<String, Flight>();
+        this.bytes = 0;
+        this.generation = 0;
+        this.hits = new AtomicLong(0);
+        this.joined = new AtomicLong(0);
+        this.misses = new AtomicLong(0);
+        this.sentBytes = new AtomicLong(0);
+    }
+
+    /**
+     * get a page from the cache, wait for a running rendering of the same page or render the page
+     * @param key the key of the page, see {@link #key(String, String, String, Map)}
+     * @param generation the current commit generation of the index
+     * @param renderer called if the page is neither cached nor rendered at the moment
+     * @return the page which must be sent to the client or null if the renderer has already sent it
+     */
+    public Page get(final String key, final long generation, final Renderer renderer) throws IOException, ServletException {
+        Page page = lookup(key, generation);
+        if (page != null) {
+            this.hits.incrementAndGet();
+            return page;
+        }
+        final Flight own = new Flight();
+        final Flight running = this.flights.putIfAbsent(key, own);
+        if (running != null) {
+            try {
+                if (running.done.await(this.maxWait, TimeUnit.MILLISECONDS)) page = running.page;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (page != null && page.generation == generation) {
+                this.joined.incrementAndGet();
+                return page;
+            }
+            // the other rendering failed, is not cacheable or takes too long: render without sharing
+            this.misses.incrementAndGet();
+            renderer.render();
+            return null;
+        }
+        this.misses.incrementAndGet();
+        try {
+            page = renderer.render();
+            if (page != null && page.generation == generation) put(key, page);
+        } finally {
+            this.flights.remove(key, own);
+            own.page = page;
+            own.done.countDown();
+        }
+        return null;
+    }
+
+    private synchronized Page lookup(final String key, final long generation) {
+        final Page page = this.cache.get(key);
+        if (page == null) return null;
+        if (page.generation != generation || System.currentTimeMillis() - page.created > this.ttl) {
+            this.cache.remove(key);
+            this.bytes -= page.size();
+            return null;
+        }
+        return page;
+    }
+
+    private synchronized void put(final String key, final Page page) {
+        if (page.content.length > this.maxPageSize || page.size() > this.maxBytes) return;
+        if (page.generation > this.generation) {
+            // the index was committed, all pages are outdated
+            this.cache.clear();
+            this.bytes = 0;
+            this.generation = page.generation;
+        } else if (page.generation < this.generation) {
+            return;
+        }
+        final Page old = this.cache.remove(key);
+        if (old != null) this.bytes -= old.size();
+        this.cache.put(key, page);
+        this.bytes += page.size();
+        // remove expired pages and, if the cache is still too large, the oldest pages
+        final long expired = System.currentTimeMillis() - this.ttl;
+        final Iterator<Page> i = this.cache.values().iterator();
+        while (i.hasNext()) {
+            final Page p = i.next();
+            if (p.created >= expired && this.bytes <= this.maxBytes) break;
+            this.bytes -= p.size();
+            i.remove();
+        }
+    }
+
+    /**
+     * count a page which was sent from the cache
+     */
+    public void sent(final Page page) {
+        this.sentBytes.addAndGet(page.content.length);
+    }
+
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * @return the number of bytes of all pages
+     */
+    public synchronized long bytes() {
+        return this.bytes;
+    }
+
+    public synchronized void clear() {
+        this.cache.clear();
+        this.bytes = 0;
+    }
+
+    public long hits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return the number of requests which got the page of a concurrent rendering
+     */
+    public long joined() {
+        return this.joined.get();
+    }
+
+    public long misses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return the number of bytes which were sent from the cache
+     */
+    public long sentBytes() {
+        return this.sentBytes.get();
+    }
+
+    public long ttl() {
+        return this.ttl;
+    }
+
+    /**
+     * @return the size of the largest page which is cached
+     */
+    public long maxPageSize() {
+        return this.maxPageSize;
+    }
+
+    /**
+     * compute the cache key of a request
+     * @param target the path of the servlet
+     * @param format the output format, i.e. the file extension or the wt parameter
+     * @param writer the name of the response writer or template engine
+     * @param params the request parameters; the order of the parameter names and surrounding white space do not matter
+     * @return the key
+     */
+    public static String key(final String target, final String format, final String writer, final Map<String, String[]> params) {
+        final String[] names = params.keySet().toArray(new String[params.size()]);
+        Arrays.sort(names);
+        final StringBuilder key = new StringBuilder(128);
+        key.append(target).append('\n').append(format).append('\n').append(writer);
+        for (final String name: names) {
+            final String[] values = params.get(name);
+            if (values == null) continue;
+            for (final String value: values) {
+                key.append('\n').append(name).append('=');
+                if (value != null) key.append(value.trim());
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * mark the page which is written to a response as incomplete, i.e. because the search was throttled or
+     * returned partial results; such a page is sent to the client but not cached
+     * @param response the response or a wrapper of it
+     */
+    public static void incomplete(ServletResponse response) {
+        while (response != null) {
+            if (response instanceof CopyingResponse) {
+                ((CopyingResponse) response).incomplete = true;
+                return;
+            }
+            response = response instanceof ServletResponseWrapper ? ((ServletResponseWrapper) response).getResponse() : null;
+        }
+    }
+
+    /**
+     * A response which sends the content to the client and keeps a copy of it and of the headers for the cache.
+     * Only pages with the status 200 and a size below the given limit are kept. Pages which set a cookie or a
+     * transaction token belong to one client and are not kept either, nor are pages which were marked as
+     * incomplete, see {@link ResultPageCache#incomplete(ServletResponse)}.
+     */
+    public static class CopyingResponse extends HttpServletResponseWrapper {
+
+        private final long maxSize;
+        private ByteArrayOutputStream copy;
+        private ServletOutputStream out;
+        private PrintWriter writer;
+        private final List<String[]> headers;
+        private boolean personal, incomplete;
+        private int status;
+
+        public CopyingResponse(final HttpServletResponse response, final long maxSize) {
+            super(response);
+            this.maxSize = maxSize;
+            this.copy = new ByteArrayOutputStream(8192);
+            this.out = null;
+            this.writer = null;
+            this.headers = new ArrayList<String[]>();
+            this.personal = false;
+            this.incomplete = false;
+            this.status = HttpServletResponse.SC_OK;
+        }
+
+        /**
+         * @return the page or null if the response can not be cached
+         */
+        public Page page(final long generation) {
+            if (this.writer != null) this.writer.flush();
+            if (this.copy == null || this.status != HttpServletResponse.SC_OK || this.personal || this.incomplete) return null;
+            return new Page(this.copy.toByteArray(), getContentType(), this.headers, generation);
+        }
+
+        private void header(final String name, final String value, final boolean replace) {
+            if (name == null || value == null) return;
+            if (HeaderFramework.CONTENT_TYPE.equalsIgnoreCase(name) || HeaderFramework.CONTENT_LENGTH.equalsIgnoreCase(name)) return; // set separately
+            if (HeaderFramework.SET_COOKIE.equalsIgnoreCase(name) || HeaderFramework.SET_COOKIE2.equalsIgnoreCase(name) ||
+                HeaderFramework.X_YACY_TRANSACTION_TOKEN.equalsIgnoreCase(name)) this.personal = true;
+            if (replace) {
+                final Iterator<String[]> i = this.headers.iterator();
+                while (i.hasNext()) if (i.next()[0].equalsIgnoreCase(name)) i.remove();
+            }
+            this.headers.add(new String[]{name, value});
+        }
+
+        @Override
+        public void setHeader(final String name, final String value) {
+            header(name, value, true);
+            super.setHeader(name, value);
+        }
+
+        @Override
+        public void addHeader(final String name, final String value) {
+            header(name, value, false);
+            super.addHeader(name, value);
+        }
+
+        @Override
+        public void setDateHeader(final String name, final long date) {
+            header(name, DateGenerator.formatDate(date), true);
+            super.setDateHeader(name, date);
+        }
+
+        @Override
+        public void addDateHeader(final String name, final long date) {
+            header(name, DateGenerator.formatDate(date), false);
+            super.addDateHeader(name, date);
+        }
+
+        @Override
+        public void setIntHeader(final String name, final int value) {
+            header(name, Integer.toString(value), true);
+            super.setIntHeader(name, value);
+        }
+
+        @Override
+        public void addIntHeader(final String name, final int value) {
+            header(name, Integer.toString(value), false);
+            super.addIntHeader(name, value);
+        }
+
+        @Override
+        public void addCookie(final Cookie cookie) {
+            this.personal = true;
+            super.addCookie(cookie);
+        }
+
+        private void write(final byte[] b, final int off, final int len) {
+            if (this.copy == null) return;
+            if (this.copy.size() + len > this.maxSize) {
+                this.copy = null; // too large for the cache
+                return;
+            }
+            this.copy.write(b, off, len);
+        }
+
+        @Override
+        public void setStatus(final int sc) {
+            this.status = sc;
+            super.setStatus(sc);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void setStatus(final int sc, final String sm) {
+            this.status = sc;
+            super.setStatus(sc, sm);
+        }
+
+        @Override
+        public void sendError(final int sc) throws IOException {
+            this.status = sc;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(final int sc, final String msg) throws IOException {
+            this.status = sc;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(final String location) throws IOException {
+            this.status = HttpServletResponse.SC_FOUND;
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (this.out == null) {
+                final ServletOutputStream target = super.getOutputStream();
+                this.out = new ServletOutputStream() {
+                    @Override
+                    public void write(final int b) throws IOException {
+                        target.write(b);
+                        CopyingResponse.this.write(new byte[]{(byte) b}, 0, 1);
+                    }
+                    @Override
+                    public void write(final byte[] b, final int off, final int len) throws IOException {
+                        target.write(b, off, len);
+                        CopyingResponse.this.write(b, off, len);
+                    }
+                    @Override
+                    public void flush() throws IOException {
+                        target.flush();
+                    }
+                    @Override
+                    public void close() throws IOException {
+                        target.close();
+                    }
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+                    @Override
+                    public void setWriteListener(final WriteListener writeListener) {
+                        target.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return this.out;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (this.writer == null) this.writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            return this.writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (this.writer != null) this.writer.flush();
+            super.flushBuffer();
+        }
+    }
+}
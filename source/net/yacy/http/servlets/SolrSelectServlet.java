@@ -48,6 +48,7 @@ import net.yacy.cora.federate.solr.responsewriter.HTMLResponseWriter;
 import net.yacy.cora.federate.solr.responsewriter.OpensearchResponseWriter;
 import net.yacy.cora.federate.solr.responsewriter.SnapshotImagesReponseWriter;
 import net.yacy.cora.federate.solr.responsewriter.SolrjResponseWriter;
+import net.yacy.cora.federate.solr.responsewriter.StreamingWriter;
 import net.yacy.cora.federate.solr.responsewriter.YJsonResponseWriter;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.ConcurrentLog;
@@ -86,7 +87,6 @@ import org.apache.solr.search.DocList;
 import org.apache.solr.servlet.SolrRequestParsers;
 import org.apache.solr.servlet.cache.HttpCacheHeaderUtil;
 import org.apache.solr.servlet.cache.Method;
-import org.apache.solr.util.FastWriter;
 
 /*
  * taken from the Solr 3.6.0 code, which is now deprecated;
@@ -124,15 +124,13 @@ public class SolrSelectServlet extends HttpServlet {
     public void service(ServletRequest request, ServletResponse response) throws IOException, ServletException {
 
         HttpServletRequest hrequest = (HttpServletRequest) request;
-        HttpServletResponse hresponse = (HttpServletResponse) response;
-        SolrQueryRequest req = null;
+        final HttpServletResponse hresponse = (HttpServletResponse) response;
 
         final Method reqMethod = Method.getMethod(hrequest.getMethod());
         
-        Writer out = null;
         try {
             // prepare request to solr
-            MultiMapSolrParams mmsp = SolrRequestParsers.parseQueryString(hrequest.getQueryString());
+            final MultiMapSolrParams mmsp = SolrRequestParsers.parseQueryString(hrequest.getQueryString());
 
             Switchboard sb = Switchboard.getSwitchboard();
             // TODO: isUserInRole needs a login to jetty container (not done automatically on admin from localhost)
@@ -199,8 +197,8 @@ public class SolrSelectServlet extends HttpServlet {
             }
 
             // get a response writer for the result
-            String wt = mmsp.get(CommonParams.WT, "xml"); // maybe use /solr/select?q=*:*&start=0&rows=10&wt=exml
-            QueryResponseWriter responseWriter = RESPONSE_WRITER.get(wt);
+            final String wt = mmsp.get(CommonParams.WT, "xml"); // maybe use /solr/select?q=*:*&start=0&rows=10&wt=exml
+            final QueryResponseWriter responseWriter = RESPONSE_WRITER.get(wt);
             if (responseWriter == null) throw new ServletException("no response writer");
             if (responseWriter instanceof OpensearchResponseWriter) {
                 // set the title every time, it is possible that it has changed
@@ -234,7 +232,7 @@ public class SolrSelectServlet extends HttpServlet {
 
             // get the embedded connector
             String requestURI = hrequest.getRequestURI();
-            boolean defaultConnector = (requestURI.startsWith("/solr/" + WebgraphSchema.CORE_NAME)) ? false : requestURI.startsWith("/solr/" + CollectionSchema.CORE_NAME) || mmsp.get("core", CollectionSchema.CORE_NAME).equals(CollectionSchema.CORE_NAME);
+            final boolean defaultConnector = (requestURI.startsWith("/solr/" + WebgraphSchema.CORE_NAME)) ? false : requestURI.startsWith("/solr/" + CollectionSchema.CORE_NAME) || mmsp.get("core", CollectionSchema.CORE_NAME).equals(CollectionSchema.CORE_NAME);
             mmsp.getMap().remove("core");
             SolrConnector connector = defaultConnector ? sb.index.fulltext().getDefaultEmbeddedConnector() : sb.index.fulltext().getEmbeddedConnector(WebgraphSchema.CORE_NAME);
             if (connector == null) {
@@ -255,6 +253,45 @@ public class SolrSelectServlet extends HttpServlet {
                 mmsp.getMap().put(CommonParams.DF, new String[]{CollectionSchema.text_t.getSolrFieldName()});
             }
 
+            // do the solr request; identical anonymous queries are answered from the result page cache
+            final ResultPageCache cache = authenticated || Method.GET != reqMethod ? null : YaCyDefaultServlet.getResultPageCache();
+            if (cache == null) {
+                query(hresponse, reqMethod, mmsp, connector, responseWriter, querystring, defaultConnector);
+                return;
+            }
+            final long generation = sb.index.fulltext().commitGeneration();
+            final String key = ResultPageCache.key(requestURI + "/" + (defaultConnector ? CollectionSchema.CORE_NAME : WebgraphSchema.CORE_NAME),
+                    wt, responseWriter.getClass().getName(), mmsp.getMap());
+            final SolrConnector queryConnector = connector;
+            final String queryString = querystring;
+            final ResultPageCache.Page page = cache.get(key, generation, new ResultPageCache.Renderer() {
+                @Override
+                public ResultPageCache.Page render() throws IOException, ServletException {
+                    final ResultPageCache.CopyingResponse copying = new ResultPageCache.CopyingResponse(hresponse, cache.maxPageSize());
+                    query(copying, reqMethod, mmsp, queryConnector, responseWriter, queryString, defaultConnector);
+                    return copying.page(generation);
+                }
+            });
+            if (page == null) return; // rendered for this request
+            page.setHeaders(hresponse);
+            hresponse.setHeader("Cache-Control", "no-cache, no-store");
+            if (page.contentType != null) hresponse.setContentType(page.contentType);
+            hresponse.setContentLength(page.content.length);
+            hresponse.getOutputStream().write(page.content);
+            cache.sent(page);
+        } catch (final Throwable ex) {
+            sendError(hresponse, ex);
+        }
+    }
+
+    /**
+     * do the solr request and write the response
+     */
+    private void query(final HttpServletResponse hresponse, final Method reqMethod, final MultiMapSolrParams mmsp, final SolrConnector connector,
+            final QueryResponseWriter responseWriter, final String querystring, final boolean defaultConnector) throws IOException, ServletException {
+        SolrQueryRequest req = null;
+        Writer out = null;
+        try {
             // do the solr request, generate facets if we use a special YaCy format
             final SolrQueryResponse rsp;
             if (connector instanceof EmbeddedSolrConnector) {
@@ -271,6 +308,7 @@ public class SolrSelectServlet extends HttpServlet {
                     sendError(hresponse, rsp.getException());
                     return;
                 }
+                if (isPartial(rsp.getResponseHeader())) ResultPageCache.incomplete(hresponse);
                 
 
                 final Object responseObj = rsp.getResponse();
@@ -289,7 +327,7 @@ public class SolrSelectServlet extends HttpServlet {
                 
                 // write response header
                 final String contentType = responseWriter.getContentType(req, rsp);
-                if (null != contentType) response.setContentType(contentType);
+                if (null != contentType) hresponse.setContentType(contentType);
 
                 if (Method.HEAD == reqMethod) {
                     return;
@@ -297,9 +335,9 @@ public class SolrSelectServlet extends HttpServlet {
 
                 // write response body
                 if (responseWriter instanceof BinaryResponseWriter) {
-                    ((BinaryResponseWriter) responseWriter).write(response.getOutputStream(), req, rsp);
+                    ((BinaryResponseWriter) responseWriter).write(hresponse.getOutputStream(), req, rsp);
                 } else {
-                    out = new FastWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+                    out = new StreamingWriter(new OutputStreamWriter(hresponse.getOutputStream(), StandardCharsets.UTF_8));
                     responseWriter.write(out, req, rsp);
                     out.flush();
                 }
@@ -341,6 +379,7 @@ public class SolrSelectServlet extends HttpServlet {
  
                 // prepare response
                 hresponse.setHeader("Cache-Control", "no-cache, no-store");
+                if (isPartial(queryRsp.getHeader())) ResultPageCache.incomplete(hresponse);
                 
                 final SolrDocumentList documentsList = queryRsp.getResults();
                 long numFound = documentsList.getNumFound();
@@ -349,7 +388,7 @@ public class SolrSelectServlet extends HttpServlet {
                 // write response header
                 final String contentType = responseWriter.getContentType(req, rsp);
                 if (null != contentType) {
-                	response.setContentType(contentType);
+                	hresponse.setContentType(contentType);
                 }
 
                 if (Method.HEAD == reqMethod) {
@@ -358,19 +397,17 @@ public class SolrSelectServlet extends HttpServlet {
                 
                 // write response body
                 if (responseWriter instanceof SolrjResponseWriter) {
-					out = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+					out = new OutputStreamWriter(hresponse.getOutputStream(), StandardCharsets.UTF_8);
 					((SolrjResponseWriter) responseWriter).write(out, req,
 							defaultConnector ? CollectionSchema.CORE_NAME : WebgraphSchema.CORE_NAME, queryRsp);
                 } else if(responseWriter instanceof BinaryResponseWriter) {
-               		((BinaryResponseWriter) responseWriter).write(response.getOutputStream(), req, rsp);
+               		((BinaryResponseWriter) responseWriter).write(hresponse.getOutputStream(), req, rsp);
                	} else {
-               		out = new FastWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+               		out = new StreamingWriter(new OutputStreamWriter(hresponse.getOutputStream(), StandardCharsets.UTF_8));
                		responseWriter.write(out, req, rsp);
                		out.flush();
                	}
             }
-        } catch (final Throwable ex) {
-            sendError(hresponse, ex);
         } finally {
             if (req != null) {
                 req.close();
@@ -394,4 +431,12 @@ public class SolrSelectServlet extends HttpServlet {
         hresponse.sendError((code < 100) ? 500 : code, ex.getMessage() + "\n\n" + sw.toString());
     }
 
+    /**
+     * @param responseHeader the header of a solr response, may be null
+     * @return true if the response contains partial results only, i.e. because the timeAllowed limit was exceeded
+     */
+    static boolean isPartial(final NamedList<?> responseHeader) {
+        return responseHeader != null && Boolean.TRUE.equals(responseHeader.get(SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY));
+    }
+
 }
@@ -0,0 +1,258 @@
+/**
+ *  StaticResourceCache
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.yacy.http.servlets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A memory cache for the static files of the web interface (scripts, style sheets, images). Each file is
+ * held as it is and, if the file type can be compressed, also gzip compressed, so a request is answered
+ * without reading the file and without compressing it again. The cache is bounded by the number of bytes
+ * of all variants; the least recently used files are removed first. An entry is renewed when the modification
+ * time or the length of the file has changed.
+ */
+public class StaticResourceCache {
+
+    /**
+     * a cached file
+     */
+    public static class Entry {
+        public final byte[] identity;
+        public final byte[] gzip; // null if the file type is not compressible or compression does not help
+        public final String etag, gzipETag;
+        private final long lastModified, length;
+        private final long compressionTime; // nanoseconds
+
+        private Entry(final byte[] identity, final byte[] gzip, final long lastModified, final long length, final long compressionTime) {
+            this.identity = identity;
+            this.gzip = gzip;
+            final CRC32 crc = new CRC32();
+            crc.update(identity);
+            final String tag = Long.toHexString(crc.getValue()) + "-" + Long.toHexString(identity.length);
+            this.etag = "\"" + tag + "\"";
+            this.gzipETag = "\"" + tag + "-gz\""; // a strong ETag must be different for each encoding
+            this.lastModified = lastModified;
+            this.length = length;
+            this.compressionTime = compressionTime;
+        }
+
+        private long size() {
+            return this.identity.length + (this.gzip == null ? 0 : this.gzip.length);
+        }
+    }
+
+    private final long maxBytes, maxFileSize;
+    private final LinkedHashMap<String, Entry> cache;
+    private long bytes;
+    private final AtomicLong hits, misses, sentBytes, savedBytes, savedCompressionTime;
+
+    /**
+     * @param maxBytes the maximum number of bytes of all cached variants
+     * @param maxFileSize files larger than this are not cached
+     */
+    public StaticResourceCache(final long maxBytes, final long maxFileSize) {
+        this.maxBytes = maxBytes;
+        this.maxFileSize = maxFileSize;
+        this.cache = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+        this.bytes = 0;
+        this.hits = new AtomicLong(0);
+        this.misses = new AtomicLong(0);
+        this.sentBytes = new AtomicLong(0);
+        this.savedBytes = new AtomicLong(0);
+        this.savedCompressionTime = new AtomicLong(0);
+    }
+
+    /**
+     * @param mime the mime type of the file, used to decide if the content is compressed
+     * @return a current entry for the file or null if the file is not cached
+     */
+    public Entry get(final File file, final String mime) throws IOException {
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        if (length > this.maxFileSize || lastModified == 0) return null; // too large or does not exist
+        final String key = file.getPath();
+        synchronized (this) {
+            final Entry entry = this.cache.get(key);
+            if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+                this.hits.incrementAndGet();
+                return entry;
+            }
+        }
+        this.misses.incrementAndGet();
+        final byte[] identity = Files.readAllBytes(file.toPath());
+        byte[] gzip = null;
+        long compressionTime = 0;
+        if (compressible(mime) && identity.length > 256) {
+            final long start = System.nanoTime();
+            gzip = gzip(identity);
+            compressionTime = System.nanoTime() - start;
+            if (gzip.length >= identity.length * 9 / 10) gzip = null; // not worth it
+        }
+        final Entry entry = new Entry(identity, gzip, lastModified, identity.length, compressionTime);
+        if (entry.size() > this.maxBytes) return entry;
+        synchronized (this) {
+            final Entry old = this.cache.put(key, entry);
+            if (old != null) this.bytes -= old.size();
+            this.bytes += entry.size();
+            final Iterator<Map.Entry<String, Entry>> i = this.cache.entrySet().iterator();
+            while (this.bytes > this.maxBytes && i.hasNext()) {
+                this.bytes -= i.next().getValue().size();
+                i.remove();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * count a response which was sent from an entry
+     * @param gzip true if the compressed variant was sent
+     */
+    public void sent(final Entry entry, final boolean gzip) {
+        if (gzip) {
+            this.sentBytes.addAndGet(entry.gzip.length);
+            this.savedBytes.addAndGet(entry.identity.length - entry.gzip.length);
+            this.savedCompressionTime.addAndGet(entry.compressionTime);
+        } else {
+            this.sentBytes.addAndGet(entry.identity.length);
+        }
+    }
+
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * @return the number of bytes of all cached variants
+     */
+    public synchronized long bytes() {
+        return this.bytes;
+    }
+
+    public synchronized void clear() {
+        this.cache.clear();
+        this.bytes = 0;
+    }
+
+    public long hits() {
+        return this.hits.get();
+    }
+
+    public long misses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return the number of body bytes which were sent from the cache
+     */
+    public long sentBytes() {
+        return this.sentBytes.get();
+    }
+
+    /**
+     * @return the number of bytes which were not sent because the compressed variant was sent
+     */
+    public long savedBytes() {
+        return this.savedBytes.get();
+    }
+
+    /**
+     * @return the compression time in milliseconds which was saved because the compressed variant was taken from the cache
+     */
+    public long savedCompressionTime() {
+        return this.savedCompressionTime.get() / 1000000L;
+    }
+
+    /**
+     * @return true if the content of that mime type is text which becomes considerably smaller with compression
+     */
+    public static boolean compressible(final String mime) {
+        if (mime == null) return false;
+        return mime.startsWith("text/") ||
+               mime.startsWith("application/javascript") ||
+               mime.startsWith("application/x-javascript") ||
+               mime.startsWith("application/json") ||
+               mime.startsWith("application/xml") ||
+               mime.startsWith("application/rss+xml") ||
+               mime.startsWith("image/svg+xml") ||
+               mime.startsWith("image/x-icon") ||
+               mime.startsWith("application/vnd.ms-fontobject") ||
+               mime.startsWith("font/ttf") ||
+               mime.startsWith("application/x-font-ttf");
+    }
+
+    /**
+     * @param acceptEncoding the value of the Accept-Encoding request header
+     * @return true if the client accepts gzip compressed content
+     */
+    public static boolean acceptsGzip(final String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (final String coding: acceptEncoding.split(",")) {
+            final String[] parts = coding.trim().split(";");
+            final String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) continue;
+            for (int i = 1; i < parts.length; i++) {
+                final String p = parts[i].trim();
+                if (p.startsWith("q=")) {
+                    try {
+                        if (Double.parseDouble(p.substring(2).trim()) <= 0.0d) return false;
+                    } catch (final NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param ifNoneMatch the value of the If-None-Match request header
+     * @return true if the header contains the ETag
+     */
+    public static boolean matches(final String ifNoneMatch, final String etag) {
+        if (ifNoneMatch == null) return false;
+        for (final String tag: ifNoneMatch.split(",")) {
+            final String t = tag.trim();
+            if (t.equals("*") || t.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static byte[] gzip(final byte[] b) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length / 3 + 64);
+        final GZIPOutputStream out = new GZIPOutputStream(baos, 8192) {
+            {
+                this.def.setLevel(Deflater.BEST_COMPRESSION); // compressed only once, so take the best
+            }
+        };
+        out.write(b);
+        out.close();
+        return baos.toByteArray();
+    }
+}
@@ -49,6 +49,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.ReadListener;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletContext;
@@ -148,6 +149,9 @@ public class YaCyDefaultServlet extends HttpServlet  {
     protected File _htDocsPath;    
     protected static final serverClassLoader provider = new serverClassLoader(/*this.getClass().getClassLoader()*/);
     protected ConcurrentHashMap<File, SoftReference<Method>> templateMethodCache = null;
+    protected static StaticResourceCache staticResourceCache = null; // precompressed static files, null if disabled
+    private static ResultPageCache resultPageCache = null; // rendered result pages of anonymous searches, created on first use
+    private static boolean resultPageCacheInitialized = false;
     // settings for multipart/form-data
     protected static final File TMPDIR = new File(System.getProperty("java.io.tmpdir"));
     protected static final int SIZE_FILE_THRESHOLD = 1024 * 1024 * 1024; // 1GB is a lot but appropriate for multi-document pushed using the push_p.json servlet
@@ -174,6 +178,10 @@ public class YaCyDefaultServlet extends HttpServlet  {
         _dirAllowed = getInitBoolean("dirAllowed", _dirAllowed);
 
         Resource.setDefaultUseCaches(false); // caching is handled internally (prevent double caching)
+        final long staticCacheBytes = sb.getConfigLong(SwitchboardConstants.SERVER_STATICCACHE_MAXBYTES, 32L * 1024L * 1024L);
+        if (staticCacheBytes > 0) {
+            staticResourceCache = new StaticResourceCache(staticCacheBytes, Math.min(1024L * 1024L, staticCacheBytes / 16));
+        }
 
         String rb = getInitParameter("resourceBase");
         try {
@@ -314,7 +322,9 @@ public class YaCyDefaultServlet extends HttpServlet  {
                     if (hasClass) { // this is a YaCy servlet, handle the template
                         handleTemplate(pathInfo, request, response);
                     } else {
-                        if (included || passConditionalHeaders(request, response, resource)) {
+                        if (!included && reqRanges == null && sendCached(request, response, resource)) {
+                            // answered from the static resource cache
+                        } else if (included || passConditionalHeaders(request, response, resource)) {
                             sendData(request, response, included, resource, reqRanges);
                         }
                     }
@@ -639,6 +649,78 @@ public class YaCyDefaultServlet extends HttpServlet  {
         }
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * send a static file from the static resource cache, compressed if the client accepts it
+     *
+     * @return true if the response was sent, false if the file can not be cached
+     * @throws IOException
+     */
+    protected boolean sendCached(HttpServletRequest request, HttpServletResponse response, Resource resource) throws IOException {
+        if (staticResourceCache == null) return false;
+        final File file = resource.getFile();
+        if (file == null) return false;
+        final String mime = _mimeTypes.getMimeByExtension(resource.getName());
+        final StaticResourceCache.Entry entry = staticResourceCache.get(file, mime);
+        if (entry == null) return false;
+
+        final boolean gzip = entry.gzip != null && StaticResourceCache.acceptsGzip(request.getHeader(HeaderFramework.ACCEPT_ENCODING));
+        final String etag = gzip ? entry.gzipETag : entry.etag;
+        final String ifNoneMatch = request.getHeader(HttpHeader.IF_NONE_MATCH.asString());
+        if (ifNoneMatch != null) {
+            // the entity tag takes precedence over the modification date
+            if (StaticResourceCache.matches(ifNoneMatch, etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                response.setHeader(HeaderFramework.ETAG, etag);
+                return true;
+            }
+        } else if (!passConditionalHeaders(request, response, resource)) {
+            return true;
+        }
+
+        // as in sendData, no last-modified field to enable caching
+        response.setHeader(HeaderFramework.CACHE_CONTROL, "public, max-age=" + Integer.toString(600)); // seconds; ten minutes
+        response.setHeader(HeaderFramework.ETAG, etag);
+        if (entry.gzip != null) response.setHeader(HttpHeader.VARY.asString(), HeaderFramework.ACCEPT_ENCODING);
+        if (response.getContentType() == null && mime != null) response.setContentType(mime);
+        final byte[] body = gzip ? entry.gzip : entry.identity;
+        if (gzip) {
+            response.setHeader(HeaderFramework.CONTENT_ENCODING, HeaderFramework.CONTENT_ENCODING_GZIP);
+        } else if (_acceptRanges) {
+            response.setHeader(HeaderFramework.ACCEPT_RANGES, "bytes");
+        }
+        response.setContentLength(body.length);
+        if (!request.getMethod().equals(HttpMethod.HEAD.asString())) {
+            response.getOutputStream().write(body);
+            staticResourceCache.sent(entry, gzip);
+        }
+        return true;
+    }
+
+    /**
+     * @return the cache of static files or null if it is disabled
+     */
+    public static StaticResourceCache getStaticResourceCache() {
+        return staticResourceCache;
+    }
+
+    /**
+     * @return the cache of rendered result pages, shared with the solr and gsa servlets, or null if it is disabled
+     */
+    public static synchronized ResultPageCache getResultPageCache() {
+        if (!resultPageCacheInitialized) {
+            final Switchboard sb = Switchboard.getSwitchboard();
+            if (sb == null) return null;
+            final long maxBytes = sb.getConfigLong(SwitchboardConstants.SERVER_RESULTCACHE_MAXBYTES, 16L * 1024L * 1024L);
+            final long ttl = sb.getConfigLong(SwitchboardConstants.SERVER_RESULTCACHE_TTL, 10000L);
+            if (maxBytes > 0 && ttl > 0) {
+                resultPageCache = new ResultPageCache(maxBytes, Math.min(1024L * 1024L, maxBytes / 16), ttl, 10000L);
+            }
+            resultPageCacheInitialized = true;
+        }
+        return resultPageCache;
+    }
+
     /* ------------------------------------------------------------ */
     protected void writeHeaders(HttpServletResponse response, Resource resource, long count) {
         if (response.getContentType() == null) {
@@ -825,9 +907,50 @@ public class YaCyDefaultServlet extends HttpServlet  {
      * @throws IOException
      * @throws ServletException
      */
-    protected void handleTemplate(String target,  HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
-        Switchboard sb = Switchboard.getSwitchboard();
+    protected void handleTemplate(final String target, final HttpServletRequest request, final HttpServletResponse response) throws IOException, ServletException {
+        final ResultPageCache cache = getResultPageCache();
+        if (cache == null || !target.startsWith("/yacysearch.") ||
+            request.getDispatcherType() != DispatcherType.REQUEST || !HttpMethod.GET.is(request.getMethod())) {
+            renderTemplate(target, request, response);
+            return;
+        }
+        final Switchboard sb = Switchboard.getSwitchboard();
+        final String targetExt = target.substring(target.lastIndexOf('.') + 1);
+        final RequestHeader legacyRequestHeader = generateLegacyRequestHeader(request, target, targetExt);
+        if (request.getUserPrincipal() != null || legacyRequestHeader.accessFromLocalhost() || sb.adminAuthenticated(legacyRequestHeader) >= 2 ||
+            (sb.userDB != null && sb.userDB.getUser(legacyRequestHeader) != null)) {
+            // pages of authenticated users may show more than the public page
+            renderTemplate(target, request, response);
+            return;
+        }
+
+        // answer identical anonymous searches from the result page cache
+        final long generation = sb.index.fulltext().commitGeneration();
+        final String key = ResultPageCache.key(target, targetExt + "/" + getLocaleSelection(sb, request), "template", request.getParameterMap());
+        final ResultPageCache.Page page = cache.get(key, generation, new ResultPageCache.Renderer() {
+            @Override
+            public ResultPageCache.Page render() throws IOException, ServletException {
+                final ResultPageCache.CopyingResponse copying = new ResultPageCache.CopyingResponse(response, cache.maxPageSize());
+                renderTemplate(target, request, copying);
+                return copying.page(generation);
+            }
+        });
+        if (page == null) return; // rendered for this request
+        page.setHeaders(response);
+        final long now = System.currentTimeMillis();
+        response.setDateHeader(HeaderFramework.LAST_MODIFIED, now);
+        response.setDateHeader(HeaderFramework.EXPIRES, now); // expires now
+        if (page.contentType != null) response.setContentType(page.contentType);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentLength(page.content.length);
+        response.getOutputStream().write(page.content);
+        cache.sent(page);
+    }
 
+    /**
+     * @return the language of the templates for the request
+     */
+    private static String getLocaleSelection(final Switchboard sb, final HttpServletRequest request) {
         String localeSelection = sb.getConfig("locale.language", "browser");
         if (localeSelection.endsWith("browser")) {
             String lng = request.getLocale().getLanguage();
@@ -837,6 +960,16 @@ public class YaCyDefaultServlet extends HttpServlet  {
                 localeSelection = lng;
             }
         }
+        return localeSelection;
+    }
+
+    /**
+     * Renders a YaCy servlet template, see {@link #handleTemplate(String, HttpServletRequest, HttpServletResponse)}
+     */
+    protected void renderTemplate(String target,  HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        Switchboard sb = Switchboard.getSwitchboard();
+
+        String localeSelection = getLocaleSelection(sb, request);
         File targetFile = getLocalizedFile(target, localeSelection);
         File targetClass = rewriteClassFile(_resourceBase.addPath(target).getFile());
         String targetExt = target.substring(target.lastIndexOf('.') + 1);
@@ -1007,6 +1140,11 @@ public class YaCyDefaultServlet extends HttpServlet  {
                 response.setHeader(HeaderFramework.X_YACY_TRANSACTION_TOKEN, templatePatterns.get(TransactionManager.TRANSACTION_TOKEN_PARAM));
             }
 
+            if (templatePatterns.containsKey(serverObjects.ACTION_INCOMPLETE)) {
+                // do not cache a throttled or partial search result, also if it is included in another page
+                ResultPageCache.incomplete(response);
+            }
+
             // handle YaCy http commands
             // handle action auth: check if the servlets requests authentication
             if (templatePatterns.containsKey(serverObjects.ACTION_AUTHENTICATE)) {
@@ -98,6 +98,10 @@ public class ArrayStack implements BLOB {
     private final String         prefix;
     private final int            buffersize;
     private final boolean        trimall;
+    private       Evictor        evictor;
+    private       long           evicted, compacted;
+    private CloneableIterator<byte[]> candidates;
+    private       BLOB           candidatesBLOB;
 
     /** the thread pool for the keeperOf executor service */
     private final ExecutorService executor;
@@ -124,6 +128,11 @@ public class ArrayStack implements BLOB {
         this.repositoryAgeMax = Long.MAX_VALUE;
         this.repositorySizeMax = Long.MAX_VALUE;
         this.trimall = trimall;
+        this.evictor = null;
+        this.evicted = 0;
+        this.compacted = 0;
+        this.candidates = null;
+        this.candidatesBLOB = null;
 
         // init the thread pool for the keeperOf executor service
         this.executor = new ThreadPoolExecutor(
@@ -405,6 +414,74 @@ public class ArrayStack implements BLOB {
         executeLimits();
     }
 
+    /**
+     * A policy for the entries of the oldest BLOB file when the file is removed because of the size limit:
+     * entries which shall be kept are copied to the newest BLOB file, all other entries are reported as evicted.
+     * Entries of files which are removed because of the age limit are always reported as evicted.
+     */
+    public interface Evictor {
+
+        /**
+         * @param key the key of an entry in the oldest BLOB file
+         * @param size the size of the entry
+         * @return true if the entry shall be copied to the newest BLOB file
+         */
+        public boolean keep(byte[] key, long size);
+
+        /**
+         * called for each entry which is removed with its BLOB file
+         * @param key the key of the entry
+         */
+        public void evicted(byte[] key);
+    }
+
+    /**
+     * set an eviction policy; without a policy the oldest BLOB files are deleted as a whole
+     * @param evictor the policy or null
+     */
+    public synchronized void setEvictor(final Evictor evictor) {
+        this.evictor = evictor;
+    }
+
+    /**
+     * @return the number of entries which had been evicted with their BLOB file
+     */
+    public long evicted() {
+        return this.evicted;
+    }
+
+    /**
+     * @return the number of entries which had been kept and copied to a newer BLOB file during eviction
+     */
+    public long compacted() {
+        return this.compacted;
+    }
+
+    /**
+     * Get a key from the oldest BLOB file, which will be evicted next if the size limit is reached.
+     * Subsequent calls step through all keys of the oldest file, so that the keys can be used as samples
+     * for the eviction victim.
+     * @return a key of the oldest BLOB file or null if there is only one BLOB file
+     */
+    public synchronized byte[] evictionCandidate() {
+        if (this.blobs.size() < 2) return null;
+        final BLOB oldest = this.blobs.get(0).blob;
+        try {
+            if (this.candidatesBLOB != oldest || this.candidates == null || !this.candidates.hasNext()) {
+                this.candidates = oldest.keys(true, false);
+                this.candidatesBLOB = oldest;
+            }
+            return this.candidates.hasNext() ? this.candidates.next() : null;
+        } catch (final IOException e) {
+            this.candidates = null;
+            return null;
+        } catch (final RuntimeException e) {
+            // the index of the BLOB was modified while iterating
+            this.candidates = null;
+            return null;
+        }
+    }
+
     private void executeLimits() {
         // check if storage limits are reached and execute consequences
         if (this.blobs.isEmpty()) return;
@@ -413,20 +490,64 @@ public class ArrayStack implements BLOB {
         while (!this.blobs.isEmpty() && System.currentTimeMillis() - this.blobs.get(0).creation.getTime() - this.fileAgeLimit > this.repositoryAgeMax) {
             // too old
             final blobItem oldestBLOB = this.blobs.remove(0);
+            evict(oldestBLOB, false);
             oldestBLOB.blob.close(false);
             oldestBLOB.blob = null;
             FileUtils.deletedelete(oldestBLOB.location);
         }
 
-        // size limit
+        // size limit; each file is compacted at most once in one run, the remaining files are deleted as a whole
+        int compactions = this.evictor == null ? 0 : this.blobs.size() - 1;
         while (!this.blobs.isEmpty() && length() > this.repositorySizeMax) {
             // too large
             final blobItem oldestBLOB = this.blobs.remove(0);
+            evict(oldestBLOB, compactions-- > 0 && !this.blobs.isEmpty());
             oldestBLOB.blob.close(false);
             FileUtils.deletedelete(oldestBLOB.location);
         }
     }
 
+    /**
+     * report the entries of a BLOB file which is removed to the evictor
+     * @param oldestBLOB the removed BLOB file
+     * @param compact if true, entries which the evictor keeps are copied to the newest BLOB file;
+     *   at most half of the file is kept to make sure that the compaction reclaims space
+     */
+    private void evict(final blobItem oldestBLOB, final boolean compact) {
+        if (this.candidatesBLOB == oldestBLOB.blob) {
+            this.candidates = null;
+            this.candidatesBLOB = null;
+        }
+        if (this.evictor == null) return;
+        final blobItem newest = this.blobs.isEmpty() ? null : this.blobs.get(this.blobs.size() - 1);
+        final long keepMax = compact && newest != null && newest.blob instanceof Heap ? oldestBLOB.location.length() / 2 : 0;
+        long kept = 0;
+        try {
+            final CloneableIterator<byte[]> keys = oldestBLOB.blob.keys(true, false);
+            while (keys.hasNext()) {
+                final byte[] key = keys.next();
+                if (keepMax > 0) {
+                    final long size = oldestBLOB.blob.length(key);
+                    if (kept + size <= keepMax && this.evictor.keep(key, size)) {
+                        final byte[] b = oldestBLOB.blob.get(key);
+                        if (b != null) {
+                            newest.blob.insert(key, b);
+                            kept += size;
+                            this.compacted++;
+                            continue;
+                        }
+                    }
+                }
+                this.evictor.evicted(key);
+                this.evicted++;
+            }
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        } catch (final SpaceExceededException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
     /*
      * return the size of the repository (in bytes)
      */
@@ -35,12 +35,21 @@ import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+
 import net.yacy.cora.order.ByteOrder;
 import net.yacy.cora.order.CloneableIterator;
 import net.yacy.cora.util.ByteArray;
@@ -53,6 +62,26 @@ public class Compressor implements BLOB, Iterable<byte[]> {
 
     private static byte[] gzipMagic  = {(byte) 'z', (byte) '|'}; // magic for gzip-encoded content
     private static byte[] plainMagic = {(byte) 'p', (byte) '|'}; // magic for plain content (no encoding)
+    private static byte[] lz4Magic   = {(byte) 'l', (byte) '|'}; // magic for lz4-encoded content
+
+    /**
+     * the codecs for compressed entries; entries of all codecs can be read regardless of the selected codec
+     */
+    public enum Codec {
+        /** gzip with the configured compression level */
+        GZIP,
+        /** lz4 frames: much faster than gzip with a lower compression ratio, the compression level is ignored */
+        LZ4;
+
+        /**
+         * @param name a codec name, case is ignored
+         * @return the codec of the name or GZIP if the name is unknown
+         */
+        public static Codec parse(final String name) {
+            for (final Codec codec: values()) if (codec.name().equalsIgnoreCase(name)) return codec;
+            return GZIP;
+        }
+    }
 
     private final BLOB backend;
     
@@ -74,6 +103,21 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     /** The compression level */
     private volatile int compressionLevel;
 
+    /** The codec for new entries */
+    private volatile Codec codec;
+
+    /** entries which are compressed by the compressor threads, format is RAW (without magic); guarded by the lock */
+    private TreeMap<byte[], byte[]> compressing;
+
+    /** Total size (in bytes) of uncompressed entries in compressing */
+    private long compressinglength;
+
+    /** threads which compress entries outside of the lock; null if entries are compressed synchronously */
+    private final ExecutorService compressor;
+
+    /** Total size (in bytes) of compressed entries before and after compression */
+    private final AtomicLong rawBytes, storedBytes;
+
     /**
      * @param backend the backend storage
      * @param buffersize the maximum total size (in bytes) of uncompressed in-memory entries before compressing and flushing to the backend
@@ -81,12 +125,41 @@ public class Compressor implements BLOB, Iterable<byte[]> {
      * @param compressionLevel the compression level : supported values ranging from 0 - no compression, to 9 - best compression
      */
     public Compressor(final BLOB backend, final long buffersize, final long lockTimeout, final int compressionLevel) {
+        this(backend, buffersize, lockTimeout, compressionLevel, Codec.GZIP, 0);
+    }
+
+    /**
+     * @param backend the backend storage
+     * @param buffersize the maximum total size (in bytes) of uncompressed in-memory entries before compressing and flushing to the backend
+     * @param lockTimeout maximum time to acquire a synchronization lock on get() and insert() operations
+     * @param compressionLevel the compression level : supported values ranging from 0 - no compression, to 9 - best compression
+     * @param codec the codec for new entries
+     * @param compressorThreads the number of threads which compress entries in the background; 0 to compress within insert()
+     */
+    public Compressor(final BLOB backend, final long buffersize, final long lockTimeout, final int compressionLevel, final Codec codec, final int compressorThreads) {
         this.backend = backend;
         this.maxbufferlength = buffersize;
         this.lockTimeout = lockTimeout;
         this.lock = new ReentrantLock();
         /* Ensure a value within the range supported by the Deflater class */
         this.compressionLevel = Math.max(Deflater.NO_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, compressionLevel));
+        this.codec = codec == null ? Codec.GZIP : codec;
+        this.rawBytes = new AtomicLong(0);
+        this.storedBytes = new AtomicLong(0);
+        if (compressorThreads > 0) {
+            final String name = backend.name();
+            this.compressor = Executors.newFixedThreadPool(compressorThreads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger(0);
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread t = new Thread(r, "Compressor(" + name + ")-" + this.count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        } else {
+            this.compressor = null;
+        }
         initBuffer();
     }
 
@@ -119,6 +192,8 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     private void initBuffer() {
         this.buffer = new TreeMap<byte[], byte[]>(this.backend.ordering());
         this.bufferlength = 0;
+        this.compressing = new TreeMap<byte[], byte[]>(this.backend.ordering());
+        this.compressinglength = 0;
     }
 
     @Override
@@ -136,16 +211,39 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     	} finally {
     		this.lock.unlock();
     	}
+    	// the compressor threads find their entries flushed and do nothing
+    	if (this.compressor != null) this.compressor.shutdownNow();
     }
 
-    private static byte[] compress(final byte[] b, final int compressionLevel) {
+    private byte[] compress(final byte[] b) {
+        final byte[] c = compress(b, this.compressionLevel, this.codec);
+        this.rawBytes.addAndGet(b.length);
+        this.storedBytes.addAndGet(c.length);
+        return c;
+    }
+
+    private static byte[] compress(final byte[] b, final int compressionLevel, final Codec codec) {
         final int l = b.length;
         if (l < 100) return markWithPlainMagic(b);
-        final byte[] bb = compressAddMagic(b, compressionLevel);
-        if (bb.length >= l) return markWithPlainMagic(b);
+        final byte[] bb = codec == Codec.LZ4 ? compressLZ4AddMagic(b) : compressAddMagic(b, compressionLevel);
+        if (bb == null || bb.length >= l) return markWithPlainMagic(b);
         return bb;
     }
 
+    private static byte[] compressLZ4AddMagic(final byte[] b) {
+        try {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length / 3);
+            baos.write(lz4Magic);
+            final OutputStream os = new FramedLZ4CompressorOutputStream(baos);
+            os.write(b);
+            os.close();
+            return baos.toByteArray();
+        } catch (final IOException e) {
+            ConcurrentLog.severe("Compressor", "", e);
+            return null;
+        }
+    }
+
     private static byte[] compressAddMagic(final byte[] b, final int compressionLevel) {
         // compress a byte array and add a leading magic for the compression
         try {
@@ -193,6 +291,19 @@ public class Compressor implements BLOB, Iterable<byte[]> {
                 bais.close();
                 baos.close();
 
+                return baos.toByteArray();
+            } catch (final IOException e) {
+                ConcurrentLog.logException(e);
+                return null;
+            }
+        } else if (ByteArray.startsWith(b, lz4Magic)) {
+            try {
+                final InputStream lis = new FramedLZ4CompressorInputStream(new ByteArrayInputStream(b, 2, b.length - 2));
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length * 2);
+                final byte[] buf = new byte[1024 * 4];
+                int n;
+                while ((n = lis.read(buf)) > 0) baos.write(buf, 0, n);
+                lis.close();
                 return baos.toByteArray();
             } catch (final IOException e) {
                 ConcurrentLog.logException(e);
@@ -226,9 +337,11 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         		b = this.buffer.remove(key);
         		if (b != null) {
         			this.bufferlength = this.bufferlength - b.length;
-           			this.backend.insert(key, compress(b, this.compressionLevel));
+        			if (!compressLater(key, b)) this.backend.insert(key, compress(b));
         			return b;
         		}
+        		b = this.compressing.get(key);
+        		if (b != null) return b;
         	} finally {
         		this.lock.unlock();
         	}
@@ -262,7 +375,7 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     public boolean containsKey(final byte[] key) {
         this.lock.lock();
         try {
-            return this.buffer.containsKey(key) || this.backend.containsKey(key);
+            return this.buffer.containsKey(key) || this.compressing.containsKey(key) || this.backend.containsKey(key);
         } finally {
         	this.lock.unlock();
         }
@@ -277,7 +390,7 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     public long length() {
         this.lock.lock();
         try {
-            return this.backend.length() + this.bufferlength;
+            return this.backend.length() + this.bufferlength + this.compressinglength;
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
             return 0;
@@ -292,6 +405,8 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         try {
             byte[] b = this.buffer.get(key);
             if (b != null) return b.length;
+            b = this.compressing.get(key);
+            if (b != null) return b.length;
             try {
                 b = this.backend.get(key);
                 if (b == null) return 0;
@@ -306,6 +421,8 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     }
 
     private int removeFromQueues(final byte[] key) {
+        final byte[] c = this.compressing.remove(key);
+        if (c != null) this.compressinglength -= c.length;
         final byte[] b = this.buffer.remove(key);
         if (b != null) return b.length;
         return 0;
@@ -369,7 +486,7 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     public int size() {
     	this.lock.lock();
     	try {
-    		return this.backend.size() + this.buffer.size();
+    		return this.backend.size() + this.buffer.size() + this.compressing.size();
     	} finally {
     		this.lock.unlock();
     	}
@@ -381,6 +498,7 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     	try {
     		if (!this.backend.isEmpty()) return false;
     		if (!this.buffer.isEmpty()) return false;
+    		if (!this.compressing.isEmpty()) return false;
     		return true;
     	} finally {
     		this.lock.unlock();
@@ -424,8 +542,12 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         // depending on process case, write it to the file or compress it to the other queue
         final Map.Entry<byte[], byte[]> entry = this.buffer.entrySet().iterator().next();
         this.buffer.remove(entry.getKey());
+        if (compressLater(entry.getKey(), entry.getValue())) {
+            this.bufferlength -= entry.getValue().length;
+            return true;
+        }
         try {
-            this.backend.insert(entry.getKey(), compress(entry.getValue(), this.compressionLevel));
+            this.backend.insert(entry.getKey(), compress(entry.getValue()));
             this.bufferlength -= entry.getValue().length;
             return true;
         } catch (final IOException e) {
@@ -434,6 +556,41 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         }
     }
 
+    /**
+     * hand an entry over to the compressor threads; must be called with the lock held
+     * @return false if there are no compressor threads or too many entries wait for compression
+     */
+    private boolean compressLater(final byte[] key, final byte[] b) {
+        if (this.compressor == null || this.compressinglength + b.length > this.maxbufferlength) return false;
+        this.compressing.put(key, b);
+        this.compressinglength += b.length;
+        try {
+            this.compressor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final byte[] c = compress(b);
+                    Compressor.this.lock.lock();
+                    try {
+                        // the entry may have been deleted, replaced or flushed in the meantime
+                        if (Compressor.this.compressing.get(key) != b) return;
+                        Compressor.this.backend.insert(key, c);
+                        Compressor.this.compressing.remove(key);
+                        Compressor.this.compressinglength -= b.length;
+                    } catch (final IOException e) {
+                        ConcurrentLog.logException(e);
+                    } finally {
+                        Compressor.this.lock.unlock();
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            this.compressing.remove(key);
+            this.compressinglength -= b.length;
+            return false;
+        }
+        return true;
+    }
+
     public void flushAll() {
     	this.lock.lock();
     	try {
@@ -442,6 +599,18 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     				break;
     			}
     		}
+    		// compress the waiting entries now; the compressor threads will find them gone
+    		while (!this.compressing.isEmpty()) {
+    			final Map.Entry<byte[], byte[]> entry = this.compressing.firstEntry();
+    			try {
+    				this.backend.insert(entry.getKey(), compress(entry.getValue()));
+    			} catch (final IOException e) {
+    				ConcurrentLog.logException(e);
+    				break;
+    			}
+    			this.compressing.remove(entry.getKey());
+    			this.compressinglength -= entry.getValue().length;
+    		}
     	} finally {
     		this.lock.unlock();
     	}
@@ -480,6 +649,28 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         this.compressionLevel = Math.max(Deflater.NO_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, compressionLevel));
     }
     
+    /**
+     * Set the codec for new entries; existing entries keep their codec.
+     * @param codec the new codec
+     */
+    public void setCodec(final Codec codec) {
+        if (codec != null) this.codec = codec;
+    }
+
+    /**
+     * @return the total size (in bytes) of all entries before they were compressed
+     */
+    public long rawBytes() {
+        return this.rawBytes.get();
+    }
+
+    /**
+     * @return the total size (in bytes) of all entries after they were compressed
+     */
+    public long storedBytes() {
+        return this.storedBytes.get();
+    }
+
     /**
      * Set the new synchronization lock timeout.
      * @param lockTimeout the new synchronization lock timeout (in milliseconds).
@@ -32,12 +32,16 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.order.NaturalOrder;
 
 /**
- * a mapping from a column name to maps with the value of the columns to the primary keys where the entry exist in the table
+ * a mapping from a column name to maps with the value of the columns to the primary keys where the entry exist in the table.
+ * Lookups with getIndex are not synchronized: the index maps are concurrent and the collections of primary keys
+ * are never modified after they have been published, modifications replace them with a new collection (copy-on-write).
+ * All values are stored in lower case, so lookups must be done with lower case values.
  */
 public class MapColumnIndex implements Serializable {
 
@@ -46,10 +50,10 @@ public class MapColumnIndex implements Serializable {
     private final Map<String, Map<String, Collection<byte[]>>> index;
 
     public MapColumnIndex() {
-        this.index = new HashMap<String, Map<String, Collection<byte[]>>>();
+        this.index = new ConcurrentHashMap<String, Map<String, Collection<byte[]>>>();
     }
 
-    public synchronized Collection<byte[]> getIndex(final String whereKey, final String isValue) throws UnsupportedOperationException {
+    public Collection<byte[]> getIndex(final String whereKey, final String isValue) throws UnsupportedOperationException {
         Map<String, Collection<byte[]>> references = this.index.get(whereKey);
         if (references == null) throw new UnsupportedOperationException();
         Collection<byte[]> indexes = references.get(isValue);
@@ -57,8 +61,27 @@ public class MapColumnIndex implements Serializable {
         return indexes;
     }
 
+    /**
+     * @param whereKey
+     * @return true if an index for the given column exists
+     */
+    public boolean hasIndex(final String whereKey) {
+        return this.index.containsKey(whereKey);
+    }
+
+    /**
+     * create an empty index for a column, which is then filled with {@link #update(byte[], Map)}
+     * @param whereKey
+     */
+    public synchronized void create(final String whereKey) {
+        if (!this.index.containsKey(whereKey)) this.index.put(whereKey, new ConcurrentHashMap<String, Collection<byte[]>>());
+    }
+
+    /**
+     * remove all entries from the index; the set of indexed columns is kept
+     */
     public synchronized void clear() {
-        this.index.clear();
+        for (Map<String, Collection<byte[]>> valueIdxMap: this.index.values()) valueIdxMap.clear();
     }
 
     /**
@@ -68,8 +91,8 @@ public class MapColumnIndex implements Serializable {
      * @param table
      */
     public synchronized void init(final String whereKey, final String isValue, final Iterator<Map.Entry<byte[], Map<String, String>>> table) {
-        Map<String, Collection<byte[]>> valueIdxMap = new HashMap<String, Collection<byte[]>>();
-        this.index.put(whereKey, valueIdxMap);
+        if (this.index.containsKey(whereKey)) return; // another thread did this already
+        Map<String, Collection<byte[]>> valueIdxMap = new ConcurrentHashMap<String, Collection<byte[]>>();
         Map.Entry<byte[], Map<String, String>> line;
         while (table.hasNext()) {
             line = table.next();
@@ -77,6 +100,7 @@ public class MapColumnIndex implements Serializable {
             if (value == null) continue; // we don't need to remember that
             indexupdate(line.getKey(), valueIdxMap, value.toLowerCase()); // add the entry lowercase (needed for seedDB.lookupByName)
         }
+        this.index.put(whereKey, valueIdxMap);
     }
 
     /**
@@ -89,10 +113,21 @@ public class MapColumnIndex implements Serializable {
             // create an index for all columns that we track
             String value = row.get(entry.getKey());
             if (value == null) continue; // we don't need to remember that
-            indexupdate(primarykey, entry.getValue(), value);
+            indexupdate(primarykey, entry.getValue(), value.toLowerCase());
         }
     }
 
+    /**
+     * update an index entry where the previous content of the row is known
+     * @param primarykey the primary key for the row that is updated
+     * @param oldRow the row before the update or null if the row is new
+     * @param newRow the row after the update
+     */
+    public synchronized void update(final byte[] primarykey, final Map<String, String> oldRow, final Map<String, String> newRow) {
+        if (oldRow != null) delete(primarykey, oldRow);
+        update(primarykey, newRow);
+    }
+
     private static void indexupdate(final byte[] primarykey, final Map<String, Collection<byte[]>> valueIdxMap, final String value) {
         Collection<byte[]> indexes = valueIdxMap.get(value);
         if (indexes == null) {
@@ -104,7 +139,9 @@ public class MapColumnIndex implements Serializable {
             // update the existing index entry
             // check if value already exist
             if (!net.yacy.cora.util.ByteBuffer.contains(indexes, primarykey)) {
+                indexes = new ArrayList<byte[]>(indexes);
                 indexes.add(primarykey);
+                valueIdxMap.put(value, indexes);
             }
         }
     }
@@ -120,15 +157,33 @@ public class MapColumnIndex implements Serializable {
         }
     }
 
+    /**
+     * delete the references to the primary key where the content of the row is known;
+     * only the index entries of the row values are touched
+     * @param primarykey
+     * @param row the current row content
+     */
+    public synchronized void delete(final byte[] primarykey, final Map<String, String> row) {
+        for (Map.Entry<String, Map<String, Collection<byte[]>>> entry: this.index.entrySet()) {
+            String value = row.get(entry.getKey());
+            if (value == null) continue;
+            indexdelete(primarykey, entry.getValue(), value.toLowerCase());
+        }
+    }
+
     private static void indexdelete(final byte[] index, final Map<String, Collection<byte[]>> valueIdxMap) {
-        Iterator<Map.Entry<String, Collection<byte[]>>> i = valueIdxMap.entrySet().iterator();
-        Map.Entry<String, Collection<byte[]>> ref;
-        while (i.hasNext()) {
-            ref = i.next();
-            net.yacy.cora.util.ByteBuffer.remove(ref.getValue(), index);
-            if (ref.getValue().isEmpty()) {
-                i.remove();
-            }
+        for (String value: valueIdxMap.keySet()) indexdelete(index, valueIdxMap, value);
+    }
+
+    private static void indexdelete(final byte[] index, final Map<String, Collection<byte[]>> valueIdxMap, final String value) {
+        Collection<byte[]> indexes = valueIdxMap.get(value);
+        if (indexes == null || !net.yacy.cora.util.ByteBuffer.contains(indexes, index)) return;
+        indexes = new ArrayList<byte[]>(indexes);
+        net.yacy.cora.util.ByteBuffer.remove(indexes, index);
+        if (indexes.isEmpty()) {
+            valueIdxMap.remove(value);
+        } else {
+            valueIdxMap.put(value, indexes);
         }
     }
 
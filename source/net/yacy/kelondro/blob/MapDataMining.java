@@ -29,7 +29,6 @@ package net.yacy.kelondro.blob;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Array;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
@@ -38,31 +37,34 @@ import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.order.ByteOrder;
 import net.yacy.cora.order.CloneableIterator;
-import net.yacy.cora.sorting.ConcurrentScoreMap;
+import net.yacy.cora.sorting.IntScoreMap;
 import net.yacy.cora.sorting.ScoreMap;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.data.word.Word;
 
 
+/**
+ * a MapHeap with sort clusters, accumulators and column indexes.
+ * Only write operations are synchronized; read operations (select, entries, getLongAcc, getFloatAcc)
+ * use the concurrent structures directly and are not blocked by a running write operation.
+ */
 public class MapDataMining extends MapHeap {
 
-    private final static Long LONG0 = Long.valueOf(0);
-    private final static Float FLOAT0 = Float.valueOf(0.0f);
-
-    private final String[] sortfields, longaccfields, floataccfields;
-    private Map<String, ScoreMap<String>> sortClusterMap; // a String-kelondroMScoreCluster - relation
-    private Map<String, Long>   accLong; // to store accumulations of Long cells
-    private Map<String, Float> accFloat; // to store accumulations of Float cells
+    private final String[] sortfields, longaccfields, floataccfields, indexfields;
+    private volatile Map<String, ScoreMap<String>> sortClusterMap; // a String-kelondroMScoreCluster - relation
+    private final Map<String, AtomicLong> accLong; // to store accumulations of Long cells
+    private final Map<String, AtomicInteger> accFloat; // to store accumulations of Float cells, as float bits
     private final MapColumnIndex columnIndex; // to store fast select-where indexes
 
-	@SuppressWarnings("unchecked")
-	public MapDataMining(final File heapFile,
+    public MapDataMining(final File heapFile,
             final int keylength,
             final ByteOrder ordering,
             final int buffermax,
@@ -70,52 +72,57 @@ public class MapDataMining extends MapHeap {
             final String[] sortfields,
             final String[] longaccfields,
             final String[] floataccfields) throws IOException {
+        this(heapFile, keylength, ordering, buffermax, cachesize, sortfields, longaccfields, floataccfields, null);
+    }
+
+    /**
+     * @param indexfields fields for which a hash index for equality selections with {@link #select(String, String)}
+     *   is created while the heap is opened; indexes for other fields are created on their first selection
+     */
+    public MapDataMining(final File heapFile,
+            final int keylength,
+            final ByteOrder ordering,
+            final int buffermax,
+            final int cachesize,
+            final String[] sortfields,
+            final String[] longaccfields,
+            final String[] floataccfields,
+            final String[] indexfields) throws IOException {
         super(heapFile, keylength, ordering, buffermax, cachesize, ' ');
 
         // create fast ordering clusters and acc fields
         this.sortfields = sortfields;
         this.longaccfields = longaccfields;
         this.floataccfields = floataccfields;
+        this.indexfields = indexfields;
 
         this.columnIndex = new MapColumnIndex();
+        if (indexfields != null) {
+            for (final String indexfield: indexfields) this.columnIndex.create(indexfield);
+        }
 
-        ScoreMap<String>[] cluster = null;
         if (sortfields == null) this.sortClusterMap = null; else {
             this.sortClusterMap = new ConcurrentHashMap<String, ScoreMap<String>>();
-            cluster = (ScoreMap<String>[]) Array.newInstance(ScoreMap.class, sortfields.length);
-            for (int i = 0; i < sortfields.length; i++) {
-                cluster[i] = new ConcurrentScoreMap<String>();
-            }
+            for (final String sortfield: sortfields) this.sortClusterMap.put(sortfield, new IntScoreMap<String>());
         }
 
-        Long[] longaccumulator = null;
-        Float[] floataccumulator = null;
         if (longaccfields == null) {
         	this.accLong = null;
         } else {
-            this.accLong = new ConcurrentHashMap<String, Long>();
-            longaccumulator = new Long[longaccfields.length];
-            for (int i = 0; i < longaccfields.length; i++) {
-                longaccumulator[i] = LONG0;
-            }
+            this.accLong = new ConcurrentHashMap<String, AtomicLong>();
+            for (final String longaccfield: longaccfields) this.accLong.put(longaccfield, new AtomicLong(0));
         }
         if (floataccfields == null) {
             this.accFloat = null;
         } else {
-            this.accFloat = new ConcurrentHashMap<String, Float>();
-            floataccumulator = new Float[floataccfields.length];
-            for (int i = 0; i < floataccfields.length; i++) {
-                floataccumulator[i] = FLOAT0;
-            }
+            this.accFloat = new ConcurrentHashMap<String, AtomicInteger>();
+            for (final String floataccfield: floataccfields) this.accFloat.put(floataccfield, new AtomicInteger(Float.floatToIntBits(0.0f)));
         }
 
-        // fill cluster and accumulator with values
-        if (sortfields != null || longaccfields != null || floataccfields != null) try {
+        // fill cluster, accumulator and indexes with values
+        if (sortfields != null || longaccfields != null || floataccfields != null || indexfields != null) try {
             final CloneableIterator<byte[]> it = super.keys(true, false);
             byte[] mapnameb;
-            String cell;
-            long valuel;
-            float valued;
             Map<String, String> map;
             while (it.hasNext()) {
                 mapnameb = it.next();
@@ -127,76 +134,29 @@ public class MapDataMining extends MapHeap {
                 }
                 if (map == null) break;
 
-                if (sortfields != null && cluster != null) {
-                    for (int i = 0; i < sortfields.length; i++) {
-                        cell = map.get(sortfields[i]);
-                        if (cell != null) cluster[i].set(UTF8.String(mapnameb), object2score(cell));
-                    }
-                }
-
-                if (longaccfields != null && longaccumulator != null) {
-                    for (int i = 0; i < longaccfields.length; i++) {
-                        cell = map.get(longaccfields[i]);
-                        valuel = 0;
-                        if (cell != null) try {
-                            valuel = Long.parseLong(cell);
-                            longaccumulator[i] = Long.valueOf(longaccumulator[i].longValue() + valuel);
-                        } catch (final NumberFormatException e) {}
-                    }
-                }
-
-                if (floataccfields != null && floataccumulator != null) {
-                    for (int i = 0; i < floataccfields.length; i++) {
-                        cell = map.get(floataccfields[i]);
-                        valued = 0f;
-                        if (cell != null) try {
-                            valued = Float.parseFloat(cell);
-                            floataccumulator[i] = new Float(floataccumulator[i].floatValue() + valued);
-                        } catch (final NumberFormatException e) {}
-                    }
-                }
+                if (sortfields != null) updateSortCluster(UTF8.String(mapnameb), map);
+                updateAcc(map, true);
+                if (indexfields != null) this.columnIndex.update(mapnameb, map);
             }
         } catch (final IOException e) {}
-
-        // fill cluster
-        if (sortfields != null && cluster != null) {
-            for (int i = 0; i < sortfields.length; i++) this.sortClusterMap.put(sortfields[i], cluster[i]);
-        }
-
-        // fill acc map
-        if (longaccfields != null && longaccumulator != null) {
-            for (int i = 0; i < longaccfields.length; i++) this.accLong.put(longaccfields[i], longaccumulator[i]);
-        }
-        if (floataccfields != null && floataccumulator != null) {
-            for (int i = 0; i < floataccfields.length; i++) this.accFloat.put(floataccfields[i], floataccumulator[i]);
-        }
     }
 
     @Override
     public synchronized void clear() {
     	super.clear();
         if (this.sortfields == null) this.sortClusterMap = null; else {
-            this.sortClusterMap = new HashMap<String, ScoreMap<String>>();
+            final Map<String, ScoreMap<String>> clusters = new ConcurrentHashMap<String, ScoreMap<String>>();
             for (final String sortfield : this.sortfields) {
-            	this.sortClusterMap.put(sortfield, new ConcurrentScoreMap<String>());
+            	clusters.put(sortfield, new IntScoreMap<String>());
             }
+            this.sortClusterMap = clusters;
         }
 
-        if (this.longaccfields == null) {
-            this.accLong = null;
-        } else {
-            this.accLong = new HashMap<String, Long>();
-            for (final String longaccfield : this.longaccfields) {
-                this.accLong.put(longaccfield, LONG0);
-            }
+        if (this.accLong != null) {
+            for (final AtomicLong accumulator: this.accLong.values()) accumulator.set(0);
         }
-        if (this.floataccfields == null) {
-            this.accFloat = null;
-        } else {
-            this.accFloat = new HashMap<String, Float>();
-            for (final String floataccfield : this.floataccfields) {
-                this.accFloat.put(floataccfield, FLOAT0);
-            }
+        if (this.accFloat != null) {
+            for (final AtomicInteger accumulator: this.accFloat.values()) accumulator.set(Float.floatToIntBits(0.0f));
         }
 
         this.columnIndex.clear();
@@ -208,9 +168,11 @@ public class MapDataMining extends MapHeap {
         assert (key.length > 0);
         assert (newMap != null);
 
+        // the old map is needed to update the accumulators and the column index
+        final Map<String, String> oldMap = super.get(key, false);
+
         // update elementCount
         if ((this.longaccfields != null) || (this.floataccfields != null)) {
-            final Map<String, String> oldMap = super.get(key, false);
             if (oldMap != null) {
                 // element exists, update acc
                 updateAcc(oldMap, false);
@@ -225,27 +187,20 @@ public class MapDataMining extends MapHeap {
         // update sortCluster
         if (this.sortClusterMap != null) updateSortCluster(UTF8.String(key), newMap);
 
-        this.columnIndex.update(key, newMap);
+        this.columnIndex.update(key, oldMap, newMap);
     }
 
     private void updateAcc(final Map<String, String> map, final boolean add) {
         String value;
         long valuel;
         float valued;
-        Long longaccumulator;
-        Float floataccumulator;
         if (this.longaccfields != null) {
             for (final String longaccfield : this.longaccfields) {
                 value = map.get(longaccfield);
                 if (value != null) {
                     try {
                         valuel = Long.parseLong(value);
-                        longaccumulator = this.accLong.get(longaccfield);
-                        if (add) {
-                            this.accLong.put(longaccfield, Long.valueOf(longaccumulator.longValue() + valuel));
-                        } else {
-                            this.accLong.put(longaccfield, Long.valueOf(longaccumulator.longValue() - valuel));
-                        }
+                        this.accLong.get(longaccfield).addAndGet(add ? valuel : -valuel);
                     } catch (final NumberFormatException e) {}
                 }
             }
@@ -256,12 +211,11 @@ public class MapDataMining extends MapHeap {
                 if (value != null) {
                     try {
                         valued = Float.parseFloat(value);
-                        floataccumulator = this.accFloat.get(floataccfield);
-                        if (add) {
-                            this.accFloat.put(floataccfield, Float.valueOf(floataccumulator.floatValue() + valued));
-                        } else {
-                            this.accFloat.put(floataccfield, Float.valueOf(floataccumulator.floatValue() - valued));
-                        }
+                        final AtomicInteger accumulator = this.accFloat.get(floataccfield);
+                        int current;
+                        do {
+                            current = accumulator.get();
+                        } while (!accumulator.compareAndSet(current, Float.floatToIntBits(Float.intBitsToFloat(current) + (add ? valued : -valued))));
                     } catch (final NumberFormatException e) {}
                 }
             }
@@ -276,7 +230,6 @@ public class MapDataMining extends MapHeap {
             if (cell != null) {
                 cluster = this.sortClusterMap.get(sortfield);
                 cluster.set(key, object2score(cell));
-                this.sortClusterMap.put(sortfield, cluster);
             }
         }
     }
@@ -286,26 +239,24 @@ public class MapDataMining extends MapHeap {
         if (key == null) return;
 
         // update elementCount
-        if (this.sortfields != null || this.longaccfields != null || this.floataccfields != null) {
-            Map<String, String> map;
-            try {
-                map = super.get(key, false);
-                if (map != null) {
+        Map<String, String> map = null;
+        try {
+            map = super.get(key, false);
+            if (map != null) {
 
-                    // update accumulators (subtract)
-                    if (this.longaccfields != null || this.floataccfields != null) updateAcc(map, false);
+                // update accumulators (subtract)
+                if (this.longaccfields != null || this.floataccfields != null) updateAcc(map, false);
 
-                    // remove from sortCluster
-                    if (this.sortfields != null) deleteSortCluster(UTF8.String(key));
-                }
-            } catch (final SpaceExceededException e) {
-                map = null;
-                ConcurrentLog.logException(e);
+                // remove from sortCluster
+                if (this.sortfields != null) deleteSortCluster(UTF8.String(key));
             }
+        } catch (final SpaceExceededException e) {
+            map = null;
+            ConcurrentLog.logException(e);
         }
         super.delete(key);
 
-        this.columnIndex.delete(key);
+        if (map == null) this.columnIndex.delete(key); else this.columnIndex.delete(key, map);
     }
 
     private void deleteSortCluster(final String key) {
@@ -314,20 +265,20 @@ public class MapDataMining extends MapHeap {
         for (final String sortfield : this.sortfields) {
             cluster = this.sortClusterMap.get(sortfield);
             cluster.delete(key);
-            this.sortClusterMap.put(sortfield, cluster);
         }
     }
 
-    private synchronized Iterator<byte[]> keys(final boolean up, /* sorted by */ final String field) {
+    private Iterator<byte[]> keys(final boolean up, /* sorted by */ final String field) {
         // sorted iteration using the sortClusters
-        if (this.sortClusterMap == null) return null;
-        final ScoreMap<String> cluster = this.sortClusterMap.get(field);
+        final Map<String, ScoreMap<String>> clusters = this.sortClusterMap;
+        if (clusters == null) return null;
+        final ScoreMap<String> cluster = clusters.get(field);
         if (cluster == null) return null; // sort field does not exist
         //System.out.println("DEBUG: cluster for field " + field + ": " + cluster.toString());
         return new string2bytearrayIterator(cluster.keys(up));
     }
 
-    private synchronized Iterator<byte[]> keys() throws IOException {
+    private Iterator<byte[]> keys() throws IOException {
         return super.keys(true, null);
     }
 
@@ -358,7 +309,16 @@ public class MapDataMining extends MapHeap {
 
     }
 
-    public synchronized Collection<byte[]> select(final String whereKey, final String isValue) throws IOException {
+    /**
+     * select the primary keys of all entries where a field is equal to a given value.
+     * Fields given as indexfields in the constructor are answered from the hash index without any scan;
+     * for other fields an index is created with a full scan on the first call.
+     * @param whereKey the field name
+     * @param isValue the value in lower case
+     * @return the primary keys
+     * @throws IOException
+     */
+    public Collection<byte[]> select(final String whereKey, final String isValue) throws IOException {
         Collection<byte[]> idx = null;
         try {
             idx = this.columnIndex.getIndex(whereKey, isValue);
@@ -373,20 +333,27 @@ public class MapDataMining extends MapHeap {
         return idx;
     }
 
-    public synchronized Iterator<Map.Entry<byte[], Map<String, String>>> entries(final boolean up, final String field) {
+    public Iterator<Map.Entry<byte[], Map<String, String>>> entries(final boolean up, final String field) {
         return new FullMapIterator(keys(up, field));
     }
 
-    public synchronized long getLongAcc(final String field) {
-        final Long accumulator = this.accLong.get(field);
+    public long getLongAcc(final String field) {
+        final AtomicLong accumulator = this.accLong == null ? null : this.accLong.get(field);
         if (accumulator == null) return -1;
-        return accumulator.longValue();
+        return accumulator.get();
     }
 
-    public synchronized float getFloatAcc(final String field) {
-        final Float accumulator = this.accFloat.get(field);
+    public float getFloatAcc(final String field) {
+        final AtomicInteger accumulator = this.accFloat == null ? null : this.accFloat.get(field);
         if (accumulator == null) return -1;
-        return accumulator.floatValue();
+        return Float.intBitsToFloat(accumulator.get());
+    }
+
+    /**
+     * @return the fields which have a hash index for equality selections from the start
+     */
+    public String[] getIndexFields() {
+        return this.indexfields;
     }
 
     @Override
@@ -402,11 +369,7 @@ public class MapDataMining extends MapHeap {
     @Override
     public synchronized void close() {
         // close cluster
-        if (this.sortClusterMap != null) {
-            for (final String sortfield : this.sortfields)
-                this.sortClusterMap.remove(sortfield);
-            this.sortClusterMap = null;
-        }
+        this.sortClusterMap = null;
 
         super.close();
     }
@@ -50,6 +50,7 @@ import net.yacy.cora.order.CloneableIterator;
 import net.yacy.cora.order.NaturalOrder;
 import net.yacy.cora.storage.ARC;
 import net.yacy.cora.storage.ConcurrentARC;
+import net.yacy.cora.util.ByteArray;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.LookAheadIterator;
 import net.yacy.cora.util.SpaceExceededException;
@@ -63,6 +64,10 @@ public class MapHeap implements Map<byte[], Map<String, String>> {
     private final ARC<byte[], Map<String, String>> cache;
     private final char fillchar;
 
+    // striped locks which keep the cache and the blob consistent for a single key;
+    // readers and writers of different keys do not block each other
+    private final Object[] locks;
+
 
     public MapHeap(
             final File heapFile,
@@ -74,6 +79,18 @@ public class MapHeap implements Map<byte[], Map<String, String>> {
         this.blob = new Heap(heapFile, keylength, ordering, buffermax);
         this.cache = new ConcurrentARC<byte[], Map<String, String>>(cachesize, Math.min(32, 2 * Runtime.getRuntime().availableProcessors()), ordering);
         this.fillchar = fillchar;
+        this.locks = new Object[Math.max(16, Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors() - 1) << 1)];
+        for (int i = 0; i < this.locks.length; i++) this.locks[i] = new Object();
+    }
+
+    /**
+     * get the lock object for a normalized key
+     * @param key
+     * @return the lock for all accesses to the cache and blob entry of that key
+     */
+    private Object lock(final byte[] key) {
+        final int h = ByteArray.hashCode(key);
+        return this.locks[(h ^ (h >>> 16)) & (this.locks.length - 1)];
     }
 
     /**
@@ -166,7 +183,7 @@ public class MapHeap implements Map<byte[], Map<String, String>> {
             // write entry
             if (this.blob != null) this.blob.insert(key, sb);
         } else {
-            synchronized (this) {
+            synchronized (lock(key)) {
                 // write entry
                 if (this.blob != null) this.blob.insert(key, sb);
 
@@ -204,7 +221,7 @@ public class MapHeap implements Map<byte[], Map<String, String>> {
         if (key == null) return;
         key = normalizeKey(key);
 
-        synchronized (this) {
+        synchronized (lock(key)) {
             // remove from cache
             if (this.cache != null) this.cache.remove(key);
 
@@ -239,7 +256,7 @@ public class MapHeap implements Map<byte[], Map<String, String>> {
         if (this.cache == null) return false; // case may appear during shutdown
         final byte[] key = normalizeKey((byte[]) k);
         boolean h;
-        synchronized (this) {
+        synchronized (lock(key)) {
             h = this.cache.containsKey(key) || this.blob.containsKey(key);
         }
         return h;
@@ -313,9 +330,10 @@ public class MapHeap implements Map<byte[], Map<String, String>> {
 
         // in all other cases we must look into the cache again within
         // a synchronization in case that the entry was not in the cache but stored
-        // there while another process has taken it from the file system
+        // there while another process has taken it from the file system;
+        // only the lock of this key is used, so writes to other keys do not block this read
         if (storeCache) {
-            synchronized (this) {
+            synchronized (lock(key)) {
                 map = this.cache.get(key);
                 if (map != null) return map;
 
@@ -336,7 +354,7 @@ public class MapHeap implements Map<byte[], Map<String, String>> {
             }
         }
         byte[] b = null;
-        synchronized (this) {
+        synchronized (lock(key)) {
             map = this.cache.get(key);
             if (map != null) return map;
             b = this.blob.get(key);
@@ -38,6 +38,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -66,12 +67,15 @@ public class Tables implements Iterable<String> {
     private final static int RAMINDEX = 100000;
 
 	private static final String suffix = ".bheap";
+    private static final String cstoreSuffix = ".ccol";
     private static final String system_table_pkcounter = "pkcounter";
     private static final String system_table_pkcounter_counterName = "pk";
 
     private final File location;
     private final ConcurrentHashMap<String, BEncodedHeap> tables;
     private final ConcurrentHashMap<String, TablesColumnIndex> cidx;
+    private final ConcurrentHashMap<String, TablesColumnStore> cstores;
+    private final ConcurrentHashMap<String, TablesSchema> schemas; // kept when a table is closed, to open its column store again
     private int keymaxlen;
 
     // use our own formatter to prevent concurrency locks with other processes
@@ -95,6 +99,149 @@ public class Tables implements Iterable<String> {
             }
         }
         this.cidx = new ConcurrentHashMap<String, TablesColumnIndex>();
+        this.cstores = new ConcurrentHashMap<String, TablesColumnStore>();
+        this.schemas = new ConcurrentHashMap<String, TablesSchema>();
+    }
+
+    /**
+     * declare typed columns for a table. The declared columns are mirrored in a column-oriented
+     * {@link TablesColumnStore}, which is used to compute selections and orderings on these columns
+     * without decoding the rows of the table heap. For indexed columns a {@link TablesColumnIndex}
+     * is maintained and used for equality selections.
+     * The store is loaded from its file if the table was closed properly, otherwise it is rebuilt
+     * with one scan over the table. The schema is kept when the table is closed, the store is opened
+     * again together with the table.
+     * @param tablename
+     * @param schema
+     * @throws IOException
+     */
+    public synchronized void setSchema(final String tablename, final TablesSchema schema) throws IOException {
+        final BEncodedHeap heap = getHeap(tablename);
+        this.schemas.put(tablename, schema);
+        openColumnStore(tablename, heap, schema);
+    }
+
+    private void openColumnStore(final String tablename, final BEncodedHeap heap, final TablesSchema schema) throws IOException {
+        final TablesColumnStore store = new TablesColumnStore(new File(this.location, tablename + cstoreSuffix), schema);
+        final boolean loaded = store.load(heap.size());
+        if (!loaded) {
+            final Iterator<Map.Entry<byte[], Map<String, byte[]>>> i = heap.iterator();
+            Map.Entry<byte[], Map<String, byte[]>> entry;
+            while (i.hasNext()) {
+                entry = i.next();
+                store.put(entry.getKey(), entry.getValue(), false);
+            }
+            ConcurrentLog.info("Tables", "rebuilt column store for table " + tablename + " with " + store.size() + " rows");
+        }
+        this.cstores.put(tablename, store);
+
+        final Map<String, String> indexed = schema.indexedColumns();
+        if (indexed.isEmpty()) return;
+        final TablesColumnIndex index;
+        try {
+            index = getIndex(tablename, schema.getIndexType());
+        } catch (final TableColumnIndexException e) {
+            throw new IOException(e.getMessage());
+        }
+        boolean complete = loaded;
+        for (final String column: indexed.keySet()) complete = complete && (store.size() == 0 || index.hasIndex(column));
+        if (!complete) {
+            index.clear();
+            for (final byte[] pk: store.keys()) indexRow(store, index, pk);
+        }
+        this.cidx.put(tablename, index);
+    }
+
+    /**
+     * @param tablename
+     * @return the column store of a table which has a schema, or null if the table has no schema
+     */
+    public TablesColumnStore getColumnStore(final String tablename) {
+        return this.cstores.get(tablename);
+    }
+
+    private static void indexRow(final TablesColumnStore store, final TablesColumnIndex index, final byte[] pk) {
+        final Map<String, String> columns = new HashMap<String, String>();
+        final Map<String, String> values = indexedValues(store, pk);
+        for (final String column: values.keySet()) columns.put(column, "");
+        index.add(columns, values, pk);
+    }
+
+    private static Map<String, String> indexedValues(final TablesColumnStore store, final byte[] pk) {
+        final Map<String, String> values = new HashMap<String, String>();
+        byte[] value;
+        for (final String column: store.getSchema().indexedColumns().keySet()) {
+            value = store.get(pk, column);
+            if (value != null) values.put(column, UTF8.String(value));
+        }
+        return values;
+    }
+
+    /**
+     * write a row to the heap of a table and, if the table has a schema, to its column store and column index
+     * in one step. Writes to the same table are serialized, so the store applies them in the order of the heap.
+     * If one of the writes fails, the stored columns of the row are set again from the heap; if this is not
+     * possible, the column store of the table is dropped and selections are computed from the heap until the
+     * table is opened again.
+     * @param table
+     * @param pk
+     * @param map the columns to write or null to delete the row
+     * @param merge true if the map is merged into an existing row, false if it replaces the row
+     * @throws IOException
+     */
+    private void write(final String table, final byte[] pk, final Map<String, byte[]> map, final boolean merge) throws IOException {
+        final BEncodedHeap heap = getHeap(table);
+        final TablesColumnStore store = this.cstores.get(table);
+        if (store == null) {
+            writeHeap(heap, pk, map, merge);
+            return;
+        }
+        synchronized (store) {
+            boolean success = false;
+            try {
+                writeHeap(heap, pk, map, merge);
+                storeColumns(table, store, pk, map, merge);
+                success = true;
+            } finally {
+                if (!success) repairColumns(table, store, heap, pk);
+            }
+        }
+    }
+
+    private static void writeHeap(final BEncodedHeap heap, final byte[] pk, final Map<String, byte[]> map, final boolean merge) throws IOException {
+        try {
+            if (map == null) heap.delete(pk); else if (merge) heap.update(pk, map); else heap.insert(pk, map);
+        } catch (final SpaceExceededException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    private void repairColumns(final String table, final TablesColumnStore store, final BEncodedHeap heap, final byte[] pk) {
+        try {
+            storeColumns(table, store, pk, heap.get(pk), false);
+        } catch (final IOException | SpaceExceededException | RuntimeException e) {
+            ConcurrentLog.warn("Tables", "dropped column store of table " + table + ", cannot repair row " + UTF8.String(pk) + ": " + e.getMessage());
+            this.cstores.remove(table, store);
+            this.cidx.remove(table);
+        }
+    }
+
+    /**
+     * mirror a write operation to the column store and the column index of a table
+     * @param tablename
+     * @param store the column store of the table
+     * @param pk
+     * @param map the written columns or null if the row was deleted
+     * @param merge true if the map was merged into an existing row
+     */
+    private void storeColumns(final String tablename, final TablesColumnStore store, final byte[] pk, final Map<String, byte[]> map, final boolean merge) {
+        final TablesColumnIndex index = store.getSchema().indexedColumns().isEmpty() ? null : this.cidx.get(tablename);
+        if (index != null) {
+            // remove the old values from the index; they are known from the store, so no index scan is required
+            for (final Map.Entry<String, String> old: indexedValues(store, pk).entrySet()) index.delete(old.getKey(), old.getValue(), pk);
+        }
+        if (map == null) store.remove(pk); else store.put(pk, map, merge);
+        if (index != null && map != null) indexRow(store, index, pk);
     }
 
     public TablesColumnIndex getIndex(final String tableName, TablesColumnIndex.INDEXTYPE indexType) throws TableColumnIndexException, IOException {
@@ -265,15 +412,29 @@ public class Tables implements Iterable<String> {
     }
 
     public void close(final String tablename) {
+        // the schema is kept, the column store is opened again with the table
+        saveColumnStore(tablename, this.cstores.remove(tablename));
+        this.cidx.remove(tablename);
         final BEncodedHeap heap = this.tables.remove(tablename);
         if (heap == null) return;
         heap.close();
     }
 
     public synchronized void close() {
+        for (final Map.Entry<String, TablesColumnStore> store: this.cstores.entrySet()) saveColumnStore(store.getKey(), store.getValue());
+        this.cstores.clear();
         for (final BEncodedHeap heap: this.tables.values()) heap.close();
         this.tables.clear();
     }
+
+    private static void saveColumnStore(final String tablename, final TablesColumnStore store) {
+        if (store == null) return;
+        try {
+            store.save();
+        } catch (final IOException e) {
+            ConcurrentLog.warn("Tables", "cannot save column store for table " + tablename + ": " + e.getMessage());
+        }
+    }
     
     public void clear() {
         Set<String> tablenames = this.getTablenames();
@@ -287,6 +448,10 @@ public class Tables implements Iterable<String> {
                 final File f = heap.getFile();
                 heap.clear();
                 heap.close();
+                final TablesColumnStore store = this.cstores.get(tablename);
+                if (store != null) store.clear();
+                final TablesColumnIndex index = this.cidx.get(tablename);
+                if (index != null && store != null) index.clear();
                 FileUtils.deletedelete(f);
                 heap = null;
             }
@@ -320,6 +485,12 @@ public class Tables implements Iterable<String> {
         final File heapf = new File(this.location, table);
         heap = new BEncodedHeap(heapf, this.keymaxlen);
         this.tables.put(tablename, heap);
+
+        // a table which had a schema when it was closed gets its column store back
+        final TablesSchema schema = this.schemas.get(tablename);
+        if (schema != null) synchronized (this) {
+            if (!this.cstores.containsKey(tablename)) openColumnStore(tablename, heap, schema);
+        }
         return heap;
     }
 
@@ -383,39 +554,19 @@ public class Tables implements Iterable<String> {
     }
 
     public void insert(final String table, final byte[] pk, final Map<String, byte[]> map) throws IOException {
-        final BEncodedHeap heap = getHeap(table);
-        try {
-            heap.insert(pk, map);
-        } catch (final SpaceExceededException e) {
-            throw new IOException(e.getMessage());
-        }
+        write(table, pk, map, false);
     }
 
     public void insert(final String table, final Row row) throws IOException {
-        final BEncodedHeap heap = getHeap(table);
-        try {
-            heap.insert(row.pk, row);
-        } catch (final SpaceExceededException e) {
-            throw new IOException(e.getMessage());
-        }
+        write(table, row.pk, row, false);
     }
 
     public void update(final String table, final byte[] pk, final Map<String, byte[]> map) throws IOException {
-        final BEncodedHeap heap = getHeap(table);
-        try {
-            heap.update(pk, map);
-        } catch (final SpaceExceededException e) {
-            throw new IOException(e.getMessage());
-        }
+        write(table, pk, map, true);
     }
 
     public void update(final String table, final Row row) throws IOException {
-        final BEncodedHeap heap = getHeap(table);
-        try {
-            heap.update(row.pk, row);
-        } catch (final SpaceExceededException e) {
-            throw new IOException(e.getMessage());
-        }
+        write(table, row.pk, row, true);
     }
 
     public byte[] createRow(final String table) throws IOException, SpaceExceededException {
@@ -430,8 +581,7 @@ public class Tables implements Iterable<String> {
     }
 
     public void delete(final String table, final byte[] pk) throws IOException {
-        final BEncodedHeap heap = getHeap(table);
-        heap.delete(pk);
+        write(table, pk, null, false);
     }
 
     public boolean has(final String table, final byte[] key) throws IOException {
@@ -454,10 +604,14 @@ public class Tables implements Iterable<String> {
     }
 
     public Iterator<Row> iterator(final String table, final String whereColumn, final byte[] whereValue) throws IOException {
+        final List<byte[]> pks = selectByColumn(table, whereColumn, whereValue);
+        if (pks != null) return new SelectedRowIterator(table, pks);
         return new HeapRowIterator(table, whereColumn, whereValue);
     }
 
     public Iterator<Row> iterator(final String table, final String whereColumn, final Pattern wherePattern) throws IOException {
+        final List<byte[]> pks = selectByColumn(table, whereColumn, wherePattern);
+        if (pks != null) return new SelectedRowIterator(table, pks);
         return new HeapRowIterator(table, whereColumn, wherePattern);
     }
 
@@ -470,13 +624,69 @@ public class Tables implements Iterable<String> {
     }
 
     public Iterator<Row> iterator(final String table, final String whereColumn, final byte[] whereValue, final boolean up) throws IOException {
+        final List<byte[]> pks = selectByColumn(table, whereColumn, whereValue);
+        if (pks != null) return new SelectedRowIterator(table, sortKeys(pks, up));
         return new OrderedRowIterator(table, whereColumn, whereValue, up);
     }
 
     public Iterator<Row> iterator(final String table, final String whereColumn, final Pattern wherePattern, final boolean up) throws IOException {
+        final List<byte[]> pks = selectByColumn(table, whereColumn, wherePattern);
+        if (pks != null) return new SelectedRowIterator(table, sortKeys(pks, up));
         return new OrderedRowIterator(table, whereColumn, wherePattern, up);
     }
 
+    /**
+     * compute the primary keys of the rows where a column is equal to a value, using the column store
+     * and the column index of the table
+     * @return the list of primary keys or null if the selection cannot be done without a table scan
+     */
+    private List<byte[]> selectByColumn(final String table, final String whereColumn, final byte[] whereValue) {
+        final TablesColumnStore store = this.cstores.get(table);
+        if (store == null || whereValue == null || !store.covers(whereColumn)) return null;
+        final TablesSchema.ColumnDefinition definition = store.getSchema().get(whereColumn);
+        final TablesColumnIndex index = this.cidx.get(table);
+        if (definition.isIndexed() && index != null) {
+            final List<byte[]> pks = new ArrayList<byte[]>();
+            if (index.containsKey(whereColumn, UTF8.String(whereValue))) pks.addAll(index.get(whereColumn, UTF8.String(whereValue)));
+            return pks;
+        }
+        return store.select(whereColumn, whereValue);
+    }
+
+    /**
+     * compute the primary keys of the rows where a column matches a pattern, using the column store of the table
+     * @return the list of primary keys or null if the selection cannot be done without a table scan
+     */
+    private List<byte[]> selectByColumn(final String table, final String whereColumn, final Pattern wherePattern) {
+        final TablesColumnStore store = this.cstores.get(table);
+        if (store == null || wherePattern == null || wherePattern.toString().isEmpty() || !store.covers(whereColumn)) return null;
+        return store.select(whereColumn, wherePattern);
+    }
+
+    private static List<byte[]> sortKeys(final List<byte[]> pks, final boolean up) {
+        pks.sort(up ? TablesColumnIndex.NATURALORDER : TablesColumnIndex.NATURALORDER.reversed());
+        return pks;
+    }
+
+    /**
+     * get the rows of a table ordered by a given column. If the column is declared in the schema of the table,
+     * only the top maxcount rows are computed from the column store and only these rows are read from the table.
+     * Otherwise this falls back to {@link #orderBy(Iterator, int, String)} over all rows.
+     * @param table
+     * @param maxcount the maximum number of rows; a negative number means no limit
+     * @param sortColumn
+     * @return the rows in ascending order of the sort column
+     * @throws IOException
+     */
+    public Collection<Row> orderBy(final String table, final int maxcount, final String sortColumn) throws IOException {
+        final TablesColumnStore store = this.cstores.get(table);
+        if (store == null || !store.covers(sortColumn)) return orderBy(iterator(table), maxcount, sortColumn);
+        final List<Row> rows = new ArrayList<Row>();
+        final Iterator<Row> i = new SelectedRowIterator(table, store.top(sortColumn, maxcount, true));
+        while (i.hasNext()) rows.add(i.next());
+        return rows;
+    }
+
     public Iterator<Row> iterator(final String table, final Pattern wherePattern, final boolean up) throws IOException {
         return new OrderedRowIterator(table, wherePattern, up);
     }
@@ -598,6 +808,34 @@ public class Tables implements Iterable<String> {
         }
     }
 
+    /**
+     * iterator over the rows of a given list of primary keys; rows which do not exist are skipped
+     */
+    public class SelectedRowIterator extends LookAheadIterator<Row> implements Iterator<Row> {
+
+        private final Iterator<byte[]> i;
+        private final BEncodedHeap heap;
+
+        public SelectedRowIterator(final String table, final Collection<byte[]> pks) throws IOException {
+            this.heap = getHeap(table);
+            this.i = pks.iterator();
+        }
+
+        @Override
+        protected Row next0() {
+            while (this.i.hasNext()) {
+                final byte[] pk = this.i.next();
+                try {
+                    final Map<String, byte[]> map = this.heap.get(pk);
+                    if (map != null) return new Row(pk, map);
+                } catch (IOException | SpaceExceededException e) {
+                    continue;
+                }
+            }
+            return null;
+        }
+    }
+
     public class OrderedRowIterator extends LookAheadIterator<Row> implements Iterator<Row> {
 
         private final String whereColumn;
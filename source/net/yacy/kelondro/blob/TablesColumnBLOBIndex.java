@@ -135,6 +135,27 @@ public class TablesColumnBLOBIndex extends TablesColumnIndex{
 		}
 	}
 
+	@Override
+    protected void removePK(final String columnName, final String columnValue, final byte[] pk) {
+		final byte[] column = YMarkUtil.getKeyId(columnName);
+		try {
+			final Map<String, byte[]> valueIdxMap = this.index.get(column);
+			if(valueIdxMap == null || !valueIdxMap.containsKey(columnValue)) return;
+			final Collection<byte[]> PKset = byteToCollection(valueIdxMap.get(columnValue));
+			ByteBuffer.remove(PKset, pk);
+			if(PKset.isEmpty()) {
+				valueIdxMap.remove(columnValue);
+			} else {
+				valueIdxMap.put(columnValue, CollectionToByte(PKset));
+			}
+			this.index.insert(column, valueIdxMap);
+		} catch (final IOException e) {
+			ConcurrentLog.logException(e);
+		} catch (final SpaceExceededException e) {
+			ConcurrentLog.logException(e);
+		}
+	}
+
 	@Override
     public void clear() {
 		this.index.clear();
@@ -46,6 +46,7 @@ public abstract class TablesColumnIndex {
     
 	protected abstract void insertPK(final String columnName, final String columnValue, final byte[] pk);
 	protected abstract void removePK(final byte[] pk);
+	protected abstract void removePK(final String columnName, final String columnValue, final byte[] pk);
 	protected abstract void clear();
 	
 	public abstract Set<String> keySet(final String columnName);	
@@ -88,6 +89,14 @@ public abstract class TablesColumnIndex {
 	public void delete(final byte[] pk) {
 		this.removePK(pk);
 	}
+
+	/**
+	 * remove a primary key from the index of a single column value;
+	 * this is much cheaper than {@link #delete(byte[])} if the indexed value of the row is known
+	 */
+	public void delete(final String columnName, final String columnValue, final byte[] pk) {
+		this.removePK(columnName, columnValue, pk);
+	}
 	
 	public void update(final String columnName, final String separator, final Tables.Row row) {
 		this.removePK(row.getPK());
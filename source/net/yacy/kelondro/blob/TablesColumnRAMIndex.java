@@ -83,6 +83,17 @@ public class TablesColumnRAMIndex extends TablesColumnIndex{
 		}
 	}
 	
+	@Override
+    protected synchronized void removePK(final String columnName, final String columnValue, final byte[] pk) {
+		final Map<String, TreeSet<byte[]>> valueIdxMap = this.index.get(columnName);
+		if(valueIdxMap == null) return;
+		final TreeSet<byte[]> PKset = valueIdxMap.get(columnValue);
+		if(PKset == null) return;
+		PKset.remove(pk);
+		if(PKset.isEmpty())
+			valueIdxMap.remove(columnValue);
+	}
+
 	@Override
     public void clear() {
 		this.index.clear();
@@ -0,0 +1,510 @@
+// TablesColumnStore.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.util.ByteArray;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * column-oriented mirror of the columns declared in a {@link TablesSchema}.
+ * Every declared column is held as one typed array (byte[][] for strings, long[] for numbers)
+ * which is addressed by a row ordinal; the primary keys are held in a separate column.
+ * Deleted rows are filled with the last row, so the arrays are always dense.
+ *
+ * The store is written to a binary file when it is closed and that file is deleted again
+ * when it is loaded. A missing file therefore means that the store was not closed properly
+ * and must be rebuilt from the table heap.
+ *
+ * File format (all numbers in big-endian order):
+ * <pre>
+ * int magic, int version
+ * int column count, then per column: UTF name, byte type, boolean lossy
+ * int row count, then per row: short pk length, pk bytes
+ * per column and row: STRING: int length (-1 for null), bytes; LONG: boolean present, long value
+ * </pre>
+ */
+public class TablesColumnStore {
+
+    private final static ConcurrentLog log = new ConcurrentLog("TablesColumnStore");
+
+    private final static int MAGIC = 0x59434331; // "YCC1"
+    private final static int VERSION = 1;
+
+    private final File file;
+    private final TablesSchema schema;
+    private final Map<String, Column> columns;
+    private final Map<ByteArray, Integer> ordinals;
+    private byte[][] pks;
+    private int size;
+
+    public TablesColumnStore(final File file, final TablesSchema schema) {
+        this.file = file;
+        this.schema = schema;
+        this.columns = new HashMap<String, Column>();
+        for (final TablesSchema.ColumnDefinition definition: schema.columns()) {
+            this.columns.put(definition.getName(), definition.getType() == TablesSchema.ColumnType.LONG ? new LongColumn() : new StringColumn());
+        }
+        this.ordinals = new HashMap<ByteArray, Integer>();
+        this.pks = new byte[16][];
+        this.size = 0;
+        for (final Column column: this.columns.values()) column.grow(this.pks.length);
+    }
+
+    public TablesSchema getSchema() {
+        return this.schema;
+    }
+
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * check if selections and orderings on a given column can be computed by this store.
+     * This is not the case for columns which are not declared in the schema and for
+     * LONG columns where values had been found that cannot be represented as number without loss.
+     * @param columnName
+     * @return true if the column can be used for selections and orderings
+     */
+    public synchronized boolean covers(final String columnName) {
+        if (columnName == null) return false;
+        final Column column = this.columns.get(columnName);
+        return column != null && !column.lossy;
+    }
+
+    /**
+     * store the declared columns of a row
+     * @param pk the primary key of the row
+     * @param row the row content, may contain also columns which are not declared in the schema
+     * @param merge if true, columns which are not contained in the row keep their current value
+     *   (like BEncodedHeap.update); if false, missing columns are set to null (like BEncodedHeap.insert)
+     */
+    public synchronized void put(final byte[] pk, final Map<String, byte[]> row, final boolean merge) {
+        final ByteArray key = new ByteArray(pk);
+        Integer ordinal = this.ordinals.get(key);
+        if (ordinal == null) {
+            if (this.size == this.pks.length) {
+                final int capacity = this.pks.length * 2;
+                this.pks = Arrays.copyOf(this.pks, capacity);
+                for (final Column column: this.columns.values()) column.grow(capacity);
+            }
+            ordinal = this.size++;
+            this.pks[ordinal] = pk;
+            this.ordinals.put(key, ordinal);
+            for (final Map.Entry<String, Column> column: this.columns.entrySet()) {
+                column.getValue().set(ordinal, row.get(column.getKey()));
+            }
+            return;
+        }
+        for (final Map.Entry<String, Column> column: this.columns.entrySet()) {
+            if (merge && !row.containsKey(column.getKey())) continue;
+            column.getValue().set(ordinal, row.get(column.getKey()));
+        }
+    }
+
+    /**
+     * @param pk the primary key of a row
+     * @param columnName a column of the schema
+     * @return the value of the column in the given row or null if the row or value does not exist
+     */
+    public synchronized byte[] get(final byte[] pk, final String columnName) {
+        final Integer ordinal = this.ordinals.get(new ByteArray(pk));
+        if (ordinal == null) return null;
+        final Column column = this.columns.get(columnName);
+        return column == null ? null : column.get(ordinal);
+    }
+
+    /**
+     * @return the primary keys of all rows in this store
+     */
+    public synchronized List<byte[]> keys() {
+        final List<byte[]> keys = new ArrayList<byte[]>(this.size);
+        for (int ordinal = 0; ordinal < this.size; ordinal++) keys.add(this.pks[ordinal]);
+        return keys;
+    }
+
+    public synchronized void remove(final byte[] pk) {
+        final Integer ordinal = this.ordinals.remove(new ByteArray(pk));
+        if (ordinal == null) return;
+        final int last = --this.size;
+        if (ordinal.intValue() != last) {
+            this.pks[ordinal] = this.pks[last];
+            this.ordinals.put(new ByteArray(this.pks[ordinal]), ordinal);
+            for (final Column column: this.columns.values()) column.move(last, ordinal);
+        }
+        this.pks[last] = null;
+        for (final Column column: this.columns.values()) column.set(last, null);
+    }
+
+    public synchronized void clear() {
+        this.ordinals.clear();
+        Arrays.fill(this.pks, null);
+        for (final Column column: this.columns.values()) {
+            column.clear();
+        }
+        this.size = 0;
+    }
+
+    /**
+     * select all primary keys of rows where the given column is equal to the given value
+     * @param columnName a column which is covered by this store
+     * @param value
+     * @return a list of primary keys
+     */
+    public synchronized List<byte[]> select(final String columnName, final byte[] value) {
+        final Column column = this.columns.get(columnName);
+        final List<byte[]> result = new ArrayList<byte[]>();
+        for (int ordinal = 0; ordinal < this.size; ordinal++) {
+            if (column.equals(ordinal, value)) result.add(this.pks[ordinal]);
+        }
+        return result;
+    }
+
+    /**
+     * select all primary keys of rows where the given column matches with the given pattern
+     * @param columnName a column which is covered by this store
+     * @param pattern
+     * @return a list of primary keys
+     */
+    public synchronized List<byte[]> select(final String columnName, final Pattern pattern) {
+        final Column column = this.columns.get(columnName);
+        final List<byte[]> result = new ArrayList<byte[]>();
+        byte[] b;
+        for (int ordinal = 0; ordinal < this.size; ordinal++) {
+            b = column.get(ordinal);
+            if (b != null && pattern.matcher(UTF8.String(b)).matches()) result.add(this.pks[ordinal]);
+        }
+        return result;
+    }
+
+    /**
+     * compute the primary keys of the first k rows in the order of a given column.
+     * Rows without a value in the sort column are sorted before all other rows,
+     * rows with equal values are sorted by their primary key.
+     * Only k row ordinals are held in a bounded heap, so no full sort is done for small k.
+     * @param columnName a column which is covered by this store
+     * @param k the maximum number of results; a negative number means no limit
+     * @param up true for ascending order
+     * @return a list of primary keys, in the requested order
+     */
+    public synchronized List<byte[]> top(final String columnName, final int k, final boolean up) {
+        final Column column = this.columns.get(columnName);
+        final Comparator<Integer> ascending = new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                final int c = column.compare(a, b);
+                if (c != 0) return c;
+                return TablesColumnIndex.NATURALORDER.compare(TablesColumnStore.this.pks[a], TablesColumnStore.this.pks[b]);
+            }
+        };
+        final Comparator<Integer> order = up ? ascending : Collections.reverseOrder(ascending);
+        final List<Integer> ordinalList;
+        if (k < 0 || k >= this.size) {
+            ordinalList = new ArrayList<Integer>(this.size);
+            for (int ordinal = 0; ordinal < this.size; ordinal++) ordinalList.add(ordinal);
+            Collections.sort(ordinalList, order);
+        } else {
+            // keep the k best entries; the worst of them is at the head of the queue
+            final PriorityQueue<Integer> queue = new PriorityQueue<Integer>(Math.max(1, k + 1), Collections.reverseOrder(order));
+            for (int ordinal = 0; ordinal < this.size; ordinal++) {
+                if (queue.size() < k) {
+                    queue.add(ordinal);
+                } else if (k > 0 && order.compare(ordinal, queue.peek()) < 0) {
+                    queue.poll();
+                    queue.add(ordinal);
+                }
+            }
+            ordinalList = new ArrayList<Integer>(queue);
+            Collections.sort(ordinalList, order);
+        }
+        final List<byte[]> result = new ArrayList<byte[]>(ordinalList.size());
+        for (final Integer ordinal: ordinalList) result.add(this.pks[ordinal]);
+        return result;
+    }
+
+    /**
+     * load the store from its file and delete the file afterwards
+     * @param expectedSize the number of rows in the table heap
+     * @return true if the store was loaded; false if the file does not exist or does not fit to the schema or table
+     */
+    public synchronized boolean load(final int expectedSize) {
+        if (!this.file.exists()) return false;
+        this.clear();
+        boolean success = false;
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file), 65536))) {
+            success = read(in, expectedSize);
+        } catch (final IOException e) {
+            log.warn("cannot read column store " + this.file.getName() + ": " + e.getMessage());
+        }
+        FileUtils.deletedelete(this.file);
+        if (!success) this.clear();
+        return success;
+    }
+
+    private boolean read(final DataInputStream in, final int expectedSize) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) return false;
+        final int columnCount = in.readInt();
+        if (columnCount != this.schema.size()) return false;
+        final Column[] order = new Column[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            final String name = in.readUTF();
+            final byte type = in.readByte();
+            final TablesSchema.ColumnDefinition definition = this.schema.get(name);
+            if (definition == null || definition.getType().ordinal() != type) return false;
+            order[c] = this.columns.get(name);
+            order[c].lossy = in.readBoolean();
+        }
+        final int rows = in.readInt();
+        if (rows != expectedSize) return false;
+        int capacity = this.pks.length;
+        while (capacity < rows) capacity *= 2;
+        this.pks = Arrays.copyOf(this.pks, capacity);
+        for (final Column column: this.columns.values()) column.grow(capacity);
+        for (int ordinal = 0; ordinal < rows; ordinal++) {
+            final byte[] pk = new byte[in.readShort()];
+            in.readFully(pk);
+            this.pks[ordinal] = pk;
+            this.ordinals.put(new ByteArray(pk), ordinal);
+        }
+        this.size = rows;
+        for (final Column column: order) column.read(in, rows);
+        return true;
+    }
+
+    /**
+     * write the store to its file
+     * @throws IOException
+     */
+    public synchronized void save() throws IOException {
+        final File tmp = new File(this.file.getParentFile(), this.file.getName() + ".prt");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 65536))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.schema.size());
+            for (final TablesSchema.ColumnDefinition definition: this.schema.columns()) {
+                out.writeUTF(definition.getName());
+                out.writeByte(definition.getType().ordinal());
+                out.writeBoolean(this.columns.get(definition.getName()).lossy);
+            }
+            out.writeInt(this.size);
+            for (int ordinal = 0; ordinal < this.size; ordinal++) {
+                out.writeShort(this.pks[ordinal].length);
+                out.write(this.pks[ordinal]);
+            }
+            for (final TablesSchema.ColumnDefinition definition: this.schema.columns()) {
+                this.columns.get(definition.getName()).write(out, this.size);
+            }
+        }
+        if (this.file.exists()) FileUtils.deletedelete(this.file);
+        if (!tmp.renameTo(this.file)) throw new IOException("cannot rename " + tmp.getName() + " to " + this.file.getName());
+    }
+
+    private static abstract class Column {
+
+        /**
+         * true if a value could not be stored without loss; such a column must not be used for selections
+         */
+        protected boolean lossy = false;
+
+        protected abstract void grow(int capacity);
+        protected abstract void clear();
+        protected abstract void set(int ordinal, byte[] value);
+        protected abstract byte[] get(int ordinal);
+        protected abstract void move(int from, int to);
+        protected abstract boolean equals(int ordinal, byte[] value);
+        protected abstract int compare(int a, int b);
+        protected abstract void write(DataOutputStream out, int size) throws IOException;
+        protected abstract void read(DataInputStream in, int size) throws IOException;
+    }
+
+    private static class StringColumn extends Column {
+
+        private byte[][] values = new byte[0][];
+
+        @Override
+        protected void grow(final int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+
+        @Override
+        protected void clear() {
+            Arrays.fill(this.values, null);
+            this.lossy = false;
+        }
+
+        @Override
+        protected void set(final int ordinal, final byte[] value) {
+            this.values[ordinal] = value;
+        }
+
+        @Override
+        protected byte[] get(final int ordinal) {
+            return this.values[ordinal];
+        }
+
+        @Override
+        protected void move(final int from, final int to) {
+            this.values[to] = this.values[from];
+        }
+
+        @Override
+        protected boolean equals(final int ordinal, final byte[] value) {
+            return Arrays.equals(this.values[ordinal], value);
+        }
+
+        @Override
+        protected int compare(final int a, final int b) {
+            final byte[] va = this.values[a], vb = this.values[b];
+            if (va == null) return vb == null ? 0 : -1;
+            if (vb == null) return 1;
+            return TablesColumnIndex.NATURALORDER.compare(va, vb);
+        }
+
+        @Override
+        protected void write(final DataOutputStream out, final int size) throws IOException {
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                final byte[] value = this.values[ordinal];
+                if (value == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            }
+        }
+
+        @Override
+        protected void read(final DataInputStream in, final int size) throws IOException {
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                final int length = in.readInt();
+                if (length < 0) {
+                    this.values[ordinal] = null;
+                } else {
+                    this.values[ordinal] = new byte[length];
+                    in.readFully(this.values[ordinal]);
+                }
+            }
+        }
+    }
+
+    private static class LongColumn extends Column {
+
+        private long[] values = new long[0];
+        private final BitSet present = new BitSet();
+
+        @Override
+        protected void grow(final int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+
+        @Override
+        protected void clear() {
+            Arrays.fill(this.values, 0L);
+            this.present.clear();
+            this.lossy = false;
+        }
+
+        @Override
+        protected void set(final int ordinal, final byte[] value) {
+            if (value == null) {
+                this.present.clear(ordinal);
+                return;
+            }
+            try {
+                final long v = ByteArray.parseDecimal(value);
+                if (!Arrays.equals(ASCII.getBytes(Long.toString(v)), value)) this.lossy = true; // i.e. leading zeros
+                this.values[ordinal] = v;
+                this.present.set(ordinal);
+            } catch (final NumberFormatException e) {
+                this.lossy = true;
+                this.present.clear(ordinal);
+            }
+        }
+
+        @Override
+        protected byte[] get(final int ordinal) {
+            return this.present.get(ordinal) ? ASCII.getBytes(Long.toString(this.values[ordinal])) : null;
+        }
+
+        @Override
+        protected void move(final int from, final int to) {
+            this.values[to] = this.values[from];
+            this.present.set(to, this.present.get(from));
+        }
+
+        @Override
+        protected boolean equals(final int ordinal, final byte[] value) {
+            if (!this.present.get(ordinal)) return value == null;
+            if (value == null) return false;
+            try {
+                return this.values[ordinal] == ByteArray.parseDecimal(value);
+            } catch (final NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        protected int compare(final int a, final int b) {
+            final boolean pa = this.present.get(a), pb = this.present.get(b);
+            if (!pa) return pb ? -1 : 0;
+            if (!pb) return 1;
+            return Long.compare(this.values[a], this.values[b]);
+        }
+
+        @Override
+        protected void write(final DataOutputStream out, final int size) throws IOException {
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                out.writeBoolean(this.present.get(ordinal));
+                out.writeLong(this.values[ordinal]);
+            }
+        }
+
+        @Override
+        protected void read(final DataInputStream in, final int size) throws IOException {
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                this.present.set(ordinal, in.readBoolean());
+                this.values[ordinal] = in.readLong();
+            }
+        }
+    }
+}
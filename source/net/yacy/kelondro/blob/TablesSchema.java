@@ -0,0 +1,123 @@
+// TablesSchema.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * a declaration of typed columns for a table in {@link Tables}.
+ * Tables with a schema get a {@link TablesColumnStore} which holds the declared columns
+ * in a column-oriented binary form, so selections and orderings on these columns
+ * can be computed without decoding the bencoded rows of the table heap.
+ * Columns which are not declared in the schema are still stored in the heap as before.
+ */
+public class TablesSchema {
+
+    public static enum ColumnType {
+        STRING, // any byte sequence, ordered by natural byte order
+        LONG;   // a decimal number; also used for dates in GenericFormatter.PATTERN_SHORT_MILSEC notation
+    }
+
+    public static class ColumnDefinition {
+
+        private final String name;
+        private final ColumnType type;
+        private final boolean indexed;
+
+        private ColumnDefinition(final String name, final ColumnType type, final boolean indexed) {
+            this.name = name;
+            this.type = type;
+            this.indexed = indexed;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public ColumnType getType() {
+            return this.type;
+        }
+
+        /**
+         * @return true if a secondary index shall be maintained for this column
+         */
+        public boolean isIndexed() {
+            return this.indexed;
+        }
+    }
+
+    private final Map<String, ColumnDefinition> columns;
+    private final TablesColumnIndex.INDEXTYPE indexType;
+
+    /**
+     * @param indexType the kind of {@link TablesColumnIndex} used for indexed columns
+     */
+    public TablesSchema(final TablesColumnIndex.INDEXTYPE indexType) {
+        this.columns = new LinkedHashMap<String, ColumnDefinition>();
+        this.indexType = indexType;
+    }
+
+    /**
+     * declare a column
+     * @param name the column name
+     * @param type the type of the column values
+     * @param indexed true if a secondary index shall be maintained for equality selections
+     * @return this schema
+     */
+    public TablesSchema column(final String name, final ColumnType type, final boolean indexed) {
+        this.columns.put(name, new ColumnDefinition(name, type, indexed));
+        return this;
+    }
+
+    public boolean has(final String name) {
+        return name != null && this.columns.containsKey(name);
+    }
+
+    public ColumnDefinition get(final String name) {
+        return this.columns.get(name);
+    }
+
+    public Collection<ColumnDefinition> columns() {
+        return this.columns.values();
+    }
+
+    public int size() {
+        return this.columns.size();
+    }
+
+    public TablesColumnIndex.INDEXTYPE getIndexType() {
+        return this.indexType;
+    }
+
+    /**
+     * @return a map of indexed column names to the value separator, as used by {@link TablesColumnIndex}
+     */
+    public Map<String, String> indexedColumns() {
+        final Map<String, String> indexed = new LinkedHashMap<String, String>();
+        for (final ColumnDefinition column: this.columns.values()) {
+            if (column.indexed) indexed.put(column.name, "");
+        }
+        return indexed;
+    }
+}
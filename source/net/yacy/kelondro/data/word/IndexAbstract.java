@@ -0,0 +1,621 @@
+/**
+ *  IndexAbstract
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.kelondro.data.word;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+
+/**
+ * An index abstract: the set of url hashes which a peer holds for one word. Each url hash is split into the
+ * path part (the first six characters) and the host part (the last six characters), which are held as 36 bit
+ * numbers in two arrays, sorted by host and then by path. Abstracts are joined and merged on these arrays.
+ *
+ * There are two transport formats. The text format lists the path parts per host:
+ * <code>{host:pathpathpath,host:path}</code>. The binary format is written with {@link #exportB64()}: a version
+ * byte followed by a bit stream with the number of hosts and for each host the distance to the previous host, the
+ * number of paths and the distances between the paths. Counts are written in the elias gamma code, distances in
+ * the rice code with a parameter for the average distance, which is written in front of each list of distances.
+ * As the url hashes are evenly distributed, this needs about 38 - log2(n) bits for each of n paths of a host
+ * instead of the 36 bits of the text format.
+ */
+public final class IndexAbstract implements Iterable<String> {
+
+    public static final IndexAbstract EMPTY = new IndexAbstract(new long[0], new long[0], 0);
+
+    private static final byte BINARY_V1 = 1;
+    private static final long MAX_PART = 1L << 36; // six base64 characters
+    private static final int INDEX_BITS = 27; // a host and an index fit into a positive long
+    private static final Base64Order coder = Base64Order.enhancedCoder;
+
+    private final long[] hosts, paths;
+    private final int size;
+
+    private IndexAbstract(final long[] hosts, final long[] paths, final int size) {
+        this.hosts = hosts;
+        this.paths = paths;
+        this.size = size;
+    }
+
+    /**
+     * create an index abstract from the references of a word
+     * @param inputContainer the references
+     * @param excludeContainer references which are not included, may be null
+     * @param maxtime the maximum time in milliseconds, a negative value means no limit
+     */
+    public static IndexAbstract compress(final ReferenceContainer<WordReference> inputContainer, final ReferenceContainer<WordReference> excludeContainer, final long maxtime) {
+        final long timeout = (maxtime < 0 || maxtime == Long.MAX_VALUE) ? Long.MAX_VALUE : System.currentTimeMillis() + maxtime;
+        long[] hosts, paths;
+        int n = 0;
+        synchronized (inputContainer) {
+            final int max = Math.min(inputContainer.size(), 1 << INDEX_BITS);
+            hosts = new long[max];
+            paths = new long[max];
+            final Iterator<WordReference> i = inputContainer.entries();
+            while (i.hasNext() && n < max) {
+                final byte[] urlhash = i.next().urlhash();
+                if (excludeContainer != null && excludeContainer.getReference(urlhash) != null) continue; // do not include urls that are in excludeContainer
+                final long host = decode(urlhash, 6), path = decode(urlhash, 0);
+                if (host < 0 || path < 0) continue;
+                hosts[n] = host;
+                paths[n] = path;
+                n++;
+                if ((n & 0xff) == 0 && System.currentTimeMillis() > timeout) break;
+            }
+        }
+        return sort(hosts, paths, n);
+    }
+
+    /**
+     * create an index abstract from url hashes
+     */
+    public static IndexAbstract of(final Collection<String> urlhashes) {
+        final long[] hosts = new long[Math.min(urlhashes.size(), 1 << INDEX_BITS)], paths = new long[hosts.length];
+        int n = 0;
+        for (final String urlhash: urlhashes) {
+            if (n == hosts.length) break;
+            if (urlhash.length() != Word.commonHashLength) continue;
+            final byte[] b = ASCII.getBytes(urlhash);
+            final long host = decode(b, 6), path = decode(b, 0);
+            if (host < 0 || path < 0) continue;
+            hosts[n] = host;
+            paths[n] = path;
+            n++;
+        }
+        return sort(hosts, paths, n);
+    }
+
+    /**
+     * sort the first n entries of the arrays and remove doubles
+     */
+    private static IndexAbstract sort(final long[] hosts, final long[] paths, final int n) {
+        if (n == 0) return EMPTY;
+        // sort by host; the index in the lower bits refers to the path
+        final long[] order = new long[n];
+        for (int i = 0; i < n; i++) order[i] = (hosts[i] << INDEX_BITS) | i;
+        Arrays.sort(order);
+        final long[] h = new long[n], p = new long[n];
+        for (int i = 0; i < n; i++) {
+            h[i] = order[i] >>> INDEX_BITS;
+            p[i] = paths[(int) (order[i] & ((1 << INDEX_BITS) - 1))];
+        }
+        // sort the paths of each host
+        int start = 0;
+        for (int i = 1; i <= n; i++) {
+            if (i == n || h[i] != h[start]) {
+                if (i - start > 1) Arrays.sort(p, start, i);
+                start = i;
+            }
+        }
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (m > 0 && h[i] == h[m - 1] && p[i] == p[m - 1]) continue;
+            h[m] = h[i];
+            p[m] = p[i];
+            m++;
+        }
+        return new IndexAbstract(h, p, m);
+    }
+
+    /**
+     * parse an index abstract in the text or the binary format
+     * @return the abstract, an empty abstract if the input is not well-formed
+     */
+    public static IndexAbstract parse(final String s) {
+        if (s == null || s.isEmpty()) return EMPTY;
+        if (s.charAt(0) == '{') return parseText(s);
+        return load(decodeB64(s));
+    }
+
+    private static IndexAbstract parseText(final String s) {
+        final int end = s.length() - 1;
+        if (s.charAt(end) != '}') return EMPTY;
+        long[] hosts = new long[Math.max(1, end / 7)], paths = new long[hosts.length];
+        int n = 0, p = 1;
+        parse: while (p + 13 <= end && s.charAt(p + 6) == ':') {
+            final long host = decode(s, p);
+            if (host < 0) break;
+            p += 7;
+            while (p < end && s.charAt(p) != ',') {
+                if (p + 6 > end) break parse;
+                final long path = decode(s, p);
+                if (path < 0) break parse;
+                if (n == hosts.length) {
+                    hosts = Arrays.copyOf(hosts, n * 2);
+                    paths = Arrays.copyOf(paths, n * 2);
+                }
+                hosts[n] = host;
+                paths[n] = path;
+                n++;
+                p += 6;
+            }
+            if (p < end && s.charAt(p) == ',') p++;
+        }
+        return sort(hosts, paths, n);
+    }
+
+    /**
+     * read the binary format
+     * @return the abstract, an empty abstract if the input is not well-formed
+     */
+    public static IndexAbstract load(final byte[] b) {
+        if (b == null || b.length < 2 || b[0] != BINARY_V1) return EMPTY;
+        final BitInput in = new BitInput(b, 8);
+        final long hostCount = in.gamma();
+        if (hostCount <= 0 || hostCount > (long) b.length * 8) return EMPTY;
+        final int hostk = (int) in.bits(6);
+        long[] hosts = new long[Math.min(b.length, 1024)], paths = new long[hosts.length];
+        int n = 0;
+        long host = 0;
+        for (long h = 0; h < hostCount; h++) {
+            final long hostDelta = in.rice(hostk);
+            if (hostDelta < 0 || (h > 0 && hostDelta == 0)) return EMPTY;
+            host += hostDelta;
+            final long count = in.gamma();
+            if (host >= MAX_PART || count <= 0 || count > (long) b.length * 8) return EMPTY;
+            final int pathk = (int) in.bits(6);
+            long path = 0;
+            for (long c = 0; c < count; c++) {
+                final long pathDelta = in.rice(pathk);
+                if (pathDelta < 0 || (c > 0 && pathDelta == 0)) return EMPTY;
+                path += pathDelta;
+                if (path >= MAX_PART) return EMPTY;
+                if (n == hosts.length) {
+                    hosts = Arrays.copyOf(hosts, n * 2);
+                    paths = Arrays.copyOf(paths, n * 2);
+                }
+                hosts[n] = host;
+                paths[n] = path;
+                n++;
+            }
+        }
+        if (!in.atEnd()) return EMPTY;
+        return new IndexAbstract(hosts, paths, n);
+    }
+
+    /**
+     * @return the binary format
+     */
+    public byte[] export() {
+        if (this.size == 0) return new byte[]{BINARY_V1, 0};
+        final BitOutput out = new BitOutput(this.size * 6 + 16);
+        out.bits(BINARY_V1, 8);
+        int hostCount = 0;
+        for (int i = 0; i < this.size; i++) if (i == 0 || this.hosts[i] != this.hosts[i - 1]) hostCount++;
+        out.gamma(hostCount);
+        final int hostk = riceParameter(this.hosts[this.size - 1] + 1, hostCount);
+        out.bits(hostk, 6);
+        long host = 0;
+        int i = 0;
+        while (i < this.size) {
+            int j = i + 1;
+            while (j < this.size && this.hosts[j] == this.hosts[i]) j++;
+            out.rice(this.hosts[i] - host, hostk);
+            out.gamma(j - i);
+            host = this.hosts[i];
+            final int pathk = riceParameter(this.paths[j - 1] + 1, j - i);
+            out.bits(pathk, 6);
+            long path = 0;
+            for (int k = i; k < j; k++) {
+                out.rice(this.paths[k] - path, pathk);
+                path = this.paths[k];
+            }
+            i = j;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the binary format as base64 string, which can be transported in the text response of a peer
+     */
+    public String exportB64() {
+        return coder.encode(export());
+    }
+
+    /**
+     * @return the text format
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(this.size * 7 + 2);
+        final byte[] b = new byte[6];
+        sb.append('{');
+        for (int i = 0; i < this.size; i++) {
+            if (i == 0 || this.hosts[i] != this.hosts[i - 1]) {
+                if (i > 0) sb.append(',');
+                coder.encodeLong(this.hosts[i], b, 0, 6);
+                sb.append(ASCII.String(b)).append(':');
+            }
+            coder.encodeLong(this.paths[i], b, 0, 6);
+            sb.append(ASCII.String(b));
+        }
+        return sb.append('}').toString();
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return the url hash at the given position in the order of the abstract
+     */
+    public String urlhash(final int i) {
+        final byte[] b = new byte[Word.commonHashLength];
+        coder.encodeLong(this.paths[i], b, 0, 6);
+        coder.encodeLong(this.hosts[i], b, 6, 6);
+        return ASCII.String(b);
+    }
+
+    /**
+     * @return all url hashes concatenated, as they are sent in the urls parameter of a search request
+     */
+    public String hashes() {
+        final byte[] b = new byte[this.size * Word.commonHashLength];
+        for (int i = 0; i < this.size; i++) {
+            coder.encodeLong(this.paths[i], b, i * Word.commonHashLength, 6);
+            coder.encodeLong(this.hosts[i], b, i * Word.commonHashLength + 6, 6);
+        }
+        return ASCII.String(b);
+    }
+
+    public boolean contains(final String urlhash) {
+        if (urlhash.length() != Word.commonHashLength) return false;
+        final long host = decode(urlhash, 6), path = decode(urlhash, 0);
+        return host >= 0 && path >= 0 && indexOf(host, path, 0) >= 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.i < IndexAbstract.this.size;
+            }
+
+            @Override
+            public String next() {
+                if (this.i >= IndexAbstract.this.size) throw new NoSuchElementException();
+                return urlhash(this.i++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @return the url hashes which are in both abstracts
+     */
+    public IndexAbstract join(final IndexAbstract other) {
+        if (this.size > other.size) return other.join(this);
+        if (this.size == 0) return EMPTY;
+        final long[] h = new long[this.size], p = new long[this.size];
+        int n = 0;
+        if (this.size * 16 < other.size) {
+            // the other abstract is much larger: search the entries of this abstract in it
+            int from = 0;
+            for (int i = 0; i < this.size; i++) {
+                final int j = other.indexOf(this.hosts[i], this.paths[i], from);
+                if (j >= 0) {
+                    h[n] = this.hosts[i];
+                    p[n++] = this.paths[i];
+                    from = j + 1;
+                } else {
+                    from = -j - 1;
+                }
+            }
+        } else {
+            int i = 0, j = 0;
+            while (i < this.size && j < other.size) {
+                final int c = compare(this.hosts[i], this.paths[i], other.hosts[j], other.paths[j]);
+                if (c < 0) i++;
+                else if (c > 0) j++;
+                else {
+                    h[n] = this.hosts[i];
+                    p[n++] = this.paths[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return n == 0 ? EMPTY : new IndexAbstract(h, p, n);
+    }
+
+    /**
+     * @return true if the abstracts have at least one url hash in common
+     */
+    public boolean intersects(final IndexAbstract other) {
+        int i = 0, j = 0;
+        while (i < this.size && j < other.size) {
+            final int c = compare(this.hosts[i], this.paths[i], other.hosts[j], other.paths[j]);
+            if (c < 0) i++;
+            else if (c > 0) j++;
+            else return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the url hashes which are in one of the abstracts
+     */
+    public IndexAbstract merge(final IndexAbstract other) {
+        if (other.size == 0) return this;
+        if (this.size == 0) return other;
+        final long[] h = new long[this.size + other.size], p = new long[h.length];
+        int i = 0, j = 0, n = 0;
+        while (i < this.size || j < other.size) {
+            final int c = i == this.size ? 1 : j == other.size ? -1 : compare(this.hosts[i], this.paths[i], other.hosts[j], other.paths[j]);
+            if (c <= 0) {
+                h[n] = this.hosts[i];
+                p[n++] = this.paths[i++];
+                if (c == 0) j++;
+            } else {
+                h[n] = other.hosts[j];
+                p[n++] = other.paths[j++];
+            }
+        }
+        return new IndexAbstract(h, p, n);
+    }
+
+    /**
+     * @return the url hashes which are in all abstracts; the smallest abstracts are joined first
+     */
+    public static IndexAbstract join(final Collection<IndexAbstract> abstracts) {
+        if (abstracts.isEmpty()) return EMPTY;
+        final List<IndexAbstract> ordered = new ArrayList<IndexAbstract>(abstracts);
+        Collections.sort(ordered, new Comparator<IndexAbstract>() {
+            @Override
+            public int compare(final IndexAbstract a, final IndexAbstract b) {
+                return Integer.compare(a.size, b.size);
+            }
+        });
+        IndexAbstract join = ordered.get(0);
+        for (int i = 1; i < ordered.size() && !join.isEmpty(); i++) join = join.join(ordered.get(i));
+        return join;
+    }
+
+    /**
+     * @return the url hashes which are in one of the abstracts
+     */
+    public static IndexAbstract merge(final Collection<IndexAbstract> abstracts) {
+        IndexAbstract merge = EMPTY;
+        for (final IndexAbstract a: abstracts) merge = merge.merge(a);
+        return merge;
+    }
+
+    /**
+     * binary search for an entry, starting at the given position
+     * @return the position of the entry or, if the entry is not contained, -(insertion point) - 1
+     */
+    private int indexOf(final long host, final long path, final int from) {
+        int low = from, high = this.size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int c = compare(this.hosts[mid], this.paths[mid], host, path);
+            if (c < 0) low = mid + 1;
+            else if (c > 0) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    private static int compare(final long host1, final long path1, final long host2, final long path2) {
+        return host1 != host2 ? (host1 < host2 ? -1 : 1) : (path1 < path2 ? -1 : path1 == path2 ? 0 : 1);
+    }
+
+    /**
+     * decode six base64 characters
+     * @return the number or -1 if there is a character which is not in the base64 alphabet
+     */
+    private static long decode(final byte[] b, final int off) {
+        long c = 0;
+        for (int i = off; i < off + 6; i++) {
+            final byte d = b[i] < 0 ? -1 : coder.decodeByte(b[i]);
+            if (d < 0) return -1;
+            c = (c << 6) | d;
+        }
+        return c;
+    }
+
+    /**
+     * decode base64 like {@link Base64Order#decode(String)}, without a string for each four characters
+     * @return the bytes, null if the input contains other characters
+     */
+    private static byte[] decodeB64(final String s) {
+        final byte[] b = new byte[s.length() * 6 / 8];
+        int bits = 0, acc = 0, p = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final char ch = s.charAt(i);
+            final byte d = ch >= 128 ? -1 : coder.decodeByte(ch);
+            if (d < 0) return null;
+            acc = (acc << 6) | d;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                b[p++] = (byte) (acc >>> bits);
+            }
+        }
+        return b;
+    }
+
+    private static long decode(final String s, final int off) {
+        long c = 0;
+        for (int i = off; i < off + 6; i++) {
+            final char ch = s.charAt(i);
+            final byte d = ch >= 128 ? -1 : coder.decodeByte(ch);
+            if (d < 0) return -1;
+            c = (c << 6) | d;
+        }
+        return c;
+    }
+
+    /**
+     * @return the number of low bits of the rice code for count sorted numbers in the range 0..range
+     */
+    private static int riceParameter(final long range, final int count) {
+        final long gap = Math.max(1, range / count);
+        return Math.min(35, 63 - Long.numberOfLeadingZeros(gap));
+    }
+
+    /**
+     * writes numbers bitwise: plain, with the elias gamma code and with the rice code
+     */
+    private static final class BitOutput {
+        private byte[] b;
+        private int bits;
+
+        private BitOutput(final int expectedBytes) {
+            this.b = new byte[expectedBytes];
+            this.bits = 0;
+        }
+
+        private void bit(final boolean one) {
+            if (this.bits >>> 3 == this.b.length) this.b = Arrays.copyOf(this.b, this.b.length * 2);
+            if (one) this.b[this.bits >>> 3] |= 0x80 >>> (this.bits & 7);
+            this.bits++;
+        }
+
+        private void bits(final long v, final int n) {
+            for (int i = n - 1; i >= 0; i--) bit(((v >>> i) & 1) != 0);
+        }
+
+        private void gamma(final long v) {
+            final int n = 63 - Long.numberOfLeadingZeros(v);
+            for (int i = 0; i < n; i++) bit(false);
+            bits(v, n + 1);
+        }
+
+        private void rice(final long v, final int k) {
+            for (long q = v >>> k; q > 0; q--) bit(true);
+            bit(false);
+            bits(v, k);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(this.b, (this.bits + 7) >>> 3);
+        }
+    }
+
+    /**
+     * reads the numbers of a {@link BitOutput}; all methods return -1 at the end of the input
+     */
+    private static final class BitInput {
+        private final byte[] b;
+        private int bits;
+
+        private BitInput(final byte[] b, final int offset) {
+            this.b = b;
+            this.bits = offset;
+        }
+
+        private int bit() {
+            if (this.bits >>> 3 >= this.b.length) return -1;
+            final int bit = (this.b[this.bits >>> 3] >>> (7 - (this.bits & 7))) & 1;
+            this.bits++;
+            return bit;
+        }
+
+        private long bits(final int n) {
+            if (this.bits + n > this.b.length << 3) return -1;
+            long v = 0;
+            int left = n;
+            while (left > 0) {
+                final int used = this.bits & 7, take = Math.min(8 - used, left);
+                v = (v << take) | (((this.b[this.bits >>> 3] & 0xff) >>> (8 - used - take)) & ((1 << take) - 1));
+                this.bits += take;
+                left -= take;
+            }
+            return v;
+        }
+
+        private long gamma() {
+            int n = 0;
+            int bit;
+            while ((bit = bit()) == 0) if (++n > 40) return -1;
+            if (bit < 0) return -1;
+            final long rest = bits(n);
+            return rest < 0 ? -1 : (1L << n) | rest;
+        }
+
+        private long rice(final int k) {
+            // count the leading one bits bytewise
+            long q = 0;
+            while (true) {
+                if (this.bits >>> 3 >= this.b.length) return -1;
+                final int used = this.bits & 7;
+                final int ones = Integer.numberOfLeadingZeros(~(this.b[this.bits >>> 3] << (24 + used)));
+                if (ones < 8 - used) {
+                    q += ones;
+                    this.bits += ones + 1;
+                    break;
+                }
+                q += 8 - used;
+                this.bits += 8 - used;
+                if (q > MAX_PART) return -1;
+            }
+            final long r = bits(k);
+            return r < 0 ? -1 : (q << k) | r;
+        }
+
+        /**
+         * @return true if only the padding of the last byte is left
+         */
+        private boolean atEnd() {
+            return (this.bits + 7) >>> 3 == this.b.length;
+        }
+    }
+}
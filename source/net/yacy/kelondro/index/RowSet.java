@@ -353,6 +353,48 @@ public class RowSet extends RowCollection implements Index, Iterable<Row.Entry>,
         return l;
     }
 
+    /**
+     * find the position of a key in the sorted area, starting at a given position.
+     * The distance to the key is found with steps of doubled length (galloping) and the key is then searched
+     * with a binary search inside the last step. If keys are searched in ascending order and each search starts at
+     * the position returned by the previous search, this needs much less compare operations than a binary search
+     * over the whole set when only few keys are searched in a large set.
+     * @param key the key to search
+     * @param from the position where the search starts; all entries before this position must be smaller than the key
+     * @return the position of the key if it exists, otherwise (-(insertion point) - 1)
+     */
+    public final synchronized int gallop(final byte[] key, final int from) {
+        assert key.length == this.rowdef.primaryKeyLength;
+        assert this.rowdef.objectOrder != null;
+        if (from >= this.sortBound) return -this.sortBound - 1;
+        int l = from;
+        int d = compare(key, 0, l);
+        if (d == 0) return l;
+        if (d < 0) return -l - 1;
+        // the key is greater than the entry at l; gallop until an entry is not smaller than the key
+        int step = 1;
+        int rbound = l + step;
+        while (rbound < this.sortBound) {
+            d = compare(key, 0, rbound);
+            if (d == 0) return rbound;
+            if (d < 0) break;
+            l = rbound;
+            step <<= 1;
+            rbound = l + step;
+        }
+        if (rbound > this.sortBound) rbound = this.sortBound;
+        // binary search between l (exclusive, smaller than key) and rbound (exclusive)
+        l++;
+        int p;
+        while (l < rbound) {
+            p = (l + rbound) >> 1;
+            d = compare(key, 0, p);
+            if (d == 0) return p;
+            if (d < 0) rbound = p; else l = p + 1;
+        }
+        return -l - 1;
+    }
+
     public final synchronized Iterator<byte[]> keys() {
         sort();
         return super.keys(true);
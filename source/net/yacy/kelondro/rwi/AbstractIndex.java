@@ -136,6 +136,20 @@ public abstract class AbstractIndex <ReferenceType extends Reference> implements
         return new TermSearch<ReferenceType>(this, queryHashes, excludeHashes, urlselection, termFactory, maxDistance);
     }
 
+    /**
+     * @param keepInclusion if false, the terms are joined starting with the rarest term and the inclusion containers are not kept,
+     *   see {@link TermSearch#TermSearch(Index, HandleSet, HandleSet, HandleSet, ReferenceFactory, int, boolean)}
+     */
+    public TermSearch<ReferenceType> query(
+            final HandleSet queryHashes,
+            final HandleSet excludeHashes,
+            final HandleSet urlselection,
+            final ReferenceFactory<ReferenceType> termFactory,
+            final int maxDistance,
+            final boolean keepInclusion) throws SpaceExceededException {
+        return new TermSearch<ReferenceType>(this, queryHashes, excludeHashes, urlselection, termFactory, maxDistance, keepInclusion);
+    }
+
     @Override
     public Row referenceRow() {
         return this.factory.getRow();
@@ -318,8 +318,10 @@ public class ReferenceContainer<ReferenceType extends Reference> extends RowSet
         if (includeContainers == null) return ReferenceContainer.emptyContainer(factory, null, 0);
 
         // join the result
-        final ReferenceContainer<ReferenceType> rcLocal = ReferenceContainer.joinContainers(factory, includeContainers, maxDistance);
+        ReferenceContainer<ReferenceType> rcLocal = ReferenceContainer.joinContainers(factory, includeContainers, maxDistance);
         if (rcLocal == null) return ReferenceContainer.emptyContainer(factory, null, 0);
+        // a single include container is returned without a join; it may be a container of the index which must not be changed
+        if (includeContainers.size() == 1 && excludeContainers != null && !excludeContainers.isEmpty()) rcLocal = rcLocal.topLevelClone();
         excludeContainers(factory, rcLocal, excludeContainers);
 
         return rcLocal;
@@ -488,6 +490,106 @@ public class ReferenceContainer<ReferenceType extends Reference> extends RowSet
         return conj;
     }
 
+    /**
+     * join a set of candidate references with a container by galloping search in the container:
+     * the candidates are enumerated in key order and each candidate is searched starting at the position of the
+     * previous hit, so the container is only probed at O(candidates * log(container / candidates)) positions and
+     * its other entries are never decoded. This is the best join method if the container is much larger than the
+     * set of candidates.
+     * @param factory
+     * @param candidates the smaller set of references
+     * @param container the larger set of references
+     * @param maxDistance
+     * @return a new sorted container with the joined references
+     * @throws SpaceExceededException
+     */
+    public static <ReferenceType extends Reference> ReferenceContainer<ReferenceType> joinGalloping(
+            final ReferenceFactory<ReferenceType> factory,
+            final ReferenceContainer<ReferenceType> candidates,
+            final ReferenceContainer<ReferenceType> container,
+            final int maxDistance) throws SpaceExceededException {
+        final ReferenceContainer<ReferenceType> conj = new ReferenceContainer<ReferenceType>(factory, null, 0); // start with empty search result
+        if (candidates == null || container == null || candidates.isEmpty() || container.isEmpty()) return conj;
+        assert candidates.rowdef.equals(container.rowdef) : "candidates = " + candidates.rowdef.toString() + "; container = " + container.rowdef.toString();
+        candidates.sort();
+        container.sort();
+        final Iterator<ReferenceType> e = candidates.entries();
+        ReferenceType ie1, ie2;
+        byte[] b;
+        int p = 0, q;
+        while (e.hasNext()) {
+            ie1 = e.next();
+            q = container.gallop(ie1.urlhash(), p);
+            if (q < 0) {
+                p = -q - 1;
+                if (p >= container.size()) break;
+                continue;
+            }
+            p = q + 1;
+            // we have found the same urls in different searches!
+            ie2 = factory.produceSlow(container.get(q, false));
+            ie1 = factory.produceFast(ie1, true);
+            ie1.join(ie2);
+            if (ie1.distance() <= maxDistance) {
+                b = ie1.toKelondroEntry().bytes();
+                conj.addSorted(b, 0, b.length);
+            }
+            if (p >= container.size()) break;
+        }
+        return conj;
+    }
+
+    /**
+     * remove all references from a set of candidates which appear in an exclusion container,
+     * using a galloping search in the exclusion container like {@link #joinGalloping}.
+     * The candidates are not modified, because they may be a container of the index itself.
+     * @param factory
+     * @param candidates
+     * @param excl
+     * @return a sorted container with the remaining references or the candidates if nothing is excluded
+     * @throws SpaceExceededException
+     */
+    public static <ReferenceType extends Reference> ReferenceContainer<ReferenceType> excludeGalloping(
+            final ReferenceFactory<ReferenceType> factory,
+            final ReferenceContainer<ReferenceType> candidates,
+            final ReferenceContainer<ReferenceType> excl) throws SpaceExceededException {
+        if (candidates == null || excl == null || candidates.isEmpty() || excl.isEmpty()) return candidates;
+        assert candidates.rowdef.equals(excl.rowdef) : "candidates = " + candidates.rowdef.toString() + "; excl = " + excl.rowdef.toString();
+        candidates.sort();
+        excl.sort();
+        if (excl.size() < candidates.size()) {
+            // look up the few exclusions first; most often none of them is a candidate and nothing must be copied
+            final Iterator<Row.Entry> e = excl.iterator();
+            int p = 0, q;
+            boolean found = false;
+            while (e.hasNext() && p < candidates.size()) {
+                q = candidates.gallop(e.next().getPrimaryKeyBytes(), p);
+                if (q >= 0) {found = true; break;}
+                p = -q - 1;
+            }
+            if (!found) return candidates;
+        }
+        final ReferenceContainer<ReferenceType> rest = new ReferenceContainer<ReferenceType>(factory, candidates.getTermHash(), 0);
+        final Iterator<Row.Entry> e = candidates.iterator();
+        Row.Entry row;
+        byte[] b;
+        int p = 0, q;
+        boolean excluded = false;
+        while (e.hasNext()) {
+            row = e.next();
+            q = excl.gallop(row.getPrimaryKeyBytes(), p);
+            if (q >= 0) {
+                p = q + 1;
+                excluded = true;
+                continue;
+            }
+            p = -q - 1;
+            b = row.bytes();
+            rest.addSorted(b, 0, b.length);
+        }
+        return excluded ? rest : candidates;
+    }
+
     public static <ReferenceType extends Reference> ReferenceContainer<ReferenceType> excludeDestructive(
             final ReferenceFactory<ReferenceType> factory,
             final ReferenceContainer<ReferenceType> pivot,
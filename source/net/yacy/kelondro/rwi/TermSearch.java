@@ -27,10 +27,16 @@
 
 package net.yacy.kelondro.rwi;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.TreeMap;
 
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.storage.HandleSet;
+import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 
 
@@ -46,6 +52,28 @@ public class TermSearch <ReferenceType extends Reference> {
             final HandleSet urlselection,
             ReferenceFactory<ReferenceType> termFactory,
             int maxDistance) throws SpaceExceededException {
+        this(base, queryHashes, excludeHashes, urlselection, termFactory, maxDistance, true);
+    }
+
+    /**
+     * @param keepInclusion if true, all inclusion containers are loaded and available with {@link #inclusion()},
+     *   which is needed to compute index abstracts. If false, the terms are joined starting with the rarest term and
+     *   containers are only loaded as long as the join result is not empty; {@link #inclusion()} is then empty.
+     */
+    public TermSearch(
+            Index<ReferenceType> base,
+            final HandleSet queryHashes,
+            final HandleSet excludeHashes,
+            final HandleSet urlselection,
+            ReferenceFactory<ReferenceType> termFactory,
+            int maxDistance,
+            final boolean keepInclusion) throws SpaceExceededException {
+
+        if (!keepInclusion) {
+            this.inclusionContainers = new TreeMap<byte[], ReferenceContainer<ReferenceType>>(Base64Order.enhancedCoder);
+            this.joinResult = joinRarestFirst(base, queryHashes, excludeHashes, urlselection, termFactory, maxDistance);
+            return;
+        }
 
         this.inclusionContainers =
             (queryHashes.isEmpty()) ?
@@ -69,6 +97,87 @@ public class TermSearch <ReferenceType extends Reference> {
                 maxDistance);
     }
 
+    /**
+     * a term of the query together with its reference count
+     */
+    private static class Term {
+        private final byte[] hash;
+        private final int count;
+        private final boolean exclude;
+        private Term(final byte[] hash, final int count, final boolean exclude) {
+            this.hash = hash;
+            this.count = count;
+            this.exclude = exclude;
+        }
+    }
+
+    private static final Comparator<Term> countComparator = new Comparator<Term>() {
+        @Override
+        public int compare(final Term t0, final Term t1) {
+            return t0.count < t1.count ? -1 : t0.count == t1.count ? 0 : 1;
+        }
+    };
+
+    /**
+     * Join the inclusion terms and remove the exclusion terms, ordered by the number of references of each term.
+     * The join starts with the container of the rarest inclusion term; every other inclusion and exclusion term
+     * is then applied in the order of its reference count with a galloping search over the url hash order
+     * of its container. Exclusions which are rarer than an inclusion are therefore applied before that inclusion.
+     * The join stops as soon as the result is empty, so the containers of frequent terms are not loaded
+     * if a rare term does not match any other term.
+     * @return the joined container, never null
+     */
+    private static <ReferenceType extends Reference> ReferenceContainer<ReferenceType> joinRarestFirst(
+            final Index<ReferenceType> base,
+            final HandleSet queryHashes,
+            final HandleSet excludeHashes,
+            final HandleSet urlselection,
+            final ReferenceFactory<ReferenceType> termFactory,
+            final int maxDistance) throws SpaceExceededException {
+        if (queryHashes.isEmpty()) return ReferenceContainer.emptyContainer(termFactory, null, 0);
+
+        // get the reference counts; they are cached in the index and do not load the containers
+        final List<Term> includes = new ArrayList<Term>(queryHashes.size());
+        for (final byte[] hash: queryHashes) {
+            final int count = base.count(hash);
+            if (count == 0 && !base.has(hash)) return ReferenceContainer.emptyContainer(termFactory, null, 0); // conjunction with an unknown term
+            includes.add(new Term(hash, count, false));
+        }
+        Collections.sort(includes, countComparator);
+        final List<Term> operations = new ArrayList<Term>(includes.subList(1, includes.size()));
+        if (excludeHashes != null) for (final byte[] hash: excludeHashes) {
+            final int count = base.count(hash);
+            if (count == 0 && !base.has(hash)) continue; // nothing to exclude
+            operations.add(new Term(hash, count, true));
+        }
+        Collections.sort(operations, countComparator); // stable: inclusions before exclusions of the same count
+
+        ReferenceContainer<ReferenceType> result = load(base, includes.get(0).hash, urlselection);
+        for (final Term term: operations) {
+            if (result == null || result.isEmpty()) break;
+            final ReferenceContainer<ReferenceType> container = load(base, term.hash, urlselection);
+            if (term.exclude) {
+                result = ReferenceContainer.excludeGalloping(termFactory, result, container);
+            } else {
+                if (container == null || container.isEmpty()) return ReferenceContainer.emptyContainer(termFactory, null, 0);
+                result = container.size() < result.size() ?
+                        ReferenceContainer.joinGalloping(termFactory, container, result, maxDistance) :
+                        ReferenceContainer.joinGalloping(termFactory, result, container, maxDistance);
+            }
+        }
+        if (result == null) return ReferenceContainer.emptyContainer(termFactory, null, 0);
+        return result;
+    }
+
+    private static <ReferenceType extends Reference> ReferenceContainer<ReferenceType> load(final Index<ReferenceType> base, final byte[] termHash, final HandleSet urlselection) {
+        try {
+            return base.get(termHash, urlselection);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            return null;
+        }
+    }
+
     public ReferenceContainer<ReferenceType> joined() {
         return this.joinResult;
     }
@@ -92,7 +92,6 @@ import net.yacy.cora.protocol.http.HTTPClient;
 import net.yacy.cora.sorting.ClusteredScoreMap;
 import net.yacy.cora.sorting.ReversibleScoreMap;
 import net.yacy.cora.storage.HandleSet;
-import net.yacy.cora.util.ByteBuffer;
 import net.yacy.cora.util.CommonPattern;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.JSONArray;
@@ -103,9 +102,9 @@ import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.crawler.data.ResultURLs;
 import net.yacy.crawler.data.ResultURLs.EventOrigin;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
+import net.yacy.kelondro.data.word.IndexAbstract;
 import net.yacy.kelondro.data.word.Word;
 import net.yacy.kelondro.data.word.WordReference;
-import net.yacy.kelondro.data.word.WordReferenceFactory;
 import net.yacy.kelondro.rwi.Reference;
 import net.yacy.kelondro.rwi.ReferenceContainer;
 import net.yacy.kelondro.rwi.ReferenceContainerCache;
@@ -541,7 +540,8 @@ public final class Protocol {
                         partitions,
                         target.getHexHash() + ".yacyh",
                         targetBaseURL,
-                        secondarySearchSuperviser
+                        secondarySearchSuperviser,
+                        target.getVersion() >= yacyVersion.YACY_SUPPORTS_BINARY_INDEX_ABSTRACTS
                         );
                 break;
             } catch (final IOException e ) {
@@ -572,20 +572,14 @@ public final class Protocol {
         if ( secondarySearchSuperviser != null ) {
             String wordhash;
             String whacc = "";
-            ByteBuffer ci;
             int ac = 0;
             for ( final Map.Entry<byte[], String> abstractEntry : result.indexabstract.entrySet() ) {
-                try {
-                    ci = new ByteBuffer(abstractEntry.getValue());
-                    wordhash = ASCII.String(abstractEntry.getKey());
-                } catch (final OutOfMemoryError e ) {
-                    ConcurrentLog.logException(e);
-                    continue;
-                }
+                wordhash = ASCII.String(abstractEntry.getKey());
                 whacc += wordhash;
                 secondarySearchSuperviser.addAbstract(
                     wordhash,
-                    WordReferenceFactory.decompressIndex(ci, target.hash));
+                    target.hash,
+                    IndexAbstract.parse(abstractEntry.getValue()));
                 ac++;
 
             }
@@ -634,7 +628,8 @@ public final class Protocol {
                         partitions,
                         target.getHexHash() + ".yacyh",
                         targetBaseURL,
-                        null
+                        null,
+                        false
                         );
                 break;
             } catch (final IOException e ) {
@@ -900,7 +895,8 @@ public final class Protocol {
             final int partitions,
             final String hostname,
             final String targetBaseURL,
-            final SecondarySearchSuperviser secondarySearchSuperviser
+            final SecondarySearchSuperviser secondarySearchSuperviser,
+            final boolean binaryAbstracts
             ) throws IOException {
             // send a search request to peer with remote Hash
 
@@ -953,7 +949,13 @@ public final class Protocol {
             parts.put("profile", UTF8.StringBody(crypt.simpleEncode(event.query.ranking.toExternalString())));
             parts.put("constraint", UTF8.StringBody((event.query.constraint == null) ? "" : event.query.constraint.exportB64()));
             if ( secondarySearchSuperviser != null ) {
-                parts.put("abstracts", UTF8.StringBody("auto"));
+                if ( binaryAbstracts ) {
+                    // the peer sends the abstracts of all words at once in the compact binary format
+                    parts.put("abstracts", UTF8.StringBody(wordhashes));
+                    parts.put("abstractformat", UTF8.StringBody("binary"));
+                } else {
+                    parts.put("abstracts", UTF8.StringBody("auto"));
+                }
                 // resultMap = FileUtils.table(HTTPConnector.getConnector(MultiProtocolURI.yacybotUserAgent).post(new MultiProtocolURI("http://" + hostaddress + "/yacy/search.html"), 60000, hostname, parts));
                 //resultMap = FileUtils.table(HTTPConnector.getConnector(MultiProtocolURI.crawlerUserAgent).post(new MultiProtocolURI("http://" + target.getClusterAddress() + "/yacy/search.html"), 60000, target.getHexHash() + ".yacyh", parts));
             }
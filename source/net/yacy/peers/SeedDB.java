@@ -80,6 +80,7 @@ public final class SeedDB implements AlternativeDomainNames {
     public static final String[]      sortFields = new String[] {Seed.LCOUNT, Seed.RCOUNT, Seed.ICOUNT, Seed.UPTIME, Seed.VERSION, Seed.LASTSEEN};
     public static final String[]   longaccFields = new String[] {Seed.LCOUNT, Seed.ICOUNT, Seed.ISPEED};
     public static final String[] doubleaccFields = new String[] {Seed.RSPEED};
+    public static final String[]     indexFields = new String[] {Seed.NAME, Seed.IP};
 
     // class objects
     private File seedActiveDBFile, seedPassiveDBFile, seedPotentialDBFile;
@@ -296,12 +297,12 @@ public final class SeedDB implements AlternativeDomainNames {
 				ConcurrentLog.warn("yacySeedDB", "could not create directories for "+ seedDBFile.getParent());
 		}
         try {
-            return new MapDataMining(seedDBFile, Word.commonHashLength, Base64Order.enhancedCoder, 1024 * 512, 500, sortFields, longaccFields, doubleaccFields);
+            return new MapDataMining(seedDBFile, Word.commonHashLength, Base64Order.enhancedCoder, 1024 * 512, 500, sortFields, longaccFields, doubleaccFields, indexFields);
         } catch (final Exception e) {
             // try again
             FileUtils.deletedelete(seedDBFile);
             try {
-                return new MapDataMining(seedDBFile, Word.commonHashLength, Base64Order.enhancedCoder, 1024 * 512, 500, sortFields, longaccFields, doubleaccFields);
+                return new MapDataMining(seedDBFile, Word.commonHashLength, Base64Order.enhancedCoder, 1024 * 512, 500, sortFields, longaccFields, doubleaccFields, indexFields);
             } catch (final IOException e1) {
                 ConcurrentLog.logException(e1);
                 System.exit(-1);
@@ -49,7 +49,7 @@ import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.id.AnchorURL;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.order.Base64Order;
-import net.yacy.cora.sorting.ClusteredScoreMap;
+import net.yacy.cora.sorting.IntScoreMap;
 import net.yacy.cora.sorting.ReversibleScoreMap;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.LookAheadIterator;
@@ -870,7 +870,7 @@ public class WebStructureGraph {
     }
     
     public ReversibleScoreMap<String> hostReferenceScore() {
-        ReversibleScoreMap<String> result = new ClusteredScoreMap<String>(ASCII.identityASCIIComparator);
+        ReversibleScoreMap<String> result = new IntScoreMap<String>();
         synchronized ( this.structure_old ) {
             for ( final Map.Entry<String, byte[]> entry : this.structure_old.entrySet() ) {
                 result.set(entry.getKey().substring(7), (entry.getValue().length - 8) / 10);
@@ -12,6 +12,7 @@ public class yacyVersion implements Comparator<yacyVersion>, Comparable<yacyVers
     public static final double YACY_SUPPORTS_GZIP_POST_REQUESTS_CHUNKED = (float) 0.58204761;
     public static final double YACY_HANDLES_COLLECTION_INDEX = (float) 0.486;
     public static final double YACY_POVIDES_REMOTECRAWL_LISTS = (float) 0.550;
+    public static final double YACY_SUPPORTS_BINARY_INDEX_ABSTRACTS = (float) 1.922;
     private static yacyVersion thisVersion = null;
 
     private double releaseNr;
@@ -37,8 +37,6 @@ import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.encoding.UTF8;
@@ -51,6 +49,7 @@ import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.protocol.ResponseHeader;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.SingleFlight;
 import net.yacy.crawler.data.Cache;
 import net.yacy.crawler.data.CrawlProfile;
 import net.yacy.crawler.retrieval.FTPLoader;
@@ -70,6 +69,7 @@ import net.yacy.search.Switchboard;
 public final class LoaderDispatcher {
 
     private final static int accessTimeMaxsize = 1000;
+    private final static long steeringTimeout = 5000; // maximum time to wait for a concurrent load of the same url
     private final static ConcurrentLog log = new ConcurrentLog("LOADER");
     private static final ConcurrentHashMap<String, Long> accessTime = new ConcurrentHashMap<String, Long>(); // to protect targets from DDoS
 
@@ -79,7 +79,7 @@ public final class LoaderDispatcher {
     private final FTPLoader ftpLoader;
     private final SMBLoader smbLoader;
     private final FileLoader fileLoader;
-    private final ConcurrentHashMap<DigestURL, Semaphore> loaderSteering; // a map that delivers a 'finish' semaphore for urls
+    private final SingleFlight<DigestURL, Response> loaderSteering; // the running loads of urls; concurrent loads of the same url share one response
 
     public LoaderDispatcher(final Switchboard sb) {
         this.sb = sb;
@@ -90,7 +90,7 @@ public final class LoaderDispatcher {
         this.ftpLoader = new FTPLoader(sb, LoaderDispatcher.log);
         this.smbLoader = new SMBLoader(sb, LoaderDispatcher.log);
         this.fileLoader = new FileLoader(sb, LoaderDispatcher.log);
-        this.loaderSteering = new ConcurrentHashMap<DigestURL, Semaphore>();
+        this.loaderSteering = new SingleFlight<DigestURL, Response>();
     }
 
     public boolean isSupportedProtocol(final String protocol) {
@@ -154,7 +154,7 @@ public final class LoaderDispatcher {
 
     /**
      * loads a resource from cache or web/ftp/smb/file
-     * on concurrent execution waits max 5 sec for the prev. loader to fill the cache (except for CacheStrategy.NOCACHE)
+     * on concurrent execution waits max 5 sec for the prev. loader and takes over its response (except for CacheStrategy.NOCACHE)
      * 
      * @param request the request essentials
      * @param cacheStrategy strategy according to NOCACHE, IFFRESH, IFEXIST, CACHEONLY
@@ -165,21 +165,23 @@ public final class LoaderDispatcher {
      * @throws IOException
      */
     public Response load(final Request request, final CacheStrategy cacheStrategy, final int maxFileSize, final BlacklistType blacklistType, ClientIdentification.Agent agent) throws IOException {
-        Semaphore check = this.loaderSteering.get(request.url());
-        if (check != null && cacheStrategy != CacheStrategy.NOCACHE) {
-            // a loading process is going on for that url
-            //ConcurrentLog.info("LoaderDispatcher", "waiting for " + request.url().toNormalform(true));
-            long t = System.currentTimeMillis();
-            try { check.tryAcquire(5, TimeUnit.SECONDS);} catch (final InterruptedException e) {}
-            ConcurrentLog.info("LoaderDispatcher", "waited " + (System.currentTimeMillis() - t) + " ms for " + request.url().toNormalform(true));
-            // now the process may have terminated and we run a normal loading
+        final DigestURL url = request.url();
+        if (cacheStrategy != CacheStrategy.NOCACHE && !isBlacklisted(url, blacklistType)) {
+            // a loading process may be going on for that url: take over its response
+            final Response shared = this.loaderSteering.join(url, steeringTimeout);
+            if (shared != null && shared.getContent() != null && (maxFileSize < 0 || shared.getContent().length <= maxFileSize)) {
+                final CrawlProfile profile = request.profileHandle() == null ? null : this.sb.crawler.get(UTF8.getBytes(request.profileHandle()));
+                return new Response(request, shared.getRequestHeader(), shared.getResponseHeader(), profile, shared.fromCache(), shared.getContent());
+            }
+            // otherwise the process has failed or is too slow and we run a normal loading
             // which may be successful faster because of a cache hit
         }
 
-        this.loaderSteering.put(request.url(), new Semaphore(0));
+        // if another process loads the url right now (NOCACHE or timeout), this load is not shared
+        final SingleFlight.Flight<Response> flight = this.loaderSteering.start(url);
+        Response response = null;
         try {
-            final Response response = loadInternal(request, cacheStrategy, maxFileSize, blacklistType, agent);
-            // finally block cleans up loaderSteering and semaphore
+            response = loadInternal(request, cacheStrategy, maxFileSize, blacklistType, agent);
             return response;
         } catch (final IOException e) {
         	/* Do not wrap an IOException in an unnecessary supplementary IOException */
@@ -187,12 +189,37 @@ public final class LoaderDispatcher {
         } catch (final Throwable e) {
             throw new IOException(e);
         } finally {
-            // release the semaphore anyway
-            check = this.loaderSteering.remove(request.url()); // = next caller goes directly to loadInternal (is ok we just wanted to fill cash)
-            if (check != null) check.release(1000); // don't block any other
+            // hand the response to all waiting processes, they load themselves if the load failed
+            this.loaderSteering.finish(url, flight, response);
         }
     }
 
+    /**
+     * @return the number of loads which took over the response of a concurrent load of the same url
+     */
+    public long coalescedLoads() {
+        return this.loaderSteering.coalesced();
+    }
+
+    /**
+     * @return the number of loads which gave up waiting for a concurrent load of the same url
+     */
+    public long coalescedTimeouts() {
+        return this.loaderSteering.timeouts();
+    }
+
+    /**
+     * @return the loading time in milliseconds which was saved by taking over responses of concurrent loads
+     */
+    public long coalescedTimeSaved() {
+        return this.loaderSteering.saved();
+    }
+
+    private static boolean isBlacklisted(final DigestURL url, final BlacklistType blacklistType) {
+        final String host = url.getHost();
+        return blacklistType != null && host != null && Switchboard.urlBlacklist.isListed(blacklistType, host.toLowerCase(Locale.ROOT), url.getFile());
+    }
+
     /**
      * load a resource from the web, from ftp, from smb or a file
      * @param request the request essentials
@@ -209,7 +236,7 @@ public final class LoaderDispatcher {
         final CrawlProfile crawlProfile = request.profileHandle() == null ? null : this.sb.crawler.get(UTF8.getBytes(request.profileHandle()));
         
         // check if url is in blacklist
-        if (blacklistType != null && host != null && Switchboard.urlBlacklist.isListed(blacklistType, host.toLowerCase(Locale.ROOT), url.getFile())) {
+        if (isBlacklisted(url, blacklistType)) {
             this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), crawlProfile, FailCategory.FINAL_LOAD_CONTEXT, "url in blacklist", -1);
             throw new IOException("DISPATCHER Rejecting URL '" + request.url().toString() + "'. URL is in blacklist.$");
         }
@@ -258,10 +285,20 @@ public final class LoaderDispatcher {
         }
 
         // we got something. Now check if we want to store that to the cache
+        storeToCache(response, crawlProfile);
+        return response;
+    }
+
+    /**
+     * store a loaded response to the cache if the crawl profile and the response headers allow that
+     * @param response a response from the web with content
+     * @param crawlProfile the profile of the crawl which loaded the response, may be null
+     */
+    public void storeToCache(final Response response, final CrawlProfile crawlProfile) {
         // first check looks if we want to store the content to the cache
         if (crawlProfile == null || !crawlProfile.storeHTCache()) {
             // no caching wanted. Thats ok, do not write any message
-            return response;
+            return;
         }
         // second check tells us if the protocol tells us something about caching
         final String storeError = response.shallStoreCacheForCrawler();
@@ -278,7 +315,17 @@ public final class LoaderDispatcher {
         } else {
             LoaderDispatcher.log.warn("cannot write " + response.url() + " to Cache (4): " + storeError);
         }
-        return response;
+    }
+
+    /**
+     * create the request header which the http loader sends for a request
+     * @param request the request essentials
+     * @param agent agent identification information
+     * @return a request header
+     * @throws IOException when an error occured
+     */
+    public RequestHeader httpRequestHeader(final Request request, final ClientIdentification.Agent agent) throws IOException {
+        return this.httpLoader.createRequestheader(request, agent);
     }
 
     /**
@@ -367,7 +414,7 @@ public final class LoaderDispatcher {
         final CrawlProfile crawlProfile = request.profileHandle() == null ? null : this.sb.crawler.get(UTF8.getBytes(request.profileHandle()));
         
         // check if url is in blacklist
-        if (blacklistType != null && host != null && Switchboard.urlBlacklist.isListed(blacklistType, host.toLowerCase(Locale.ROOT), url.getFile())) {
+        if (isBlacklisted(url, blacklistType)) {
             this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), crawlProfile, FailCategory.FINAL_LOAD_CONTEXT, "url in blacklist", -1);
             throw new IOException("DISPATCHER Rejecting URL '" + request.url().toString() + "'. URL is in blacklist.$");
         }
@@ -495,21 +542,13 @@ public final class LoaderDispatcher {
 			BlacklistType blacklistType, final ClientIdentification.Agent agent, final int maxFileSize) throws IOException {
 		StreamResponse response;
 
-		Semaphore check = this.loaderSteering.get(request.url());
-		if (check != null && cacheStrategy != CacheStrategy.NOCACHE) {
-			// a loading process is going on for that url
-			long t = System.currentTimeMillis();
-			try {
-				check.tryAcquire(5, TimeUnit.SECONDS);
-			} catch (final InterruptedException e) {
-			}
-			ConcurrentLog.info("LoaderDispatcher",
-					"waited " + (System.currentTimeMillis() - t) + " ms for " + request.url().toNormalform(true));
-			// now the process may have terminated and we run a normal loading
-			// which may be successful faster because of a cache hit
+		// a loading process may be going on for that url: its stream cannot be shared, but waiting for it
+		// may result in a cache hit
+		if (cacheStrategy != CacheStrategy.NOCACHE) {
+			this.loaderSteering.join(request.url(), steeringTimeout);
 		}
 
-		this.loaderSteering.put(request.url(), new Semaphore(0));
+		final SingleFlight.Flight<Response> flight = this.loaderSteering.start(request.url());
 		try {
 			response = openInputStreamInternal(request, cacheStrategy, maxFileSize, blacklistType, agent);
 		} catch(IOException ioe) {
@@ -518,11 +557,8 @@ public final class LoaderDispatcher {
 		} catch (final Throwable e) {
 			throw new IOException(e);
 		} finally {
-			// release the semaphore anyway
-			check = this.loaderSteering.remove(request.url());
-			if (check != null) {
-				check.release(1000); // don't block any other
-			}
+			// release the waiting processes anyway, they load themselves
+			this.loaderSteering.finish(request.url(), flight, null);
 		}
 
 		return response;
@@ -39,8 +39,6 @@ package net.yacy.search;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -76,7 +74,11 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -90,6 +92,7 @@ import java.util.zip.ZipInputStream;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrInputDocument;
 
@@ -130,6 +133,7 @@ import net.yacy.cora.protocol.http.ProxySettings;
 import net.yacy.cora.util.CommonPattern;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.JSONArray;
+import net.yacy.cora.util.JSONException;
 import net.yacy.cora.util.JSONObject;
 import net.yacy.cora.util.JSONTokener;
 import net.yacy.cora.util.Memory;
@@ -183,6 +187,7 @@ import net.yacy.gui.Tray;
 import net.yacy.http.YaCyHttpServer;
 import net.yacy.kelondro.blob.ArrayStack;
 import net.yacy.kelondro.blob.BEncodedHeap;
+import net.yacy.kelondro.blob.Compressor;
 import net.yacy.kelondro.blob.Tables;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
 import net.yacy.kelondro.data.word.Word;
@@ -190,6 +195,7 @@ import net.yacy.kelondro.logging.GuiHandler;
 import net.yacy.kelondro.rwi.ReferenceContainer;
 import net.yacy.kelondro.util.FileUtils;
 import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
 import net.yacy.kelondro.util.OS;
 import net.yacy.kelondro.util.SetTools;
 import net.yacy.kelondro.workflow.BusyThread;
@@ -244,6 +250,7 @@ public final class Switchboard extends serverSwitch {
     
     public static long lastPPMUpdate = System.currentTimeMillis() - 30000;
     private static final int dhtMaxContainerCount = 500;
+    private static final int SURROGATE_BATCH_SIZE = 100; // number of surrogate documents written to the index at once
     private int dhtMaxReferenceCount = 1000;
 
     // colored list management
@@ -266,6 +273,8 @@ public final class Switchboard extends serverSwitch {
     public File queuesRoot;
     public File surrogatesInPath;
     public File surrogatesOutPath;
+    private final Set<String> surrogatesInProcess = ConcurrentHashMap.newKeySet(); // names of surrogate files which are read at the moment
+    private final ExecutorService surrogateExecutor = Executors.newCachedThreadPool(new NamePrefixThreadFactory("Switchboard.surrogateProcess"));
     public Segment index;
     public LoaderDispatcher loader;
     public CrawlSwitchboard crawler;
@@ -759,7 +768,13 @@ public final class Switchboard extends serverSwitch {
 				getConfigLong(SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT,
 						SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT_DEFAULT),
 				getConfigInt(SwitchboardConstants.HTCACHE_COMPRESSION_LEVEL,
-						SwitchboardConstants.HTCACHE_COMPRESSION_LEVEL_DEFAULT));
+						SwitchboardConstants.HTCACHE_COMPRESSION_LEVEL_DEFAULT),
+				Compressor.Codec.parse(getConfig(SwitchboardConstants.HTCACHE_COMPRESSION_CODEC,
+						SwitchboardConstants.HTCACHE_COMPRESSION_CODEC_DEFAULT)),
+				getConfigInt(SwitchboardConstants.HTCACHE_COMPRESSION_THREADS,
+						SwitchboardConstants.HTCACHE_COMPRESSION_THREADS_DEFAULT),
+				1024L * 1024L * getConfigLong(SwitchboardConstants.HTCACHE_HOT_TIER_SIZE,
+						SwitchboardConstants.HTCACHE_HOT_TIER_SIZE_DEFAULT));
         final File transactiondir = new File(this.htCachePath, "snapshots");
         Transactions.init(transactiondir);
 
@@ -1960,6 +1975,8 @@ public final class Switchboard extends serverSwitch {
         
         MemoryTracker.stopSystemProfiling();
         terminateAllThreads(true);
+        WarcImporter.quitAll(); // the importers store their offset to resume at the next start
+        this.surrogateExecutor.shutdown();
         net.yacy.gui.framework.Switchboard.shutdown();
         this.log.config("SWITCHBOARD SHUTDOWN STEP 2: sending termination signal to threaded indexing");
         // closing all still running db importer jobs
@@ -2014,6 +2031,31 @@ public final class Switchboard extends serverSwitch {
      * @return null if successful, an error message otherwise
      */
     public String toIndexer(final Response response) {
+        final String noIndexReason = noIndexReason(response);
+        if (noIndexReason != null) return noIndexReason;
+        this.indexingDocumentProcessor.enQueue(new IndexingQueueEntry(
+            response,
+            null,
+            null));
+        return null;
+    }
+
+    /**
+     * Parse a response in the current thread and put the documents into the condenser queue.
+     * This is used by importers which run their own pool of parser threads.
+     * @param response the response to index
+     * @return null if the documents were put into the condenser queue, otherwise the reason why not
+     */
+    public String toCondenser(final Response response) {
+        final String noIndexReason = noIndexReason(response);
+        if (noIndexReason != null) return noIndexReason;
+        final IndexingQueueEntry parsed = parseDocument(new IndexingQueueEntry(response, null, null));
+        if (parsed == null) return "parser error";
+        this.indexingCondensementProcessor.enQueue(parsed);
+        return null;
+    }
+
+    private String noIndexReason(final Response response) {
         assert response != null;
 
         // get next queue entry and start a queue processing
@@ -2066,11 +2108,6 @@ public final class Switchboard extends serverSwitch {
             // finish this entry
             return "not allowed: " + noIndexReason;
         }
-
-        this.indexingDocumentProcessor.enQueue(new IndexingQueueEntry(
-            response,
-            null,
-            null));
         return null;
     }
 
@@ -2090,15 +2127,8 @@ public final class Switchboard extends serverSwitch {
                 zis = new ZipInputStream(is);
                 ZipEntry entry;
                 while ( (entry = zis.getNextEntry()) != null ) {
-                    int size;
-                    final byte[] buffer = new byte[2048];
-                    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    while ( (size = zis.read(buffer, 0, buffer.length)) != -1 ) {
-                        baos.write(buffer, 0, size);
-                    }
-                    baos.flush();
-                    processSurrogate(new ByteArrayInputStream(baos.toByteArray()), entry.getName());
-                    baos.close();
+                    // parse the entry directly from the zip stream; the surrogate reader must not close the zip stream
+                    processSurrogate(new CloseShieldInputStream(zis), entry.getName());
                     if (shallTerminate()) break;
                 }
             } catch (final IOException e ) {
@@ -2111,121 +2141,28 @@ public final class Switchboard extends serverSwitch {
             }
             return moved;
         } else if (s.endsWith(".warc") || s.endsWith(".warc.gz")) {
+            // warc archives are imported concurrently, the importer moves the file to the output path when the import is complete
+            final int concurrency = Math.max(1, this.getConfigInt(SwitchboardConstants.SURROGATES_WARC_CONCURRENCY, SwitchboardConstants.SURROGATES_WARC_CONCURRENCY_DEFAULT));
+            if (WarcImporter.isRunning(infile) || WarcImporter.jobs().size() >= concurrency) return false;
             try {
-                WarcImporter wri = new WarcImporter(infile);
+                final WarcImporter wri = new WarcImporter(infile, outfile, Math.max(1, (Runtime.getRuntime().availableProcessors() - 1) / concurrency));
                 wri.start();
-                try {
-                    wri.join();
-                } catch (InterruptedException ex) {
-                    return moved;
-                }
-                moved = infile.renameTo(outfile);
+                return true;
             } catch (IOException ex) {
                 log.warn("IO Error processing warc file " + infile);
             }
-            return moved;
+            return false;
         } else if (s.endsWith(".jsonlist") || s.endsWith(".flatjson")) {
             // parse a file that can be generated with yacy_grid_parser
             // see https://github.com/yacy/yacy_grid_parser/blob/master/README.md
-        	FileInputStream fis = null;
-        	BufferedReader br = null;
-            try {
-            	fis = new FileInputStream(infile);
-                InputStream is = new BufferedInputStream(fis);
-                br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-                String line;
-                while ((line = br.readLine()) != null) {
-                    JSONTokener jt = new JSONTokener(line);
-                    JSONObject json = new JSONObject(jt);
-                    if ((json.has("index") && json.length() == 1) || json.length() == 0) continue;
-                    SolrInputDocument surrogate = new SolrInputDocument();
-                    for (String key: json.keySet()) {
-                        Object o = json.get(key);
-                        if (o instanceof JSONArray) {
-                            // transform this into a list
-                            JSONArray a = (JSONArray) o;
-                            // patch altered yacy grid schema (yacy grid does not split url lists into protocol and urlstub)
-                            if (key.equals("inboundlinks_sxt")) {
-                                // compute inboundlinks_urlstub_sxt and inboundlinks_protocol_sxt
-                                List<Object> urlstub = new ArrayList<>();
-                                List<Object> protocol = new ArrayList<>();
-                                for (int i = 0; i < a.length(); i++) {
-                                    AnchorURL b = new AnchorURL((String) a.get(i));
-                                    urlstub.add(b.urlstub(true, true));
-                                    protocol.add(b.getProtocol());
-                                }
-                                CollectionSchema.inboundlinks_urlstub_sxt.add(surrogate, urlstub);
-                                CollectionSchema.inboundlinks_protocol_sxt.add(surrogate, protocol);
-                            } else if (key.equals("outboundlinks_sxt")) {
-                                // compute outboundlinks_urlstub_sxt and outboundlinks_protocol_sxt
-                                List<Object> urlstub = new ArrayList<>();
-                                List<Object> protocol = new ArrayList<>();
-                                for (int i = 0; i < a.length(); i++) {
-                                    AnchorURL b = new AnchorURL((String) a.get(i));
-                                    urlstub.add(b.urlstub(true, true));
-                                    protocol.add(b.getProtocol());
-                                }
-                                CollectionSchema.outboundlinks_urlstub_sxt.add(surrogate, urlstub);
-                                CollectionSchema.outboundlinks_protocol_sxt.add(surrogate, protocol);
-                            } else if (key.equals("images_sxt")) {
-                                // compute images_urlstub_sxt and images_protocol_sxt
-                                List<Object> urlstub = new ArrayList<>();
-                                List<Object> protocol = new ArrayList<>();
-                                for (int i = 0; i < a.length(); i++) {
-                                    AnchorURL b = new AnchorURL((String) a.get(i));
-                                    urlstub.add(b.urlstub(true, true));
-                                    protocol.add(b.getProtocol());
-                                }
-                                CollectionSchema.images_urlstub_sxt.add(surrogate, urlstub);
-                                CollectionSchema.images_protocol_sxt.add(surrogate, protocol);
-                            } else {
-                                List<Object> list = new ArrayList<>();
-                                for (int i = 0; i < a.length(); i++) list.add(a.get(i));
-                                CollectionSchema schema = CollectionSchema.valueOf(key);
-                                schema.add(surrogate, list);
-                            }
-                        } else {
-                            // patch yacy grid altered schema (yacy grid does not have IDs any more, but they can be re-computed here)
-                            if (key.equals("url_s")) {
-                                DigestURL durl = new DigestURL(o.toString());
-                                String id = ASCII.String(durl.hash());
-                                surrogate.setField(CollectionSchema.sku.getSolrFieldName(), durl.toNormalform(true));
-                                surrogate.setField(CollectionSchema.id.getSolrFieldName(), id);
-                                surrogate.setField(CollectionSchema.host_id_s.getSolrFieldName(), id.substring(6));
-                            } else if (key.equals("referrer_url_s")) {
-                                DigestURL durl = new DigestURL(o.toString());
-                                String id = ASCII.String(durl.hash());
-                                surrogate.setField(CollectionSchema.referrer_id_s.getSolrFieldName(), id);
-                            } else {
-                                surrogate.setField(key, o.toString());
-                            }
-                        }
-                    }
-                    Switchboard.this.index.putDocument(surrogate);
-                }
-                br.close();
-                br = null;
-                fis = null;
-                moved = infile.renameTo(outfile);
+            try (
+                /* Resources automatically closed by this try-with-resources statement */
+                final FileInputStream fis = new FileInputStream(infile);
+            ) {
+                processFlatJson(new BufferedInputStream(fis), infile.getName());
+                if (!shallTerminate()) moved = infile.renameTo(outfile);
             } catch (IOException ex) {
                 log.warn("IO Error processing flatjson file " + infile);
-            } finally {
-            	/* Properly release file system resources even in failure cases */
-            	if(br != null) {
-            		/* buffered reader was successfully created : close it and its underlying streams */
-            		try {
-						br.close();
-					} catch (IOException e) {
-						log.warn("Could not close reader on file " + infile);
-					}
-            	} else if(fis != null) {
-            		/* no buffered reader : maybe a case of exhausted memory. Anyway file input stream has to be closed. */
-            		try {
-						fis.close();
-					} catch (IOException e) {
-						log.warn("Could not close input stream on file " + infile);
-					}
-            	}
             }
             return moved;
         }
@@ -2272,8 +2209,167 @@ public final class Switchboard extends serverSwitch {
         return moved;
     }
 
+    /**
+     * Read a flat json file where each line is a json object with a Solr document. The lines are
+     * converted in parallel by indexer threads which write the documents in batches to the index.
+     * @param is the input stream, not closed by this method
+     * @param name the name of the input source
+     * @throws IOException
+     */
+    public void processFlatJson(final InputStream is, final String name) throws IOException {
+        final int concurrency = surrogateConcurrency();
+        final String poison = "";
+        final BlockingQueue<String> lines = new ArrayBlockingQueue<String>(concurrency * SURROGATE_BATCH_SIZE);
+
+        // start indexer threads
+        Thread[] indexer = new Thread[concurrency];
+        for (int t = 0; t < concurrency; t++) {
+            indexer[t] = new Thread("Switchboard.processFlatJson-" + t) {
+                @Override
+                public void run() {
+                    final List<SolrInputDocument> batch = new ArrayList<SolrInputDocument>(SURROGATE_BATCH_SIZE);
+                    String line;
+                    try {
+                        while ((line = lines.take()) != poison) {
+                            try {
+                                final SolrInputDocument surrogate = flatjson2solr(line);
+                                if (surrogate != null) batch.add(surrogate);
+                            } catch (final IOException | RuntimeException e) {
+                                // the document of a malformed line is skipped, the thread must not die or the reader blocks
+                                log.warn("cannot read line in flatjson file " + name + ": " + e.getMessage());
+                            }
+                            if (batch.size() >= SURROGATE_BATCH_SIZE) {
+                                // on termination the documents are dropped, the file is read again at the next start
+                                if (surrogateThrottle()) Switchboard.this.index.putDocuments(batch);
+                                batch.clear();
+                            }
+                        }
+                    } catch (final InterruptedException e) {
+                    }
+                    if (batch.size() > 0 && surrogateThrottle()) Switchboard.this.index.putDocuments(batch);
+                }
+            };
+            indexer[t].setPriority(5);
+            indexer[t].start();
+        }
+
+        // read the lines in this thread
+        try {
+            final BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            String line;
+            while ((line = br.readLine()) != null && !shallTerminate()) {
+                if (line.length() == 0) continue;
+                lines.put(line);
+            }
+        } catch (final InterruptedException e) {
+        } finally {
+            for (int t = 0; t < concurrency; t++) {
+                try {lines.put(poison);} catch (final InterruptedException e) {}
+            }
+            for (int t = 0; t < concurrency; t++) {
+                try {indexer[t].join();} catch (final InterruptedException e) {}
+            }
+        }
+    }
+
+    /**
+     * convert one line of a flat json file into a Solr document
+     * @param line a json object
+     * @return the Solr document or null if the line has no document
+     * @throws IOException if the url of the document is malformed
+     * @throws JSONException if the line is not a json object
+     */
+    static SolrInputDocument flatjson2solr(final String line) throws IOException {
+        JSONTokener jt = new JSONTokener(line);
+        JSONObject json = new JSONObject(jt);
+        if ((json.has("index") && json.length() == 1) || json.length() == 0) return null;
+        SolrInputDocument surrogate = new SolrInputDocument();
+        for (String key: json.keySet()) {
+            Object o = json.get(key);
+            if (o instanceof JSONArray) {
+                // transform this into a list
+                JSONArray a = (JSONArray) o;
+                // patch altered yacy grid schema (yacy grid does not split url lists into protocol and urlstub)
+                if (key.equals("inboundlinks_sxt")) {
+                    // compute inboundlinks_urlstub_sxt and inboundlinks_protocol_sxt
+                    addLinks(surrogate, a, CollectionSchema.inboundlinks_urlstub_sxt, CollectionSchema.inboundlinks_protocol_sxt);
+                } else if (key.equals("outboundlinks_sxt")) {
+                    // compute outboundlinks_urlstub_sxt and outboundlinks_protocol_sxt
+                    addLinks(surrogate, a, CollectionSchema.outboundlinks_urlstub_sxt, CollectionSchema.outboundlinks_protocol_sxt);
+                } else if (key.equals("images_sxt")) {
+                    // compute images_urlstub_sxt and images_protocol_sxt
+                    addLinks(surrogate, a, CollectionSchema.images_urlstub_sxt, CollectionSchema.images_protocol_sxt);
+                } else {
+                    List<Object> list = new ArrayList<>();
+                    for (int i = 0; i < a.length(); i++) list.add(a.get(i));
+                    CollectionSchema schema = CollectionSchema.valueOf(key);
+                    schema.add(surrogate, list);
+                }
+            } else {
+                // patch yacy grid altered schema (yacy grid does not have IDs any more, but they can be re-computed here)
+                if (key.equals("url_s")) {
+                    DigestURL durl = new DigestURL(o.toString());
+                    String id = ASCII.String(durl.hash());
+                    surrogate.setField(CollectionSchema.sku.getSolrFieldName(), durl.toNormalform(true));
+                    surrogate.setField(CollectionSchema.id.getSolrFieldName(), id);
+                    surrogate.setField(CollectionSchema.host_id_s.getSolrFieldName(), id.substring(6));
+                } else if (key.equals("referrer_url_s")) {
+                    DigestURL durl = new DigestURL(o.toString());
+                    String id = ASCII.String(durl.hash());
+                    surrogate.setField(CollectionSchema.referrer_id_s.getSolrFieldName(), id);
+                } else {
+                    surrogate.setField(key, o.toString());
+                }
+            }
+        }
+        return surrogate;
+    }
+
+    /**
+     * split the urls of a link list of a flat json document into the urlstub and protocol fields;
+     * elements which are not strings or not valid urls are skipped
+     */
+    private static void addLinks(final SolrInputDocument surrogate, final JSONArray a, final CollectionSchema urlstubField, final CollectionSchema protocolField) {
+        List<Object> urlstub = new ArrayList<>();
+        List<Object> protocol = new ArrayList<>();
+        for (int i = 0; i < a.length(); i++) {
+            final Object o = a.opt(i);
+            if (!(o instanceof String)) continue;
+            try {
+                AnchorURL b = new AnchorURL((String) o);
+                urlstub.add(b.urlstub(true, true));
+                protocol.add(b.getProtocol());
+            } catch (final MalformedURLException e) {
+                // skip the link, the document is kept
+            }
+        }
+        urlstubField.add(surrogate, urlstub);
+        protocolField.add(surrogate, protocol);
+    }
+
+    /**
+     * @return the number of indexer threads for a surrogate file; the processors are shared between all files processed concurrently
+     */
+    private int surrogateConcurrency() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, this.getConfigInt(SwitchboardConstants.SURROGATES_CONCURRENCY, SwitchboardConstants.SURROGATES_CONCURRENCY_DEFAULT)));
+    }
+
+    /**
+     * Wait until the indexing queues are below the surrogate queue limit, so surrogate imports
+     * do not run ahead of the indexer.
+     * @return false if the switchboard is terminating
+     */
+    public boolean surrogateThrottle() {
+        final int limit = Math.max(1, this.getConfigInt(SwitchboardConstants.SURROGATES_QUEUE_LIMIT, SwitchboardConstants.SURROGATES_QUEUE_LIMIT_DEFAULT));
+        while (getIndexingProcessorsQueueSize() >= limit) {
+            if (shallTerminate()) return false;
+            try {Thread.sleep(100);} catch (final InterruptedException e) {return false;}
+        }
+        return !shallTerminate();
+    }
+
     public void processSurrogate(final InputStream is, final String name) throws IOException {
-        final int concurrency = Runtime.getRuntime().availableProcessors();
+        final int concurrency = surrogateConcurrency();
 
         // start reader thread
         final SurrogateReader reader = new SurrogateReader(is, 100, this.crawlStacker, this.index.fulltext().getDefaultConfiguration(), concurrency);
@@ -2289,6 +2385,7 @@ public final class Switchboard extends serverSwitch {
                 @Override
                 public void run() {
                     VocabularyScraper scraper = new VocabularyScraper();
+                    final List<SolrInputDocument> batch = new ArrayList<SolrInputDocument>(SURROGATE_BATCH_SIZE);
                     Object surrogateObj;
                     while ((surrogateObj = reader.take()) != SurrogateReader.POISON_DOCUMENT ) {
                         assert surrogateObj != null;
@@ -2319,8 +2416,12 @@ public final class Switchboard extends serverSwitch {
                         	} catch (MalformedURLException e) {
                         		ConcurrentLog.logException(e);
                         	}
-                        	// write the surrogate into the index
-                        	Switchboard.this.index.putDocument(surrogate);
+                        	// write the surrogates into the index in batches
+                        	batch.add(surrogate);
+                        	if (batch.size() >= SURROGATE_BATCH_SIZE) {
+                        	    if (surrogateThrottle()) Switchboard.this.index.putDocuments(batch);
+                        	    batch.clear();
+                        	}
                         } else if(surrogateObj instanceof DCEntry) {
                         	/* When parsing a MediaWiki dump Surrogate reader produces DCEntry instances */
                             // create a queue entry
@@ -2340,10 +2441,11 @@ public final class Switchboard extends serverSwitch {
                             final IndexingQueueEntry queueEntry =
                                 new IndexingQueueEntry(response, new Document[] {document}, null);
                 
-                            indexingCondensementProcessor.enQueue(queueEntry);
+                            if (surrogateThrottle()) indexingCondensementProcessor.enQueue(queueEntry);
                         }
                         if (shallTerminate()) break;
                     }
+                    if (batch.size() > 0) Switchboard.this.index.putDocuments(batch);
                 }
             };
             indexer[t].setPriority(5);
@@ -2393,6 +2495,7 @@ public final class Switchboard extends serverSwitch {
         try {
             // check surrogates
             final String[] surrogatelist = this.surrogatesInPath.list();
+            final int concurrency = Math.max(1, this.getConfigInt(SwitchboardConstants.SURROGATES_CONCURRENCY, SwitchboardConstants.SURROGATES_CONCURRENCY_DEFAULT));
             if ( surrogatelist != null && surrogatelist.length > 0 ) {
                 // look if the is any xml inside
                 for ( final String surrogate : surrogatelist ) {
@@ -2407,10 +2510,30 @@ public final class Switchboard extends serverSwitch {
                         || surrogate.endsWith(".warc.gz")
                         || surrogate.endsWith(".jsonlist")
                         || surrogate.endsWith(".flatjson") ) {
-                        // read the surrogate file and store entry in index
-                        if ( processSurrogate(surrogate) ) {
-                            return true;
+                        // warc archives are imported by their own importer threads
+                        if ( surrogate.endsWith(".warc") || surrogate.endsWith(".warc.gz") ) {
+                            if ( processSurrogate(surrogate) ) {
+                                return true;
+                            }
+                            continue;
                         }
+                        // read the surrogate file in a thread of its own and store entries in index
+                        if ( this.surrogatesInProcess.size() >= concurrency || !this.surrogatesInProcess.add(surrogate) ) {
+                            continue;
+                        }
+                        this.surrogateExecutor.submit(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    processSurrogate(surrogate);
+                                } catch (final Throwable e) {
+                                    ConcurrentLog.logException(e);
+                                } finally {
+                                    Switchboard.this.surrogatesInProcess.remove(surrogate);
+                                }
+                            }
+                        });
+                        return true;
                     }
                 }
             }
@@ -2462,8 +2585,7 @@ public final class Switchboard extends serverSwitch {
         final Collection<String> pks = new LinkedHashSet<String>();
         final Date now = new Date();
         try {
-            final Iterator<Tables.Row> plainIterator = this.tables.iterator(WorkTables.TABLE_API_NAME);
-            final Iterator<Tables.Row> mapIterator = Tables.orderBy(plainIterator, -1, WorkTables.TABLE_API_COL_DATE_LAST_EXEC).iterator();
+            final Iterator<Tables.Row> mapIterator = this.tables.orderBy(WorkTables.TABLE_API_NAME, -1, WorkTables.TABLE_API_COL_DATE_LAST_EXEC).iterator();
             while (mapIterator.hasNext()) {
                 row = mapIterator.next();
                 if (row == null) continue;
@@ -2549,6 +2671,9 @@ public final class Switchboard extends serverSwitch {
                 GuiHandler.clear();
             }
 
+            // complete and save the term dictionary of the did-you-mean suggestions
+            this.index.maintainTermDictionary();
+
             // set a random password if no password is configured
             if ( getConfigBool(SwitchboardConstants.ADMIN_ACCOUNT_FOR_LOCALHOST, false)
                 && getConfig(SwitchboardConstants.ADMIN_ACCOUNT_B64MD5, "").isEmpty() ) {
@@ -3192,16 +3317,15 @@ public final class Switchboard extends serverSwitch {
             return new IndexingQueueEntry(in.queueEntry, in.documents, null);
         }
         in.documents = doclist.toArray(new Document[doclist.size()]);
-        final Condenser[] condenser = new Condenser[in.documents.length];
+        // documents from containers (i.e. archives or feeds) are condensed concurrently
+        final Condenser[] condenser =
+            Condenser.condense(
+                    in.documents, in.queueEntry.profile().scraper(), in.queueEntry.profile().indexText(),
+                    in.queueEntry.profile().indexMedia(),
+                    LibraryProvider.dymLib, true,
+                    this.index.fulltext().getDefaultConfiguration().contains(CollectionSchema.dates_in_content_dts),
+                    profile.timezoneOffset());
         for ( int i = 0; i < in.documents.length; i++ ) {
-            condenser[i] =
-                new Condenser(
-                        in.documents[i], in.queueEntry.profile().scraper(), in.queueEntry.profile().indexText(),
-                        in.queueEntry.profile().indexMedia(),
-                        LibraryProvider.dymLib, true,
-                        this.index.fulltext().getDefaultConfiguration().contains(CollectionSchema.dates_in_content_dts),
-                        profile.timezoneOffset());
-
             // update image result list statistics
             // its good to do this concurrently here, because it needs a DNS lookup
             // to compute a URL hash which is necessary for a double-check
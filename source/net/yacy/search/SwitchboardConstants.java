@@ -61,6 +61,12 @@ public final class SwitchboardConstants {
     public static final String SERVER_SSLPORT               = "port.ssl"; // port for https
     public static final String SERVER_SHUTDOWNPORT          = "port.shutdown"; // local port to listen for a shutdown signal (0 <= disabled)
     public static final String SERVER_STATICIP              = "staticIP"; // static IP of http server
+    public static final String SERVER_MAXBUSYSESSIONS       = "httpdMaxBusySessions"; // maximum number of http server threads
+    public static final String SERVER_TRAFFICCLASS_PREFIX   = "server.trafficclass."; // + p2p, search, api or admin + .maxActive or .maxQueued
+    public static final String SERVER_TRAFFICCLASS_MAXWAIT  = "server.trafficclass.maxWait"; // milliseconds a request may wait for admission
+    public static final String SERVER_STATICCACHE_MAXBYTES  = "server.staticcache.maxBytes"; // memory for precompressed static files, 0 = disabled
+    public static final String SERVER_RESULTCACHE_MAXBYTES  = "server.resultcache.maxBytes"; // memory for rendered result pages of anonymous searches, 0 = disabled
+    public static final String SERVER_RESULTCACHE_TTL       = "server.resultcache.ttl"; // milliseconds how long a rendered result page is used
 
     public static final String PUBLIC_SEARCHPAGE            = "publicSearchpage";
     
@@ -348,6 +354,12 @@ public final class SwitchboardConstants {
     public static final String CRAWLER_MAX_SAME_HOST_IN_QUEUE   = "crawler.MaxSameHostInQueue";
     public static final String CRAWLER_FOLLOW_REDIRECTS         = "crawler.http.FollowRedirects"; // ignore the target url and follow to the redirect
     public static final String CRAWLER_RECORD_REDIRECTS         = "crawler.http.RecordRedirects"; // record the ignored redirected page to the index store
+    /**
+     * <p>Name of the setting if the crawler loads http(s) resources with the non-blocking client instead of one thread per request</p>
+     */
+    public static final String CRAWLER_HTTP_ASYNC              = "crawler.http.async";
+    public static final String CRAWLER_HTTP_ASYNC_CONNECTIONS   = "crawler.http.async.maxConnections"; // connections of the non-blocking client in total
+    public static final String CRAWLER_HTTP_ASYNC_PER_HOST      = "crawler.http.async.maxConnectionsPerHost"; // connections of the non-blocking client to one host
     
     public static final String CRAWLER_USER_AGENT_NAME          = "crawler.userAgent.name";
     public static final String CRAWLER_USER_AGENT_STRING        = "crawler.userAgent.string";
@@ -423,6 +435,24 @@ public final class SwitchboardConstants {
     /** Default timeout value (in milliseconds) for acquiring a synchronization lock on getContent/store Cache operations */
     public static final long HTCACHE_SYNC_LOCK_TIMEOUT_DEFAULT = 2000;
     
+    /** Key of the setting configuring the codec for cached content : gzip or lz4 */
+    public static final String HTCACHE_COMPRESSION_CODEC   = "proxyCache.compressionCodec";
+    
+    /** Default codec for cached content */
+    public static final String HTCACHE_COMPRESSION_CODEC_DEFAULT = "gzip";
+    
+    /** Key of the setting configuring the number of threads which compress cached content in the background */
+    public static final String HTCACHE_COMPRESSION_THREADS = "proxyCache.compressionThreads";
+    
+    /** Default number of threads which compress cached content in the background */
+    public static final int HTCACHE_COMPRESSION_THREADS_DEFAULT = 2;
+    
+    /** Key of the setting configuring the size (in megabytes) of the in-memory tier for recently stored or read content */
+    public static final String HTCACHE_HOT_TIER_SIZE       = "proxyCache.hotTierSize";
+    
+    /** Default size (in megabytes) of the in-memory tier */
+    public static final long HTCACHE_HOT_TIER_SIZE_DEFAULT = 16;
+    
     public static final String RELEASE_PATH             = "releases";
     public static final String RELEASE_PATH_DEFAULT     = "DATA/RELEASE";
 
@@ -430,6 +460,15 @@ public final class SwitchboardConstants {
     public static final String SURROGATES_IN_PATH_DEFAULT  = "DATA/SURROGATES/in";
     public static final String SURROGATES_OUT_PATH         = "surrogates.out";
     public static final String SURROGATES_OUT_PATH_DEFAULT = "DATA/SURROGATES/out";
+    /** number of warc archives from the surrogates input path which are imported at the same time */
+    public static final String SURROGATES_WARC_CONCURRENCY         = "surrogates.warc.concurrency";
+    public static final int    SURROGATES_WARC_CONCURRENCY_DEFAULT = 2;
+    /** number of other surrogate files (xml, xml.zip, flatjson) which are read at the same time */
+    public static final String SURROGATES_CONCURRENCY              = "surrogates.concurrency";
+    public static final int    SURROGATES_CONCURRENCY_DEFAULT      = 2;
+    /** surrogate readers wait while the indexing queues hold more than this number of entries */
+    public static final String SURROGATES_QUEUE_LIMIT              = "surrogates.queue.limit";
+    public static final int    SURROGATES_QUEUE_LIMIT_DEFAULT      = 32;
 
     public static final String DICTIONARY_SOURCE_PATH         = "dictionaries";
     public static final String DICTIONARY_SOURCE_PATH_DEFAULT = "DATA/DICTIONARIES";
@@ -655,6 +694,12 @@ public final class SwitchboardConstants {
      * ranking+evaluation
      */
     public static final String SEARCH_RANKING_RWI_PROFILE = "search.ranking.rwi.profile"; // old rwi rankingProfile ranking
+    
+    /** Key of the setting controlling the number of result pages for which ranked rwi entries are kept; 0 keeps the fixed maximum */
+    public static final String SEARCH_RANKING_RWI_TOPK_PAGES = "search.ranking.rwi.topk.pages";
+    
+    /** Default number of result pages for which ranked rwi entries are kept */
+    public static final int SEARCH_RANKING_RWI_TOPK_PAGES_DEFAULT = 10;
     public static final String SEARCH_RANKING_SOLR_DOUBLEDETECTION_MINLENGTH = "search.ranking.solr.doubledetection.minlength";
     public static final String SEARCH_RANKING_SOLR_DOUBLEDETECTION_QUANTRATE = "search.ranking.solr.doubledetection.quantrate";
 
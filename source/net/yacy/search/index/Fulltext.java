@@ -40,6 +40,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
@@ -243,6 +244,7 @@ public final class Fulltext {
             }
             this.solrInstances.clearCaches();
         }
+        this.commitGeneration.incrementAndGet();
     }
 
     public void clearRemoteSolr() throws IOException {
@@ -255,6 +257,7 @@ public final class Fulltext {
             }
             this.solrInstances.clearCaches();
         }
+        this.commitGeneration.incrementAndGet();
     }
 
     /**
@@ -290,12 +293,29 @@ public final class Fulltext {
     }
     
     private long lastCommit = 0;
+    private final AtomicLong commitGeneration = new AtomicLong(0);
+    private final AtomicLong indexVersion = new AtomicLong(-1);
     public void commit(boolean softCommit) {
         long t = System.currentTimeMillis();
         if (lastCommit + 10000 > t) return;
         lastCommit = t;
         getDefaultConnector().commit(softCommit);
         if (this.writeWebgraph) getWebgraphConnector().commit(softCommit);
+        this.commitGeneration.incrementAndGet();
+    }
+
+    /**
+     * @return a number which is increased with each commit and each deletion; results which were computed with an
+     * older number may be outdated
+     */
+    public long commitGeneration() {
+        // solr also commits by itself (autoSoftCommit), such a commit is visible as a new version of the embedded index
+        final EmbeddedSolrConnector connector = getDefaultEmbeddedConnector();
+        if (connector != null && !connector.isClosed()) {
+            final long version = connector.getIndexVersion();
+            if (this.indexVersion.getAndSet(version) != version) this.commitGeneration.incrementAndGet();
+        }
+        return this.commitGeneration.get();
     }
 
     /**
@@ -354,6 +374,27 @@ public final class Fulltext {
         if (MemoryControl.shortStatus()) clearCaches();
     }
 
+    /**
+     * store a batch of documents with a single call to the Solr connector
+     * @param docs the documents
+     * @throws IOException
+     */
+    public void putDocuments(final Collection<SolrInputDocument> docs) throws IOException {
+        if (docs == null || docs.size() == 0) return;
+        SolrConnector connector = this.getDefaultConnector();
+        if (connector == null) return;
+        if (ConcurrentLog.isFine("Fulltext")) {
+            for (final SolrInputDocument doc: docs) ConcurrentLog.fine("Fulltext", "indexing: " + doc.getFieldValue(CollectionSchema.id.getSolrFieldName()) + " " + doc.getFieldValue(CollectionSchema.sku.getSolrFieldName()));
+        }
+        ConcurrentLog.info("Fulltext", "indexing " + docs.size() + " documents");
+        try {
+            connector.add(docs);
+        } catch (final SolrException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (MemoryControl.shortStatus()) clearCaches();
+    }
+
     public void putEdges(final Collection<SolrInputDocument> edges) throws IOException {
         if (!this.useWebgraph()) return;
         if (edges == null || edges.size() == 0) return;
@@ -415,6 +456,7 @@ public final class Fulltext {
         if (this.writeWebgraph) deleteDomainWithConstraint(this.getWebgraphConnector(), WebgraphSchema.source_host_id_s.getSolrFieldName(), hosthashes,
                 (freshdate == null || freshdate.after(now)) ? null :
                 (WebgraphSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]"));
+        this.commitGeneration.incrementAndGet();
     }
 
     public void deleteStaleDomainNames(final Set<String> hostnames, Date freshdate) {
@@ -426,6 +468,7 @@ public final class Fulltext {
         if (this.writeWebgraph) deleteDomainWithConstraint(this.getWebgraphConnector(), WebgraphSchema.source_host_s.getSolrFieldName(), hostnames,
                 (freshdate == null || freshdate.after(now)) ? null :
                 (WebgraphSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]"));
+        this.commitGeneration.incrementAndGet();
     }
     
     /**
@@ -434,6 +477,7 @@ public final class Fulltext {
      */
     public void deleteDomainErrors(final Set<String> hosthashes) {
         deleteDomainWithConstraint(this.getDefaultConnector(), CollectionSchema.host_id_s.getSolrFieldName(), hosthashes, CollectionSchema.failreason_s.getSolrFieldName() + AbstractSolrConnector.CATCHALL_DTERM);
+        this.commitGeneration.incrementAndGet();
     }
     
     private static void deleteDomainWithConstraint(SolrConnector connector, String fieldname, final Set<String> hosthashes, String constraintQuery) {
@@ -467,6 +511,7 @@ public final class Fulltext {
             if (this.getWebgraphConnector() != null) this.getWebgraphConnector().deleteByQuery(webgraphQuery);
         } catch (final IOException e) {
         }
+        this.commitGeneration.incrementAndGet();
     }
     
     
@@ -516,6 +561,7 @@ public final class Fulltext {
         } catch (final Throwable e) {
             ConcurrentLog.logException(e);
         }
+        this.commitGeneration.incrementAndGet();
     }
 
     /**
@@ -536,6 +582,7 @@ public final class Fulltext {
         } catch (final Throwable e) {
             ConcurrentLog.logException(e);
         }
+        this.commitGeneration.incrementAndGet();
         return false;
     }
 
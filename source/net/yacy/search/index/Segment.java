@@ -42,14 +42,22 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
 
+import net.yacy.cora.document.TermDictionary;
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
+import net.yacy.cora.federate.solr.connector.EmbeddedSolrConnector;
 import net.yacy.cora.federate.solr.connector.SolrConnector;
 import net.yacy.cora.federate.yacy.CacheStrategy;
 import net.yacy.cora.order.Base64Order;
@@ -112,6 +120,8 @@ public class Segment {
     public static final String termIndexName = "text.index";
     public static final String citationIndexName = "citation.index";
     public static final String firstseenIndexName = "firstseen.index";
+    public static final String termDictionaryName = "termdictionary.txt.gz";
+    public static final int    termDictionaryMaxTerms = 500000; // about 64 MB
 
     // the reference factory
     public static final ReferenceFactory<WordReference> wordReferenceFactory = new WordReferenceFactory();
@@ -124,6 +134,10 @@ public class Segment {
     protected       IndexCell<WordReference>       termIndex;
     protected       IndexCell<CitationReference>   urlCitationIndex;
     protected       IndexTable                     firstSeenIndex;
+    protected final TermDictionary                 termDictionary; // the indexed words with their document frequency for the did-you-mean suggestions
+    private         long                           termDictionarySavedChanges;
+    private   final Object                         termDictionarySaveLock = new Object(); // not the segment, which is locked while close() waits for the seeder
+    private         Thread                         termDictionarySeeder = null;
     protected       IODispatcher                   merger = null; // shared iodispatcher for kelondro indexes
 
     /**
@@ -143,6 +157,15 @@ public class Segment {
         this.termIndex = null;
         this.urlCitationIndex = null;
         this.firstSeenIndex = new IndexTable(new File(segmentPath, firstseenIndexName), 12, 8, false, false);
+        this.termDictionary = new TermDictionary(termDictionaryMaxTerms);
+        final File termDictionaryFile = new File(segmentPath, termDictionaryName);
+        if (termDictionaryFile.exists()) try {
+            this.termDictionary.load(termDictionaryFile);
+            log.info("loaded " + this.termDictionary.size() + " terms into the term dictionary");
+        } catch (final IOException e) {
+            log.warn("cannot load term dictionary " + termDictionaryFile + ": " + e.getMessage());
+        }
+        this.termDictionarySavedChanges = this.termDictionary.changes();
     }
     
     public boolean connectedRWI() {
@@ -339,6 +362,134 @@ public class Segment {
         }
     }
     
+    /**
+     * @return a dictionary of all words which have been indexed, with the number of documents containing the word
+     */
+    public TermDictionary termDictionary() {
+        return this.termDictionary;
+    }
+
+    /**
+     * Complete the term dictionary with the words of the documents which were indexed before the dictionary
+     * existed and save it if it has changed, so a crash does not lose the words which were counted since the
+     * start. The words of the index are read from the text field of the embedded Solr index in a separate thread.
+     * This is called periodically by the cleanup job.
+     */
+    public void maintainTermDictionary() {
+        if (!this.termDictionary.isComplete()) synchronized (this) {
+            if (this.termDictionarySeeder == null || !this.termDictionarySeeder.isAlive()) {
+                this.termDictionarySeeder = new Thread("Segment.seedTermDictionary") {
+                    @Override
+                    public void run() {
+                        seedTermDictionary();
+                        if (!isInterrupted()) saveTermDictionary(); // otherwise close() saves the dictionary
+                    }
+                };
+                this.termDictionarySeeder.setPriority(Thread.MIN_PRIORITY);
+                this.termDictionarySeeder.start();
+            }
+        }
+        saveTermDictionary();
+    }
+
+    private void saveTermDictionary() {
+        synchronized (this.termDictionarySaveLock) {
+            final long changes = this.termDictionary.changes();
+            if (changes == this.termDictionarySavedChanges) return;
+            try {
+                this.termDictionary.save(new File(this.segmentPath, termDictionaryName));
+                this.termDictionarySavedChanges = changes;
+            } catch (final IOException e) {
+                this.log.warn("cannot save term dictionary: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * stop the thread which reads the words of the index into the term dictionary and wait until it has
+     * released the index searcher, so the index can be closed
+     */
+    private void stopTermDictionarySeeder() {
+        final Thread seeder = this.termDictionarySeeder;
+        if (seeder == null) return;
+        seeder.interrupt();
+        try {
+            seeder.join(10000);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (seeder.isAlive()) this.log.warn("the term dictionary seeder did not stop");
+        this.termDictionarySeeder = null;
+    }
+
+    /**
+     * add the words of the text field of the embedded index to the term dictionary
+     */
+    private void seedTermDictionary() {
+        final EmbeddedSolrConnector connector = this.fulltext == null ? null : this.fulltext.getDefaultEmbeddedConnector();
+        if (connector == null) return; // the words of a remote index are not available, suggestions are made with the index
+        if (Thread.currentThread().isInterrupted()) return;
+        final String field = CollectionSchema.text_t.getSolrFieldName();
+        final RefCounted<SolrIndexSearcher> searcher = connector.getCore().getSearcher();
+        try {
+            final Terms terms = MultiFields.getTerms(searcher.get().getIndexReader(), field);
+            if (terms == null) {
+                // no text is indexed, the new words are all words
+                this.termDictionary.setComplete(true);
+                return;
+            }
+            this.log.info("reading the words of the index into the term dictionary");
+            final int minFrequency = seedTermDictionary(this.termDictionary, terms, termDictionaryMaxTerms);
+            if (minFrequency < 0) return; // interrupted
+            this.termDictionary.setComplete(true);
+            this.log.info("the term dictionary contains " + this.termDictionary.size() + " words of the index, least document frequency " + minFrequency);
+        } catch (final IOException e) {
+            this.log.warn("cannot read the words of the index: " + e.getMessage());
+        } finally {
+            searcher.decref();
+        }
+    }
+
+    /**
+     * add the words of an indexed field with their document frequency to a dictionary; if the field has more words than
+     * the dictionary can hold, only the most frequent words are added. The frequency of words which are already in the
+     * dictionary is raised to the document frequency, so words of documents which were counted before are not counted twice.
+     * @param maxTerms the maximum number of terms of the dictionary
+     * @return the least document frequency of the added words, -1 if the thread was interrupted or the memory is short
+     */
+    static int seedTermDictionary(final TermDictionary dictionary, final Terms terms, final int maxTerms) throws IOException {
+        // count the words for each document frequency to find the least frequency of the words which fit into the dictionary
+        final int[] frequencies = new int[1 << 16];
+        TermsEnum te = terms.iterator();
+        BytesRef term;
+        while ((term = te.next()) != null) {
+            if (Thread.currentThread().isInterrupted()) return -1;
+            if (dictionaryWord(term.utf8ToString())) frequencies[Math.min(frequencies.length - 1, te.docFreq())]++;
+        }
+        int minFrequency = frequencies.length - 1;
+        long count = frequencies[minFrequency];
+        while (minFrequency > 1 && count + frequencies[minFrequency - 1] <= maxTerms - dictionary.size()) count += frequencies[--minFrequency];
+
+        te = terms.iterator();
+        while ((term = te.next()) != null) {
+            if (Thread.currentThread().isInterrupted() || MemoryControl.shortStatus()) return -1;
+            final int docFreq = te.docFreq();
+            if (docFreq < minFrequency) continue;
+            final String word = term.utf8ToString();
+            if (dictionaryWord(word)) dictionary.raise(word, docFreq);
+        }
+        return minFrequency;
+    }
+
+    /**
+     * @return true if the indexed term is a word for the did-you-mean suggestions
+     */
+    private static boolean dictionaryWord(final String term) {
+        if (term.length() < TermDictionary.MIN_TERM_LENGTH || term.length() > TermDictionary.MAX_TERM_LENGTH) return false;
+        for (int i = 0; i < term.length(); i++) if (!Character.isLetter(term.charAt(i))) return false;
+        return true;
+    }
+
     public long RWICount() {
         if (this.termIndex == null) return 0;
         return this.termIndex.sizesMax();
@@ -463,6 +614,8 @@ public class Segment {
             if (this.fulltext != null) this.fulltext.clearLocalSolr();
             if (this.fulltext != null) this.fulltext.clearRemoteSolr();
             if (this.urlCitationIndex != null) this.urlCitationIndex.clear();
+            this.termDictionary.clear();
+            this.termDictionary.setComplete(true); // the index is empty
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
         }
@@ -479,10 +632,12 @@ public class Segment {
     }
 
     public synchronized void close() {
+        stopTermDictionarySeeder(); // before the fulltext is closed, the seeder reads the embedded index
     	if (this.termIndex != null) this.termIndex.close();
         if (this.fulltext != null) this.fulltext.close();
         if (this.urlCitationIndex != null) this.urlCitationIndex.close();
         if (this.firstSeenIndex != null) this.firstSeenIndex.close();
+        saveTermDictionary();
         if (this.merger != null) {
             this.merger.terminate();
             this.merger = null;
@@ -559,6 +714,18 @@ public class Segment {
         }
     }
 
+    /**
+     * store a batch of documents, for example from a surrogate file
+     * @param queueEntries the documents
+     */
+    public void putDocuments(final Collection<SolrInputDocument> queueEntries) {
+        try {
+            this.fulltext().putDocuments(queueEntries);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
     public SolrInputDocument storeDocument(
             final DigestURL url,
             final DigestURL referrerURL,
@@ -746,6 +913,9 @@ public class Segment {
             if (this.termIndex != null) try {this.termIndex.add(catchallHash, ientry);} catch (final Throwable e) {ConcurrentLog.logException(e);}
         }
 
+        // count the words for the did-you-mean suggestions
+        if (!MemoryControl.shortStatus()) this.termDictionary.inc(condenser.words().keySet());
+
         // finish index time
         final long indexingEndTime = System.currentTimeMillis();
 
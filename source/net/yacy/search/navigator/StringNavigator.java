@@ -29,6 +29,7 @@ import net.yacy.cora.sorting.ConcurrentScoreMap;
 import net.yacy.cora.sorting.ReversibleScoreMap;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
 import net.yacy.search.query.QueryModifier;
+import net.yacy.search.query.QueryParams;
 import net.yacy.search.schema.CollectionSchema;
 
 /**
@@ -41,7 +42,7 @@ public class StringNavigator  extends ConcurrentScoreMap<String> implements Navi
     protected final CollectionSchema field;
 
     public StringNavigator(String title, CollectionSchema field) {
-        super();
+        super(null, QueryParams.FACETS_STANDARD_MAXCOUNT_DEFAULT); // the result pages show the top entries only
         this.title = title;
         this.field = field;
     }
@@ -65,6 +65,7 @@ import net.yacy.cora.lod.vocabulary.Tagging;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.sorting.ConcurrentScoreMap;
+import net.yacy.cora.sorting.IntScoreMap;
 import net.yacy.cora.sorting.ReversibleScoreMap;
 import net.yacy.cora.sorting.ScoreMap;
 import net.yacy.cora.sorting.ScoreMapUpdatesListener;
@@ -81,9 +82,9 @@ import net.yacy.document.LibraryProvider;
 import net.yacy.document.ProbabilisticClassifier;
 import net.yacy.document.Tokenizer;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
+import net.yacy.kelondro.data.word.IndexAbstract;
 import net.yacy.kelondro.data.word.Word;
 import net.yacy.kelondro.data.word.WordReference;
-import net.yacy.kelondro.data.word.WordReferenceFactory;
 import net.yacy.kelondro.data.word.WordReferenceVars;
 import net.yacy.kelondro.index.RowHandleSet;
 import net.yacy.kelondro.rwi.ReferenceContainer;
@@ -145,7 +146,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     public Thread[] secondarySearchThreads;
     public final SortedSet<byte[]> preselectedPeerHashes;
     private final SortedMap<byte[], Integer> IACount;
-    private final SortedMap<byte[], String> IAResults;
+    private final SortedMap<byte[], IndexAbstract> IAResults;
     private final SortedMap<byte[], HeuristicResult> heuristics;
     private byte[] IAmaxcounthash, IAneardhthash;
     public Thread rwiProcess;
@@ -190,6 +191,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     private long                                          snippetComputationAllTime;
     private ConcurrentHashMap<String, LinkedHashSet<String>> snippets;
     private final boolean remote;
+    private final boolean generateAbstracts; // if true, the local search keeps all term containers to compute index abstracts
     
     /** add received results to local index (defult=true) */
     public final boolean addResultsToLocalIndex;
@@ -221,6 +223,12 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     /** thats the bag where the RWI search process writes to. Contains both references from both local and remote RWIs. */
     private final WeakPriorityBlockingQueue<WordReferenceVars> rwiStack;
     
+    /** the maximum size of the rwiStack and of each stack in the doubleDomCache */
+    private final int rwiStackSize;
+    
+    /** if true, entries which cannot be ranked into the full rwiStack are sorted out before their ranking is computed */
+    private final boolean rwiTopK;
+    
     /** thats the bag where the solr results are written to */
     private final WeakPriorityBlockingQueue<URIMetadataNode> nodeStack;
     
@@ -354,8 +362,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         this.excludeintext_image = Switchboard.getSwitchboard().getConfigBool("search.excludeintext.image", true);
         // prepare configured search navigation
         final String navcfg = Switchboard.getSwitchboard().getConfig("search.navigation", "");
-        this.locationNavigator = navcfg.contains("location") ? new ConcurrentScoreMap<String>(this) : null;
-        this.protocolNavigator = navcfg.contains("protocol") ? new ConcurrentScoreMap<String>(this) : null;
+        this.locationNavigator = navcfg.contains("location") ? new IntScoreMap<String>(this) : null;
+        this.protocolNavigator = navcfg.contains("protocol") ? new IntScoreMap<String>(this) : null;
         this.dateNavigator = navcfg.contains("date") ? new ConcurrentScoreMap<String>(this) : null;
         this.topicNavigatorCount = navcfg.contains("topics") ? MAX_TOPWORDS : 0;
         this.vocabularyNavigator = new TreeMap<String, ScoreMap<String>>();
@@ -372,11 +380,12 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         if (this.secondarySearchSuperviser != null) this.secondarySearchSuperviser.start();
         this.secondarySearchThreads = null;
         this.preselectedPeerHashes = preselectedPeerHashes;
-        this.IAResults = new TreeMap<byte[], String>(Base64Order.enhancedCoder);
+        this.IAResults = new TreeMap<byte[], IndexAbstract>(Base64Order.enhancedCoder);
         this.IACount = new TreeMap<byte[], Integer>(Base64Order.enhancedCoder);
         this.heuristics = new TreeMap<byte[], HeuristicResult>(Base64Order.enhancedCoder);
         this.IAmaxcounthash = null;
         this.IAneardhthash = null;
+        this.generateAbstracts = generateAbstracts;
         this.remote = (peers != null && peers.sizeConnected() > 0) && (this.query.domType == QueryParams.Searchdom.CLUSTER || (this.query.domType == QueryParams.Searchdom.GLOBAL && Switchboard.getSwitchboard().getConfigBool(SwitchboardConstants.INDEX_RECEIVE_ALLOW_SEARCH, false)));
         this.addResultsToLocalIndex = addResultsToLocalIdx;
         /* Défault : no size limit to store remote result documents to local index. Use setter to eventually modify it. */
@@ -401,9 +410,14 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         // attention: if minEntries is too high, this method will not terminate within the maxTime
         // sortorder: 0 = hash, 1 = url, 2 = ranking
         this.localSearchInclusion = null;
-        this.ref = new ConcurrentScoreMap<String>(this);
+        this.ref = new IntScoreMap<String>(this);
         this.maxtime = query.maxtime;
-        this.rwiStack = new WeakPriorityBlockingQueue<WordReferenceVars>(max_results_rwi, false);
+        final Switchboard sb = Switchboard.getSwitchboard();
+        final int topkPages = sb == null ? SwitchboardConstants.SEARCH_RANKING_RWI_TOPK_PAGES_DEFAULT :
+            sb.getConfigInt(SwitchboardConstants.SEARCH_RANKING_RWI_TOPK_PAGES, SwitchboardConstants.SEARCH_RANKING_RWI_TOPK_PAGES_DEFAULT);
+        this.rwiTopK = topkPages > 0;
+        this.rwiStackSize = this.rwiTopK ? Math.min(max_results_rwi, Math.max(query.neededResults(), query.itemsPerPage() * topkPages)) : max_results_rwi;
+        this.rwiStack = new WeakPriorityBlockingQueue<WordReferenceVars>(this.rwiStackSize, false);
         this.doubleDomCache = new ConcurrentHashMap<String, WeakPriorityBlockingQueue<WordReferenceVars>>();
         this.flagcount = new int[32];
         for ( int i = 0; i < 32; i++ ) {
@@ -508,7 +522,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                             this.IAneardhthash = wordhash;
                         }
                         this.IACount.put(wordhash, LargeNumberCache.valueOf(container.size()));
-                        this.IAResults.put(wordhash, WordReferenceFactory.compressIndex(container, null, 1000).toString());
+                        this.IAResults.put(wordhash, IndexAbstract.compress(container, null, 1000));
                     }
                 }
                 EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.ABSTRACTS, "", this.searchContainerMap() == null ? 0 : this.searchContainerMap().size(), System.currentTimeMillis() - timer), false);
@@ -599,7 +613,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                                 SearchEvent.this.query.getQueryGoal().getExcludeHashes(),
                             null,
                             Segment.wordReferenceFactory,
-                            SearchEvent.this.query.maxDistance);
+                            SearchEvent.this.query.maxDistance,
+                            SearchEvent.this.generateAbstracts);
                 SearchEvent.this.localSearchInclusion = search.inclusion();
                 ReferenceContainer<WordReference> index = search.joined();
                 if ( !index.isEmpty() ) {
@@ -625,7 +640,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                                             SearchEvent.this.query.getQueryGoal().getExcludeHashes(),
                                         null,
                                         Segment.wordReferenceFactory,
-                                        SearchEvent.this.query.maxDistance);
+                                        SearchEvent.this.query.maxDistance,
+                                        SearchEvent.this.generateAbstracts);
                         SearchEvent.this.localSearchInclusion = search.inclusion();
                         index = search.joined();
                         if (!index.isEmpty()) {
@@ -785,6 +801,15 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 
                 // finally extend the double-check and insert result to stack
                 this.urlhashes.putUnique(iEntry.urlhash());
+                if (this.rwiTopK && this.rwiStack.sizeQueue() >= this.rwiStackSize) {
+                    // the stack is full: skip the ranking if the entry would be removed again as the worst entry
+                    final WeakPriorityBlockingQueue.Element<WordReferenceVars> worst = this.rwiStack.getLastInQueue();
+                    if (worst != null && this.order.cardinalUpperBound(iEntry) < worst.getWeight()) {
+                        if (local) this.local_rwi_available.incrementAndGet(); else this.remote_rwi_available.incrementAndGet();
+                        successcounter++;
+                        continue pollloop;
+                    }
+                }
                 rankingtryloop: while (true) {
                     try {
                         this.rwiStack.put(new ReverseElement<WordReferenceVars>(iEntry, this.order.cardinal(iEntry))); // inserts the element and removes the worst (which is smallest)
@@ -862,7 +887,10 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         this.resultList.clear();
     }
 
-    public String abstractsString(final byte[] hash) {
+    /**
+     * @return the index abstract of a word or null if the word was not searched
+     */
+    public IndexAbstract getAbstract(final byte[] hash) {
         return this.IAResults.get(hash);
     }
 
@@ -1162,7 +1190,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 					if (fcts != null) {
 						ScoreMap<String> vocNav = this.vocabularyNavigator.get(vocName);
 						if (vocNav == null) {
-							vocNav = new ConcurrentScoreMap<String>();
+							vocNav = new IntScoreMap<String>();
 							this.vocabularyNavigator.put(vocName, vocNav);
 						}
 						vocNav.inc(fcts);
@@ -1240,7 +1268,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 		if(docValue instanceof String) {
 			ScoreMap<String> vocNav = this.vocabularyNavigator.get(vocName);
 			if (vocNav == null) {
-				vocNav = new ConcurrentScoreMap<String>();
+				vocNav = new IntScoreMap<String>();
 				this.vocabularyNavigator.put(vocName, vocNav);
 			}
 			vocNav.inc((String)docValue);
@@ -1248,7 +1276,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 			if (!((Collection<?>) docValue).isEmpty()) {
 				ScoreMap<String> vocNav = this.vocabularyNavigator.get(vocName);
 				if (vocNav == null) {
-					vocNav = new ConcurrentScoreMap<String>();
+					vocNav = new IntScoreMap<String>();
 					this.vocabularyNavigator.put(vocName, vocNav);
 				}
 				for (final Object singleDocValue : (Collection<?>) docValue) {
@@ -1303,7 +1331,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                         m = this.doubleDomCache.get(hosthash);
                         if (m == null) {
                             // first appearance of dom. we create an entry to signal that one of that domain was already returned
-                            m = new WeakPriorityBlockingQueue<WordReferenceVars>(max_results_rwi, false);
+                            m = new WeakPriorityBlockingQueue<WordReferenceVars>(this.rwiStackSize, false);
                             this.doubleDomCache.put(hosthash, m);
                             URIMetadataNode node = this.query.getSegment().fulltext().getMetadata(rwi);
                             if (node == null) {
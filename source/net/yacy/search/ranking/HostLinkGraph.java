@@ -0,0 +1,206 @@
+// HostLinkGraph.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.ranking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The link graph of all documents of a single host, stored in compressed sparse row form:
+ * every document gets an integer ordinal, and the ordinals of the documents which link to
+ * the document with ordinal i are stored in sources[offsets[i] .. offsets[i + 1]).
+ * The graph is loaded once and then used for all steps of the citation rank computation,
+ * which therefore runs on primitive arrays only.
+ */
+public final class HostLinkGraph {
+
+    private final String[] ids;   // ordinal -> document id
+    private final int[] outlinks; // ordinal -> number of host-internal links from that document
+    private final int[] offsets;  // ordinal -> first position of the referrers in sources; length is size() + 1
+    private final int[] sources;  // ordinals of referrers, grouped by the referenced document
+
+    private HostLinkGraph(final String[] ids, final int[] outlinks, final int[] offsets, final int[] sources) {
+        this.ids = ids;
+        this.outlinks = outlinks;
+        this.offsets = offsets;
+        this.sources = sources;
+    }
+
+    /**
+     * @return the number of documents in the graph
+     */
+    public int size() {
+        return this.ids.length;
+    }
+
+    /**
+     * @return the number of links in the graph
+     */
+    public int links() {
+        return this.sources.length;
+    }
+
+    /**
+     * @param ordinal a document ordinal
+     * @return the id of the document
+     */
+    public String id(final int ordinal) {
+        return this.ids[ordinal];
+    }
+
+    /**
+     * Compute the citation rank of all documents with a damped iteration: in every step the rank of a
+     * document is (1 - damping) / size() + damping * sum(rank(r) / outlinks(r)) over all referrers r.
+     * Referrers without outgoing links are ignored. The iteration ends when no rank changes within the
+     * given number of digits or after maxSteps steps.
+     * @param damping the damping factor, usually 0.85
+     * @param convergeDigits the number of digits which must be stable for convergence
+     * @param maxSteps the maximum number of iteration steps
+     * @return the citation rank for each document ordinal
+     */
+    public double[] citationRank(final double damping, final int convergeDigits, final int maxSteps) {
+        final int n = this.ids.length;
+        double[] cr = new double[n];
+        if (n == 0) return cr;
+        double[] ncr = new double[n];
+        Arrays.fill(cr, 1.0d / n);
+
+        // the contribution of a document to each referenced document is its rank divided by the number of its links
+        final double[] share = new double[n];
+        final double[] inverse = new double[n];
+        for (int i = 0; i < n; i++) inverse[i] = this.outlinks[i] > 0 ? 1.0d / this.outlinks[i] : 0.0d;
+
+        final double converge = Math.pow(10.0d, convergeDigits);
+        final double df = (1.0d - damping) / n;
+        for (int step = 0; step < maxSteps; step++) {
+            for (int i = 0; i < n; i++) share[i] = cr[i] * inverse[i];
+            boolean convergence = true;
+            for (int i = 0; i < n; i++) {
+                double sum = 0.0d;
+                for (int p = this.offsets[i], end = this.offsets[i + 1]; p < end; p++) sum += share[this.sources[p]];
+                final double r = df + damping * sum;
+                if (convergence && ((int) (r * converge)) != ((int) (cr[i] * converge))) convergence = false;
+                ncr[i] = r;
+            }
+            final double[] t = cr; cr = ncr; ncr = t;
+            if (convergence) break;
+        }
+        return cr;
+    }
+
+    /**
+     * Collects documents and links of a host and produces the compressed graph.
+     * Documents must be added before the links which reference them.
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer> ordinals;
+        private final ArrayList<String> ids;
+        private int[] outlinks;
+        private long[] links; // the target ordinal in the upper and the source ordinal in the lower half
+        private int linkCount;
+
+        public Builder() {
+            this.ordinals = new HashMap<String, Integer>();
+            this.ids = new ArrayList<String>();
+            this.outlinks = new int[16];
+            this.links = new long[16];
+            this.linkCount = 0;
+        }
+
+        /**
+         * add a document to the graph
+         * @param id the document id
+         * @param outlinks the number of links from that document to documents of the same host
+         * @return the ordinal of the document
+         */
+        public int addDocument(final String id, final int outlinks) {
+            final Integer o = this.ordinals.get(id);
+            if (o != null) return o.intValue();
+            final int ordinal = this.ids.size();
+            this.ordinals.put(id, ordinal);
+            this.ids.add(id);
+            if (ordinal == this.outlinks.length) this.outlinks = Arrays.copyOf(this.outlinks, ordinal * 2);
+            this.outlinks[ordinal] = outlinks;
+            return ordinal;
+        }
+
+        /**
+         * @return the number of documents added so far
+         */
+        public int size() {
+            return this.ids.size();
+        }
+
+        /**
+         * @param ordinal a document ordinal
+         * @return the id of the document
+         */
+        public String id(final int ordinal) {
+            return this.ids.get(ordinal);
+        }
+
+        /**
+         * @param id a document id
+         * @return the ordinal of the document or -1 if the document was not added
+         */
+        public int ordinal(final String id) {
+            final Integer o = this.ordinals.get(id);
+            return o == null ? -1 : o.intValue();
+        }
+
+        /**
+         * add a link between two documents of the graph
+         * @param source the ordinal of the linking document
+         * @param target the ordinal of the referenced document
+         */
+        public void addLink(final int source, final int target) {
+            assert source >= 0 && source < this.ids.size();
+            assert target >= 0 && target < this.ids.size();
+            if (this.linkCount == this.links.length) this.links = Arrays.copyOf(this.links, this.linkCount * 2);
+            this.links[this.linkCount++] = (((long) target) << 32) | source;
+        }
+
+        /**
+         * @return the compressed graph; the builder must not be used afterwards
+         */
+        public HostLinkGraph build() {
+            final int n = this.ids.size();
+            // sorting by target and then by source groups the referrers of each document and keeps them in memory order
+            Arrays.sort(this.links, 0, this.linkCount);
+            final int[] offsets = new int[n + 1];
+            final int[] sources = new int[this.linkCount];
+            int e = 0;
+            for (int p = 0; p < this.linkCount; p++) {
+                final long link = this.links[p];
+                if (p > 0 && link == this.links[p - 1]) continue; // double link
+                sources[e++] = (int) link;
+                offsets[((int) (link >>> 32)) + 1]++;
+            }
+            for (int i = 0; i < n; i++) offsets[i + 1] += offsets[i];
+            this.links = null;
+            return new HostLinkGraph(this.ids.toArray(new String[n]), Arrays.copyOf(this.outlinks, n), offsets, e == sources.length ? sources : Arrays.copyOf(sources, e));
+        }
+    }
+}
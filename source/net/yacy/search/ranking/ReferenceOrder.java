@@ -27,18 +27,14 @@
 package net.yacy.search.ranking;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.id.DigestURL;
-import net.yacy.cora.sorting.ConcurrentScoreMap;
+import net.yacy.cora.sorting.HashScoreMap;
 import net.yacy.cora.util.ConcurrentLog;
-import net.yacy.document.LargeNumberCache;
 import net.yacy.document.Tokenizer;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
 import net.yacy.kelondro.data.word.WordReference;
@@ -54,17 +50,35 @@ public class ReferenceOrder {
 
     private       int maxdomcount;
     private       WordReferenceVars min, max;
-    private final ConcurrentScoreMap<String> doms; // collected for "authority" heuristic
+    private final HashScoreMap doms; // host hashes, collected for "authority" heuristic
     private final RankingProfile ranking;
     private final String language;
+    private final byte[] languageBytes;
+    private final long normalizedMaximum; // the sum of all normalized ranking criteria at their highest value
 
     public ReferenceOrder(final RankingProfile profile, final String language) {
         this.min = null;
         this.max = null;
         this.ranking = profile;
-        this.doms = new ConcurrentScoreMap<String>();
+        this.doms = new HashScoreMap(6);
         this.maxdomcount = 0;
         this.language = language;
+        this.languageBytes = ASCII.getBytes(language);
+        this.normalizedMaximum =
+             (256L << profile.coeff_urlcomps)
+           + (256L << profile.coeff_urllength)
+           + (256L << profile.coeff_posintext)
+           + (256L << profile.coeff_posofphrase)
+           + (256L << profile.coeff_posinphrase)
+           + (256L << profile.coeff_worddistance)
+           + (256L << profile.coeff_date)
+           + (256L << profile.coeff_wordsintitle)
+           + (256L << profile.coeff_wordsintext)
+           + (256L << profile.coeff_phrasesintext)
+           + (256L << profile.coeff_llocal)
+           + (256L << profile.coeff_lother)
+           + (256L << profile.coeff_hitcount)
+           + (256L << profile.coeff_termfrequency);
     }
 
     public BlockingQueue<WordReferenceVars> normalizeWith(final ReferenceContainer<WordReference> container, long maxtime, final boolean local) {
@@ -163,10 +177,7 @@ public class ReferenceOrder {
         public void run() {
             try {
                 WordReferenceVars iEntry;
-                final Map<String, Integer> doms0 = new HashMap<String, Integer>();
-                String dom;
-                Integer count;
-                final Integer int1 = 1;
+                final HashScoreMap doms0 = new HashScoreMap(6);
                 long timeout = this.maxtime == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + this.maxtime;
                 while ((iEntry = this.decodedEntries.take()) != WordReferenceVars.poison) {
                     // find min/max
@@ -174,13 +185,7 @@ public class ReferenceOrder {
                     if (ReferenceOrder.this.max == null) ReferenceOrder.this.max = iEntry.clone(); else ReferenceOrder.this.max.max(iEntry);
                     this.out.put(iEntry); // must be after the min/max check to prevent that min/max is null in cardinal()
                     // update domcount
-                    dom = iEntry.hosthash();
-                    count = doms0.get(dom);
-                    if (count == null) {
-                        doms0.put(dom, int1);
-                    } else {
-                        doms0.put(dom, LargeNumberCache.valueOf(count.intValue() + 1));
-                    }
+                    doms0.inc(iEntry.urlhash(), 6, 1); // the host hash is the second half of the url hash
 
                     if (System.currentTimeMillis() > timeout) {
                         ConcurrentLog.warn("NormalizeWorker", "normlization of decoded rows ended with timeout = " + this.maxtime);
@@ -189,12 +194,7 @@ public class ReferenceOrder {
                 }
 
                 // update domain score
-                Map.Entry<String, Integer> entry;
-                final Iterator<Map.Entry<String, Integer>> di = doms0.entrySet().iterator();
-                while (di.hasNext()) {
-                    entry = di.next();
-                    ReferenceOrder.this.doms.inc(entry.getKey(), (entry.getValue()).intValue());
-                }
+                ReferenceOrder.this.doms.inc(doms0);
                 if (!ReferenceOrder.this.doms.isEmpty()) ReferenceOrder.this.maxdomcount = ReferenceOrder.this.doms.getMaxScore();
             } catch (final InterruptedException e) {
                 ConcurrentLog.logException(e);
@@ -210,9 +210,12 @@ public class ReferenceOrder {
         }
     }
 
-    public int authority(final String hostHash) {
-        assert hostHash.length() == 6;
-        return (this.doms.get(hostHash) << 8) / (1 + this.maxdomcount);
+    /**
+     * @param urlHash the url hash of a document
+     * @return the number of documents of the host of the document in relation to the host with the most documents
+     */
+    public int authority(final byte[] urlHash) {
+        return (this.doms.get(urlHash, 6) << 8) / (1 + this.maxdomcount);
     }
 
     /**
@@ -226,12 +229,10 @@ public class ReferenceOrder {
         assert this.max != null;
         assert t != null;
         assert this.ranking != null;
-        final Bitfield flags = t.flags();
         final long tf = ((this.max.termFrequency() == this.min.termFrequency()) ? 0 : (((int)(((t.termFrequency()-this.min.termFrequency())*256.0)/(this.max.termFrequency() - this.min.termFrequency())))) << this.ranking.coeff_termfrequency);
         //System.out.println("tf(" + t.urlHash + ") = " + Math.floor(1000 * t.termFrequency()) + ", min = " + Math.floor(1000 * min.termFrequency()) + ", max = " + Math.floor(1000 * max.termFrequency()) + ", tf-normed = " + tf);
         final long r =
-             ((256 - DigestURL.domLengthNormalized(t.urlhash())) << this.ranking.coeff_domlength)
-           + ((this.max.urlcomps()      == this.min.urlcomps()   )   ? 0 : (256 - (((t.urlcomps()     - this.min.urlcomps()    ) << 8) / (this.max.urlcomps()    - this.min.urlcomps())    )) << this.ranking.coeff_urlcomps)
+             ((this.max.urlcomps()      == this.min.urlcomps()   )   ? 0 : (256 - (((t.urlcomps()     - this.min.urlcomps()    ) << 8) / (this.max.urlcomps()    - this.min.urlcomps())    )) << this.ranking.coeff_urlcomps)
            + ((this.max.urllength()     == this.min.urllength()  )   ? 0 : (256 - (((t.urllength()    - this.min.urllength()   ) << 8) / (this.max.urllength()   - this.min.urllength())   )) << this.ranking.coeff_urllength)
            + ((this.max.posintext()     == this.min.posintext())     ? 0 : (256 - (((t.posintext()    - this.min.posintext()   ) << 8) / (this.max.posintext()   - this.min.posintext())   )) << this.ranking.coeff_posintext)
            + ((this.max.posofphrase()   == this.min.posofphrase())   ? 0 : (256 - (((t.posofphrase()  - this.min.posofphrase() ) << 8) / (this.max.posofphrase() - this.min.posofphrase()) )) << this.ranking.coeff_posofphrase)
@@ -245,7 +246,35 @@ public class ReferenceOrder {
            + ((this.max.lother()        == this.min.lother())        ? 0 : (((t.lother()       - this.min.lother()        ) << 8) / (this.max.lother()       - this.min.lother())        ) << this.ranking.coeff_lother)
            + ((this.max.hitcount()      == this.min.hitcount())      ? 0 : (((t.hitcount()     - this.min.hitcount()      ) << 8) / (this.max.hitcount()     - this.min.hitcount())      ) << this.ranking.coeff_hitcount)
            + tf
-           + ((this.ranking.coeff_authority > 12) ? (authority(t.hosthash()) << this.ranking.coeff_authority) : 0)
+           + unnormalized(t);
+
+        //if (searchWords != null) r += (yacyURL.probablyWordURL(t.urlHash(), searchWords) != null) ? 256 << ranking.coeff_appurl : 0;
+
+        return r; // the higher the number the better the ranking.
+    }
+
+    /**
+     * compute a value which is not lower than the {@link #cardinal(WordReference)} of the given entry,
+     * without the normalization against the minimum and maximum of all entries: every normalized
+     * ranking criterion is taken with its highest possible value. An entry whose upper bound is below
+     * the ranking of other entries can be sorted out without computing its exact ranking.
+     * @param t a word entry which has passed the normalization
+     * @return the highest possible ranking of the entry
+     */
+    public long cardinalUpperBound(final WordReference t) {
+        assert t != null;
+        return this.normalizedMaximum + unnormalized(t);
+    }
+
+    /**
+     * the part of the ranking which does not depend on the normalization: domain length, authority,
+     * flags and language
+     */
+    private long unnormalized(final WordReference t) {
+        final Bitfield flags = t.flags();
+        return
+             ((256 - DigestURL.domLengthNormalized(t.urlhash())) << this.ranking.coeff_domlength)
+           + ((this.ranking.coeff_authority > 12) ? (authority(t.urlhash()) << this.ranking.coeff_authority) : 0)
            + ((flags.get(WordReferenceRow.flag_app_dc_identifier))  ? 255 << this.ranking.coeff_appurl             : 0)
            + ((flags.get(WordReferenceRow.flag_app_dc_title))       ? 255 << this.ranking.coeff_app_dc_title       : 0)
            + ((flags.get(WordReferenceRow.flag_app_dc_creator))     ? 255 << this.ranking.coeff_app_dc_creator     : 0)
@@ -257,13 +286,9 @@ public class ReferenceOrder {
            + ((flags.get(Tokenizer.flag_cat_hasaudio))     ? 255 << this.ranking.coeff_cathasaudio        : 0)
            + ((flags.get(Tokenizer.flag_cat_hasvideo))     ? 255 << this.ranking.coeff_cathasvideo        : 0)
            + ((flags.get(Tokenizer.flag_cat_hasapp))       ? 255 << this.ranking.coeff_cathasapp          : 0)
-           + ((Arrays.equals(t.getLanguage(), ASCII.getBytes(this.language))) ? 255 << this.ranking.coeff_language    : 0);
-
-        //if (searchWords != null) r += (yacyURL.probablyWordURL(t.urlHash(), searchWords) != null) ? 256 << ranking.coeff_appurl : 0;
-
-        return r; // the higher the number the better the ranking.
+           + ((Arrays.equals(t.getLanguage(), this.languageBytes)) ? 255 << this.ranking.coeff_language    : 0);
     }
-    
+
     public long cardinal(final URIMetadataNode t) {
         // the normalizedEntry must be a normalized indexEntry
         assert t != null;
@@ -279,7 +304,7 @@ public class ReferenceOrder {
            + (t.llocal()      << this.ranking.coeff_llocal)
            + (t.lother()      << this.ranking.coeff_lother)
            //
-           + ((this.ranking.coeff_authority > 12) ? (authority(t.hosthash()) << this.ranking.coeff_authority) : 0)
+           + ((this.ranking.coeff_authority > 12) ? (authority(t.hash()) << this.ranking.coeff_authority) : 0)
            + ((flags.get(WordReferenceRow.flag_app_dc_identifier))  ? 255 << this.ranking.coeff_appurl             : 0)
            + ((flags.get(WordReferenceRow.flag_app_dc_title))       ? 255 << this.ranking.coeff_app_dc_title       : 0)
            + ((flags.get(WordReferenceRow.flag_app_dc_creator))     ? 255 << this.ranking.coeff_app_dc_creator     : 0)
@@ -45,7 +45,11 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
@@ -69,7 +73,6 @@ import net.yacy.cora.federate.solr.SchemaConfiguration;
 import net.yacy.cora.federate.solr.SchemaDeclaration;
 import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
 import net.yacy.cora.federate.solr.connector.SolrConnector;
-import net.yacy.cora.federate.solr.connector.SolrConnector.LoadTimeURL;
 import net.yacy.cora.federate.solr.logic.BooleanLiteral;
 import net.yacy.cora.federate.solr.logic.CatchallLiteral;
 import net.yacy.cora.federate.solr.logic.Conjunction;
@@ -77,7 +80,6 @@ import net.yacy.cora.federate.solr.logic.Disjunction;
 import net.yacy.cora.federate.solr.logic.LongLiteral;
 import net.yacy.cora.federate.solr.logic.Negation;
 import net.yacy.cora.federate.solr.logic.StringLiteral;
-import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.ResponseHeader;
@@ -98,7 +100,6 @@ import net.yacy.document.parser.html.IconEntry;
 import net.yacy.document.parser.html.ImageEntry;
 import net.yacy.kelondro.data.citation.CitationReference;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
-import net.yacy.kelondro.index.RowHandleMap;
 import net.yacy.kelondro.rwi.ReferenceContainer;
 import net.yacy.kelondro.util.Bitfield;
 import net.yacy.kelondro.util.MemoryControl;
@@ -106,6 +107,7 @@ import net.yacy.search.index.Segment;
 import net.yacy.search.index.Segment.ReferenceReport;
 import net.yacy.search.index.Segment.ReferenceReportCache;
 import net.yacy.search.query.QueryParams;
+import net.yacy.search.ranking.HostLinkGraph;
 
 
 public class CollectionConfiguration extends SchemaConfiguration implements Serializable {
@@ -1360,6 +1362,15 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                         this.contains(CollectionSchema.references_internal_i) &&
                         this.contains(CollectionSchema.references_external_i) &&
                         this.contains(CollectionSchema.references_exthosts_i);
+                
+                // group the documents of the harvested hosts by their signatures; that replaces the double content query for each document
+                DoubleContentGroups doublecontent = null;
+                try {
+                    doublecontent = DoubleContentGroups.collect(collectionConnector, collection, collection1query, byPartialUpdate);
+                } catch (final IOException e) {
+                    ConcurrentLog.warn("CollectionConfiguration", "double content grouping failed, the documents are checked one by one: " + e.getMessage());
+                }
+                final DoubleContentGroups doublecontentGroups = doublecontent;
                 ConcurrentLog.info("CollectionConfiguration", postprocessingActivity);
                 final BlockingQueue<SolrDocument> docs = collectionConnector.concurrentDocumentsByQueries(
                         querystrings,
@@ -1435,7 +1446,7 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                                             if (tagtype == ProcessType.UNIQUE) {
                                                 postprocessing_http_unique(segment, doc, sid, url);
                                                 postprocessing_www_unique(segment, doc, sid, url);
-                                                postprocessing_doublecontent(segment, uniqueURLs, doc, sid, url);
+                                                if (doublecontentGroups == null || !doublecontentGroups.apply(i, sid)) postprocessing_doublecontent(segment, uniqueURLs, doc, sid, url);
                                             }
                                             
                                         } catch (IllegalArgumentException e) {}
@@ -1648,9 +1659,9 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
 	private Map<String, CRV> createRankingMap(final Segment segment, final ReferenceReportCache rrCache,
 			final SolrConnector collectionConnector, ReversibleScoreMap<String> collection1hosts) {
 		final Map<String, CRV> rankings = new ConcurrentHashMap<String, CRV>();
+		final List<String> crhosts = new ArrayList<String>();
         try {
-            int concurrency = Math.min(collection1hosts.size(), Runtime.getRuntime().availableProcessors());
-            postprocessingActivity = "collecting cr for " + collection1hosts.size() + " hosts, concurrency = " + concurrency;
+            postprocessingActivity = "patching citation index for " + collection1hosts.size() + " hosts";
             ConcurrentLog.info("CollectionConfiguration", postprocessingActivity);
             int countcheck = 0;
             for (String host: collection1hosts.keyList(true)) {
@@ -1696,28 +1707,8 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                 }
                 if (patchquerycount != patchquerycountcheck) ConcurrentLog.warn("CollectionConfiguration", "ambiguous patchquery count for host " + host + ": expected=" + patchquerycount + ", counted=" + patchquerycountcheck);
                 
-                // do the citation rank computation
-                if (collection1hosts.get(host) <= 0) continue;
-                // select all documents for each host
-                CRHost crh = new CRHost(segment, rrCache, host, 0.85d, 6);
-                int convergence_attempts = 0;
-                while (convergence_attempts++ < 30) {
-                    ConcurrentLog.info("CollectionConfiguration", "convergence step " + convergence_attempts + " for host " + host + " ...");
-                    if (crh.convergenceStep()) break;
-                    if (MemoryControl.shortStatus()) {
-                        ConcurrentLog.warn("CollectionConfiguration", "terminated convergenceStep during postprocessing because of short memory");
-                        break;
-                    }
-                }
-                ConcurrentLog.info("CollectionConfiguration", "convergence for host " + host + " after " + convergence_attempts + " steps");
-                // we have now the cr for all documents of a specific host; we store them for later use
-                Map<String, CRV> crn = crh.normalize();
-                //crh.log(crn);
-                rankings.putAll(crn); // accumulate this here for usage in document update later
-                if (MemoryControl.shortStatus()) {
-                    ConcurrentLog.warn("CollectionConfiguration", "terminated crn akkumulation during postprocessing because of short memory");
-                    break;
-                }
+                // the citation rank computation is done for all hosts after the citation index is patched
+                if (collection1hosts.get(host) > 0) crhosts.add(host);
                 countcheck++;
             }
             if (collection1hosts.size() != countcheck) ConcurrentLog.warn("CollectionConfiguration", "ambiguous host count: expected=" + collection1hosts.size() + ", counted=" + countcheck);
@@ -1725,6 +1716,43 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
             ConcurrentLog.logException(e2);
             collection1hosts = new ClusteredScoreMap<String>(true);
         }
+        
+        // do the citation rank computation; each host is computed in its own task because the link graphs are independent
+        final int concurrency = Math.max(1, Math.min(crhosts.size(), Runtime.getRuntime().availableProcessors()));
+        postprocessingActivity = "computing cr for " + crhosts.size() + " hosts, concurrency = " + concurrency;
+        ConcurrentLog.info("CollectionConfiguration", postprocessingActivity);
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(crhosts.size());
+        for (final String host: crhosts) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    if (MemoryControl.shortStatus()) {
+                        ConcurrentLog.warn("CollectionConfiguration", "omitted cr computation for host " + host + " during postprocessing because of short memory");
+                        return null;
+                    }
+                    final HostLinkGraph graph = loadHostLinkGraph(segment, rrCache, host);
+                    final double[] cr = graph.citationRank(0.85d, 6, 30);
+                    // we have now the cr for all documents of a specific host; we store them for later use
+                    rankings.putAll(normalize(graph, cr)); // accumulate this here for usage in document update later
+                    ConcurrentLog.info("CollectionConfiguration", "computed cr for host " + host + ": " + graph.size() + " documents, " + graph.links() + " links");
+                    return null;
+                }
+            });
+        }
+        final ForkJoinPool pool = new ForkJoinPool(concurrency);
+        try {
+            for (final Future<Void> task: pool.invokeAll(tasks)) {
+                try {
+                    task.get();
+                } catch (final ExecutionException e) {
+                    ConcurrentLog.logException(e.getCause());
+                }
+            }
+        } catch (final InterruptedException e) {
+            ConcurrentLog.logException(e);
+        } finally {
+            pool.shutdown();
+        }
 		return rankings;
 	}
 
@@ -1947,177 +1975,81 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
     }
     
     /**
-     * The CRHost class is a container for all ranking values of a specific host.
-     * Objects of that class are needed as an environment for repeated convergenceStep() computations,
-     * which are iterative citation rank computations that are repeated until the ranking values
-     * converge to stable values.
-     * The class also contains normalization methods to compute simple integer ranking values out of the
-     * double relevance values.
+     * Load the link graph of a host: all documents of the host with their number of host-internal links
+     * from the collection, and the host-internal referrers of each document from the reference reports.
+     * @param segment Solr segment
+     * @param rrCache reference report cache for the segment
+     * @param host the host name
+     * @return the link graph of the host
      */
-    private static final class CRHost {
-        private final Segment segment;
-        private final Map<String, double[]> crt;
-        private final int cr_host_count;
-        private final RowHandleMap internal_links_counter;
-        private double damping;
-        private int converge_eq_factor;
-        private ReferenceReportCache rrCache;
-        public CRHost(final Segment segment, final ReferenceReportCache rrCache, final String host, final double damping, final int converge_digits) {
-            this.segment = segment;
-            this.damping = damping;
-            this.rrCache = rrCache;
-            this.converge_eq_factor = (int) Math.pow(10.0d, converge_digits);
-            SolrConnector connector = segment.fulltext().getDefaultConnector();
-            this.crt = new ConcurrentHashMap<String, double[]>();
-            try {
-                // select all documents for each host
-                BlockingQueue<String> ids = connector.concurrentIDsByQuery("{!cache=false raw f=" + CollectionSchema.host_s.getSolrFieldName() + "}" + host, CollectionSchema.url_chars_i.getSolrFieldName() + " asc", 0, 100000000, 86400000, 200, 1);
-                String id;
-                while ((id = ids.take()) != AbstractSolrConnector.POISON_ID) {
-                    this.crt.put(id, new double[]{0.0d,0.0d}); //{old value, new value}
-                    if (MemoryControl.shortStatus()) {
-                        ConcurrentLog.warn("CollectionConfiguration", "terminated CRHost collection during postprocessing because of short memory");
-                        break;
-                    }
-                }
-            } catch (final InterruptedException e2) {
-            }
-            this.cr_host_count = this.crt.size();
-            double initval = 1.0d / cr_host_count;
-            for (Map.Entry<String, double[]> entry: this.crt.entrySet()) entry.getValue()[0] = initval;
-            this.internal_links_counter = new RowHandleMap(12, Base64Order.enhancedCoder, 8, 100, "internal_links_counter");
-        }
-        /**
-         * produce a map from IDs to CRV records, normalization entries containing the values that are stored to solr.
-         * @return
-         */
-        public Map<String, CRV> normalize() {
-            final TreeMap<Double, List<byte[]>> reorder = new TreeMap<Double, List<byte[]>>();
-            for (Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                Double d = entry.getValue()[0];
-                List<byte[]> ds = reorder.get(d);
-                if (ds == null) {ds = new ArrayList<byte[]>(); reorder.put(d, ds);}
-                ds.add(ASCII.getBytes(entry.getKey()));
-            }
-            int nextcount = (this.cr_host_count + 1) / 2;
-            int nextcrn = 0;
-            Map<String, CRV> r = new HashMap<String, CRV>();
-            while (reorder.size() > 0) {
-                int count = nextcount;
-                while (reorder.size() > 0 && count > 0) {
-                    Map.Entry<Double, List<byte[]>> next = reorder.pollFirstEntry();
-                    List<byte[]> ids = next.getValue();
-                    count -= ids.size();
-                    double cr = next.getKey();
-                    for (byte[] id: ids) r.put(ASCII.String(id), new CRV(this.cr_host_count, cr, nextcrn));
-                }
-                nextcrn++;
-                nextcount = Math.max(1, (nextcount + count + 1) / 2);
-            }
-            // finally, increase the crn number in such a way that the maximum is always 10
-            int inc = 11 - nextcrn; // nextcrn is +1
-            for (Map.Entry<String, CRV> entry: r.entrySet()) entry.getValue().crn += inc;
-            return r;
-        }
-        /**
-         * log out a complete CRHost set of urls and ranking values
-         * @param rm
-         */
-        @SuppressWarnings("unused")
-        public void log(final Map<byte[], CRV> rm) {
-            // print out all urls with their cr-values
-            SolrConnector connector = segment.fulltext().getDefaultConnector();
-            for (Map.Entry<byte[], CRV> entry: rm.entrySet()) {
-                if (entry == null || entry.getValue() == null) continue;
-                try {
-                    LoadTimeURL md = connector.getLoadTimeURL(ASCII.String(entry.getKey()));
-                    ConcurrentLog.info("CollectionConfiguration", "CR for " + md.url);
-                    ConcurrentLog.info("CollectionConfiguration", ">> " + entry.getValue().toString());
-                } catch (final IOException e) {
-                    ConcurrentLog.logException(e);
+    private static HostLinkGraph loadHostLinkGraph(final Segment segment, final ReferenceReportCache rrCache, final String host) {
+        final HostLinkGraph.Builder builder = new HostLinkGraph.Builder();
+        final SolrConnector connector = segment.fulltext().getDefaultConnector();
+        final BlockingQueue<SolrDocument> docs = connector.concurrentDocumentsByQuery("{!cache=false raw f=" + CollectionSchema.host_s.getSolrFieldName() + "}" + host, CollectionSchema.url_chars_i.getSolrFieldName() + " asc", 0, 100000000, 86400000, 200, 1, false,
+                CollectionSchema.id.getSolrFieldName(), CollectionSchema.inboundlinkscount_i.getSolrFieldName());
+        SolrDocument doc;
+        try {
+            while ((doc = docs.take()) != AbstractSolrConnector.POISON_DOCUMENT) {
+                final String id = (String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName());
+                if (id == null) continue;
+                final Object x = doc.getFieldValue(CollectionSchema.inboundlinkscount_i.getSolrFieldName());
+                builder.addDocument(id, (x instanceof Integer) ? ((Integer) x).intValue() : (x instanceof Long) ? ((Long) x).intValue() : 0);
+                if (MemoryControl.shortStatus()) {
+                    ConcurrentLog.warn("CollectionConfiguration", "terminated host link graph collection during postprocessing because of short memory");
+                    break;
                 }
             }
+        } catch (final InterruptedException e) {
         }
-        /**
-         * Calculate the number of internal links from a specific document, denoted by the document ID.
-         * This is a very important attribute for the ranking computation because it is the dividend for the previous ranking attribute.
-         * The internalLinks value will be requested several times for the same id during the convergenceStep()-steps; therefore it should use a cache.
-         * This cache is part of the CRHost data structure.
-         * @param id
-         * @return the number of links from the document, denoted by the ID to documents within the same domain
-         */
-        public int getInternalLinks(final byte[] id) {
-            int il = (int) this.internal_links_counter.get(id);
-            if (il >= 0) return il;
-            SolrConnector connector = this.segment.fulltext().getDefaultConnector();
-            if (connector == null) return 0;
+        final int size = builder.size();
+        for (int target = 0; target < size; target++) {
             try {
-                SolrDocument doc = connector.getDocumentById(ASCII.String(id), CollectionSchema.inboundlinkscount_i.getSolrFieldName());
-                if (doc == null) {
-                    this.internal_links_counter.put(id, 0);
-                    return 0;
+                final ReferenceReport rr = rrCache.getReferenceReport(builder.id(target), false);
+                for (final byte[] iid: rr.getInternallIDs()) {
+                    final int source = builder.ordinal(ASCII.String(iid));
+                    if (source >= 0) builder.addLink(source, target);
                 }
-                Object x = doc.getFieldValue(CollectionSchema.inboundlinkscount_i.getSolrFieldName());
-                il = (x == null) ? 0 : (x instanceof Integer) ? ((Integer) x).intValue() : (x instanceof Long) ? ((Long) x).intValue() : 0;
-                this.internal_links_counter.put(id, il);
-                return il;
             } catch (final IOException e) {
                 ConcurrentLog.logException(e);
-            } catch (final SpaceExceededException e) {
-                ConcurrentLog.logException(e);
             }
-            try {this.internal_links_counter.put(id, 0);} catch (final SpaceExceededException e) {}
-            return 0;
-        }
-        /**
-         * Use the crt cache to compute the next generation of crt values.
-         * @return
-         */
-        public boolean convergenceStep() {
-            boolean convergence = true;
-            double df = (1.0d - damping) / this.cr_host_count;
-            try {
-                for (Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                    String id = entry.getKey();
-                    ReferenceReport rr = this.rrCache.getReferenceReport(id, false);
-                    // sum up the cr of the internal links
-                    HandleSet iids = rr.getInternallIDs();
-                    double ncr = 0.0d;
-                    for (byte[] iid: iids) {
-                        int ilc = getInternalLinks(iid);
-                        if (ilc > 0) { // if (ilc == 0) then the reference report is wrong!
-                            double[] d = this.crt.get(ASCII.String(iid));
-                            // d[] could be empty at some situations
-                            if (d != null && d.length > 0) {
-                                ncr += d[0] / ilc;
-                            } else {
-                                // Output a warning that d[] is empty
-                                ConcurrentLog.warn("COLLECTION", "d[] is empty, iid="  + ASCII.String(iid));
-                                break;
-                            }
-                        }
-                    }
-                    ncr = df + damping * ncr;
-                    if (convergence && !eqd(ncr, entry.getValue()[0])) convergence = false;
-                    entry.getValue()[1] = ncr;
-                }
-                // after the loop, replace the old value with the new value in crt
-                for (Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                    entry.getValue()[0] = entry.getValue()[1];
-                }
-            } catch (final IOException e) {
-            }
-            return convergence;
         }
-        /**
-         * helper method to check if two doubles are equal using a specific number of digits
-         * @param a
-         * @param b
-         * @return
-         */
-        private boolean eqd(final double a, final double b) {
-            return ((int) (a * this.converge_eq_factor)) == ((int) (b * this.converge_eq_factor));
+        return builder.build();
+    }
+
+    /**
+     * produce a map from IDs to CRV records, normalization entries containing the values that are stored to solr.
+     * @param graph the link graph of a host
+     * @param cr the citation rank for each document ordinal of the graph
+     * @return
+     */
+    private static Map<String, CRV> normalize(final HostLinkGraph graph, final double[] cr) {
+        final int cr_host_count = graph.size();
+        final TreeMap<Double, List<String>> reorder = new TreeMap<Double, List<String>>();
+        for (int i = 0; i < cr_host_count; i++) {
+            Double d = cr[i];
+            List<String> ds = reorder.get(d);
+            if (ds == null) {ds = new ArrayList<String>(); reorder.put(d, ds);}
+            ds.add(graph.id(i));
+        }
+        int nextcount = (cr_host_count + 1) / 2;
+        int nextcrn = 0;
+        Map<String, CRV> r = new HashMap<String, CRV>();
+        while (reorder.size() > 0) {
+            int count = nextcount;
+            while (reorder.size() > 0 && count > 0) {
+                Map.Entry<Double, List<String>> next = reorder.pollFirstEntry();
+                List<String> ids = next.getValue();
+                count -= ids.size();
+                double d = next.getKey();
+                for (String id: ids) r.put(id, new CRV(cr_host_count, d, nextcrn));
+            }
+            nextcrn++;
+            nextcount = Math.max(1, (nextcount + count + 1) / 2);
         }
+        // finally, increase the crn number in such a way that the maximum is always 10
+        int inc = 11 - nextcrn; // nextcrn is +1
+        for (Map.Entry<String, CRV> entry: r.entrySet()) entry.getValue().crn += inc;
+        return r;
     }
     
     /**
@@ -0,0 +1,327 @@
+/**
+ *  DoubleContentGroups
+ *  first published 2026 on http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.search.schema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+
+import net.yacy.cora.federate.solr.ProcessType;
+import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
+import net.yacy.cora.federate.solr.connector.SolrConnector;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.MemoryControl;
+
+/**
+ * Bulk computation of the double-content flags of the postprocessing: instead of one Solr query for
+ * each document, all documents of a host are streamed once and grouped by their signatures. The unique
+ * and copycount values of each group member are then known without further queries.
+ * A document counts as a copy of another document if both are on the same host, have the same signature
+ * and the other document is indexable: http status 200, no canonical tag pointing elsewhere and no noindex.
+ * Within a group, the first indexable document in url length order is the unique one.
+ */
+public class DoubleContentGroups {
+
+    /** signature, unique flag and copy count fields */
+    private static final CollectionSchema[][] signatureSchema = new CollectionSchema[][]{
+        {CollectionSchema.exact_signature_l, CollectionSchema.exact_signature_unique_b, CollectionSchema.exact_signature_copycount_i},
+        {CollectionSchema.fuzzy_signature_l, CollectionSchema.fuzzy_signature_unique_b, CollectionSchema.fuzzy_signature_copycount_i}};
+
+    /** signature and unique flag fields of metadata */
+    private static final CollectionSchema[][] metadataSchema = new CollectionSchema[][]{
+        {CollectionSchema.title, CollectionSchema.title_exact_signature_l, CollectionSchema.title_unique_b},
+        {CollectionSchema.description_txt, CollectionSchema.description_exact_signature_l, CollectionSchema.description_unique_b}};
+
+    private static final int updateBatchSize = 1000;
+
+    private final CollectionConfiguration configuration;
+    private final Map<String, SolrInputDocument> results; // the computed fields of the documents which shall be postprocessed
+
+    public DoubleContentGroups(final CollectionConfiguration configuration) {
+        this.configuration = configuration;
+        this.results = new ConcurrentHashMap<String, SolrInputDocument>();
+    }
+
+    /**
+     * @return the number of documents with computed flags
+     */
+    public int size() {
+        return this.results.size();
+    }
+
+    /**
+     * copy the computed flags of a document to the document which is written back to the index
+     * @param id the document id
+     * @param sid the document which is written back
+     * @return true if flags for the document had been computed, false if the document must be checked on its own
+     */
+    public boolean apply(final String id, final SolrInputDocument sid) {
+        final SolrInputDocument computed = this.results.remove(id);
+        if (computed == null) return false;
+        for (final SolrInputField field: computed) {
+            if (!field.getName().equals(CollectionSchema.id.getSolrFieldName())) sid.setField(field.getName(), field.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * @return the fields which must be present in the documents given to {@link #host(List, Set)}
+     */
+    public String[] fields() {
+        final List<String> fields = new ArrayList<String>();
+        for (final CollectionSchema f: new CollectionSchema[]{
+                CollectionSchema.id, CollectionSchema.sku, CollectionSchema.host_id_s,
+                CollectionSchema.httpstatus_i, CollectionSchema.robots_i, CollectionSchema.canonical_s, CollectionSchema.canonical_equal_sku_b}) {
+            fields.add(f.getSolrFieldName());
+        }
+        for (final CollectionSchema[] checkfields: signatureSchema) {
+            if (signatureEnabled(checkfields)) for (final CollectionSchema f: checkfields) fields.add(f.getSolrFieldName());
+        }
+        for (final CollectionSchema[] checkfields: metadataSchema) {
+            if (metadataEnabled(checkfields)) fields.add(checkfields[1].getSolrFieldName());
+        }
+        return fields.toArray(new String[fields.size()]);
+    }
+
+    private boolean signatureEnabled(final CollectionSchema[] checkfields) {
+        return this.configuration.contains(checkfields[0]) && this.configuration.contains(checkfields[1]) && this.configuration.contains(checkfields[2]);
+    }
+
+    private boolean metadataEnabled(final CollectionSchema[] checkfields) {
+        return this.configuration.contains(CollectionSchema.host_id_s) &&
+               this.configuration.contains(checkfields[0]) && this.configuration.contains(checkfields[1]) && this.configuration.contains(checkfields[2]);
+    }
+
+    /**
+     * Compute the flags for all documents of one host.
+     * @param docs all documents of the host, ordered by url length
+     * @param postprocess the ids of the documents which are postprocessed; their flags are kept for {@link #apply(String, SolrInputDocument)}
+     * @return partial updates for all other documents of the host where a stored flag differs from the computed flag
+     */
+    public Collection<SolrInputDocument> host(final List<SolrDocument> docs, final Set<String> postprocess) {
+        final int size = docs.size();
+        final String[] ids = new String[size];
+        final boolean[] indexable = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = (String) docs.get(i).getFieldValue(CollectionSchema.id.getSolrFieldName());
+            indexable[i] = indexable(docs.get(i));
+            if (postprocess.contains(ids[i])) {
+                final SolrInputDocument sid = new SolrInputDocument();
+                sid.setField(CollectionSchema.id.getSolrFieldName(), ids[i]);
+                this.results.put(ids[i], sid);
+            }
+        }
+        final Map<String, SolrInputDocument> updates = new LinkedHashMap<String, SolrInputDocument>();
+
+        for (final CollectionSchema[] checkfields: signatureSchema) {
+            if (!signatureEnabled(checkfields)) continue;
+            final String signaturefield = checkfields[0].getSolrFieldName();
+            final String uniquefield = checkfields[1].getSolrFieldName();
+            final String countfield = checkfields[2].getSolrFieldName();
+
+            // aggregate: the number of indexable documents and the position of the first one for each signature
+            final Map<Long, int[]> groups = new HashMap<Long, int[]>();
+            for (int i = 0; i < size; i++) {
+                final Long signature = longValue(docs.get(i).getFieldValue(signaturefield));
+                if (signature == null) continue;
+                int[] group = groups.get(signature);
+                if (group == null) {
+                    group = new int[]{0, -1};
+                    groups.put(signature, group);
+                }
+                if (indexable[i]) {
+                    if (group[1] < 0) group[1] = i;
+                    group[0]++;
+                }
+            }
+
+            // assign the flags to all members
+            for (int i = 0; i < size; i++) {
+                final SolrDocument doc = docs.get(i);
+                final Long signature = longValue(doc.getFieldValue(signaturefield));
+                if (signature == null) continue;
+                final int[] group = groups.get(signature);
+                final int copies = group[0] - (indexable[i] ? 1 : 0); // the number of other indexable documents
+                final boolean unique = copies == 0 || group[1] == i;
+                final int count = copies + 1;
+                final SolrInputDocument sid = this.results.get(ids[i]);
+                if (sid != null) {
+                    sid.setField(uniquefield, unique);
+                    sid.setField(countfield, count);
+                } else {
+                    final Object storedUnique = doc.getFieldValue(uniquefield);
+                    final Long storedCount = longValue(doc.getFieldValue(countfield));
+                    if (!Boolean.valueOf(unique).equals(storedUnique) || storedCount == null || storedCount.intValue() != count) {
+                        SolrInputDocument update = updates.get(ids[i]);
+                        if (update == null) {
+                            update = new SolrInputDocument();
+                            update.setField(CollectionSchema.id.getSolrFieldName(), ids[i]);
+                            updates.put(ids[i], update);
+                        }
+                        update.setField(uniquefield, unique);
+                        update.setField(countfield, count);
+                    }
+                }
+            }
+        }
+
+        // unique title and description; this is only computed for the postprocessed documents
+        for (final CollectionSchema[] checkfields: metadataSchema) {
+            if (!metadataEnabled(checkfields)) continue;
+            final String signaturefield = checkfields[1].getSolrFieldName();
+            final String uniquefield = checkfields[2].getSolrFieldName();
+            final Map<Long, int[]> counts = new HashMap<Long, int[]>();
+            for (int i = 0; i < size; i++) {
+                if (!indexable[i]) continue;
+                final Long signature = longValue(docs.get(i).getFieldValue(signaturefield));
+                if (signature == null) continue;
+                final int[] c = counts.get(signature);
+                if (c == null) counts.put(signature, new int[]{1}); else c[0]++;
+            }
+            for (int i = 0; i < size; i++) {
+                final SolrInputDocument sid = this.results.get(ids[i]);
+                if (sid == null || !metadataCandidate(docs.get(i))) continue;
+                final Long signature = longValue(docs.get(i).getFieldValue(signaturefield));
+                if (signature == null) continue;
+                final int[] c = counts.get(signature);
+                sid.setField(uniquefield, c == null || c[0] - (indexable[i] ? 1 : 0) == 0);
+            }
+        }
+        return updates.values();
+    }
+
+    /**
+     * a document is a candidate for a double if it could be shown in search results: status 200,
+     * no canonical tag which points to another document and no noindex robots flag
+     */
+    private static boolean indexable(final SolrDocument doc) {
+        final Long httpstatus = longValue(doc.getFieldValue(CollectionSchema.httpstatus_i.getSolrFieldName()));
+        if (httpstatus == null || httpstatus.longValue() != 200) return false;
+        final Object canonical_equal_sku_b = doc.getFieldValue(CollectionSchema.canonical_equal_sku_b.getSolrFieldName());
+        if (canonical_equal_sku_b != null && !((Boolean) canonical_equal_sku_b).booleanValue()) return false;
+        final Long robots = longValue(doc.getFieldValue(CollectionSchema.robots_i.getSolrFieldName()));
+        if (robots != null) {
+            final long r = robots.longValue();
+            if (r == 8 || r == 24 || r == 512 || r == 1536) return false; // noindex, noindex + nofollow in html metas or in http X-ROBOTS
+        }
+        return true;
+    }
+
+    /**
+     * the unique flags for title and description are only written for documents without noindex, without
+     * a canonical tag pointing to another document and without a status code other than 200
+     */
+    private boolean metadataCandidate(final SolrDocument doc) {
+        final Long robots = this.configuration.contains(CollectionSchema.robots_i) ? longValue(doc.getFieldValue(CollectionSchema.robots_i.getSolrFieldName())) : null;
+        final Long httpstatus = this.configuration.contains(CollectionSchema.httpstatus_i) ? longValue(doc.getFieldValue(CollectionSchema.httpstatus_i.getSolrFieldName())) : null;
+        final String canonical_s = this.configuration.contains(CollectionSchema.canonical_s) ? (String) doc.getFieldValue(CollectionSchema.canonical_s.getSolrFieldName()) : null;
+        final Boolean canonical_equal_sku_b = this.configuration.contains(CollectionSchema.canonical_equal_sku_b) ? (Boolean) doc.getFieldValue(CollectionSchema.canonical_equal_sku_b.getSolrFieldName()) : null;
+        return (robots == null || (robots.longValue() & (1 << 9)) == 0 /*noindex in http X-ROBOTS*/ && (robots.longValue() & (1 << 3)) == 0 /*noindex in html metas*/ ) &&
+               (canonical_s == null || canonical_s.length() == 0 || (canonical_equal_sku_b != null && canonical_equal_sku_b.booleanValue()) || canonical_s.equals(doc.getFieldValue(CollectionSchema.sku.getSolrFieldName()))) &&
+               (httpstatus == null || httpstatus.longValue() == 200);
+    }
+
+    private static Long longValue(final Object o) {
+        if (o == null) return null;
+        if (o instanceof Long) return (Long) o;
+        if (o instanceof Number) return ((Number) o).longValue();
+        return null;
+    }
+
+    /**
+     * Compute the double-content flags for all documents of a harvest which have the UNIQUE process tag.
+     * @param connector the connector to the collection
+     * @param configuration the collection configuration
+     * @param collection1query the query which selects the documents of the harvest
+     * @param byPartialUpdate if true, changed flags of documents outside of the harvest are written back with partial updates
+     * @return the flags for the postprocessed documents
+     * @throws IOException
+     */
+    public static DoubleContentGroups collect(final SolrConnector connector, final CollectionConfiguration configuration, final String collection1query, final boolean byPartialUpdate) throws IOException {
+        final DoubleContentGroups groups = new DoubleContentGroups(configuration);
+
+        // collect the documents which shall be postprocessed, grouped by host
+        final Map<String, Set<String>> hosts = new HashMap<String, Set<String>>();
+        BlockingQueue<SolrDocument> docs = connector.concurrentDocumentsByQuery("{!cache=false}" + collection1query, null, 0, 100000000, Long.MAX_VALUE, 200, 1, false,
+                CollectionSchema.id.getSolrFieldName(), CollectionSchema.host_id_s.getSolrFieldName(), CollectionSchema.process_sxt.getSolrFieldName());
+        SolrDocument doc;
+        try {
+            while ((doc = docs.take()) != AbstractSolrConnector.POISON_DOCUMENT) {
+                final Collection<Object> proctags = doc.getFieldValues(CollectionSchema.process_sxt.getSolrFieldName());
+                if (proctags == null || !proctags.contains(ProcessType.UNIQUE.name())) continue;
+                final String hostid = (String) doc.getFieldValue(CollectionSchema.host_id_s.getSolrFieldName());
+                if (hostid == null) continue;
+                Set<String> ids = hosts.get(hostid);
+                if (ids == null) {
+                    ids = new HashSet<String>();
+                    hosts.put(hostid, ids);
+                }
+                ids.add((String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName()));
+            }
+        } catch (final InterruptedException e) {
+            throw new IOException(e.getMessage());
+        }
+
+        // stream each host once and group its documents by signature
+        final String[] fields = groups.fields();
+        final List<SolrInputDocument> batch = new ArrayList<SolrInputDocument>();
+        int updated = 0;
+        for (final Map.Entry<String, Set<String>> host: hosts.entrySet()) {
+            if (MemoryControl.shortStatus()) {
+                ConcurrentLog.warn("CollectionConfiguration", "terminated double content grouping during postprocessing because of short memory");
+                break;
+            }
+            docs = connector.concurrentDocumentsByQuery("{!cache=false raw f=" + CollectionSchema.host_id_s.getSolrFieldName() + "}" + host.getKey(),
+                    CollectionSchema.url_chars_i.getSolrFieldName() + " asc", 0, 100000000, Long.MAX_VALUE, 200, 1, false, fields);
+            final List<SolrDocument> hostdocs = new ArrayList<SolrDocument>();
+            try {
+                while ((doc = docs.take()) != AbstractSolrConnector.POISON_DOCUMENT) hostdocs.add(doc);
+            } catch (final InterruptedException e) {
+                throw new IOException(e.getMessage());
+            }
+            final Collection<SolrInputDocument> updates = groups.host(hostdocs, host.getValue());
+            if (!byPartialUpdate) continue;
+            batch.addAll(updates);
+            if (batch.size() >= updateBatchSize) {
+                connector.update(batch);
+                updated += batch.size();
+                batch.clear();
+            }
+        }
+        if (batch.size() > 0) {
+            connector.update(batch);
+            updated += batch.size();
+        }
+        ConcurrentLog.info("CollectionConfiguration", "double content grouping: computed flags for " + groups.size() + " documents in " + hosts.size() + " hosts, updated " + updated + " other documents");
+        return groups;
+    }
+}
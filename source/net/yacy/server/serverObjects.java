@@ -84,6 +84,10 @@ public class serverObjects implements Serializable, Cloneable {
     /** Key for an URL redirection : should be associated with the redirected location. 
      * The main servlet handles this to produce an HTTP 302 status. */
     public static final String ACTION_LOCATION = "LOCATION";
+
+    /** Key for a page which shows incomplete results, i.e. of a throttled search.
+     * The main servlet does not keep such a page in the result page cache. */
+    public static final String ACTION_INCOMPLETE = "INCOMPLETE";
     
 	public final static String ADMIN_AUTHENTICATE_MSG = "admin log-in. If you don't know the password, set it with {yacyhome}/bin/passwd.sh {newpassword}";
 
@@ -113,6 +117,13 @@ public class serverObjects implements Serializable, Cloneable {
     	this.put(ACTION_AUTHENTICATE, ADMIN_AUTHENTICATE_MSG);
     }
 
+    /**
+     * mark the page as incomplete, see {@link #ACTION_INCOMPLETE}
+     */
+    public void incomplete() {
+        this.put(ACTION_INCOMPLETE, "true");
+    }
+
     public int size() {
         return this.map.toNamedList().size() / 2;
     }
@@ -0,0 +1,104 @@
+package net.yacy.cora.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TermDictionaryTest {
+
+    @Test
+    public void testWithinOneEdit() {
+        assertTrue(TermDictionary.withinOneEdit("bat", "cat"));   // changing one letter
+        assertTrue(TermDictionary.withinOneEdit("bat", "boat"));  // adding one letter
+        assertTrue(TermDictionary.withinOneEdit("frog", "fog"));  // deleting one letter
+        assertTrue(TermDictionary.withinOneEdit("two", "tow"));   // reversing two consecutive letters
+        assertTrue(TermDictionary.withinOneEdit("word", "word"));
+        assertFalse(TermDictionary.withinOneEdit("word", "wrdo"));
+        assertFalse(TermDictionary.withinOneEdit("bat", "cot"));
+        assertFalse(TermDictionary.withinOneEdit("bat", "boats"));
+    }
+
+    @Test
+    public void testSimilar() {
+        final TermDictionary dict = new TermDictionary(1000);
+        dict.inc(Arrays.asList("search", "engine", "peer", "yacy", "research", "searches"));
+        dict.inc("search", 10);
+        dict.inc("starch", 3);
+        dict.inc("seach", 2);
+        assertEquals(11, dict.get("search"));
+        assertEquals(0, dict.get("nothing"));
+
+        List<String> similar = dict.similar("seach", 10);
+        assertEquals(Arrays.asList("search"), similar);
+        similar = dict.similar("serach", 10);
+        assertEquals(Arrays.asList("search", "seach"), similar); // most frequent first
+        similar = dict.similar("searchs", 10);
+        assertEquals(Arrays.asList("search", "searches"), similar);
+        assertTrue(dict.similar("engine", 10).isEmpty());
+        assertEquals(Arrays.asList("engine"), dict.similar("engien", 10));
+        assertEquals(Arrays.asList("engine"), dict.similar("enginee", 10));
+    }
+
+    @Test
+    public void testManyTerms() {
+        final TermDictionary dict = new TermDictionary(200000);
+        for (int i = 0; i < 100000; i++) dict.inc("term" + Integer.toString(i, 36) + "x");
+        assertEquals(100000, dict.size());
+        // terms in the merged postings and in the buffer are found
+        assertEquals(Arrays.asList("term0x"), dict.similar("trem0x", 10));
+        assertEquals(Arrays.asList("term" + Integer.toString(99999, 36) + "x"), dict.similar("term" + Integer.toString(99999, 36) + "xy", 10));
+
+        final TermDictionary small = new TermDictionary(10);
+        for (int i = 0; i < 100; i++) small.inc("word" + i);
+        assertEquals(10, small.size());
+    }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        final TermDictionary dict = new TermDictionary(1000);
+        dict.inc("search", 5);
+        dict.inc("engine", 2);
+        final File file = File.createTempFile("termdictionary", ".txt.gz");
+        try {
+            dict.save(file);
+            final TermDictionary loaded = new TermDictionary(1000);
+            loaded.load(file);
+            assertEquals(2, loaded.size());
+            assertEquals(5, loaded.get("search"));
+            assertEquals(Arrays.asList("search"), loaded.similar("saerch", 10));
+            assertFalse(loaded.isComplete());
+
+            // the mark of a complete dictionary is saved
+            final long changes = dict.changes();
+            dict.setComplete(true);
+            assertTrue(dict.changes() != changes);
+            dict.save(file);
+            final TermDictionary complete = new TermDictionary(1000);
+            complete.load(file);
+            assertTrue(complete.isComplete());
+            assertEquals(2, complete.size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRaise() {
+        final TermDictionary dict = new TermDictionary(1000);
+        dict.inc("search", 5);
+        dict.raise("search", 3);
+        assertEquals(5, dict.get("search"));
+        dict.raise("search", 8);
+        assertEquals(8, dict.get("search"));
+        dict.raise("engine", 2);
+        assertEquals(2, dict.get("engine"));
+        assertEquals(Arrays.asList("engine"), dict.similar("engin", 10));
+    }
+}
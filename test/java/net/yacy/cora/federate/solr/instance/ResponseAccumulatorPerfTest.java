@@ -0,0 +1,118 @@
+// ResponseAccumulatorPerfTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.cora.federate.solr.instance;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+
+/**
+ * Compares the k-way merge of {@link ResponseAccumulator} with collecting the documents of all shards
+ * into one list which is sorted and then cut to the requested page. Each shard delivers start + rows
+ * documents in score order, as it is requested by {@link ServerShard} for a distributed query.
+ */
+public class ResponseAccumulatorPerfTest {
+
+    /**
+     * @param args [start] [rows] [rounds]
+     */
+    public static void main(final String[] args) {
+        final int start = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        final int rows = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        final int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        final Comparator<SolrDocument> order = ResponseAccumulator.sortOrder(null);
+        System.out.println("start " + start + ", rows " + rows + ", " + rounds + " rounds");
+        for (final int shards: new int[]{4, 8, 16}) {
+            final List<SolrDocumentList> lists = shardResults(shards, start + rows);
+            for (int warmup = 0; warmup < 2; warmup++) {
+                sortAll(lists, order, start, rows, rounds);
+                merge(lists, order, start, rows, rounds);
+            }
+            report(shards + " shards, sort all", rounds, sortAll(lists, order, start, rows, rounds));
+            report(shards + " shards, k-way merge", rounds, merge(lists, order, start, rows, rounds));
+        }
+    }
+
+    private static List<SolrDocumentList> shardResults(final int shards, final int size) {
+        final Random random = new Random(shards);
+        final List<SolrDocumentList> lists = new ArrayList<SolrDocumentList>(shards);
+        for (int s = 0; s < shards; s++) {
+            final float[] scores = new float[size];
+            for (int i = 0; i < size; i++) scores[i] = random.nextFloat();
+            Arrays.sort(scores);
+            final SolrDocumentList list = new SolrDocumentList();
+            for (int i = size - 1; i >= 0; i--) {
+                final SolrDocument doc = new SolrDocument();
+                doc.setField("id", s + "-" + i);
+                doc.setField("score", scores[i]);
+                list.add(doc);
+            }
+            lists.add(list);
+        }
+        return lists;
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long[] sortAll(final List<SolrDocumentList> lists, final Comparator<SolrDocument> order, final int start, final int rows, final int rounds) {
+        final long bytes = allocated();
+        final long time = System.nanoTime();
+        long check = 0;
+        for (int r = 0; r < rounds; r++) {
+            final List<SolrDocument> all = new ArrayList<SolrDocument>();
+            for (final SolrDocumentList list: lists) all.addAll(list);
+            Collections.sort(all, order);
+            final SolrDocumentList page = new SolrDocumentList();
+            for (int i = start; i < Math.min(all.size(), start + rows); i++) page.add(all.get(i));
+            check += page.size();
+        }
+        return new long[]{System.nanoTime() - time, allocated() - bytes, check};
+    }
+
+    private static long[] merge(final List<SolrDocumentList> lists, final Comparator<SolrDocument> order, final int start, final int rows, final int rounds) {
+        final long bytes = allocated();
+        final long time = System.nanoTime();
+        long check = 0;
+        for (int r = 0; r < rounds; r++) {
+            final Iterator<SolrDocument> i = ResponseAccumulator.merge(lists, order);
+            for (int skip = 0; skip < start && i.hasNext(); skip++) i.next();
+            final SolrDocumentList page = new SolrDocumentList();
+            while (page.size() < rows && i.hasNext()) page.add(i.next());
+            check += page.size();
+        }
+        return new long[]{System.nanoTime() - time, allocated() - bytes, check};
+    }
+
+    private static void report(final String name, final int rounds, final long[] result) {
+        System.out.println(name + ": " + (result[0] / rounds / 1000) + " us per query, " + (result[1] / rounds) + " bytes allocated per query");
+    }
+}
@@ -0,0 +1,113 @@
+package net.yacy.cora.federate.solr.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.solr.client.solrj.response.FacetField;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.junit.Test;
+
+public class ResponseAccumulatorTest {
+
+    private static SolrDocumentList docs(final String shard, final float... scores) {
+        final SolrDocumentList list = new SolrDocumentList();
+        for (int i = 0; i < scores.length; i++) {
+            final SolrDocument doc = new SolrDocument();
+            doc.setField("id", shard + i);
+            doc.setField("score", scores[i]);
+            list.add(doc);
+        }
+        list.setNumFound(scores.length);
+        list.setMaxScore(scores.length == 0 ? 0f : scores[0]);
+        return list;
+    }
+
+    private static NamedList<Object> response(final SolrDocumentList docs, final Object... hostCounts) {
+        final NamedList<Object> response = new NamedList<Object>();
+        response.add("responseHeader", new SimpleOrderedMap<Object>());
+        response.add("response", docs);
+        final NamedList<Object> host = new NamedList<Object>();
+        for (int i = 0; i < hostCounts.length; i += 2) host.add((String) hostCounts[i], hostCounts[i + 1]);
+        final NamedList<Object> fields = new NamedList<Object>();
+        fields.add("host_s", host);
+        final NamedList<Object> facets = new NamedList<Object>();
+        facets.add("facet_queries", new NamedList<Object>());
+        facets.add("facet_fields", fields);
+        response.add("facet_counts", facets);
+        return response;
+    }
+
+    @Test
+    public void testMerge() {
+        final List<SolrDocumentList> lists = new ArrayList<SolrDocumentList>();
+        lists.add(docs("a", 9f, 5f, 1f));
+        lists.add(docs("b", 8f, 7f, 6f, 2f));
+        lists.add(docs("c"));
+        lists.add(docs("d", 10f, 3f));
+        final Iterator<SolrDocument> i = ResponseAccumulator.merge(lists, ResponseAccumulator.sortOrder(null));
+        final StringBuilder ids = new StringBuilder();
+        while (i.hasNext()) ids.append(i.next().getFieldValue("id")).append(' ');
+        assertEquals("d0 a0 b0 b1 b2 a1 d1 b3 a2 ", ids.toString());
+    }
+
+    @Test
+    public void testSortOrder() {
+        final SolrDocument d1 = new SolrDocument();
+        d1.setField("date", 2L);
+        d1.setField("title", "b");
+        final SolrDocument d2 = new SolrDocument();
+        d2.setField("date", 2L);
+        d2.setField("title", "a");
+        final SolrDocument d3 = new SolrDocument();
+        d3.setField("title", "c");
+        assertEquals(1, Integer.signum(ResponseAccumulator.sortOrder("date desc, title asc").compare(d1, d2)));
+        assertEquals(-1, Integer.signum(ResponseAccumulator.sortOrder("date desc, title desc").compare(d1, d2)));
+        // documents without a value come last
+        assertEquals(-1, Integer.signum(ResponseAccumulator.sortOrder("date asc").compare(d1, d3)));
+        assertEquals(0, ResponseAccumulator.sortOrder("sum(a,b) desc").compare(d1, d3));
+    }
+
+    @Test
+    public void testPageAndFacets() {
+        final ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(CommonParams.START, 2);
+        params.set(CommonParams.ROWS, 3);
+        params.set(FacetParams.FACET_LIMIT, 2);
+        final List<QueryResponse> responses = new ArrayList<QueryResponse>();
+        final QueryResponse r1 = new QueryResponse();
+        r1.setResponse(response(docs("a", 9f, 5f, 1f), "x.org", 3, "y.org", 1));
+        responses.add(r1);
+        final QueryResponse r2 = new QueryResponse();
+        r2.setResponse(response(docs("b", 8f, 7f, 6f, 2f), "z.org", 3, "y.org", 4));
+        responses.add(r2);
+
+        final QueryResponse rsp = ResponseAccumulator.combineResponses(responses, params);
+        final SolrDocumentList results = rsp.getResults();
+        assertEquals(7, results.getNumFound());
+        assertEquals(2, results.getStart());
+        assertEquals(9f, results.getMaxScore().floatValue(), 0f);
+        assertEquals(3, results.size());
+        assertEquals("b1", results.get(0).getFieldValue("id"));
+        assertEquals("b2", results.get(1).getFieldValue("id"));
+        assertEquals("a1", results.get(2).getFieldValue("id"));
+
+        final FacetField host = rsp.getFacetField("host_s");
+        assertEquals(2, host.getValueCount());
+        assertEquals("y.org", host.getValues().get(0).getName());
+        assertEquals(5, host.getValues().get(0).getCount());
+        assertEquals("x.org", host.getValues().get(1).getName());
+        assertEquals(3, host.getValues().get(1).getCount());
+        assertFalse(rsp.getFacetQuery() == null);
+    }
+}
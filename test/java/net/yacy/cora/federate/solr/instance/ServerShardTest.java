@@ -0,0 +1,295 @@
+package net.yacy.cora.federate.solr.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+import net.yacy.cora.federate.solr.connector.ShardSelection;
+
+public class ServerShardTest {
+
+    /**
+     * a shard which answers with one document after a delay; the delay of the first request can be different
+     */
+    private static class DelayedClient extends SolrClient {
+        private static final long serialVersionUID = 1L;
+        private final String id;
+        private final long firstDelay, delay;
+        private final AtomicInteger requests = new AtomicInteger(0);
+        private final AtomicInteger interrupted = new AtomicInteger(0);
+        private volatile boolean fail = false;
+
+        private DelayedClient(final String id, final long firstDelay, final long delay) {
+            this.id = id;
+            this.firstDelay = firstDelay;
+            this.delay = delay;
+        }
+
+        @Override
+        public NamedList<Object> request(@SuppressWarnings("rawtypes") final SolrRequest request, final String collection) throws SolrServerException, IOException {
+            final long d = this.requests.getAndIncrement() == 0 ? this.firstDelay : this.delay;
+            try {
+                Thread.sleep(d);
+            } catch (final InterruptedException e) {
+                this.interrupted.incrementAndGet();
+                throw new IOException("interrupted");
+            }
+            if (this.fail) throw new IOException("shard " + this.id + " failed");
+            final SolrDocumentList docs = new SolrDocumentList();
+            final SolrDocument doc = new SolrDocument();
+            doc.setField("id", this.id);
+            docs.add(doc);
+            docs.setNumFound(1);
+            final NamedList<Object> header = new NamedList<Object>();
+            header.add("status", 0);
+            final NamedList<Object> response = new NamedList<Object>();
+            response.add("responseHeader", header);
+            response.add("response", docs);
+            return response;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * a shard with numbered documents which answers with the requested page
+     */
+    private static class PagedClient extends SolrClient {
+        private static final long serialVersionUID = 1L;
+        private final String id;
+        private final int documents;
+
+        private PagedClient(final String id, final int documents) {
+            this.id = id;
+            this.documents = documents;
+        }
+
+        @Override
+        public NamedList<Object> request(@SuppressWarnings("rawtypes") final SolrRequest request, final String collection) {
+            final int start = request.getParams().getInt(CommonParams.START, 0);
+            final int rows = request.getParams().getInt(CommonParams.ROWS, 10);
+            final SolrDocumentList docs = new SolrDocumentList();
+            for (int i = start; i < Math.min(this.documents, start + rows); i++) {
+                final SolrDocument doc = new SolrDocument();
+                doc.setField("id", this.id + i);
+                doc.setField("rank_i", this.documents - i);
+                docs.add(doc);
+            }
+            docs.setNumFound(this.documents);
+            docs.setStart(start);
+            final NamedList<Object> response = new NamedList<Object>();
+            response.add("responseHeader", new NamedList<Object>());
+            response.add("response", docs);
+            return response;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static ModifiableSolrParams params() {
+        final ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(CommonParams.Q, "*:*");
+        return params;
+    }
+
+    private static Object partialResults(final QueryResponse rsp) {
+        return rsp.getHeader() == null ? null : rsp.getHeader().get("partialResults");
+    }
+
+    @Test
+    public void testDeadlineAndPartialResults() throws Exception {
+        final ArrayList<SolrClient> server = new ArrayList<SolrClient>();
+        server.add(new DelayedClient("a", 10, 10));
+        server.add(new DelayedClient("b", 5000, 5000));
+        final ServerShard shard = new ServerShard(server, ShardSelection.Method.MODULO_HOST_MD5, false, 500, null);
+
+        final long start = System.currentTimeMillis();
+        final QueryResponse rsp = shard.query(params());
+        assertTrue(System.currentTimeMillis() - start < 3000);
+        assertEquals(1, rsp.getResults().size());
+        assertEquals("a", rsp.getResults().get(0).getFieldValue("id"));
+        assertEquals(Boolean.TRUE, partialResults(rsp));
+        shard.close();
+    }
+
+    @Test
+    public void testCompleteResults() throws Exception {
+        final ArrayList<SolrClient> server = new ArrayList<SolrClient>();
+        server.add(new DelayedClient("a", 10, 10));
+        server.add(new DelayedClient("b", 20, 20));
+        final ServerShard shard = new ServerShard(server, ShardSelection.Method.MODULO_HOST_MD5, false, 5000, null);
+        final QueryResponse rsp = shard.query(params());
+        assertEquals(2, rsp.getResults().size());
+        assertNull(partialResults(rsp));
+    }
+
+    private static ShardQueryExecutor.Latency[] latencies(final int n) {
+        final ShardQueryExecutor.Latency[] latencies = new ShardQueryExecutor.Latency[n];
+        for (int s = 0; s < n; s++) {
+            latencies[s] = new ShardQueryExecutor.Latency();
+            for (int i = 0; i < ShardQueryExecutor.MIN_HEDGE_SAMPLES; i++) latencies[s].add(5);
+        }
+        return latencies;
+    }
+
+    private static final ShardQueryExecutor.Query query = new ShardQueryExecutor.Query() {
+        @Override
+        public QueryResponse query(final SolrClient client) throws SolrServerException, IOException {
+            return new QueryResponse(client.request(new QueryRequest(params()), null), client);
+        }
+    };
+
+    @Test
+    public void testHedging() throws Exception {
+        // the first request to replica b hangs, the request hedged to replica a is answered in time
+        final DelayedClient replica = new DelayedClient("a", 5, 5);
+        final DelayedClient slow = new DelayedClient("b", 10000, 5);
+        final ArrayList<SolrClient> server = new ArrayList<SolrClient>();
+        server.add(replica);
+        server.add(slow);
+        final ShardQueryExecutor.Latency[] latencies = latencies(2);
+        assertEquals(5, latencies[1].percentile(0.95));
+        final ShardQueryExecutor executor = new ShardQueryExecutor(server, latencies, true);
+
+        final long start = System.currentTimeMillis();
+        final ArrayList<SolrClient> targets = new ArrayList<SolrClient>();
+        targets.add(slow);
+        final ShardQueryExecutor.Result result = executor.query(targets, query, 5000);
+        assertTrue(System.currentTimeMillis() - start < 3000);
+        assertEquals(1, result.responses.size());
+        assertEquals("a", result.responses.iterator().next().getResults().get(0).getFieldValue("id"));
+        assertTrue(!result.partial);
+        assertEquals(1, latencies[1].hedges());
+        assertEquals(1, latencies[1].hedgeWins());
+        assertEquals(1, slow.requests.get());
+        assertEquals(1, replica.requests.get());
+
+        // the request which lost against its hedge is cancelled
+        for (int i = 0; i < 100 && slow.interrupted.get() == 0; i++) Thread.sleep(10);
+        assertEquals(1, slow.interrupted.get());
+    }
+
+    @Test
+    public void testNoHedgingWithoutReplica() throws Exception {
+        // a slow shard without replica is not asked a second time
+        final DelayedClient slow = new DelayedClient("b", 300, 5);
+        final ArrayList<SolrClient> server = new ArrayList<SolrClient>();
+        server.add(new DelayedClient("a", 5, 5));
+        server.add(slow);
+        final ShardQueryExecutor.Latency[] latencies = latencies(2);
+        final ServerShard shard = new ServerShard(server, ShardSelection.Method.MODULO_HOST_MD5, false, 5000, latencies);
+        final QueryResponse rsp = shard.query(params());
+        assertEquals(2, rsp.getResults().size());
+        assertNull(partialResults(rsp));
+        assertEquals(0, latencies[1].hedges());
+        assertEquals(1, slow.requests.get());
+    }
+
+    @Test
+    public void testRequest() throws Exception {
+        // requests are sent through the same fan-out as queries
+        final ArrayList<SolrClient> server = new ArrayList<SolrClient>();
+        server.add(new DelayedClient("a", 10, 10));
+        server.add(new DelayedClient("b", 5000, 5000));
+        final ServerShard shard = new ServerShard(server, ShardSelection.Method.MODULO_HOST_MD5, false, 500, null);
+        final long start = System.currentTimeMillis();
+        final QueryResponse rsp = new QueryResponse(shard.request(new QueryRequest(params())), shard);
+        assertTrue(System.currentTimeMillis() - start < 3000);
+        assertEquals(1, rsp.getResults().size());
+        assertEquals(Boolean.TRUE, partialResults(rsp));
+
+        // a failing shard does not fail the request
+        final DelayedClient failing = new DelayedClient("b", 5, 5);
+        failing.fail = true;
+        server.set(1, failing);
+        final QueryResponse rsp2 = new QueryResponse(new ServerShard(server, ShardSelection.Method.MODULO_HOST_MD5, false, 5000, null).request(new QueryRequest(params())), shard);
+        assertEquals(1, rsp2.getResults().size());
+        assertEquals(Boolean.TRUE, partialResults(rsp2));
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final DelayedClient failing = new DelayedClient("b", 5, 5);
+        failing.fail = true;
+        final ArrayList<SolrClient> server = new ArrayList<SolrClient>();
+        server.add(new DelayedClient("a", 5, 5));
+        server.add(failing);
+        final ServerShard shard = new ServerShard(server, ShardSelection.Method.MODULO_HOST_MD5, false, 5000, null);
+        final QueryResponse rsp = shard.query(params());
+        assertEquals(1, rsp.getResults().size());
+        assertEquals(Boolean.TRUE, partialResults(rsp));
+        // the failed request was retried once
+        assertEquals(2, failing.requests.get());
+
+        // without any answer the failure is thrown
+        final DelayedClient other = new DelayedClient("a", 5, 5);
+        other.fail = true;
+        server.set(0, other);
+        try {
+            new ServerShard(server, ShardSelection.Method.MODULO_HOST_MD5, false, 5000, null).query(params());
+            assertTrue(false);
+        } catch (final IOException e) {
+        }
+    }
+
+    @Test
+    public void testPaging() throws Exception {
+        final ModifiableSolrParams params = params();
+        params.set(CommonParams.START, 10);
+        params.set(CommonParams.ROWS, 10);
+        params.set(CommonParams.SORT, "rank_i desc");
+
+        // a single shard answers with the requested page
+        final ArrayList<SolrClient> one = new ArrayList<SolrClient>();
+        one.add(new PagedClient("a", 30));
+        final ServerShard single = new ServerShard(one, ShardSelection.Method.MODULO_HOST_MD5, false, 5000, null);
+        for (final QueryResponse rsp: new QueryResponse[]{single.query(params), new QueryResponse(single.request(new QueryRequest(params)), single)}) {
+            assertEquals(10, rsp.getResults().size());
+            assertEquals("a10", rsp.getResults().get(0).getFieldValue("id"));
+        }
+
+        // the page is cut out of the merged documents of all shards
+        final ArrayList<SolrClient> two = new ArrayList<SolrClient>();
+        two.add(new PagedClient("a", 30));
+        two.add(new PagedClient("b", 0));
+        final ServerShard shard = new ServerShard(two, ShardSelection.Method.MODULO_HOST_MD5, false, 5000, null);
+        for (final QueryResponse rsp: new QueryResponse[]{shard.query(params), new QueryResponse(shard.request(new QueryRequest(params)), shard)}) {
+            assertEquals(10, rsp.getResults().size());
+            assertEquals("a10", rsp.getResults().get(0).getFieldValue("id"));
+            assertEquals("a19", rsp.getResults().get(9).getFieldValue("id"));
+            assertEquals(30, rsp.getResults().getNumFound());
+        }
+    }
+
+    @Test
+    public void testPercentile() {
+        final ShardQueryExecutor.Latency latency = new ShardQueryExecutor.Latency();
+        assertEquals(-1, latency.percentile(0.5));
+        for (int i = 1; i <= 100; i++) latency.add(i);
+        assertEquals(100, latency.count());
+        assertEquals(50, latency.percentile(0.5));
+        assertEquals(100, latency.percentile(0.95));
+        latency.add(100000);
+        assertEquals(30000, latency.percentile(1.0));
+    }
+}
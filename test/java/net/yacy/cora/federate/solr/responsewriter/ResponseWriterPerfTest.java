@@ -0,0 +1,176 @@
+// ResponseWriterPerfTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.cora.federate.solr.responsewriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.response.QueryResponseWriter;
+import org.apache.solr.response.SolrQueryResponse;
+
+import net.yacy.cora.federate.solr.connector.EmbeddedSolrConnector;
+import net.yacy.cora.federate.solr.instance.EmbeddedInstance;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.search.schema.CollectionSchema;
+import net.yacy.search.schema.WebgraphSchema;
+
+/**
+ * Measures the rows per second of the streaming response writers. An embedded Solr index in a temporary
+ * directory is filled with generated documents, then the result pages are written into a writer which only
+ * counts the characters. Besides the throughput, the allocated bytes per row and the time until the first
+ * characters reach the underlying writer are shown; the latter is the time to the first byte for the client.
+ */
+public class ResponseWriterPerfTest {
+
+    /**
+     * a writer which counts the characters and remembers the time of the first write
+     */
+    private static class CountingWriter extends Writer {
+        private long chars = 0, first = 0;
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            if (this.first == 0) this.first = System.nanoTime();
+            this.chars += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * @param args [documents] [rows] [rounds]
+     */
+    public static void main(final String[] args) throws IOException {
+        final int documents = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        final int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        final File storage = Files.createTempDirectory("ResponseWriterPerfTest").toFile();
+        final EmbeddedInstance instance = new EmbeddedInstance(new File("defaults/solr"), storage, CollectionSchema.CORE_NAME, new String[]{CollectionSchema.CORE_NAME, WebgraphSchema.CORE_NAME});
+        try {
+            final EmbeddedSolrConnector solr = new EmbeddedSolrConnector(instance);
+            fill(solr, documents);
+            System.out.println(documents + " documents, " + rows + " rows, " + rounds + " rounds");
+            final String[] names = {"xml", "flatjson", "yjson", "opensearch", "html"};
+            final QueryResponseWriter[] writers = {new EnhancedXMLResponseWriter(), new FlatJSONResponseWriter(false), new YJsonResponseWriter(), new OpensearchResponseWriter(), new HTMLResponseWriter()};
+            for (int w = 0; w < writers.length; w++) {
+                for (int warmup = 0; warmup < 3; warmup++) run(solr, writers[w], rows, rounds);
+                final long[] result = run(solr, writers[w], rows, rounds);
+                final long total = (long) rows * rounds;
+                System.out.println(names[w] + ": " + (total * 1000000000L / Math.max(1, result[0])) + " rows/s, " +
+                        (result[1] / total) + " chars per row, " + (result[2] / total) + " bytes allocated per row, " +
+                        (result[3] / rounds / 1000) + " us to the first write");
+            }
+            solr.close();
+        } finally {
+            try {
+                instance.close();
+                FileUtils.deletedelete(storage);
+            } finally {
+                ConcurrentLog.shutdown();
+            }
+        }
+    }
+
+    private static void fill(final EmbeddedSolrConnector solr, final int documents) throws IOException {
+        final Random random = new Random(0);
+        final List<SolrInputDocument> docs = new ArrayList<SolrInputDocument>();
+        for (int i = 0; i < documents; i++) {
+            final SolrInputDocument doc = new SolrInputDocument();
+            final String host = "host" + random.nextInt(100) + ".example.org";
+            doc.addField(CollectionSchema.id.getSolrFieldName(), String.format("%012d", i));
+            doc.addField(CollectionSchema.sku.getSolrFieldName(), "http://" + host + "/path/" + i + "/page.html?a=1&b=" + i);
+            doc.addField(CollectionSchema.host_s.getSolrFieldName(), host);
+            doc.addField(CollectionSchema.title.getSolrFieldName(), "Title <" + i + "> of \"" + host + "\"");
+            doc.addField(CollectionSchema.description_txt.getSolrFieldName(), "A description with umlauts äöü & special characters of document " + i);
+            doc.addField(CollectionSchema.text_t.getSolrFieldName(), text(random, 100));
+            doc.addField(CollectionSchema.size_i.getSolrFieldName(), random.nextInt(100000));
+            doc.addField(CollectionSchema.last_modified.getSolrFieldName(), new Date(1500000000000L + random.nextInt(1000000000)));
+            doc.addField(CollectionSchema.content_type.getSolrFieldName(), "text/html");
+            doc.addField(CollectionSchema.url_file_ext_s.getSolrFieldName(), "html");
+            docs.add(doc);
+        }
+        solr.add(docs);
+        solr.commit(true);
+    }
+
+    private static String text(final Random random, final int words) {
+        final StringBuilder sb = new StringBuilder(words * 8);
+        for (int w = 0; w < words; w++) {
+            final int l = 2 + random.nextInt(8);
+            for (int c = 0; c < l; c++) sb.append((char) ('a' + random.nextInt(26)));
+            sb.append(w % 10 == 9 ? ". " : " ");
+        }
+        return sb.toString();
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return the time in nanoseconds, the number of characters, the allocated bytes and the sum of the times to the first write
+     */
+    private static long[] run(final EmbeddedSolrConnector solr, final QueryResponseWriter writer, final int rows, final int rounds) throws IOException {
+        long time = 0, chars = 0, bytes = 0, first = 0;
+        for (int r = 0; r < rounds; r++) {
+            final ModifiableSolrParams params = new ModifiableSolrParams();
+            params.set("q", "*:*");
+            params.set("start", (r * rows) % 1000);
+            params.set("rows", rows);
+            final SolrQueryRequest req = solr.request(params);
+            final SolrQueryResponse rsp = solr.query(req);
+            SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, rsp));
+            try {
+                final CountingWriter out = new CountingWriter();
+                final long b = allocated();
+                final long t = System.nanoTime();
+                writer.write(new StreamingWriter(out), req, rsp);
+                time += System.nanoTime() - t;
+                bytes += allocated() - b;
+                chars += out.chars;
+                first += out.first - t;
+            } finally {
+                req.close();
+                SolrRequestInfo.clearRequestInfo();
+            }
+        }
+        return new long[]{time, chars, bytes, first};
+    }
+}
@@ -0,0 +1,81 @@
+package net.yacy.cora.federate.solr.responsewriter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.apache.solr.common.util.XML;
+import org.junit.Test;
+
+import net.yacy.cora.util.JSONObject;
+
+public class StreamingWriterTest {
+
+    private static final String[] SAMPLES = {
+        "",
+        "plain text",
+        "<a href=\"http://yacy.net/?a=1&b=2\">YaCy</a>",
+        "</script> and <\\/ and a/b",
+        "tab\tnewline\ncr\rbackspace\bformfeed\fbell\u0007",
+        "umlauts äöü, c1 \u0085\u009f, punctuation   €, cjk 中文",
+        "'single' \"double\" >greater<"
+    };
+
+    @Test
+    public void testXML() throws IOException {
+        for (final String s: SAMPLES) {
+            final StringWriter expected = new StringWriter();
+            XML.escapeCharData(s, expected);
+            final StringWriter actual = new StringWriter();
+            final StreamingWriter writer = new StreamingWriter(actual, 16);
+            writer.xml(s);
+            writer.flush();
+            assertEquals(expected.toString(), actual.toString());
+        }
+    }
+
+    @Test
+    public void testXMLAttribute() throws IOException {
+        for (final String s: SAMPLES) {
+            final StringWriter expected = new StringWriter();
+            XML.escapeAttributeValue(s, expected);
+            final StringWriter actual = new StringWriter();
+            final StreamingWriter writer = new StreamingWriter(actual, 16);
+            writer.xmlAttribute(s);
+            writer.flush();
+            assertEquals(expected.toString(), actual.toString());
+        }
+    }
+
+    @Test
+    public void testJSON() throws IOException {
+        for (final String s: SAMPLES) {
+            final StringWriter actual = new StringWriter();
+            final StreamingWriter writer = new StreamingWriter(actual, 16);
+            writer.json(s);
+            writer.flush();
+            assertEquals(JSONObject.quote(s), actual.toString());
+        }
+        final StringWriter actual = new StringWriter();
+        StreamingWriter.json(null, actual);
+        assertEquals(JSONObject.quote(null), actual.toString());
+    }
+
+    @Test
+    public void testBuffer() throws IOException {
+        final StringWriter out = new StringWriter();
+        final StreamingWriter writer = new StreamingWriter(out, 8);
+        writer.write("abc");
+        writer.write('d');
+        assertEquals("", out.toString()); // still in the buffer
+        writer.write("efghijklmnop"); // larger than the buffer
+        assertEquals("abcdefghijklmnop", out.toString());
+        writer.write(new char[]{'q', 'r'}, 0, 2);
+        for (int i = 1; i < StreamingWriter.FLUSH_DOCUMENTS; i++) writer.endDocument();
+        assertEquals("abcdefghijklmnop", out.toString());
+        writer.endDocument(); // flushed after the last document of a block
+        assertEquals("abcdefghijklmnopqr", out.toString());
+        assertEquals(StreamingWriter.wrap(writer), writer);
+    }
+}
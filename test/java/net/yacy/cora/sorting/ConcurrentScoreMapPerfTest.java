@@ -0,0 +1,78 @@
+// ConcurrentScoreMapPerfTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.cora.sorting;
+
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Measures how long a result page waits for the top entries of a navigator while the scores are
+ * counted up: a score map with 1M distinct keys, which is sorted completely for each request of
+ * the top entries, is compared with a score map which maintains the top-k on each update.
+ */
+public class ConcurrentScoreMapPerfTest {
+
+    /**
+     * @param args [keys] [top entries] [requests]
+     */
+    public static void main(final String[] args) {
+        final int keys = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        final int k = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        final int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        System.out.println(keys + " keys, top " + k + ", " + requests + " requests");
+        for (int round = 0; round < 2; round++) {
+            run("full sort", new ConcurrentScoreMap<String>(), keys, k, requests);
+            run("top-k", new ConcurrentScoreMap<String>(null, k), keys, k, requests);
+        }
+    }
+
+    private static void run(final String name, final ConcurrentScoreMap<String> map, final int keys, final int k, final int requests) {
+        final Random random = new Random(0);
+        final String[] key = new String[keys];
+        for (int i = 0; i < keys; i++) key[i] = "key" + i;
+
+        // skewed counts as in navigators: few keys have high scores
+        long time = System.nanoTime();
+        for (int i = 0; i < 4 * keys; i++) {
+            final double r = random.nextDouble();
+            map.inc(key[(int) (keys * r * r * r)]);
+        }
+        final long incTime = System.nanoTime() - time;
+
+        // the result page asks for the top entries while the counting goes on
+        long requestTime = 0;
+        long check = 0;
+        for (int q = 0; q < requests; q++) {
+            for (int i = 0; i < keys / 10; i++) {
+                final double r = random.nextDouble();
+                if (i % 10 == 0) map.dec(key[(int) (keys * r * r * r)]);
+                else map.inc(key[(int) (keys * r * r * r)]);
+            }
+            time = System.nanoTime();
+            final Iterator<String> top = map.keys(false);
+            for (int i = 0; i < k && top.hasNext(); i++) check += map.get(top.next());
+            requestTime += System.nanoTime() - time;
+        }
+        System.out.println(name + ": " + map.size() + " keys, " + (incTime / (4L * keys)) + " ns per inc, "
+                + (requestTime / requests / 1000) + " us per top-" + k + " request (" + check + ")");
+    }
+}
@@ -1,8 +1,13 @@
 
 package net.yacy.cora.sorting;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 
@@ -31,4 +36,72 @@ public class ConcurrentScoreMapTest {
         assertEquals(sum, csm.totalCount());
     }
 
+    /**
+     * the top keys of a map with a maintained top-k must have the same scores as the keys of a fully sorted map
+     */
+    @Test
+    public void testTopKeys() {
+        final ConcurrentScoreMap<String> top = new ConcurrentScoreMap<String>(null, 10);
+        final ConcurrentScoreMap<String> full = new ConcurrentScoreMap<String>();
+        final Random random = new Random(1);
+        for (int step = 0; step < 20000; step++) {
+            final String key = "k" + random.nextInt(200);
+            final int op = random.nextInt(20);
+            if (op < 14) {
+                top.inc(key);
+                full.inc(key);
+            } else if (op < 18) {
+                top.dec(key);
+                full.dec(key);
+            } else if (op < 19) {
+                final int score = random.nextInt(50);
+                top.set(key, score);
+                full.set(key, score);
+            } else {
+                top.delete(key);
+                full.delete(key);
+            }
+            if (step % 100 == 0) assertTopScores(top, full);
+        }
+        top.shrinkToMinScore(20);
+        full.shrinkToMinScore(20);
+        assertTopScores(top, full);
+        top.clear();
+        assertTrue(!top.keys(false).hasNext());
+    }
+
+    @Test
+    public void testConcurrentTopKeys() throws InterruptedException {
+        final ConcurrentScoreMap<String> top = new ConcurrentScoreMap<String>(null, 5);
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    final Random random = new Random(seed);
+                    for (int i = 0; i < 50000; i++) {
+                        final String key = "k" + random.nextInt(100);
+                        if (random.nextInt(4) == 0) top.dec(key); else top.inc(key);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (final Thread t: threads) t.join();
+        final ConcurrentScoreMap<String> full = new ConcurrentScoreMap<String>();
+        for (final String key: top) full.set(key, top.get(key));
+        assertTopScores(top, full);
+    }
+
+    private static void assertTopScores(final ConcurrentScoreMap<String> top, final ConcurrentScoreMap<String> full) {
+        final List<Integer> expected = new ArrayList<Integer>();
+        final Iterator<String> f = full.keys(false);
+        while (f.hasNext()) expected.add(full.get(f.next()));
+        final List<Integer> scores = new ArrayList<Integer>();
+        final Iterator<String> t = top.keys(false);
+        while (t.hasNext()) scores.add(top.get(t.next()));
+        assertEquals(expected, scores);
+    }
+
 }
@@ -0,0 +1,93 @@
+package net.yacy.cora.sorting;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+
+
+public class HashScoreMapTest {
+
+    private static byte[] hash(final Random r) {
+        final byte[] b = new byte[12];
+        for (int i = 0; i < b.length; i++) b[i] = (byte) Base64Order.enhancedCoder.encodeByte((byte) r.nextInt(64));
+        return b;
+    }
+
+    /**
+     * random operations give the same scores as in a ConcurrentScoreMap
+     */
+    @Test
+    public void testRandomOperations() {
+        final HashScoreMap hsm = new HashScoreMap(12);
+        final ConcurrentScoreMap<String> csm = new ConcurrentScoreMap<String>();
+        final Random r = new Random(1);
+        final byte[][] hashes = new byte[1000][];
+        for (int i = 0; i < hashes.length; i++) hashes[i] = hash(r);
+        for (int i = 0; i < 100000; i++) {
+            final byte[] key = hashes[r.nextInt(hashes.length)];
+            final int op = r.nextInt(10);
+            if (op < 7) {
+                hsm.inc(key);
+                csm.inc(ASCII.String(key));
+            } else if (op < 9) {
+                final int score = r.nextInt(100);
+                hsm.set(key, score);
+                csm.set(ASCII.String(key), score);
+            } else {
+                assertEquals(csm.delete(ASCII.String(key)), hsm.delete(key));
+            }
+        }
+        assertEquals(csm.size(), hsm.size());
+        assertEquals(csm.totalCount(), hsm.totalCount());
+        for (final byte[] key: hashes) assertEquals(csm.get(ASCII.String(key)), hsm.get(key));
+        int n = 0;
+        for (final byte[] key: hsm) {
+            assertTrue(csm.containsKey(ASCII.String(key)));
+            n++;
+        }
+        assertEquals(csm.size(), n);
+    }
+
+    @Test
+    public void testOffset() {
+        // count the host hash part of url hashes
+        final HashScoreMap hosts = new HashScoreMap(6);
+        final byte[] url1 = ASCII.getBytes("AAAAAAhosthh");
+        final byte[] url2 = ASCII.getBytes("BBBBBBhosthh");
+        final byte[] url3 = ASCII.getBytes("CCCCCCotherh");
+        hosts.inc(url1, 6, 1);
+        hosts.inc(url2, 6, 1);
+        hosts.inc(url3, 6, 1);
+        assertEquals(2, hosts.size());
+        assertEquals(2, hosts.get(url1, 6));
+        assertEquals(2, hosts.get(ASCII.getBytes("hosthh")));
+        assertEquals(1, hosts.get(url3, 6));
+        assertArrayEquals(ASCII.getBytes("hosthh"), hosts.getMaxKey());
+    }
+
+    @Test
+    public void testShrinkAndOrder() {
+        final HashScoreMap hsm = new HashScoreMap(12);
+        final Random r = new Random(2);
+        for (int i = 0; i < 1000; i++) hsm.set(hash(r), i);
+        hsm.shrinkToMaxSize(100);
+        assertEquals(100, hsm.size());
+        assertEquals(900, hsm.getMinScore());
+        final Iterator<byte[]> it = hsm.keys(false);
+        int last = Integer.MAX_VALUE, n = 0;
+        while (it.hasNext()) {
+            final int score = hsm.get(it.next());
+            assertTrue(score < last);
+            last = score;
+            n++;
+        }
+        assertEquals(100, n);
+    }
+}
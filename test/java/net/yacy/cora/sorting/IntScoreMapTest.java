@@ -0,0 +1,113 @@
+package net.yacy.cora.sorting;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class IntScoreMapTest {
+
+    /**
+     * random operations give the same scores as in a ConcurrentScoreMap
+     */
+    @Test
+    public void testRandomOperations() {
+        final IntScoreMap<String> ism = new IntScoreMap<String>();
+        final ConcurrentScoreMap<String> csm = new ConcurrentScoreMap<String>();
+        final Random r = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            final String key = "k" + r.nextInt(2000);
+            final int op = r.nextInt(10);
+            if (op < 6) {
+                ism.inc(key);
+                csm.inc(key);
+            } else if (op < 8) {
+                final int score = r.nextInt(100);
+                ism.set(key, score);
+                csm.set(key, score);
+            } else if (op < 9) {
+                ism.dec(key, 2);
+                csm.dec(key, 2);
+            } else {
+                assertEquals(csm.delete(key), ism.delete(key));
+            }
+        }
+        assertEquals(csm.size(), ism.size());
+        assertEquals(csm.totalCount(), ism.totalCount());
+        for (final String key: csm) {
+            assertTrue(ism.containsKey(key));
+            assertEquals(csm.get(key), ism.get(key));
+        }
+        assertEquals(csm.getMaxScore(), ism.getMaxScore());
+        assertEquals(csm.getMinScore(), ism.getMinScore());
+    }
+
+    @Test
+    public void testKeysOrder() {
+        final IntScoreMap<String> ism = new IntScoreMap<String>();
+        for (int i = 0; i < 1000; i++) ism.set("k" + i, (i * 7919) % 1000);
+        Iterator<String> it = ism.keys(false);
+        int last = Integer.MAX_VALUE, n = 0;
+        while (it.hasNext()) {
+            final int score = ism.get(it.next());
+            assertTrue(score <= last);
+            last = score;
+            n++;
+        }
+        assertEquals(1000, n);
+        it = ism.keys(true);
+        last = Integer.MIN_VALUE;
+        while (it.hasNext()) {
+            final int score = ism.get(it.next());
+            assertTrue(score >= last);
+            last = score;
+        }
+    }
+
+    @Test
+    public void testShrink() {
+        final IntScoreMap<String> ism = new IntScoreMap<String>();
+        for (int i = 0; i < 1000; i++) ism.set("k" + i, i);
+        assertEquals(500, ism.shrinkToMinScore(500));
+        assertEquals(500, ism.size());
+        assertFalse(ism.containsKey("k499"));
+        assertTrue(ism.containsKey("k500"));
+        ism.shrinkToMaxSize(10);
+        assertEquals(10, ism.size());
+        assertEquals(990, ism.getMinScore());
+        assertEquals("k999", ism.getMaxKey());
+        assertEquals((990 + 999) * 10 / 2, ism.totalCount());
+    }
+
+    @Test
+    public void testConcurrentInc() throws InterruptedException {
+        final IntScoreMap<Integer> ism = new IntScoreMap<Integer>();
+        final AtomicInteger updates = new AtomicInteger(0);
+        ism.setUpdatesListener(new ScoreMapUpdatesListener() {
+            @Override
+            public void updatedScoreMap() {
+                updates.incrementAndGet();
+            }
+        });
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) ism.inc(Integer.valueOf(i % 100));
+                }
+            };
+            threads[t].start();
+        }
+        for (final Thread t: threads) t.join();
+        assertEquals(100, ism.size());
+        assertEquals(400000, ism.totalCount());
+        for (int i = 0; i < 100; i++) assertEquals(4000, ism.get(Integer.valueOf(i)));
+        assertTrue(updates.get() > 0);
+    }
+}
@@ -0,0 +1,123 @@
+// ScoreMapPerfTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.cora.sorting;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import net.yacy.cora.document.encoding.ASCII;
+
+/**
+ * Compares the score maps which count navigator entries and host hashes: the ConcurrentScoreMap
+ * with AtomicInteger boxes, the striped IntScoreMap with primitive scores and the HashScoreMap for
+ * fixed length byte[] keys. For each map the throughput of inc() with several threads and the bytes
+ * which are allocated per inc() are printed.
+ */
+public class ScoreMapPerfTest {
+
+    private interface Counter {
+        public void inc(int i);
+    }
+
+    /**
+     * @param args [keys] [increments per thread] [threads]
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        final int keys = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        final int incs = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        final String[] skeys = new String[keys];
+        final byte[][] bkeys = new byte[keys][];
+        final Random random = new Random(0);
+        for (int i = 0; i < keys; i++) {
+            final StringBuilder sb = new StringBuilder(12);
+            for (int j = 0; j < 12; j++) sb.append((char) ('A' + random.nextInt(26)));
+            skeys[i] = sb.toString();
+            bkeys[i] = ASCII.getBytes(skeys[i]);
+        }
+        System.out.println(keys + " keys, " + incs + " increments per thread");
+        for (int round = 0; round < 2; round++) {
+            for (final int t: new int[]{1, threads}) {
+                final ConcurrentScoreMap<String> csm = new ConcurrentScoreMap<String>();
+                run("ConcurrentScoreMap", t, incs, keys, new Counter() {
+                    @Override
+                    public void inc(final int i) {
+                        csm.inc(skeys[i]);
+                    }
+                });
+                final IntScoreMap<String> ism = new IntScoreMap<String>();
+                run("IntScoreMap", t, incs, keys, new Counter() {
+                    @Override
+                    public void inc(final int i) {
+                        ism.inc(skeys[i]);
+                    }
+                });
+                final HashScoreMap hsm = new HashScoreMap(12);
+                run("HashScoreMap", t, incs, keys, new Counter() {
+                    @Override
+                    public void inc(final int i) {
+                        hsm.inc(bkeys[i]);
+                    }
+                });
+            }
+        }
+    }
+
+    private static void run(final String name, final int threads, final int incs, final int keys, final Counter counter) throws InterruptedException {
+        final long[] allocated = new long[threads];
+        final Thread[] t = new Thread[threads];
+        for (int n = 0; n < threads; n++) {
+            final int id = n;
+            t[n] = new Thread() {
+                @Override
+                public void run() {
+                    final Random random = new Random(id);
+                    final int[] sequence = new int[incs];
+                    for (int i = 0; i < incs; i++) {
+                        final double r = random.nextDouble();
+                        sequence[i] = (int) (keys * r * r); // skewed as in navigators
+                    }
+                    final long a = allocatedBytes();
+                    for (int i = 0; i < incs; i++) counter.inc(sequence[i]);
+                    allocated[id] = allocatedBytes() - a;
+                }
+            };
+        }
+        final long start = System.nanoTime();
+        for (final Thread thread: t) thread.start();
+        for (final Thread thread: t) thread.join();
+        final long time = System.nanoTime() - start;
+        long bytes = 0;
+        for (final long a: allocated) bytes += a;
+        final long total = (long) threads * incs;
+        System.out.println(String.format("%-20s %2d threads: %6.1f M inc/s, %6.2f bytes/inc",
+                name, threads, total * 1000.0d / time, (double) bytes / total));
+    }
+
+    private static long allocatedBytes() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,44 @@
+package net.yacy.cora.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+
+public class FrequencySketchTest {
+
+    private static byte[] key(final int i) {
+        return ASCII.getBytes(String.format("%012d", i));
+    }
+
+    @Test
+    public void testFrequency() {
+        final FrequencySketch sketch = new FrequencySketch(10000);
+        for (int i = 0; i < 5; i++) sketch.increment(key(1));
+        for (int i = 0; i < 20; i++) sketch.increment(key(2));
+        for (int i = 100; i < 1000; i++) sketch.increment(key(i));
+
+        // count-min sketches never underestimate
+        assertTrue(sketch.frequency(key(1)) >= 5);
+        assertEquals(FrequencySketch.MAX_FREQUENCY, sketch.frequency(key(2)));
+        assertTrue(sketch.frequency(key(3)) <= 1);
+        assertTrue(sketch.frequency(key(1)) > sketch.frequency(key(500)));
+
+        sketch.clear();
+        assertEquals(0, sketch.frequency(key(2)));
+    }
+
+    /**
+     * counters are halved periodically, so old accesses lose weight against recent ones
+     */
+    @Test
+    public void testAging() {
+        final FrequencySketch sketch = new FrequencySketch(100);
+        for (int i = 0; i < 10; i++) sketch.increment(key(1));
+        final int before = sketch.frequency(key(1));
+        for (int i = 100; i < 100000; i++) sketch.increment(key(i));
+        assertTrue(sketch.frequency(key(1)) < before);
+    }
+}
@@ -0,0 +1,80 @@
+package net.yacy.cora.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+    /**
+     * many concurrent callers of the same key must compute the value once and all receive it
+     */
+    @Test
+    public void testCoalescing() throws InterruptedException {
+        final SingleFlight<String, Object> flights = new SingleFlight<String, Object>();
+        final Object value = new Object();
+        final AtomicInteger computed = new AtomicInteger(0);
+        final AtomicInteger received = new AtomicInteger(0);
+        final int callers = 20;
+        final CountDownLatch ready = new CountDownLatch(callers);
+        final ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        final SingleFlight.Flight<Object> flight = flights.start("key");
+        assertNotNull(flight);
+        assertNull(flights.start("key"));
+        for (int i = 0; i < callers; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ready.countDown();
+                    Object v = flights.join("key", 10000);
+                    if (v == null) {
+                        computed.incrementAndGet();
+                        v = value;
+                    }
+                    if (v == value) received.incrementAndGet();
+                }
+            });
+        }
+        assertTrue(ready.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        computed.incrementAndGet();
+        flights.finish("key", flight, value);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, computed.get());
+        assertEquals(callers, received.get());
+        assertEquals(callers, flights.coalesced());
+        assertTrue(flights.saved() > 0);
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    public void testTimeoutAndFailure() {
+        final SingleFlight<String, String> flights = new SingleFlight<String, String>();
+        assertNull(flights.join("key", 100));
+
+        final SingleFlight.Flight<String> flight = flights.start("key");
+        assertNull(flights.join("key", 10));
+        assertEquals(1, flights.timeouts());
+
+        // a failed flight delivers no value, the next caller starts a new flight
+        flights.finish("key", flight, null);
+        assertNull(flights.join("key", 100));
+        final SingleFlight.Flight<String> next = flights.start("key");
+        assertNotNull(next);
+        flights.finish("key", next, "value");
+        assertEquals(0, flights.coalesced());
+        assertNull(flights.join("key", 100));
+    }
+}
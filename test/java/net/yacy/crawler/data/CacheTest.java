@@ -138,6 +138,40 @@ public class CacheTest {
 		assertArrayEquals(fileContent, Cache.getContent(urlHash));
 	}
 
+	/**
+	 * Content which was stored or read recently is served by the in-memory tier
+	 */
+	@Test
+	public void testHotTier() throws MalformedURLException, IOException {
+		final ResponseHeader okResponse = new ResponseHeader(HttpStatus.SC_OK);
+		final DigestURL url = new DigestURL("http://yacy.net");
+		final byte[] fileContent = TEXT_CONTENT.getBytes(StandardCharsets.UTF_8);
+
+		Cache.store(url, okResponse, fileContent);
+		Cache.commit();
+		assertArrayEquals(fileContent, Cache.getContent(url.hash()));
+		assertEquals(1.0, Cache.getHotTierHitRate(), 0.0);
+		assertEquals(fileContent.length, Cache.getHotTierBytesServed());
+		assertEquals(fileContent.length, Cache.getHotTierSize());
+
+		/* without the in-memory tier the content is read from the disk tier */
+		Cache.setHotTierSize(0);
+		assertEquals(0, Cache.getHotTierSize());
+		assertArrayEquals(fileContent, Cache.getContent(url.hash()));
+		assertEquals(0.5, Cache.getHotTierHitRate(), 0.0);
+		assertEquals(1.0, Cache.getDiskTierHitRate(), 0.0);
+
+		/* a read puts the content back into the in-memory tier */
+		Cache.setHotTierSize(Cache.DEFAULT_HOT_TIER_SIZE);
+		assertArrayEquals(fileContent, Cache.getContent(url.hash()));
+		assertArrayEquals(fileContent, Cache.getContent(url.hash()));
+		assertEquals(0.5, Cache.getHotTierHitRate(), 0.0);
+
+		/* deleted content must not be served by the in-memory tier */
+		Cache.delete(url.hash());
+		assertNull(Cache.getContent(url.hash()));
+	}
+
 	@Test
 	public void testDelete() throws MalformedURLException, IOException {
 		final ResponseHeader okResponse = new ResponseHeader(HttpStatus.SC_OK);
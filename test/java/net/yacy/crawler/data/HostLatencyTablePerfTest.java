@@ -0,0 +1,130 @@
+// HostLatencyTablePerfTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.crawler.data;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+
+/**
+ * Measures the balancer selection loop, which computes the remaining waiting time of every
+ * candidate host to find the next host to crawl. The former map of host objects, which built a
+ * host:port string for a robots lookup on each call, is compared with the {@link HostLatencyTable}.
+ */
+public class HostLatencyTablePerfTest {
+
+    /** the former per-host object */
+    private static final class Host {
+        final AtomicLong timeacc, lastacc;
+        final AtomicInteger count;
+        Host(final long time) {
+            this.timeacc = new AtomicLong(time);
+            this.lastacc = new AtomicLong(System.currentTimeMillis());
+            this.count = new AtomicInteger(1);
+        }
+    }
+
+    /**
+     * @param args [hosts] [rounds]
+     */
+    public static void main(final String[] args) throws Exception {
+        final int hosts = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        final List<String> hosthashes = new ArrayList<String>(hosts);
+        final List<String> hostnames = new ArrayList<String>(hosts);
+        final Map<String, Host> map = new ConcurrentHashMap<String, Host>();
+        final Map<String, Long> robots = new ConcurrentHashMap<String, Long>();
+        final HostLatencyTable table = new HostLatencyTable(hosts);
+        for (int i = 0; i < hosts; i++) {
+            // host hashes are six base64 characters; they are generated here to avoid dns lookups for the test hosts
+            final String hosthash = ASCII.String(Base64Order.enhancedCoder.encodeLongBA(i, 6));
+            final String hostname = "host" + i + ".example.com";
+            hosthashes.add(hosthash);
+            hostnames.add(hostname);
+            map.put(hosthash, new Host(500));
+            robots.put(hostname + ":80", Long.valueOf(i % 10 == 0 ? 2000 : 0));
+            table.add(hosthash, hostname, 500);
+            table.setRobotsDelay(hosthash, i % 10 == 0 ? 2000 : 0);
+        }
+        System.out.println(hosts + " hosts, " + table.size() + " in the table");
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            mapLoop(hosthashes, hostnames, map, robots, rounds);
+            tableLoop(hosthashes, table, rounds);
+        }
+        final long[] m = mapLoop(hosthashes, hostnames, map, robots, rounds);
+        final long[] t = tableLoop(hosthashes, table, rounds);
+        report("host object map", hosts, rounds, m);
+        report("host latency table", hosts, rounds, t);
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long[] mapLoop(final List<String> hosthashes, final List<String> hostnames, final Map<String, Host> map, final Map<String, Long> robots, final int rounds) {
+        final long bytes = allocated();
+        final long start = System.nanoTime();
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < hosthashes.size(); i++) {
+                final Host host = map.get(hosthashes.get(i));
+                if (host == null) continue;
+                final int count = host.count.get();
+                int waiting = 500 + (count >= 10000 ? 250 : (500 * count / 10000) >> 1);
+                waiting = Math.max(waiting, (int) (host.timeacc.get() / count * 0.5f));
+                final Long robotsDelay = robots.get(hostnames.get(i) + ":" + 80);
+                if (robotsDelay != null) waiting = Math.max(waiting, robotsDelay.intValue());
+                final long remaining = Math.min(60000, waiting) - (System.currentTimeMillis() - host.lastacc.get());
+                if (remaining < best) best = remaining;
+            }
+        }
+        return new long[] {System.nanoTime() - start, allocated() - bytes, best};
+    }
+
+    private static long[] tableLoop(final List<String> hosthashes, final HostLatencyTable table, final int rounds) {
+        final long bytes = allocated();
+        final long start = System.nanoTime();
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < hosthashes.size(); i++) {
+                final long remaining = table.nextReady(hosthashes.get(i), 500, 0.5f, 0) - System.currentTimeMillis();
+                if (remaining < best) best = remaining;
+            }
+        }
+        return new long[] {System.nanoTime() - start, allocated() - bytes, best};
+    }
+
+    private static void report(final String name, final int hosts, final int rounds, final long[] result) {
+        final long calls = (long) hosts * rounds;
+        System.out.println(name + ": " + (result[0] / calls) + " ns per host, " + (result[1] / calls) + " bytes allocated per host, "
+                + (result[0] / rounds / 1000000) + " ms per selection round");
+    }
+}
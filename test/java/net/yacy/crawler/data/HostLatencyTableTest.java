@@ -0,0 +1,68 @@
+package net.yacy.crawler.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+public class HostLatencyTableTest {
+
+    @Test
+    public void testTiming() {
+        final HostLatencyTable table = new HostLatencyTable(100);
+        assertEquals(HostLatencyTable.UNKNOWN, table.nextReady("AAAAAA", 500, 0.5f, 0));
+        assertFalse(table.contains("AAAAAA"));
+
+        table.add("AAAAAA", "www.example.com", 1000);
+        assertTrue(table.contains("AAAAAA"));
+        assertEquals("www.example.com", table.host("AAAAAA"));
+        assertEquals(1, table.count("AAAAAA"));
+        assertEquals(1000, table.average("AAAAAA"));
+        final long lastacc = table.lastAccess("AAAAAA");
+
+        // minimum delta 500, latency 1000 * 0.5, the larger value counts
+        assertEquals(lastacc + 500, table.nextReady("AAAAAA", 500, 0.5f, 0));
+        assertEquals(lastacc + 1000, table.nextReady("AAAAAA", 500, 1.0f, 0));
+        assertEquals(lastacc + 3500, table.nextReady("AAAAAA", 500, 0.5f, 3000));
+
+        // the robots delay is cached; -1 grants access without delay
+        assertEquals(HostLatencyTable.UNKNOWN, table.robotsDelay("AAAAAA"));
+        table.setRobotsDelay("AAAAAA", 5000);
+        assertEquals(5000, table.robotsDelay("AAAAAA"));
+        assertEquals(lastacc + 5000, table.nextReady("AAAAAA", 500, 0.5f, 0));
+        table.setRobotsDelay("AAAAAA", -1);
+        assertEquals(lastacc, table.nextReady("AAAAAA", 500, 0.5f, 0));
+
+        table.loaded("AAAAAA", "www.example.com", 3000);
+        assertEquals(2, table.count("AAAAAA"));
+        assertEquals(2000, table.average("AAAAAA"));
+    }
+
+    /**
+     * the table must distinguish many hosts and clear full stripes instead of growing
+     */
+    @Test
+    public void testCapacity() {
+        final HostLatencyTable table = new HostLatencyTable(1000);
+        for (int i = 0; i < 500; i++) table.add(hosthash(i), "host" + i, i);
+        assertEquals(500, table.size());
+        for (int i = 0; i < 500; i++) assertEquals("host" + i, table.host(hosthash(i)));
+        final List<String> hosthashes = table.hosthashes();
+        assertEquals(500, new HashSet<String>(hosthashes).size());
+        assertTrue(hosthashes.contains(hosthash(42)));
+
+        for (int i = 500; i < 100000; i++) table.add(hosthash(i), "host" + i, i);
+        assertTrue(table.size() < 100000);
+        assertTrue(table.contains(hosthash(99999)));
+        table.clear();
+        assertEquals(0, table.size());
+    }
+
+    private static String hosthash(final int i) {
+        return String.format("%06d", i);
+    }
+}
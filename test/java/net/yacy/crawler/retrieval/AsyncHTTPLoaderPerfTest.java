@@ -0,0 +1,161 @@
+// AsyncHTTPLoaderPerfTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.crawler.retrieval;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.protocol.ClientIdentification;
+import net.yacy.cora.protocol.HeaderFramework;
+import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.cora.protocol.http.HTTPClient;
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * Compares the throughput of the blocking crawler http client, which needs one thread per
+ * request, with the {@link AsyncHTTPLoader}. A local server answers every request after a
+ * delay like a slow remote host; the requests are distributed over many loopback addresses
+ * which are handled as different hosts.
+ */
+public class AsyncHTTPLoaderPerfTest {
+
+    /**
+     * @param args [requests] [hosts] [server delay in milliseconds] [blocking threads]
+     */
+    public static void main(final String[] args) throws Exception {
+        final int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final int hosts = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        final int serverDelay = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        final int threads = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+        final Server server = new Server(new QueuedThreadPool(1000));
+        final ServerConnector connector = new ServerConnector(server);
+        connector.setPort(0);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(final String target, final org.eclipse.jetty.server.Request baseRequest, final HttpServletRequest request, final HttpServletResponse response) throws IOException, ServletException {
+                try {Thread.sleep(serverDelay);} catch (final InterruptedException e) {}
+                response.setContentType("text/html");
+                response.getOutputStream().write(("<html><body>" + target + "</body></html>").getBytes("UTF-8"));
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+        final int port = connector.getLocalPort();
+        try {
+            final List<DigestURL> urls = new ArrayList<DigestURL>(requests);
+            for (int i = 0; i < requests; i++) {
+                urls.add(new DigestURL("http://127.0.0." + (1 + i % hosts) + ":" + port + "/page" + i + ".html"));
+            }
+            System.out.println(requests + " requests to " + hosts + " hosts, server delay " + serverDelay + " ms");
+            blocking(urls, threads);
+            async(urls, hosts);
+        } finally {
+            server.stop();
+            HTTPClient.closeConnectionManager();
+            ConcurrentLog.shutdown();
+        }
+    }
+
+    private static void blocking(final List<DigestURL> urls, final int threads) throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final AtomicInteger failed = new AtomicInteger(0);
+        final int threadsBefore = Thread.activeCount();
+        final long start = System.currentTimeMillis();
+        for (final DigestURL url: urls) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final HTTPClient client = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent);
+                    client.setRedirecting(false);
+                    try {
+                        if (client.GETbytes(url, null, null, -1, false) == null) failed.incrementAndGet();
+                    } catch (final IOException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        final int threadsRunning = Thread.activeCount() - threadsBefore;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+        report("blocking, " + threads + " threads", urls.size(), failed.get(), System.currentTimeMillis() - start, threadsRunning);
+    }
+
+    private static void async(final List<DigestURL> urls, final int hosts) throws IOException, InterruptedException {
+        final AsyncHTTPLoader loader = new AsyncHTTPLoader(2000, 2, 30000, new AsyncHTTPLoader.Delay() {
+            @Override
+            public long remaining(final DigestURL url) {
+                return 0;
+            }
+        });
+        final RequestHeader header = new RequestHeader();
+        header.put(HeaderFramework.USER_AGENT, ClientIdentification.yacyInternetCrawlerAgent.userAgent);
+        final CountDownLatch done = new CountDownLatch(urls.size());
+        final AtomicInteger failed = new AtomicInteger(0);
+        final AsyncHTTPLoader.Listener listener = new AsyncHTTPLoader.Listener() {
+            @Override
+            public void loaded(final Response response) {
+                done.countDown();
+            }
+            @Override
+            public void failed(final Request request, final String reason) {
+                failed.incrementAndGet();
+                done.countDown();
+            }
+        };
+        try {
+            final int threadsBefore = Thread.activeCount();
+            final long start = System.currentTimeMillis();
+            for (final DigestURL url: urls) loader.fetch(new Request(url, null), header, null, -1, listener);
+            int threadsRunning = 0;
+            while (!done.await(100, TimeUnit.MILLISECONDS)) {
+                threadsRunning = Math.max(threadsRunning, Thread.activeCount() - threadsBefore);
+            }
+            report("async, 2 connections per host, " + 2 * hosts + " connections", urls.size(), failed.get(), System.currentTimeMillis() - start, threadsRunning);
+        } finally {
+            loader.close();
+        }
+    }
+
+    private static void report(final String name, final int requests, final int failed, final long time, final int threads) {
+        System.out.println(name + ": " + requests + " requests in " + time + " ms, " + (requests * 1000L / Math.max(1, time)) + " requests/s, "
+                + failed + " failed, " + threads + " additional threads");
+    }
+}
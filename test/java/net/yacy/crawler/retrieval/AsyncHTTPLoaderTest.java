@@ -0,0 +1,237 @@
+// AsyncHTTPLoaderTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.crawler.retrieval;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.protocol.HeaderFramework;
+import net.yacy.cora.protocol.RequestHeader;
+
+public class AsyncHTTPLoaderTest {
+
+    private static final byte[] page = new byte[100000];
+    private static Server server;
+    private static int port;
+    private static final AtomicInteger running = new AtomicInteger(0);
+    private static final AtomicInteger maxRunning = new AtomicInteger(0);
+
+    /**
+     * answers /page with a fixed content and /slow with a short content after 50 milliseconds
+     */
+    @BeforeClass
+    public static void startServer() throws Exception {
+        new Random(1).nextBytes(page);
+        server = new Server();
+        final ServerConnector connector = new ServerConnector(server);
+        connector.setHost("127.0.0.1");
+        connector.setPort(0);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(final String target, final org.eclipse.jetty.server.Request baseRequest, final HttpServletRequest request, final HttpServletResponse response) throws IOException, ServletException {
+                final int r = running.incrementAndGet();
+                int m;
+                while ((m = maxRunning.get()) < r && !maxRunning.compareAndSet(m, r)) {}
+                try {
+                    if (target.startsWith("/slow")) {
+                        try {Thread.sleep(50);} catch (final InterruptedException e) {}
+                        response.setContentType("text/plain");
+                        response.getOutputStream().write(target.getBytes("UTF-8"));
+                    } else {
+                        response.setContentType("application/octet-stream");
+                        response.getOutputStream().write(page);
+                    }
+                } finally {
+                    running.decrementAndGet();
+                }
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+        port = connector.getLocalPort();
+    }
+
+    @AfterClass
+    public static void stopServer() throws Exception {
+        server.stop();
+    }
+
+    private static final AsyncHTTPLoader.Delay noDelay = new AsyncHTTPLoader.Delay() {
+        @Override
+        public long remaining(final DigestURL url) {
+            return 0;
+        }
+    };
+
+    private static class Results implements AsyncHTTPLoader.Listener {
+        final Map<String, Response> loaded = new ConcurrentHashMap<String, Response>();
+        final Map<String, String> failed = new ConcurrentHashMap<String, String>();
+        final CountDownLatch done;
+
+        Results(final int count) {
+            this.done = new CountDownLatch(count);
+        }
+
+        @Override
+        public void loaded(final Response response) {
+            this.loaded.put(response.url().getFile(), response);
+            this.done.countDown();
+        }
+
+        @Override
+        public void failed(final Request request, final String reason) {
+            this.failed.put(request.url().getFile(), reason);
+            this.done.countDown();
+        }
+    }
+
+    private static Request request(final String path) throws MalformedURLException {
+        return new Request(new DigestURL("http://127.0.0.1:" + port + path), null);
+    }
+
+    private static RequestHeader header() {
+        final RequestHeader header = new RequestHeader();
+        header.put(HeaderFramework.USER_AGENT, "yacybot (test)");
+        return header;
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        final AsyncHTTPLoader loader = new AsyncHTTPLoader(10, 2, 10000, noDelay);
+        try {
+            final Results results = new Results(1);
+            loader.fetch(request("/page"), header(), null, -1, results);
+            assertTrue(results.done.await(10, TimeUnit.SECONDS));
+            final Response response = results.loaded.get("/page");
+            assertEquals(200, response.getResponseHeader().getStatusCode());
+            assertArrayEquals(page, response.getContent());
+            assertEquals(0, loader.inFlight());
+            assertEquals(0, loader.queued());
+            assertEquals(page.length, loader.bytes());
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void testSizeLimit() throws Exception {
+        final AsyncHTTPLoader loader = new AsyncHTTPLoader(10, 2, 10000, noDelay);
+        try {
+            final Results results = new Results(1);
+            loader.fetch(request("/page"), header(), null, 1000, results);
+            assertTrue(results.done.await(10, TimeUnit.SECONDS));
+            assertNull(results.loaded.get("/page"));
+            assertTrue(results.failed.get("/page").contains("limit"));
+            assertEquals(1, loader.failed());
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void testHostBudget() throws Exception {
+        final AsyncHTTPLoader loader = new AsyncHTTPLoader(100, 3, 10000, noDelay);
+        try {
+            maxRunning.set(0);
+            final int count = 30;
+            final Results results = new Results(count);
+            for (int i = 0; i < count; i++) loader.fetch(request("/slow" + i), header(), null, -1, results);
+            assertTrue(results.done.await(20, TimeUnit.SECONDS));
+            assertEquals(count, results.loaded.size());
+            assertEquals("/slow7", new String(results.loaded.get("/slow7").getContent(), "UTF-8"));
+            assertTrue("max running " + maxRunning.get(), maxRunning.get() <= 3);
+            assertEquals(0, loader.hosts());
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void testGlobalBudget() throws Exception {
+        // two hosts share one connection; each finished request must dispatch the waiting host
+        final AsyncHTTPLoader loader = new AsyncHTTPLoader(1, 1, 10000, noDelay);
+        try {
+            final int count = 40;
+            final Results results = new Results(count);
+            for (int i = 0; i < count; i++) {
+                final String host = i % 2 == 0 ? "127.0.0.1" : "localhost";
+                loader.fetch(new Request(new DigestURL("http://" + host + ":" + port + "/slow" + i), null), header(), null, -1, results);
+            }
+            assertTrue(results.done.await(20, TimeUnit.SECONDS));
+            assertEquals(count, results.loaded.size());
+            assertEquals(0, loader.inFlight());
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void testDelay() throws Exception {
+        // allow an access of the host every 100 milliseconds
+        final Map<String, Long> next = new ConcurrentHashMap<String, Long>();
+        final AsyncHTTPLoader.Delay delay = new AsyncHTTPLoader.Delay() {
+            @Override
+            public long remaining(final DigestURL url) {
+                final long now = System.currentTimeMillis();
+                final Long n = next.get(url.hosthash());
+                if (n != null && n.longValue() > now) return n.longValue() - now;
+                next.put(url.hosthash(), now + 100);
+                return 0;
+            }
+        };
+        final AsyncHTTPLoader loader = new AsyncHTTPLoader(100, 5, 10000, delay);
+        try {
+            final long start = System.currentTimeMillis();
+            final Results results = new Results(4);
+            for (int i = 0; i < 4; i++) loader.fetch(request("/page" + i), header(), null, -1, results);
+            assertTrue(results.done.await(10, TimeUnit.SECONDS));
+            assertEquals(4, results.loaded.size());
+            assertTrue(System.currentTimeMillis() - start >= 300);
+        } finally {
+            loader.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package net.yacy.crawler.robots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.protocol.ClientIdentification;
+import net.yacy.data.WorkTables;
+import net.yacy.kelondro.util.FileUtils;
+
+public class RobotsTxtTest {
+
+    private static final File DATA_DIR = new File("test/DATA/ROBOTS");
+
+    /**
+     * hosts without robots.txt get an entry which is visible at once but written to the table in a batch
+     */
+    @Test
+    public void testNegativeBatch() throws IOException {
+        FileUtils.deletedelete(DATA_DIR);
+        final WorkTables tables = new WorkTables(DATA_DIR);
+        // without a loader every fetch fails like a host without robots.txt
+        final RobotsTxt robots = new RobotsTxt(tables, null, 2);
+        try {
+            final DigestURL url = new DigestURL("http://www.example.com/page.html");
+            final ClientIdentification.Agent agent = ClientIdentification.yacyInternetCrawlerAgent;
+            robots.ensureExist(url, agent, false);
+            assertFalse(robots.isPending("www.example.com", 80));
+            assertEquals(1, robots.size());
+            assertEquals(0, tables.getHeap(WorkTables.TABLE_ROBOTS_NAME).size());
+
+            final RobotsTxtEntry entry = robots.getEntry("www.example.com:80", agent, false);
+            assertNotNull(entry);
+            assertFalse(entry.isDisallowed(url));
+
+            robots.flushNegativeBatch();
+            assertEquals(1, tables.getHeap(WorkTables.TABLE_ROBOTS_NAME).size());
+            assertEquals(1, robots.size());
+
+            robots.delete(url);
+            assertNull(robots.getEntry("www.example.com:80", agent, false));
+        } finally {
+            robots.close();
+            tables.close(WorkTables.TABLE_ROBOTS_NAME);
+            FileUtils.deletedelete(DATA_DIR);
+        }
+    }
+
+    @Test
+    public void testHostPort() throws IOException {
+        assertEquals("www.example.com:80", RobotsTxt.getHostPort(new DigestURL("http://www.example.com/")));
+        assertEquals("www.example.com:443", RobotsTxt.getHostPort(new DigestURL("https://www.example.com/")));
+        assertEquals("www.example.com:80", RobotsTxt.getHostPort("www.example.com", -1));
+        assertTrue(RobotsTxt.getHostPort("::1", 8090).startsWith("["));
+    }
+}
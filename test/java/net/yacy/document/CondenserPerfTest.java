@@ -0,0 +1,116 @@
+// CondenserPerfTest.java
+// -----------------------
+// part of YaCy
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.document;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.cybozu.labs.langdetect.DetectorFactory;
+
+import net.yacy.cora.document.analysis.Classification;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.document.id.MultiProtocolURL;
+import net.yacy.cora.protocol.Domains;
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * Testing the condensing throughput on a stored corpus: all files of a directory are parsed once,
+ * then the parsed documents are condensed by 1, 2, 4 and 8 concurrent threads, as done by the
+ * condenseDocument workflow threads, and as one batch with {@link Condenser#condense}.
+ */
+public class CondenserPerfTest {
+
+    /**
+     * @param args corpus directory, language profile directory (i.e. DATA/../langdetect) and the number of rounds
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage : java CondenserPerfTest <corpusDirectory> [langdetectProfileDirectory] [rounds]");
+            return;
+        }
+        try {
+            if (args.length >= 2) DetectorFactory.loadProfile(args[1]);
+            final int rounds = args.length >= 3 ? Integer.parseInt(args[2]) : 5;
+
+            // parse the corpus
+            final List<Document> documents = new ArrayList<Document>();
+            long chars = 0;
+            final File[] files = new File(args[0]).listFiles();
+            if (files != null) for (final File file: files) {
+                if (!file.isFile()) continue;
+                try {
+                    final String mime = Classification.ext2mime(MultiProtocolURL.getFileExtension(file.getName()), "text/plain");
+                    for (final Document document: TextParser.parseSource(new DigestURL(file.toURI().toString()), mime, null, null, null, 0, 0, file)) {
+                        documents.add(document);
+                        chars += document.getTextString().length();
+                    }
+                } catch (final Parser.Failure e) {
+                    System.out.println("skipped " + file.getName() + ": " + e.getMessage());
+                }
+            }
+            final Document[] corpus = documents.toArray(new Document[documents.size()]);
+            System.out.println(corpus.length + " documents with " + chars + " text characters loaded from " + args[0]);
+            if (corpus.length == 0) return;
+
+            // warm up
+            Condenser.condense(corpus, null, true, true, null, false, true, 0);
+
+            for (final int threads: new int[] {1, 2, 4, 8}) {
+                final AtomicInteger next = new AtomicInteger(0);
+                final int total = corpus.length * rounds;
+                final Thread[] workers = new Thread[threads];
+                final long start = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    workers[t] = new Thread() {
+                        @Override
+                        public void run() {
+                            int i;
+                            while ((i = next.getAndIncrement()) < total) {
+                                new Condenser(corpus[i % corpus.length], null, true, true, null, false, true, 0);
+                            }
+                        }
+                    };
+                    workers[t].start();
+                }
+                for (final Thread worker: workers) worker.join();
+                report(threads + " threads", start, total, chars * rounds);
+            }
+
+            final long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) Condenser.condense(corpus, null, true, true, null, false, true, 0);
+            report("batch", start, corpus.length * rounds, chars * rounds);
+        } finally {
+            try {
+                Domains.close();
+            } finally {
+                ConcurrentLog.shutdown();
+            }
+        }
+    }
+
+    private static void report(final String name, final long start, final long documents, final long chars) {
+        final long time = Math.max(1, System.nanoTime() - start);
+        System.out.println(name + ": " + TimeUnit.NANOSECONDS.toMillis(time) + " ms, "
+                + (documents * 1000000000L / time) + " documents/s, "
+                + (chars * 1000000000L / time / 1024) + " KB/s text");
+    }
+}
@@ -0,0 +1,75 @@
+package net.yacy.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class WordScannerTest {
+
+    private static List<String> tokenize(final String text) {
+        final List<String> words = new ArrayList<String>();
+        final WordTokenizer wt = new WordTokenizer(new SentenceReader(text), null);
+        while (wt.hasMoreElements()) words.add(wt.nextElement().toString());
+        wt.close();
+        return words;
+    }
+
+    private static List<String> scan(final String text) {
+        final List<String> words = new ArrayList<String>();
+        final WordScanner scanner = WordScanner.get().reset(text, false);
+        String word;
+        while ((word = scanner.next()) != null) words.add(word);
+        return words;
+    }
+
+    /**
+     * the scanner must return the same words as the WordTokenizer
+     */
+    @Test
+    public void testSameWordsAsWordTokenizer() {
+        final String[] texts = new String[] {
+            "  word word..... (word) [word] . 'word word' \"word word\" word ?  word! ",
+            "word-word word . word.word@word.word ....word... word,word ",
+            "Sentence One. Sentence Two?Comment on this!\n\nThis is sentence four",
+            "über Ärger, naïve cafés 漢字 العربية.",
+            "with a\u0000zero character\u0000\u0000never read",
+            "\u0000",
+            "",
+            "."
+        };
+        for (final String text: texts) {
+            assertEquals(text, tokenize(text), scan(text));
+        }
+
+        final Random random = new Random(0);
+        final char[] alphabet = " \t\n\r.!?,;:-@'\"()abcXYZ09äß\u0000".toCharArray();
+        for (int t = 0; t < 1000; t++) {
+            final StringBuilder sb = new StringBuilder();
+            final int length = random.nextInt(80);
+            for (int i = 0; i < length; i++) sb.append(alphabet[random.nextInt(alphabet.length)]);
+            final String text = sb.toString();
+            assertEquals(text, tokenize(text), scan(text));
+        }
+    }
+
+    /**
+     * a scanner must be re-usable after the end of a text or in the middle of a text
+     */
+    @Test
+    public void testReset() {
+        final WordScanner scanner = WordScanner.get();
+        scanner.reset("first text", false);
+        assertEquals("first", scanner.next());
+        scanner.reset("second. text", false);
+        assertEquals("second", scanner.next());
+        assertEquals(".", scanner.next());
+        assertEquals("text", scanner.next());
+        assertNull(scanner.next());
+        assertNull(scanner.next());
+    }
+}
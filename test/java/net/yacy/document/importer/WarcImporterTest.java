@@ -0,0 +1,240 @@
+// WarcImporterTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.document.importer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jwat.warc.WarcConstants;
+import org.jwat.warc.WarcReader;
+import org.jwat.warc.WarcReaderFactory;
+import org.jwat.warc.WarcRecord;
+import org.jwat.warc.WarcWriter;
+import org.jwat.warc.WarcWriterFactory;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.document.TextParser;
+
+public class WarcImporterTest {
+
+    /**
+     * a stream which returns at most 7 bytes per read, like a network or decompressing stream
+     */
+    private static class SlowInputStream extends ByteArrayInputStream {
+        public SlowInputStream(final byte[] b) {
+            super(b);
+        }
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) {
+            return super.read(b, off, Math.min(len, 7));
+        }
+    }
+
+    private static byte[] content(final int length) {
+        final byte[] b = new byte[length];
+        new Random(length).nextBytes(b);
+        return b;
+    }
+
+    @Test
+    public void testReadPayloadFully() throws IOException {
+        final byte[] content = content(20000);
+        assertArrayEquals(content, WarcImporter.readPayload(new SlowInputStream(content), false, content.length));
+    }
+
+    @Test
+    public void testReadPayloadChunked() throws IOException {
+        final byte[] content = content(30000);
+        final ByteArrayOutputStream chunked = new ByteArrayOutputStream();
+        int p = 0;
+        while (p < content.length) {
+            final int l = Math.min(4321, content.length - p);
+            chunked.write(ASCII.getBytes(Integer.toHexString(l) + "\r\n"));
+            chunked.write(content, p, l);
+            chunked.write(ASCII.getBytes("\r\n"));
+            p += l;
+        }
+        chunked.write(ASCII.getBytes("0\r\n\r\n"));
+        assertArrayEquals(content, WarcImporter.readPayload(new SlowInputStream(chunked.toByteArray()), true, chunked.size()));
+    }
+
+    /**
+     * write an archive with a http response record for each target uri
+     */
+    private static void writeResponses(final File warc, final String... uris) throws IOException {
+        final FileOutputStream os = new FileOutputStream(warc);
+        final WarcWriter writer = WarcWriterFactory.getWriter(os, true);
+        for (int i = 0; i < uris.length; i++) {
+            final byte[] payload = ASCII.getBytes("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 2000\r\n\r\n" + new String(new char[2000]).replace('\0', 'x'));
+            final WarcRecord record = WarcRecord.createRecord(writer);
+            record.header.addHeader(WarcConstants.FN_WARC_TYPE, WarcConstants.RT_RESPONSE);
+            record.header.addHeader(WarcConstants.FN_WARC_TARGET_URI, uris[i]);
+            record.header.addHeader(WarcConstants.FN_WARC_RECORD_ID, "<urn:uuid:00000000-0000-0000-0000-00000000000" + i + ">");
+            record.header.addHeader(WarcConstants.FN_WARC_DATE, "2026-01-01T00:00:00Z");
+            record.header.addHeader(WarcConstants.FN_CONTENT_TYPE, "application/http; msgtype=response");
+            record.header.addHeader(WarcConstants.FN_CONTENT_LENGTH, Long.valueOf(payload.length), null);
+            writer.writeHeader(record);
+            writer.writePayload(payload);
+            writer.closeRecord();
+        }
+        writer.close();
+    }
+
+    /**
+     * a record with a malformed target uri and a corrupt record are skipped, the archive is imported to the end
+     */
+    @Test
+    public void testSkipMalformedRecords() throws IOException {
+        final File warc = File.createTempFile("WarcImporterTest", ".warc.gz");
+        final File target = new File(warc.getParentFile(), warc.getName() + ".done");
+        try {
+            writeResponses(warc, "http://example.com/0", "::not a url::", "http://example.com/2", "http://example.com/3");
+            final RandomAccessFile raf = new RandomAccessFile(warc, "rw");
+            try {
+                raf.seek(raf.length() * 7 / 8); // in the compressed last record
+                raf.write(new byte[64]);
+            } finally {
+                raf.close();
+            }
+            final WarcImporter importer = new WarcImporter(warc, target, 1);
+            importer.run();
+            assertFalse(importer.isAborted());
+            assertTrue(importer.rejected() >= 2);
+            assertFalse(warc.exists());
+            assertTrue(target.exists());
+            assertFalse(WarcImporter.offsetFile(warc).exists());
+            assertFalse(WarcImporter.failedFile(warc).exists());
+        } finally {
+            warc.delete();
+            target.delete();
+        }
+    }
+
+    /**
+     * an interrupted import keeps the archive and the offset of the first record which was not queued
+     */
+    @Test
+    public void testInterrupt() throws IOException {
+        final File warc = File.createTempFile("WarcImporterTest", ".warc.gz");
+        final File target = new File(warc.getParentFile(), warc.getName() + ".done");
+        final File offsetFile = WarcImporter.offsetFile(warc);
+        try {
+            writeResponses(warc, "http://example.com/0", "http://example.com/1");
+            assertEquals(null, TextParser.supportsMime("text/plain")); // initializes the parsers before the interrupt
+            Thread.currentThread().interrupt();
+            WarcImporter importer = new WarcImporter(warc, target, 1);
+            importer.run();
+            assertTrue(Thread.interrupted());
+            assertTrue(importer.isAborted());
+            assertTrue(warc.exists());
+            assertFalse(target.exists());
+            assertTrue(offsetFile.exists());
+            assertEquals(0, WarcImporter.readOffset(offsetFile));
+
+            // the next import reads the archive again and completes it
+            importer = new WarcImporter(warc, target, 1);
+            importer.run();
+            assertFalse(importer.isAborted());
+            assertFalse(warc.exists());
+            assertTrue(target.exists());
+            assertFalse(offsetFile.exists());
+        } finally {
+            offsetFile.delete();
+            warc.delete();
+            target.delete();
+        }
+    }
+
+    @Test
+    public void testOffsetFile() throws IOException {
+        final File warc = File.createTempFile("WarcImporterTest", ".warc.gz");
+        final File offsetFile = WarcImporter.offsetFile(warc);
+        try {
+            assertEquals(0, WarcImporter.readOffset(offsetFile));
+            WarcImporter.writeOffset(offsetFile, 1234567890123L);
+            assertEquals(1234567890123L, WarcImporter.readOffset(offsetFile));
+            WarcImporter.writeOffset(offsetFile, 42);
+            assertEquals(42, WarcImporter.readOffset(offsetFile));
+        } finally {
+            offsetFile.delete();
+            warc.delete();
+        }
+    }
+
+    /**
+     * the importer stores the start offset of a record as resume offset; reading a compressed
+     * archive from that offset must continue with that record
+     */
+    @Test
+    public void testResumeAtRecordOffset() throws IOException {
+        final File warc = File.createTempFile("WarcImporterTest", ".warc.gz");
+        try {
+            final FileOutputStream os = new FileOutputStream(warc);
+            final WarcWriter writer = WarcWriterFactory.getWriter(os, true);
+            for (int i = 0; i < 5; i++) {
+                final byte[] payload = content(1000 + i);
+                final WarcRecord record = WarcRecord.createRecord(writer);
+                record.header.addHeader(WarcConstants.FN_WARC_TYPE, WarcConstants.RT_RESOURCE);
+                record.header.addHeader(WarcConstants.FN_WARC_TARGET_URI, "http://example.com/" + i);
+                record.header.addHeader(WarcConstants.FN_WARC_RECORD_ID, "<urn:uuid:00000000-0000-0000-0000-00000000000" + i + ">");
+                record.header.addHeader(WarcConstants.FN_WARC_DATE, "2026-01-01T00:00:00Z");
+                record.header.addHeader(WarcConstants.FN_CONTENT_TYPE, "application/octet-stream");
+                record.header.addHeader(WarcConstants.FN_CONTENT_LENGTH, Long.valueOf(payload.length), null);
+                writer.writeHeader(record);
+                writer.writePayload(payload);
+                writer.closeRecord();
+            }
+            writer.close();
+
+            final List<Long> offsets = new ArrayList<Long>();
+            WarcReader reader = WarcReaderFactory.getReader(new FileInputStream(warc));
+            while (reader.getNextRecord() != null) offsets.add(reader.getStartOffset());
+            reader.close();
+            assertEquals(5, offsets.size());
+
+            final InputStream is = new FileInputStream(warc);
+            long p = 0;
+            while (p < offsets.get(3)) p += is.skip(offsets.get(3) - p);
+            reader = WarcReaderFactory.getReader(is);
+            final WarcRecord record = reader.getNextRecord();
+            assertEquals("http://example.com/3", record.getHeader(WarcConstants.FN_WARC_TARGET_URI).value);
+            reader.close();
+        } finally {
+            warc.delete();
+        }
+    }
+}
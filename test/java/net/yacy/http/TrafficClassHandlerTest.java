@@ -0,0 +1,88 @@
+package net.yacy.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import net.yacy.http.TrafficClassHandler.Limit;
+import net.yacy.http.TrafficClassHandler.TrafficClass;
+
+public class TrafficClassHandlerTest {
+
+    @Test
+    public void testClassify() {
+        assertEquals(TrafficClass.P2P, TrafficClassHandler.classify("/yacy/search.html"));
+        assertEquals(TrafficClass.P2P, TrafficClassHandler.classify("/yacy/transferRWI.html"));
+        assertEquals(TrafficClass.ADMIN, TrafficClassHandler.classify("/Crawler_p.html"));
+        assertEquals(TrafficClass.ADMIN, TrafficClassHandler.classify("/api/status_p.xml"));
+        assertEquals(TrafficClass.API, TrafficClassHandler.classify("/solr/select"));
+        assertEquals(TrafficClass.API, TrafficClassHandler.classify("/api/snapshot.xml"));
+        assertEquals(TrafficClass.SEARCH, TrafficClassHandler.classify("/yacysearch.html"));
+        assertEquals(TrafficClass.SEARCH, TrafficClassHandler.classify("/"));
+    }
+
+    @Test
+    public void testUnlimited() {
+        final Limit limit = new Limit(TrafficClass.SEARCH, 0, 0, 0);
+        for (int i = 0; i < 1000; i++) assertTrue(limit.acquire());
+        assertEquals(1000, limit.getActive());
+        limit.release(3);
+        assertEquals(999, limit.getActive());
+        assertEquals(5, limit.percentile(0.5));
+    }
+
+    @Test
+    public void testShedding() {
+        // two active, no queue: the third request is rejected at once
+        final Limit limit = new Limit(TrafficClass.P2P, 2, 0, 10000);
+        assertTrue(limit.acquire());
+        assertTrue(limit.acquire());
+        final long start = System.currentTimeMillis();
+        assertFalse(limit.acquire());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(1, limit.getRejected());
+        limit.release(10);
+        assertTrue(limit.acquire());
+        assertEquals(1, limit.getCompleted());
+    }
+
+    @Test
+    public void testQueueing() throws InterruptedException {
+        final Limit limit = new Limit(TrafficClass.API, 1, 1, 5000);
+        assertTrue(limit.acquire());
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final AtomicBoolean admitted = new AtomicBoolean(false);
+        final Thread t = new Thread() {
+            @Override
+            public void run() {
+                waiting.countDown();
+                admitted.set(limit.acquire());
+            }
+        };
+        t.start();
+        waiting.await();
+        while (limit.getQueued() == 0) Thread.sleep(1);
+        // the queue is full now
+        assertFalse(limit.acquire());
+        assertEquals(1, limit.getRejected());
+        limit.release(1);
+        t.join();
+        assertTrue(admitted.get());
+        assertEquals(0, limit.getQueued());
+    }
+
+    @Test
+    public void testWaitTimeout() {
+        final Limit limit = new Limit(TrafficClass.ADMIN, 1, 5, 50);
+        assertTrue(limit.acquire());
+        assertFalse(limit.acquire());
+        assertEquals(1, limit.getTimeouts());
+        assertEquals(0, limit.getRejected());
+        assertEquals(0, limit.getQueued());
+    }
+}
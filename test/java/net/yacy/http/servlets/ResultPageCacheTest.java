@@ -0,0 +1,253 @@
+package net.yacy.http.servlets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.junit.Test;
+
+public class ResultPageCacheTest {
+
+    /**
+     * a renderer which counts its calls and returns a page of the given size
+     */
+    private static class CountingRenderer implements ResultPageCache.Renderer {
+        private final AtomicInteger calls = new AtomicInteger(0);
+        private final int size;
+        private final long generation;
+        private final boolean cacheable;
+
+        private CountingRenderer(final int size, final long generation, final boolean cacheable) {
+            this.size = size;
+            this.generation = generation;
+            this.cacheable = cacheable;
+        }
+
+        @Override
+        public ResultPageCache.Page render() throws IOException, ServletException {
+            this.calls.incrementAndGet();
+            return this.cacheable ? new ResultPageCache.Page(new byte[this.size], "text/html", this.generation) : null;
+        }
+    }
+
+    private static Map<String, String[]> params(final String... nameValue) {
+        final Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+        for (int i = 0; i < nameValue.length; i += 2) params.put(nameValue[i], new String[]{nameValue[i + 1]});
+        return params;
+    }
+
+    @Test
+    public void testKey() {
+        final String k = ResultPageCache.key("/yacysearch.html", "html/default", "template", params("query", "yacy", "maximumRecords", "10"));
+        assertEquals(k, ResultPageCache.key("/yacysearch.html", "html/default", "template", params("maximumRecords", "10", "query", " yacy ")));
+        assertNotEquals(k, ResultPageCache.key("/yacysearch.html", "html/de", "template", params("query", "yacy", "maximumRecords", "10")));
+        assertNotEquals(k, ResultPageCache.key("/yacysearch.html", "html/default", "template", params("query", "yacy", "maximumRecords", "20")));
+        assertNotEquals(k, ResultPageCache.key("/yacysearch.json", "html/default", "template", params("query", "yacy", "maximumRecords", "10")));
+    }
+
+    @Test
+    public void testHit() throws IOException, ServletException {
+        final ResultPageCache cache = new ResultPageCache(1024 * 1024, 64 * 1024, 60000, 1000);
+        final CountingRenderer renderer = new CountingRenderer(100, 1, true);
+        assertNull(cache.get("a", 1, renderer)); // rendered by the renderer
+        final ResultPageCache.Page page = cache.get("a", 1, renderer);
+        assertNotNull(page);
+        assertEquals(100, page.content.length);
+        assertEquals("text/html", page.contentType);
+        assertSame(page, cache.get("a", 1, renderer));
+        assertEquals(1, renderer.calls.get());
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testCommitGeneration() throws IOException, ServletException {
+        final ResultPageCache cache = new ResultPageCache(1024 * 1024, 64 * 1024, 60000, 1000);
+        cache.get("a", 1, new CountingRenderer(100, 1, true));
+        cache.get("b", 1, new CountingRenderer(100, 1, true));
+        assertEquals(2, cache.size());
+
+        // after a commit the page is rendered again and all older pages are removed
+        final CountingRenderer renderer = new CountingRenderer(100, 2, true);
+        assertNull(cache.get("a", 2, renderer));
+        assertEquals(1, renderer.calls.get());
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("a", 2, renderer));
+        assertEquals(1, renderer.calls.get());
+
+        // a page which was rendered before a commit is not stored
+        assertNull(cache.get("c", 3, new CountingRenderer(100, 2, true)));
+        assertNull(cache.get("c", 3, new CountingRenderer(100, 3, true)));
+    }
+
+    @Test
+    public void testTimeToLive() throws IOException, ServletException, InterruptedException {
+        final ResultPageCache cache = new ResultPageCache(1024 * 1024, 64 * 1024, 50, 1000);
+        final CountingRenderer renderer = new CountingRenderer(100, 0, true);
+        cache.get("a", 0, renderer);
+        assertNotNull(cache.get("a", 0, renderer));
+        Thread.sleep(100);
+        assertNull(cache.get("a", 0, renderer));
+        assertEquals(2, renderer.calls.get());
+    }
+
+    @Test
+    public void testBytes() throws IOException, ServletException {
+        final ResultPageCache cache = new ResultPageCache(10000, 4000, 60000, 1000);
+        for (int i = 0; i < 10; i++) cache.get("p" + i, 0, new CountingRenderer(1000, 0, true));
+        assertEquals(9, cache.size()); // 1064 bytes each
+        assertEquals(9 * 1064, cache.bytes());
+        assertNull(cache.get("p0", 0, new CountingRenderer(1000, 0, true))); // the oldest was removed
+        assertNotNull(cache.get("p9", 0, new CountingRenderer(1000, 0, true)));
+
+        // too large and not cacheable pages are not stored
+        cache.get("large", 0, new CountingRenderer(5000, 0, true));
+        cache.get("error", 0, new CountingRenderer(100, 0, false));
+        assertNull(cache.get("large", 0, new CountingRenderer(5000, 0, true)));
+        assertNull(cache.get("error", 0, new CountingRenderer(100, 0, false)));
+        assertEquals(cache.size() * 1064, cache.bytes());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    /**
+     * a response which records the headers in the given list and discards the content
+     */
+    private static HttpServletResponse response(final List<String> headers) {
+        return (HttpServletResponse) Proxy.newProxyInstance(ResultPageCacheTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                final String name = method.getName();
+                if (name.endsWith("Header")) headers.add(name + " " + args[0] + ": " + args[1]);
+                if (name.equals("addCookie")) headers.add("addCookie");
+                if (name.equals("getOutputStream")) return new ServletOutputStream() {
+                    @Override
+                    public void write(final int b) {
+                    }
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+                    @Override
+                    public void setWriteListener(final WriteListener writeListener) {
+                    }
+                };
+                if (name.equals("getContentType")) return "application/rss+xml";
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testHeaders() throws IOException {
+        final List<String> rendered = new ArrayList<String>();
+        final ResultPageCache.CopyingResponse copying = new ResultPageCache.CopyingResponse(response(rendered), 1024);
+        copying.setHeader("Access-Control-Allow-Origin", "*");
+        copying.addHeader("Vary", "Accept");
+        copying.addHeader("Vary", "Origin");
+        copying.setIntHeader("X-Count", 1);
+        copying.setIntHeader("X-Count", 2);
+        copying.setHeader("Content-Length", "3");
+        copying.getOutputStream().write(new byte[]{1, 2, 3});
+        final ResultPageCache.Page page = copying.page(0);
+        assertNotNull(page);
+        assertEquals(3, page.content.length);
+
+        // the headers are set again when the page is sent from the cache
+        final List<String> replayed = new ArrayList<String>();
+        page.setHeaders(response(replayed));
+        assertEquals(Arrays.asList("setHeader Access-Control-Allow-Origin: *", "setHeader Vary: Accept", "addHeader Vary: Origin", "setHeader X-Count: 2"), replayed);
+
+        // pages which belong to one client are not cached
+        final ResultPageCache.CopyingResponse cookie = new ResultPageCache.CopyingResponse(response(rendered), 1024);
+        cookie.addCookie(new Cookie("session", "1"));
+        assertNull(cookie.page(0));
+        final ResultPageCache.CopyingResponse token = new ResultPageCache.CopyingResponse(response(rendered), 1024);
+        token.setHeader("X-YaCy-Transaction-Token", "secret");
+        assertNull(token.page(0));
+    }
+
+    @Test
+    public void testIncomplete() throws IOException {
+        final ResultPageCache.CopyingResponse copying = new ResultPageCache.CopyingResponse(response(new ArrayList<String>()), 1024);
+        copying.getOutputStream().write(new byte[]{1, 2, 3});
+        ResultPageCache.incomplete(response(new ArrayList<String>())); // no copying response, nothing to mark
+        assertNotNull(copying.page(0));
+
+        // a page included in the copied page marks it through the wrapper of the include
+        ResultPageCache.incomplete(new HttpServletResponseWrapper(copying));
+        assertNull(copying.page(0));
+    }
+
+    @Test
+    public void testStampede() throws InterruptedException {
+        final ResultPageCache cache = new ResultPageCache(1024 * 1024, 64 * 1024, 60000, 10000);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger renderings = new AtomicInteger(0);
+        final AtomicInteger shared = new AtomicInteger(0);
+        final byte[] content = "result".getBytes(StandardCharsets.UTF_8);
+        final ResultPageCache.Renderer slow = new ResultPageCache.Renderer() {
+            @Override
+            public ResultPageCache.Page render() {
+                renderings.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new ResultPageCache.Page(content, "text/html", 0);
+            }
+        };
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            final Thread t = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        final ResultPageCache.Page page = cache.get("q", 0, slow);
+                        if (page != null && page.content == content) shared.incrementAndGet();
+                    } catch (final IOException | ServletException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            threads.add(t);
+            t.start();
+            if (i == 0) started.await();
+        }
+        Thread.sleep(100); // let the other threads wait for the first rendering
+        release.countDown();
+        for (final Thread t: threads) t.join();
+        assertEquals(1, renderings.get());
+        assertEquals(7, shared.get());
+        assertEquals(1, cache.misses());
+        assertEquals(7, cache.joined() + cache.hits());
+    }
+}
@@ -0,0 +1,117 @@
+package net.yacy.http.servlets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+public class StaticResourceCacheTest {
+
+    private static File file(final String suffix, final byte[] content) throws IOException {
+        final File f = File.createTempFile("StaticResourceCacheTest", suffix);
+        f.deleteOnExit();
+        Files.write(f.toPath(), content);
+        return f;
+    }
+
+    private static byte[] text(final int lines) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) sb.append("function f").append(i).append("() { return ").append(i).append("; }\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(final byte[] b) throws IOException {
+        final InputStream in = new GZIPInputStream(new ByteArrayInputStream(b));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int c;
+        while ((c = in.read(buffer)) > 0) out.write(buffer, 0, c);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testCompressedVariant() throws IOException {
+        final StaticResourceCache cache = new StaticResourceCache(1024 * 1024, 64 * 1024);
+        final byte[] js = text(100);
+        final File f = file(".js", js);
+        final StaticResourceCache.Entry entry = cache.get(f, "application/javascript");
+        assertArrayEquals(js, entry.identity);
+        assertNotNull(entry.gzip);
+        assertTrue(entry.gzip.length < js.length / 2);
+        assertArrayEquals(js, gunzip(entry.gzip));
+        assertFalse(entry.etag.equals(entry.gzipETag));
+        assertTrue(entry.etag.startsWith("\"") && entry.etag.endsWith("\""));
+
+        // the second request is a hit
+        assertSame(entry, cache.get(f, "application/javascript"));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        cache.sent(entry, true);
+        assertEquals(entry.gzip.length, cache.sentBytes());
+        assertEquals(js.length - entry.gzip.length, cache.savedBytes());
+
+        // images are not compressed
+        final StaticResourceCache.Entry image = cache.get(file(".png", text(100)), "image/png");
+        assertNull(image.gzip);
+        f.delete();
+    }
+
+    @Test
+    public void testInvalidation() throws IOException {
+        final StaticResourceCache cache = new StaticResourceCache(1024 * 1024, 64 * 1024);
+        final File f = file(".css", text(10));
+        final StaticResourceCache.Entry entry = cache.get(f, "text/css");
+        Files.write(f.toPath(), text(20));
+        f.setLastModified(f.lastModified() + 2000);
+        final StaticResourceCache.Entry changed = cache.get(f, "text/css");
+        assertNotSame(entry, changed);
+        assertArrayEquals(text(20), changed.identity);
+        assertFalse(entry.etag.equals(changed.etag));
+        assertEquals(1, cache.size());
+        f.delete();
+    }
+
+    @Test
+    public void testBounds() throws IOException {
+        final byte[] content = text(50); // about 1.5 KB
+        final StaticResourceCache cache = new StaticResourceCache(4 * content.length, 2 * content.length);
+        final File[] files = new File[10];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = file(".png", content);
+            cache.get(files[i], "image/png");
+            assertTrue(cache.bytes() <= 4 * content.length);
+        }
+        assertEquals(4, cache.size());
+        // too large files are not cached
+        assertNull(cache.get(file(".png", text(200)), "image/png"));
+        for (final File f: files) f.delete();
+    }
+
+    @Test
+    public void testHeaders() {
+        assertTrue(StaticResourceCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(StaticResourceCache.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(StaticResourceCache.acceptsGzip("*"));
+        assertFalse(StaticResourceCache.acceptsGzip("gzip;q=0"));
+        assertFalse(StaticResourceCache.acceptsGzip("identity"));
+        assertFalse(StaticResourceCache.acceptsGzip(null));
+        assertTrue(StaticResourceCache.matches("\"a\", \"b\"", "\"b\""));
+        assertTrue(StaticResourceCache.matches("*", "\"b\""));
+        assertFalse(StaticResourceCache.matches("\"a\"", "\"b\""));
+    }
+}
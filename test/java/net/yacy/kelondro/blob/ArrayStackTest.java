@@ -0,0 +1,94 @@
+// ArrayStackTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.kelondro.util.FileUtils;
+
+public class ArrayStackTest {
+
+    private static byte[] key(final int i) {
+        return ASCII.getBytes(String.format("%012d", i));
+    }
+
+    /**
+     * with an evictor, the size limit must keep the entries which the evictor selects and report all others
+     */
+    @Test
+    public void testEviction() throws IOException, InterruptedException {
+        final File location = File.createTempFile("ArrayStackTest", "");
+        location.delete();
+        final ArrayStack stack = new ArrayStack(location, "test", Base64Order.enhancedCoder, 12, 1, false, true);
+        final Set<String> evicted = new HashSet<String>();
+        try {
+            stack.setEvictor(new ArrayStack.Evictor() {
+                @Override
+                public boolean keep(final byte[] key, final long size) {
+                    // keep the first ten even entries
+                    final int i = Integer.parseInt(ASCII.String(key));
+                    return i < 20 && i % 2 == 0;
+                }
+                @Override
+                public void evicted(final byte[] key) {
+                    evicted.add(ASCII.String(key));
+                }
+            });
+            final long maxSize = 100000;
+            stack.setMaxSize(maxSize);
+            final int count = 400;
+            for (int i = 0; i < count; i++) {
+                stack.insert(key(i), new byte[600]);
+                Thread.sleep(2); // new files get a millisecond time stamp as name
+            }
+
+            assertTrue(stack.length() <= maxSize);
+            assertTrue(stack.evicted() > 0);
+            assertEquals(evicted.size(), stack.evicted());
+            assertEquals(count, stack.size() + evicted.size());
+            for (int i = 0; i < 20; i += 2) {
+                assertTrue(stack.containsKey(key(i)));
+                assertFalse(evicted.contains(ASCII.String(key(i))));
+            }
+            for (int i = 1; i < 20; i += 2) {
+                assertFalse(stack.containsKey(key(i)));
+                assertTrue(evicted.contains(ASCII.String(key(i))));
+            }
+            assertTrue(stack.compacted() >= 10);
+            assertTrue(stack.evictionCandidate() != null);
+        } finally {
+            stack.close(false);
+            FileUtils.deletedelete(location);
+        }
+    }
+}
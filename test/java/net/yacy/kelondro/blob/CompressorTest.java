@@ -0,0 +1,129 @@
+// CompressorTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.util.SpaceExceededException;
+
+public class CompressorTest {
+
+    private static byte[] key(final int i) {
+        return ASCII.getBytes(String.format("%012d", i));
+    }
+
+    private static byte[] content(final int i) {
+        final StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < 200; j++) sb.append("content of entry ").append(i).append(" line ").append(j).append('\n');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static File heapFile() throws IOException {
+        final File f = File.createTempFile("CompressorTest", ".heap");
+        f.delete();
+        return f;
+    }
+
+    /**
+     * entries must be readable at any stage: in the buffer, while they are compressed in the background and in the backend
+     */
+    private static void testRoundtrip(final Compressor.Codec codec, final int threads) throws IOException, SpaceExceededException {
+        final File f = heapFile();
+        final Heap heap = new Heap(f, 12, Base64Order.enhancedCoder, 1024 * 1024);
+        // a small buffer forces frequent compression
+        final Compressor compressor = new Compressor(heap, 64 * 1024, 2000, Deflater.BEST_SPEED, codec, threads);
+        try {
+            final int count = 200;
+            for (int i = 0; i < count; i++) {
+                compressor.insert(key(i), content(i));
+                assertArrayEquals(content(i / 2), compressor.get(key(i / 2)));
+            }
+            compressor.delete(key(7));
+            assertNull(compressor.get(key(7)));
+            assertFalse(compressor.containsKey(key(7)));
+            assertEquals(count - 1, compressor.size());
+            for (int i = 0; i < count; i++) {
+                if (i != 7) assertArrayEquals(content(i), compressor.get(key(i)));
+            }
+            compressor.flushAll();
+            assertEquals(count - 1, heap.size());
+            for (int i = 0; i < count; i++) {
+                if (i != 7) assertArrayEquals(content(i), compressor.get(key(i)));
+            }
+            assertTrue(compressor.storedBytes() < compressor.rawBytes());
+        } finally {
+            compressor.close(false);
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testGzip() throws IOException, SpaceExceededException {
+        testRoundtrip(Compressor.Codec.GZIP, 0);
+    }
+
+    @Test
+    public void testLZ4() throws IOException, SpaceExceededException {
+        testRoundtrip(Compressor.Codec.LZ4, 0);
+    }
+
+    @Test
+    public void testBackgroundCompression() throws IOException, SpaceExceededException {
+        testRoundtrip(Compressor.Codec.GZIP, 3);
+        testRoundtrip(Compressor.Codec.LZ4, 3);
+    }
+
+    /**
+     * entries of one codec must stay readable when the codec is changed
+     */
+    @Test
+    public void testCodecChange() throws IOException, SpaceExceededException {
+        final File f = heapFile();
+        final Heap heap = new Heap(f, 12, Base64Order.enhancedCoder, 1024 * 1024);
+        final Compressor compressor = new Compressor(heap, 1024, 2000, Deflater.BEST_COMPRESSION, Compressor.Codec.GZIP, 0);
+        try {
+            compressor.insert(key(1), content(1));
+            compressor.flushAll();
+            compressor.setCodec(Compressor.Codec.LZ4);
+            compressor.insert(key(2), content(2));
+            compressor.flushAll();
+            assertArrayEquals(content(1), compressor.get(key(1)));
+            assertArrayEquals(content(2), compressor.get(key(2)));
+        } finally {
+            compressor.close(false);
+            f.delete();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+// MapDataMiningPerfTest.java
+// -----------------------
+// part of YaCy
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * Stress test for concurrent reads on a {@link MapDataMining} while a writer
+ * continuously updates entries, as done with the seed tables: reader threads
+ * mix get, select and accumulator calls. The read throughput is printed for
+ * 1, 2, 4 and 8 reader threads.
+ */
+public class MapDataMiningPerfTest {
+
+    private static final int ENTRIES = 10000;
+    private static final long RUNTIME = 3000;
+
+    private static byte[] key(final int i) {
+        return Base64Order.enhancedCoder.encodeLongBA(i, 12);
+    }
+
+    private static Map<String, String> row(final int i, final long count) {
+        final Map<String, String> map = new HashMap<String, String>();
+        map.put("name", "peer" + i);
+        map.put("count", Long.toString(count));
+        map.put("speed", Float.toString(count / 10.0f));
+        return map;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final File heapFile = new File(System.getProperty("java.io.tmpdir"), "MapDataMiningPerfTest.heap");
+        FileUtils.deletedelete(heapFile);
+        final MapDataMining db = new MapDataMining(heapFile, 12, Base64Order.enhancedCoder, 1024 * 512, ENTRIES,
+                new String[] {"count"}, new String[] {"count"}, new String[] {"speed"}, new String[] {"name"});
+        try {
+            for (int i = 0; i < ENTRIES; i++) db.insert(key(i), row(i, i));
+
+            for (final int threads: new int[] {1, 2, 4, 8}) {
+                final AtomicBoolean running = new AtomicBoolean(true);
+                final AtomicLong reads = new AtomicLong(0);
+                final AtomicLong writes = new AtomicLong(0);
+
+                final Thread writer = new Thread() {
+                    @Override
+                    public void run() {
+                        final Random random = new Random(1);
+                        try {
+                            while (running.get()) {
+                                final int i = random.nextInt(ENTRIES);
+                                db.insert(key(i), row(i, random.nextInt(1000)));
+                                writes.incrementAndGet();
+                            }
+                        } catch (final Exception e) {
+                            ConcurrentLog.logException(e);
+                        }
+                    }
+                };
+                final Thread[] readers = new Thread[threads];
+                for (int t = 0; t < threads; t++) {
+                    final int seed = t;
+                    readers[t] = new Thread() {
+                        @Override
+                        public void run() {
+                            final Random random = new Random(seed);
+                            long count = 0;
+                            try {
+                                while (running.get()) {
+                                    final int i = random.nextInt(ENTRIES);
+                                    db.get(key(i));
+                                    db.select("name", "peer" + i);
+                                    db.getLongAcc("count");
+                                    db.getFloatAcc("speed");
+                                    count++;
+                                }
+                            } catch (final Exception e) {
+                                ConcurrentLog.logException(e);
+                            }
+                            reads.addAndGet(count);
+                        }
+                    };
+                }
+
+                writer.start();
+                for (final Thread reader: readers) reader.start();
+                Thread.sleep(RUNTIME);
+                running.set(false);
+                writer.join();
+                for (final Thread reader: readers) reader.join();
+
+                System.out.println(threads + " reader threads: " + (reads.get() * 1000 / RUNTIME) + " reads/s, "
+                        + (writes.get() * 1000 / RUNTIME) + " writes/s");
+            }
+        } finally {
+            db.close();
+            FileUtils.deletedelete(heapFile);
+            ConcurrentLog.shutdown();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package net.yacy.kelondro.blob;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.kelondro.util.FileUtils;
+
+public class MapDataMiningTest {
+
+    private File heapFile;
+
+    @Before
+    public void setUp() {
+        this.heapFile = new File(System.getProperty("java.io.tmpdir"), "MapDataMiningTest.heap");
+        FileUtils.deletedelete(this.heapFile);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deletedelete(this.heapFile);
+    }
+
+    private MapDataMining open() throws Exception {
+        return new MapDataMining(this.heapFile, 12, Base64Order.enhancedCoder, 1024, 100,
+                new String[] {"count"}, new String[] {"count"}, new String[] {"speed"}, new String[] {"name"});
+    }
+
+    private static Map<String, String> row(final String name, final long count, final float speed) {
+        final Map<String, String> map = new HashMap<String, String>();
+        map.put("name", name);
+        map.put("count", Long.toString(count));
+        map.put("speed", Float.toString(speed));
+        return map;
+    }
+
+    /**
+     * a selection must only return the keys of the current values after an update or deletion
+     */
+    @Test
+    public void testSelectAfterUpdate() throws Exception {
+        final MapDataMining db = open();
+        final byte[] key = UTF8.getBytes("AAAAAAAAAAAA");
+        db.insert(key, row("Alpha", 1, 1.0f));
+        db.insert(UTF8.getBytes("BBBBBBBBBBBB"), row("Beta", 2, 2.0f));
+        assertEquals(1, db.select("name", "alpha").size());
+
+        db.insert(key, row("Gamma", 3, 1.5f));
+        assertTrue(db.select("name", "alpha").isEmpty());
+        final Collection<byte[]> gamma = db.select("name", "gamma");
+        assertEquals(1, gamma.size());
+        assertEquals("AAAAAAAAAAAA", UTF8.String(gamma.iterator().next()));
+
+        db.delete(key);
+        assertTrue(db.select("name", "gamma").isEmpty());
+        assertEquals(1, db.select("name", "beta").size());
+        db.close();
+    }
+
+    /**
+     * the accumulators and the configured index must be restored when the heap is opened again
+     */
+    @Test
+    public void testAccumulators() throws Exception {
+        MapDataMining db = open();
+        db.insert(UTF8.getBytes("AAAAAAAAAAAA"), row("Alpha", 10, 1.5f));
+        db.insert(UTF8.getBytes("BBBBBBBBBBBB"), row("Beta", 20, 2.5f));
+        db.insert(UTF8.getBytes("AAAAAAAAAAAA"), row("Alpha", 5, 0.5f));
+        assertEquals(25, db.getLongAcc("count"));
+        assertEquals(3.0f, db.getFloatAcc("speed"), 0.0001f);
+        assertEquals(-1, db.getLongAcc("unknown"));
+        db.delete(UTF8.getBytes("BBBBBBBBBBBB"));
+        assertEquals(5, db.getLongAcc("count"));
+        assertEquals(0.5f, db.getFloatAcc("speed"), 0.0001f);
+        db.insert(UTF8.getBytes("CCCCCCCCCCCC"), row("Gamma", 7, 1.0f));
+        db.close();
+
+        db = open();
+        assertEquals(12, db.getLongAcc("count"));
+        assertEquals(1.5f, db.getFloatAcc("speed"), 0.0001f);
+        assertEquals(1, db.select("name", "gamma").size());
+        db.clear();
+        assertEquals(0, db.getLongAcc("count"));
+        assertTrue(db.select("name", "gamma").isEmpty());
+        db.close();
+    }
+}
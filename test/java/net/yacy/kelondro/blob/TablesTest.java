@@ -0,0 +1,184 @@
+package net.yacy.kelondro.blob;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.kelondro.util.FileUtils;
+
+public class TablesTest {
+
+    private static final String TABLE = "testtable";
+
+    private File location;
+
+    @Before
+    public void setUp() {
+        this.location = new File(System.getProperty("java.io.tmpdir"), "TablesTest");
+        FileUtils.deletedelete(this.location);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deletedelete(this.location);
+    }
+
+    private static TablesSchema schema() {
+        return new TablesSchema(TablesColumnIndex.INDEXTYPE.RAM)
+                .column("type", TablesSchema.ColumnType.STRING, true)
+                .column("date", TablesSchema.ColumnType.LONG, false);
+    }
+
+    private static void fill(final Tables tables) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            final Tables.Data data = new Tables.Data();
+            data.put("type", i % 3 == 0 ? "crawler" : "steering");
+            data.put("date", 20260000000000000L + (i * 7919) % 100);
+            data.put("comment", "row " + i);
+            tables.insert(TABLE, data);
+        }
+    }
+
+    private static List<String> pks(final Iterator<Tables.Row> i) {
+        final List<String> pks = new ArrayList<String>();
+        while (i.hasNext()) pks.add(UTF8.String(i.next().getPK()));
+        return pks;
+    }
+
+    /**
+     * selections with a schema must return the same rows as the table scan without schema
+     */
+    @Test
+    public void testSelectionPushdown() throws Exception {
+        final Tables plain = new Tables(this.location, 4);
+        fill(plain);
+        final List<String> expectedType = pks(plain.iterator(TABLE, "type", UTF8.getBytes("crawler"), true));
+        final List<String> expectedPattern = pks(plain.iterator(TABLE, "comment", Pattern.compile("row 1.*"), true));
+        plain.close();
+
+        final Tables tables = new Tables(this.location, 4);
+        tables.setSchema(TABLE, schema());
+        assertEquals(34, expectedType.size());
+        assertEquals(expectedType, pks(tables.iterator(TABLE, "type", UTF8.getBytes("crawler"), true)));
+        assertEquals(expectedPattern, pks(tables.iterator(TABLE, "comment", Pattern.compile("row 1.*"), true)));
+        assertTrue(tables.hasIndex(TABLE, "type"));
+
+        // changes must be visible in the store and the index
+        final byte[] pk = UTF8.getBytes(expectedType.get(0));
+        final Tables.Row row = tables.select(TABLE, pk);
+        row.put("type", "deletion");
+        tables.update(TABLE, row);
+        assertEquals(33, pks(tables.iterator(TABLE, "type", UTF8.getBytes("crawler"))).size());
+        assertEquals(1, pks(tables.iterator(TABLE, "type", UTF8.getBytes("deletion"))).size());
+        tables.delete(TABLE, pk);
+        assertEquals(0, pks(tables.iterator(TABLE, "type", UTF8.getBytes("deletion"))).size());
+        tables.close();
+    }
+
+    /**
+     * orderBy with a schema must return the top rows in the same order as the in-memory sort
+     */
+    @Test
+    public void testOrderBy() throws Exception {
+        final Tables tables = new Tables(this.location, 4);
+        fill(tables);
+        final List<String> expected = new ArrayList<String>();
+        for (final Tables.Row row: Tables.orderBy(tables.iterator(TABLE), -1, "date")) expected.add(UTF8.String(row.getPK()));
+        tables.setSchema(TABLE, schema());
+        final List<String> ordered = new ArrayList<String>();
+        for (final Tables.Row row: tables.orderBy(TABLE, -1, "date")) ordered.add(UTF8.String(row.getPK()));
+        assertEquals(expected, ordered);
+        final List<String> top = new ArrayList<String>();
+        for (final Tables.Row row: tables.orderBy(TABLE, 10, "date")) top.add(UTF8.String(row.getPK()));
+        assertEquals(expected.subList(0, 10), top);
+        tables.close();
+    }
+
+    /**
+     * the column store must be persisted on close and reloaded without a table scan
+     */
+    @Test
+    public void testPersistence() throws Exception {
+        Tables tables = new Tables(this.location, 4);
+        tables.setSchema(TABLE, schema());
+        fill(tables);
+        tables.close();
+        final File storeFile = new File(this.location, TABLE + ".ccol");
+        assertTrue(storeFile.exists());
+
+        tables = new Tables(this.location, 4);
+        final TablesColumnStore store = new TablesColumnStore(storeFile, schema());
+        assertTrue(store.load(tables.size(TABLE)));
+        assertFalse(storeFile.exists());
+        assertEquals(100, store.size());
+        store.save();
+
+        tables.setSchema(TABLE, schema());
+        assertNotNull(tables.getColumnStore(TABLE));
+        assertEquals(100, tables.getColumnStore(TABLE).size());
+        assertEquals(34, pks(tables.iterator(TABLE, "type", UTF8.getBytes("crawler"))).size());
+        tables.close();
+    }
+
+    /**
+     * a table which is closed and opened again in the same process keeps its column store
+     */
+    @Test
+    public void testReopen() throws Exception {
+        final Tables tables = new Tables(this.location, 4);
+        tables.setSchema(TABLE, schema());
+        fill(tables);
+        tables.close(TABLE);
+        assertEquals(null, tables.getColumnStore(TABLE));
+        assertEquals(100, tables.size(TABLE));
+        assertNotNull(tables.getColumnStore(TABLE));
+        assertEquals(100, tables.getColumnStore(TABLE).size());
+        assertEquals(34, pks(tables.iterator(TABLE, "type", UTF8.getBytes("crawler"))).size());
+        tables.close();
+    }
+
+    /**
+     * if the column store cannot be written after the heap, the row in the store is set again from the heap
+     */
+    @Test
+    public void testRepairAfterFailedWrite() throws Exception {
+        final Tables tables = new Tables(this.location, 4);
+        tables.setSchema(TABLE, schema());
+        fill(tables);
+        final byte[] pk = tables.keys(TABLE).next();
+        final Map<String, byte[]> map = new HashMap<String, byte[]>() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            public byte[] get(final Object key) {
+                // the heap encodes the entries, only the column store reads single columns
+                throw new IllegalStateException("failure after the heap write");
+            }
+        };
+        map.put("type", UTF8.getBytes("failed"));
+        try {
+            tables.update(TABLE, pk, map);
+            fail();
+        } catch (final IllegalStateException e) {
+        }
+        assertEquals("failed", UTF8.String(tables.select(TABLE, pk).get("type")));
+        assertEquals("failed", UTF8.String(tables.getColumnStore(TABLE).get(pk, "type")));
+        assertEquals(1, pks(tables.iterator(TABLE, "type", UTF8.getBytes("failed"))).size());
+        assertEquals(100, tables.getColumnStore(TABLE).size());
+        tables.close();
+    }
+}
@@ -0,0 +1,94 @@
+// IndexAbstractPerfTest.java
+// first published 2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.data.word;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import net.yacy.cora.order.Base64Order;
+
+/**
+ * Compares the size of the text and the binary format of index abstracts and the time to parse and join the
+ * abstracts of three words with the join of url hash sets, which the secondary search used before.
+ */
+public class IndexAbstractPerfTest {
+
+    private static List<String> urlhashes(final Random random, final List<String> common, final int count, final int hosts) {
+        final List<String> hashes = new ArrayList<String>(common);
+        for (int i = 0; i < count; i++) {
+            final long path = random.nextLong() & ((1L << 36) - 1);
+            final long host = random.nextInt(hosts) * 104729L;
+            hashes.add(Base64Order.enhancedCoder.encodeLongSB(path, 6).toString() + Base64Order.enhancedCoder.encodeLongSB(host, 6).toString());
+        }
+        return hashes;
+    }
+
+    private static TreeSet<String> hashSet(final String text) {
+        final TreeSet<String> set = new TreeSet<String>();
+        for (final String urlhash: IndexAbstract.parse(text)) set.add(urlhash);
+        return set;
+    }
+
+    /**
+     * @param args number of urls per word (default 20000), number of hosts (default 200), repetitions (default 50)
+     */
+    public static void main(final String[] args) {
+        final int urls = args.length >= 1 ? Integer.parseInt(args[0]) : 20000;
+        final int hosts = args.length >= 2 ? Integer.parseInt(args[1]) : 200;
+        final int repetitions = args.length >= 3 ? Integer.parseInt(args[2]) : 50;
+        final Random random = new Random(1);
+        final List<String> common = urlhashes(random, new ArrayList<String>(), urls / 20, hosts);
+        final String[] text = new String[3], binary = new String[3];
+        for (int w = 0; w < 3; w++) {
+            final IndexAbstract a = IndexAbstract.of(urlhashes(random, common, urls / (w + 1), hosts));
+            text[w] = a.toString();
+            binary[w] = a.exportB64();
+            System.out.println("word " + w + ": " + a.size() + " urls, text " + text[w].length() + " chars, binary " + binary[w].length() + " chars");
+        }
+
+        int joined = 0;
+        for (int round = 0; round < 2; round++) {
+            long t = System.nanoTime();
+            for (int r = 0; r < repetitions; r++) {
+                final TreeSet<String> join = hashSet(text[0]);
+                join.retainAll(hashSet(text[1]));
+                join.retainAll(hashSet(text[2]));
+                joined = join.size();
+            }
+            final long sets = (System.nanoTime() - t) / repetitions / 1000;
+            t = System.nanoTime();
+            for (int r = 0; r < repetitions; r++) {
+                joined = IndexAbstract.join(Arrays.asList(IndexAbstract.parse(text[0]), IndexAbstract.parse(text[1]), IndexAbstract.parse(text[2]))).size();
+            }
+            final long abstractsText = (System.nanoTime() - t) / repetitions / 1000;
+            t = System.nanoTime();
+            for (int r = 0; r < repetitions; r++) {
+                joined = IndexAbstract.join(Arrays.asList(IndexAbstract.parse(binary[0]), IndexAbstract.parse(binary[1]), IndexAbstract.parse(binary[2]))).size();
+            }
+            final long abstractsBinary = (System.nanoTime() - t) / repetitions / 1000;
+            System.out.println("join of " + joined + " urls: hash sets " + sets + " us, abstracts from text " + abstractsText + " us, from binary " + abstractsBinary + " us");
+        }
+    }
+}
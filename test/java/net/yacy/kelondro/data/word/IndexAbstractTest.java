@@ -0,0 +1,115 @@
+package net.yacy.kelondro.data.word;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import net.yacy.cora.order.Base64Order;
+
+public class IndexAbstractTest {
+
+    /**
+     * random url hashes on the given number of hosts
+     */
+    private static List<String> urlhashes(final Random random, final int count, final int hosts) {
+        final List<String> hashes = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            final long path = random.nextLong() & ((1L << 36) - 1);
+            final long host = random.nextInt(hosts) * 7919L;
+            hashes.add(Base64Order.enhancedCoder.encodeLongSB(path, 6).toString() + Base64Order.enhancedCoder.encodeLongSB(host, 6).toString());
+        }
+        return hashes;
+    }
+
+    @Test
+    public void testText() {
+        final IndexAbstract a = IndexAbstract.parse("{AAAAAB:pathAAzzzzzz,hostBB:urlAAA}");
+        assertEquals(3, a.size());
+        assertTrue(a.contains("pathAAAAAAAB"));
+        assertTrue(a.contains("zzzzzzAAAAAB"));
+        assertTrue(a.contains("urlAAAhostBB"));
+        assertFalse(a.contains("urlAAAAAAAAB"));
+        assertEquals("{AAAAAB:pathAAzzzzzz,hostBB:urlAAA}", a.toString());
+        assertEquals("{}", IndexAbstract.EMPTY.toString());
+        assertEquals(0, IndexAbstract.parse("{}").size());
+
+        // malformed input
+        assertEquals(0, IndexAbstract.parse("{AAAAAB:pathAA").size());
+        assertEquals(0, IndexAbstract.parse("null").size());
+        assertEquals(1, IndexAbstract.parse("{AAAAAB:pathAAzz}").size()); // an incomplete path is ignored
+    }
+
+    @Test
+    public void testBinary() {
+        final List<String> hashes = urlhashes(new Random(1), 2000, 50);
+        final IndexAbstract a = IndexAbstract.of(hashes);
+        assertEquals(new TreeSet<String>(hashes).size(), a.size());
+        final String b64 = a.exportB64();
+        final IndexAbstract b = IndexAbstract.parse(b64);
+        assertEquals(a.toString(), b.toString());
+        assertEquals(a.toString(), IndexAbstract.load(Base64Order.enhancedCoder.decode(b64)).toString());
+        for (final String hash: hashes) assertTrue(b.contains(hash));
+        assertEquals(a.toString(), IndexAbstract.parse(a.toString()).toString());
+        assertTrue(b64.length() < a.toString().length());
+
+        // damaged binary input is not read
+        final byte[] x = a.export();
+        assertEquals(0, IndexAbstract.load(Arrays.copyOf(x, x.length - 1)).size());
+        assertEquals(0, IndexAbstract.load(Arrays.copyOf(x, x.length + 1)).size());
+        x[0] = 2;
+        assertEquals(0, IndexAbstract.load(x).size());
+        assertEquals(0, IndexAbstract.load(IndexAbstract.EMPTY.export()).size());
+    }
+
+    @Test
+    public void testJoinMerge() {
+        final Random random = new Random(2);
+        final List<String> common = urlhashes(random, 100, 10);
+        final List<String> h1 = new ArrayList<String>(common), h2 = new ArrayList<String>(common), h3 = new ArrayList<String>(common);
+        h1.addAll(urlhashes(random, 500, 10));
+        h2.addAll(urlhashes(random, 3000, 10));
+        h3.addAll(urlhashes(random, 10, 10));
+        final IndexAbstract a1 = IndexAbstract.of(h1), a2 = IndexAbstract.of(h2), a3 = IndexAbstract.of(h3);
+
+        final TreeSet<String> expected = new TreeSet<String>(h1);
+        expected.retainAll(h2);
+        expected.retainAll(h3);
+        final IndexAbstract join = IndexAbstract.join(Arrays.asList(a1, a2, a3));
+        assertEquals(expected.size(), join.size());
+        for (final String hash: expected) assertTrue(join.contains(hash));
+        assertEquals(join.toString(), a3.join(a2).join(a1).toString()); // the small abstract is searched in the large one
+        assertEquals(join.toString(), a1.join(a2).join(a3).toString());
+
+        final TreeSet<String> union = new TreeSet<String>(h1);
+        union.addAll(h3);
+        final IndexAbstract merge = IndexAbstract.merge(Arrays.asList(a1, a3));
+        assertEquals(union.size(), merge.size());
+        for (final String hash: merge) assertTrue(union.contains(hash));
+        assertSame(a1, a1.merge(IndexAbstract.EMPTY));
+
+        assertTrue(a1.intersects(a3));
+        assertFalse(a1.intersects(IndexAbstract.of(urlhashes(new Random(3), 10, 10))));
+        assertEquals(0, a1.join(IndexAbstract.EMPTY).size());
+    }
+
+    @Test
+    public void testHashes() {
+        final List<String> hashes = urlhashes(new Random(4), 20, 3);
+        final IndexAbstract a = IndexAbstract.of(hashes);
+        final String all = a.hashes();
+        assertEquals(a.size() * Word.commonHashLength, all.length());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.urlhash(i), all.substring(i * Word.commonHashLength, (i + 1) * Word.commonHashLength));
+            assertTrue(hashes.contains(a.urlhash(i)));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+// TermSearchPerfTest.java
+// -----------------------
+// part of YaCy
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.rwi;
+
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.storage.HandleSet;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.util.Bitfield;
+
+/**
+ * Compares the join of all loaded term containers with the join starting at the rarest term
+ * on synthetic containers: the number of references of the term with rank r is documents / r,
+ * as in a Zipf distribution of words in a document collection.
+ */
+public class TermSearchPerfTest {
+
+    private static final ReferenceFactory<WordReference> factory = new WordReferenceFactory();
+
+    private static ReferenceContainer<WordReference> zipfContainer(final int rank, final int documents, final Random random) throws Exception {
+        final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(factory, Word.word2hash("rank" + rank));
+        final double p = 1.0d / rank;
+        for (int doc = 0; doc < documents; doc++) {
+            if (random.nextDouble() >= p) continue;
+            final Queue<Integer> positions = new LinkedBlockingQueue<Integer>();
+            positions.add(random.nextInt(100) + 1);
+            container.add(new WordReferenceVars(Base64Order.enhancedCoder.encodeLongBA(doc, Word.commonHashLength), 30, 3, 0, 1, 100, 10,
+                    positions.peek(), positions, 1, 1, 0, "en", Response.DT_TEXT, 0, 0, new Bitfield(4), 0.0d));
+        }
+        container.sort();
+        return container;
+    }
+
+    private static HandleSet hashes(final int... ranks) throws Exception {
+        final HandleSet set = new RowHandleSet(Word.commonHashLength, Base64Order.enhancedCoder, ranks.length);
+        for (final int rank: ranks) set.put(Word.word2hash("rank" + rank));
+        return set;
+    }
+
+    /**
+     * @param args number of documents (default 500000) and number of repetitions per query (default 20)
+     */
+    public static void main(final String[] args) throws Exception {
+        final int documents = args.length >= 1 ? Integer.parseInt(args[0]) : 500000;
+        final int repetitions = args.length >= 2 ? Integer.parseInt(args[1]) : 20;
+        try {
+            final Random random = new Random(1);
+            final ReferenceContainerCache<WordReference> index = new ReferenceContainerCache<WordReference>(factory, Base64Order.enhancedCoder, Word.commonHashLength);
+            for (final int rank: new int[] {1, 2, 3, 10, 100, 1000, 10000}) {
+                index.add(zipfContainer(rank, documents, random));
+                System.out.println("term rank " + rank + ": " + index.count(Word.word2hash("rank" + rank)) + " references");
+            }
+
+            final int[][][] queries = new int[][][] {
+                {{1, 10000}, {}},
+                {{1, 1000}, {}},
+                {{2, 100}, {}},
+                {{1, 2, 1000}, {}},
+                {{2, 10}, {3}},
+                {{1, 2}, {10000}},
+            };
+            for (final int[][] query: queries) {
+                final HandleSet include = hashes(query[0]);
+                final HandleSet exclude = hashes(query[1]);
+                long loadedTime = 0, streamedTime = 0;
+                int loadedCount = 0, streamedCount = 0;
+                for (int r = 0; r < repetitions; r++) {
+                    long start = System.nanoTime();
+                    loadedCount = index.query(include, exclude, null, factory, Integer.MAX_VALUE, true).joined().size();
+                    loadedTime += System.nanoTime() - start;
+                    start = System.nanoTime();
+                    streamedCount = index.query(include, exclude, null, factory, Integer.MAX_VALUE, false).joined().size();
+                    streamedTime += System.nanoTime() - start;
+                }
+                final StringBuilder name = new StringBuilder();
+                for (final int rank: query[0]) name.append(" +rank").append(rank);
+                for (final int rank: query[1]) name.append(" -rank").append(rank);
+                System.out.println("query" + name + ": " + loadedCount + "/" + streamedCount + " results; join of loaded containers "
+                        + TimeUnit.NANOSECONDS.toMicros(loadedTime / repetitions) + " µs, rarest first "
+                        + TimeUnit.NANOSECONDS.toMicros(streamedTime / repetitions) + " µs");
+            }
+        } finally {
+            ConcurrentLog.shutdown();
+        }
+    }
+}
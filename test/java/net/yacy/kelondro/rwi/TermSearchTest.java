@@ -0,0 +1,110 @@
+package net.yacy.kelondro.rwi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.storage.HandleSet;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.util.Bitfield;
+
+public class TermSearchTest {
+
+    private static final ReferenceFactory<WordReference> factory = new WordReferenceFactory();
+
+    private static WordReferenceVars reference(final int doc) {
+        final Queue<Integer> positions = new LinkedBlockingQueue<Integer>();
+        positions.add(doc % 17 + 1);
+        return new WordReferenceVars(Base64Order.enhancedCoder.encodeLongBA(doc, Word.commonHashLength), 30, 3, 0, 1, 100, 10,
+                doc % 17 + 1, positions, 1, 1, 0, "en", Response.DT_TEXT, 0, 0, new Bitfield(4), 0.0d);
+    }
+
+    /**
+     * a container with references to all documents in [0, docs) which are multiples of the given step, in random order
+     */
+    private static ReferenceContainer<WordReference> container(final String word, final int docs, final int step) throws Exception {
+        final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(factory, Word.word2hash(word));
+        for (int doc = docs - docs % step; doc >= 0; doc -= step) if (doc < docs) container.add(reference(doc));
+        return container;
+    }
+
+    private static List<String> keys(final ReferenceContainer<WordReference> container) {
+        final List<String> keys = new ArrayList<String>();
+        if (container == null) return keys;
+        container.sort();
+        final Iterator<WordReference> i = container.entries();
+        while (i.hasNext()) keys.add(ASCII.String(i.next().urlhash()));
+        return keys;
+    }
+
+    private static HandleSet hashes(final String... words) throws Exception {
+        final HandleSet set = new RowHandleSet(Word.commonHashLength, Base64Order.enhancedCoder, words.length);
+        for (final String word: words) set.put(Word.word2hash(word));
+        return set;
+    }
+
+    @Test
+    public void testGallop() throws Exception {
+        final ReferenceContainer<WordReference> c = container("seven", 1000, 7);
+        c.sort();
+        int p = 0;
+        for (int doc = 0; doc < 1000; doc++) {
+            final int q = c.gallop(Base64Order.enhancedCoder.encodeLongBA(doc, Word.commonHashLength), p);
+            if (doc % 7 == 0) {
+                assertEquals(doc / 7, q);
+                p = q + 1;
+            } else {
+                assertTrue(q < 0);
+                assertEquals(doc / 7 + 1, -q - 1);
+                p = -q - 1;
+            }
+        }
+    }
+
+    /**
+     * the join starting with the rarest term must return the same references as the join of all loaded containers
+     */
+    @Test
+    public void testJoinRarestFirst() throws Exception {
+        final ReferenceContainerCache<WordReference> index = new ReferenceContainerCache<WordReference>(factory, Base64Order.enhancedCoder, Word.commonHashLength);
+        index.add(container("two", 5000, 2));
+        index.add(container("three", 5000, 3));
+        index.add(container("fivehundred", 5000, 500));
+        index.add(container("seven", 5000, 7));
+        index.add(container("eleven", 5000, 11));
+
+        final String[][][] queries = new String[][][] {
+            {{"two", "three"}, {}},
+            {{"two", "three", "fivehundred"}, {"seven"}},
+            {{"three", "two"}, {"seven", "eleven"}},
+            {{"fivehundred"}, {"three"}},
+            {{"two", "unknown"}, {}},
+            {{"two"}, {"unknown"}},
+        };
+        for (final String[][] query: queries) {
+            final TermSearch<WordReference> loaded = index.query(hashes(query[0]), hashes(query[1]), null, factory, Integer.MAX_VALUE, true);
+            final TermSearch<WordReference> streamed = index.query(hashes(query[0]), hashes(query[1]), null, factory, Integer.MAX_VALUE, false);
+            assertEquals(keys(loaded.joined()), keys(streamed.joined()));
+            assertTrue(streamed.inclusion().isEmpty());
+        }
+        // the index must not be changed by an exclusion
+        assertEquals(10, index.count(Word.word2hash("fivehundred")));
+        final List<String> expected = keys(ReferenceContainer.joinConstructive(factory, container("two", 5000, 2), container("fivehundred", 5000, 500), Integer.MAX_VALUE));
+        assertEquals(expected, keys(ReferenceContainer.joinGalloping(factory, container("fivehundred", 5000, 500), container("two", 5000, 2), Integer.MAX_VALUE)));
+        assertEquals(expected, keys(ReferenceContainer.joinGalloping(factory, container("two", 5000, 2), container("fivehundred", 5000, 500), Integer.MAX_VALUE)));
+    }
+}
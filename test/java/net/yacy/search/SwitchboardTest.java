@@ -0,0 +1,60 @@
+package net.yacy.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.util.JSONException;
+import net.yacy.search.schema.CollectionSchema;
+
+public class SwitchboardTest {
+
+    @Test
+    public void testFlatjson2solr() throws IOException {
+        final SolrInputDocument doc = Switchboard.flatjson2solr(
+                "{\"url_s\":\"http://example.com/page.html\",\"title\":[\"Example\"],\"text_t\":\"some text\","
+                + "\"inboundlinks_sxt\":[\"http://example.com/a\",\"https://example.com/b\"]}");
+        final String id = ASCII.String(new DigestURL("http://example.com/page.html").hash());
+        assertEquals("http://example.com/page.html", doc.getFieldValue(CollectionSchema.sku.getSolrFieldName()));
+        assertEquals(id, doc.getFieldValue(CollectionSchema.id.getSolrFieldName()));
+        assertEquals(id.substring(6), doc.getFieldValue(CollectionSchema.host_id_s.getSolrFieldName()));
+        assertEquals("some text", doc.getFieldValue(CollectionSchema.text_t.getSolrFieldName()));
+        assertEquals(Arrays.asList("Example"), doc.getFieldValues(CollectionSchema.title.getSolrFieldName()));
+        assertEquals(Arrays.asList("example.com/a", "example.com/b"), doc.getFieldValues(CollectionSchema.inboundlinks_urlstub_sxt.getSolrFieldName()));
+        assertEquals(Arrays.asList("http", "https"), doc.getFieldValues(CollectionSchema.inboundlinks_protocol_sxt.getSolrFieldName()));
+    }
+
+    @Test
+    public void testFlatjson2solrIndexAction() throws IOException {
+        assertNull(Switchboard.flatjson2solr("{\"index\":{\"_id\":\"AAAAAAAAAAAA\"}}"));
+        assertNull(Switchboard.flatjson2solr("{}"));
+    }
+
+    /**
+     * link list elements which are not strings or no valid urls are skipped, the document is kept
+     */
+    @Test
+    public void testFlatjson2solrMalformedLinks() throws IOException {
+        final SolrInputDocument doc = Switchboard.flatjson2solr(
+                "{\"url_s\":\"http://example.com/\","
+                + "\"outboundlinks_sxt\":[\"http://other.com/x\",42,null,{\"a\":1},\"::no url::\"],"
+                + "\"images_sxt\":[[\"http://example.com/i.png\"]]}");
+        final Collection<Object> urlstubs = doc.getFieldValues(CollectionSchema.outboundlinks_urlstub_sxt.getSolrFieldName());
+        assertEquals(Arrays.asList("other.com/x"), urlstubs);
+        assertEquals(Arrays.asList("http"), doc.getFieldValues(CollectionSchema.outboundlinks_protocol_sxt.getSolrFieldName()));
+        assertEquals(0, doc.getFieldValues(CollectionSchema.images_urlstub_sxt.getSolrFieldName()).size());
+    }
+
+    @Test(expected = JSONException.class)
+    public void testFlatjson2solrMalformedLine() throws IOException {
+        Switchboard.flatjson2solr("{\"url_s\":");
+    }
+}
@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.util.Map;
+import net.yacy.cora.document.TermDictionary;
 import net.yacy.cora.document.WordCache;
 import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.id.DigestURL;
@@ -24,6 +25,15 @@ import net.yacy.kelondro.rwi.TermSearch;
 import net.yacy.kelondro.util.Bitfield;
 import net.yacy.search.query.QueryGoal;
 
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.store.RAMDirectory;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -73,6 +83,41 @@ public class SegmentTest {
         ConcurrentLog.shutdown();
     }
 
+    /**
+     * Test of seedTermDictionary method, of class Segment.
+     */
+    @Test
+    public void testSeedTermDictionary() throws IOException {
+        final RAMDirectory directory = new RAMDirectory();
+        final IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new WhitespaceAnalyzer()));
+        for (final String text: new String[]{"search engine peer", "search engine 2018", "search peers", "search"}) {
+            final org.apache.lucene.document.Document doc = new org.apache.lucene.document.Document();
+            doc.add(new TextField("text_t", text, Field.Store.NO));
+            writer.addDocument(doc);
+        }
+        writer.close();
+        final DirectoryReader reader = DirectoryReader.open(directory);
+        try {
+            final Terms terms = MultiFields.getTerms(reader, "text_t");
+            final TermDictionary dictionary = new TermDictionary(100);
+            dictionary.inc("engine"); // counted when the document was stored
+            assertEquals(1, Segment.seedTermDictionary(dictionary, terms, 100));
+            assertEquals(4, dictionary.get("search"));
+            assertEquals(2, dictionary.get("engine"));
+            assertEquals(1, dictionary.get("peers"));
+            assertEquals(0, dictionary.get("2018"));
+
+            // a small dictionary gets the most frequent words
+            final TermDictionary small = new TermDictionary(2);
+            assertEquals(2, Segment.seedTermDictionary(small, terms, 2));
+            assertEquals(2, small.size());
+            assertEquals(4, small.get("search"));
+            assertEquals(0, small.get("peers"));
+        } finally {
+            reader.close();
+        }
+    }
+
     /**
      * Test of clear method (for RWI), of class Segment.
      */
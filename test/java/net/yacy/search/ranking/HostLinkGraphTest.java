@@ -0,0 +1,86 @@
+package net.yacy.search.ranking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HostLinkGraphTest {
+
+    /**
+     * compute the citation rank of a graph given as adjacency matrix in the straightforward way
+     */
+    private static double[] naiveCitationRank(final boolean[][] links, final int[] outlinks, final double damping, final int steps) {
+        final int n = outlinks.length;
+        double[] cr = new double[n];
+        for (int i = 0; i < n; i++) cr[i] = 1.0d / n;
+        for (int step = 0; step < steps; step++) {
+            final double[] ncr = new double[n];
+            for (int target = 0; target < n; target++) {
+                double sum = 0.0d;
+                for (int source = 0; source < n; source++) {
+                    if (links[source][target] && outlinks[source] > 0) sum += cr[source] / outlinks[source];
+                }
+                ncr[target] = (1.0d - damping) / n + damping * sum;
+            }
+            cr = ncr;
+        }
+        return cr;
+    }
+
+    @Test
+    public void testBuild() {
+        final HostLinkGraph.Builder builder = new HostLinkGraph.Builder();
+        assertEquals(0, builder.addDocument("a", 2));
+        assertEquals(1, builder.addDocument("b", 1));
+        assertEquals(2, builder.addDocument("c", 0));
+        assertEquals(1, builder.addDocument("b", 1));
+        assertEquals(-1, builder.ordinal("d"));
+        builder.addLink(0, 1);
+        builder.addLink(0, 2);
+        builder.addLink(1, 2);
+        builder.addLink(0, 2); // double
+        final HostLinkGraph graph = builder.build();
+        assertEquals(3, graph.size());
+        assertEquals(3, graph.links());
+        assertEquals("c", graph.id(2));
+    }
+
+    @Test
+    public void testCitationRank() {
+        final Random random = new Random(1);
+        final int n = 200;
+        final boolean[][] links = new boolean[n][n];
+        final int[] outlinks = new int[n];
+        final HostLinkGraph.Builder builder = new HostLinkGraph.Builder();
+        for (int i = 0; i < n; i++) builder.addDocument("doc" + i, 0);
+        for (int i = 0; i < n * 5; i++) {
+            final int source = random.nextInt(n);
+            final int target = random.nextInt(n);
+            builder.addLink(source, target);
+            links[source][target] = true;
+        }
+        final HostLinkGraph.Builder counted = new HostLinkGraph.Builder();
+        for (int source = 0; source < n; source++) {
+            for (int target = 0; target < n; target++) if (links[source][target]) outlinks[source]++;
+            counted.addDocument("doc" + source, outlinks[source]);
+        }
+        for (int source = 0; source < n; source++) {
+            for (int target = 0; target < n; target++) if (links[source][target]) counted.addLink(source, target);
+        }
+        final HostLinkGraph graph = counted.build();
+        final double[] cr = graph.citationRank(0.85d, 12, 20);
+        final double[] expected = naiveCitationRank(links, outlinks, 0.85d, 20);
+        for (int i = 0; i < n; i++) assertEquals(expected[i], cr[i], 1e-12);
+
+        // documents without known outgoing links do not contribute
+        final double[] uniform = builder.build().citationRank(0.85d, 6, 30);
+        for (int i = 0; i < n; i++) assertEquals(0.15d / n, uniform[i], 1e-12);
+
+        // convergence ends the iteration before the step limit
+        final double[] converged = graph.citationRank(0.85d, 3, 1000);
+        for (int i = 0; i < n; i++) assertTrue(Math.abs(converged[i] - expected[i]) < 1e-3);
+    }
+}
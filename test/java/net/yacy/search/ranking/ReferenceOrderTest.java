@@ -3,12 +3,27 @@ package net.yacy.search.ranking;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import net.yacy.cora.document.analysis.Classification;
 import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.document.Tokenizer;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.data.word.WordReferenceRow;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.util.Bitfield;
 import net.yacy.search.schema.CollectionConfiguration;
 import org.apache.solr.common.SolrInputDocument;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -49,4 +64,35 @@ public class ReferenceOrderTest {
 
     }
 
+    /**
+     * Test of cardinalUpperBound, of class ReferenceOrder: the bound must never be below the
+     * normalized ranking of any entry.
+     */
+    @Test
+    public void testCardinalUpperBound() throws SpaceExceededException, InterruptedException {
+        final RankingProfile profile = new RankingProfile(Classification.ContentDomain.IMAGE);
+        final ReferenceOrder order = new ReferenceOrder(profile, "en");
+        final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(new WordReferenceFactory(), Word.word2hash("test"));
+        final Random random = new Random(0);
+        for (int doc = 0; doc < 1000; doc++) {
+            final Queue<Integer> positions = new LinkedBlockingQueue<Integer>();
+            positions.add(random.nextInt(1000) + 1);
+            final Bitfield flags = new Bitfield(4);
+            if (random.nextBoolean()) flags.set(WordReferenceRow.flag_app_dc_title, true);
+            if (random.nextBoolean()) flags.set(Tokenizer.flag_cat_hasimage, true);
+            container.add(new WordReferenceVars(Base64Order.enhancedCoder.encodeLongBA(doc, Word.commonHashLength),
+                    10 + random.nextInt(200), 1 + random.nextInt(10), random.nextInt(20), 1 + random.nextInt(10), 10 + random.nextInt(5000), 1 + random.nextInt(200),
+                    positions.peek(), positions, random.nextInt(20), random.nextInt(200), random.nextInt(100000), random.nextBoolean() ? "en" : "de",
+                    Response.DT_TEXT, random.nextInt(50), random.nextInt(50), flags, random.nextDouble()));
+        }
+        final BlockingQueue<WordReferenceVars> normalized = order.normalizeWith(container, Long.MAX_VALUE, true);
+        WordReferenceVars entry;
+        int count = 0;
+        while ((entry = normalized.take()) != WordReferenceVars.poison) {
+            assertTrue("upper bound below ranking", order.cardinal(entry) <= order.cardinalUpperBound(entry));
+            count++;
+        }
+        assertEquals(container.size(), count);
+    }
+
 }
@@ -0,0 +1,98 @@
+package net.yacy.search.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+public class DoubleContentGroupsTest {
+
+    private static CollectionConfiguration configuration() throws IOException {
+        // enable the copy count fields in a copy of the default schema, the default file must not be changed
+        final File schema = File.createTempFile("solr.collection", ".schema");
+        schema.deleteOnExit();
+        Files.copy(new File("defaults/solr.collection.schema").toPath(), schema.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        final CollectionConfiguration configuration = new CollectionConfiguration(schema, true);
+        configuration.add(CollectionSchema.exact_signature_copycount_i.getSolrFieldName());
+        configuration.add(CollectionSchema.fuzzy_signature_copycount_i.getSolrFieldName());
+        configuration.add(CollectionSchema.robots_i.getSolrFieldName());
+        configuration.add(CollectionSchema.title_exact_signature_l.getSolrFieldName());
+        configuration.add(CollectionSchema.title_unique_b.getSolrFieldName());
+        return configuration;
+    }
+
+    private static SolrDocument doc(final String id, final int httpstatus, final long exact, final long fuzzy, final long title) {
+        final SolrDocument doc = new SolrDocument();
+        doc.setField(CollectionSchema.id.getSolrFieldName(), id);
+        doc.setField(CollectionSchema.sku.getSolrFieldName(), "http://example.org/" + id);
+        doc.setField(CollectionSchema.host_id_s.getSolrFieldName(), "hostid");
+        doc.setField(CollectionSchema.httpstatus_i.getSolrFieldName(), httpstatus);
+        doc.setField(CollectionSchema.exact_signature_l.getSolrFieldName(), exact);
+        doc.setField(CollectionSchema.fuzzy_signature_l.getSolrFieldName(), fuzzy);
+        doc.setField(CollectionSchema.title_exact_signature_l.getSolrFieldName(), title);
+        doc.setField(CollectionSchema.exact_signature_unique_b.getSolrFieldName(), true);
+        doc.setField(CollectionSchema.exact_signature_copycount_i.getSolrFieldName(), 1);
+        doc.setField(CollectionSchema.fuzzy_signature_unique_b.getSolrFieldName(), true);
+        doc.setField(CollectionSchema.fuzzy_signature_copycount_i.getSolrFieldName(), 1);
+        return doc;
+    }
+
+    @Test
+    public void testHost() throws IOException {
+        final CollectionConfiguration configuration = configuration();
+        final DoubleContentGroups groups = new DoubleContentGroups(configuration);
+        final List<SolrDocument> docs = new ArrayList<SolrDocument>();
+        docs.add(doc("a", 200, 1, 10, 100)); // first of exact group 1, stored in index
+        docs.add(doc("b", 200, 1, 10, 101)); // copy of a
+        docs.add(doc("c", 404, 1, 11, 100)); // not indexable, signature of a
+        docs.add(doc("d", 200, 2, 10, 102)); // unique exact signature, fuzzy copy of a and b
+        final Collection<SolrInputDocument> updates = groups.host(docs, new HashSet<String>(Arrays.asList("b", "c", "d")));
+        assertEquals(3, groups.size());
+
+        // a is not postprocessed but its copy count changes
+        assertEquals(1, updates.size());
+        final SolrInputDocument a = updates.iterator().next();
+        assertEquals("a", a.getFieldValue(CollectionSchema.id.getSolrFieldName()));
+        assertEquals(Boolean.TRUE, a.getFieldValue(CollectionSchema.exact_signature_unique_b.getSolrFieldName()));
+        assertEquals(2, a.getFieldValue(CollectionSchema.exact_signature_copycount_i.getSolrFieldName()));
+        assertEquals(3, a.getFieldValue(CollectionSchema.fuzzy_signature_copycount_i.getSolrFieldName()));
+
+        SolrInputDocument sid = new SolrInputDocument();
+        assertTrue(groups.apply("b", sid));
+        assertEquals(Boolean.FALSE, sid.getFieldValue(CollectionSchema.exact_signature_unique_b.getSolrFieldName()));
+        assertEquals(2, sid.getFieldValue(CollectionSchema.exact_signature_copycount_i.getSolrFieldName()));
+        assertEquals(Boolean.FALSE, sid.getFieldValue(CollectionSchema.fuzzy_signature_unique_b.getSolrFieldName()));
+        assertEquals(3, sid.getFieldValue(CollectionSchema.fuzzy_signature_copycount_i.getSolrFieldName()));
+        assertEquals(Boolean.TRUE, sid.getFieldValue(CollectionSchema.title_unique_b.getSolrFieldName()));
+        assertFalse(groups.apply("b", sid));
+
+        sid = new SolrInputDocument();
+        assertTrue(groups.apply("c", sid));
+        assertEquals(Boolean.FALSE, sid.getFieldValue(CollectionSchema.exact_signature_unique_b.getSolrFieldName()));
+        assertEquals(3, sid.getFieldValue(CollectionSchema.exact_signature_copycount_i.getSolrFieldName()));
+        assertEquals(Boolean.TRUE, sid.getFieldValue(CollectionSchema.fuzzy_signature_unique_b.getSolrFieldName()));
+        assertEquals(1, sid.getFieldValue(CollectionSchema.fuzzy_signature_copycount_i.getSolrFieldName()));
+        assertEquals(null, sid.getFieldValue(CollectionSchema.title_unique_b.getSolrFieldName())); // not written for status 404
+
+        sid = new SolrInputDocument();
+        assertTrue(groups.apply("d", sid));
+        assertEquals(Boolean.TRUE, sid.getFieldValue(CollectionSchema.exact_signature_unique_b.getSolrFieldName()));
+        assertEquals(1, sid.getFieldValue(CollectionSchema.exact_signature_copycount_i.getSolrFieldName()));
+        assertEquals(Boolean.FALSE, sid.getFieldValue(CollectionSchema.fuzzy_signature_unique_b.getSolrFieldName()));
+
+        assertFalse(groups.apply("a", new SolrInputDocument()));
+    }
+}